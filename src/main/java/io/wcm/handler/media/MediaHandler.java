@@ -19,6 +19,9 @@
  */
 package io.wcm.handler.media;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.apache.sling.api.resource.Resource;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -117,6 +120,24 @@ public interface MediaHandler {
   @NotNull
   MediaBuilder get(@NotNull MediaRequest mediaRequest);
 
+  /**
+   * Prepares resolving the given media requests, e.g. by fetching metadata of remote assets for all of them in parallel.
+   * Call this before resolving the media requests one by one, e.g. for all media references of a page before its
+   * components are rendered, to avoid sequential remote calls during rendering.
+   * @param mediaRequests Media requests
+   */
+  void prefetch(@NotNull Collection<MediaRequest> mediaRequests);
+
+  /**
+   * Resolves the given media requests in a batch. Compared to resolving them one by one, the media requests are
+   * prefetched grouped by media source (see {@link #prefetch(Collection)}), and data like the rendition index of an
+   * asset referenced by multiple media requests is shared.
+   * @param mediaRequests Media requests
+   * @return Resolved media, in the order of the given media requests
+   */
+  @NotNull
+  List<Media> getAll(@NotNull Collection<MediaRequest> mediaRequests);
+
   /**
    * Checks if the given HTML element is valid.
    * It is treated as invalid if it is null, or if it e.g. contains only a dummy image (depending on markup builder).
@@ -66,6 +66,7 @@ public final class MediaFormat implements Comparable<MediaFormat> {
   private final boolean internal;
   private final int ranking;
   private final ValueMap properties;
+  private final double effectiveRatio;
   private String ratioDisplayString;
   private String combinedTitle;
 
@@ -96,6 +97,7 @@ public final class MediaFormat implements Comparable<MediaFormat> {
     this.internal = internal;
     this.ranking = ranking;
     this.properties = properties;
+    this.effectiveRatio = calculateRatio();
   }
 
   /**
@@ -214,6 +216,10 @@ public final class MediaFormat implements Comparable<MediaFormat> {
    */
   @JsonIgnore
   public double getRatio() {
+    return this.effectiveRatio;
+  }
+
+  private double calculateRatio() {
 
     // get ratio from media format definition
     if (this.ratio > 0) {
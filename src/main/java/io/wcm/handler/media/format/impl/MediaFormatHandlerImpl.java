@@ -21,8 +21,7 @@ package io.wcm.handler.media.format.impl;
 
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -36,7 +35,6 @@ import org.apache.sling.models.annotations.injectorspecific.SlingObject;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import io.wcm.handler.media.MediaFileType;
 import io.wcm.handler.media.format.MediaFormat;
 import io.wcm.handler.media.format.MediaFormatHandler;
 import io.wcm.handler.media.format.MediaFormatProviderManager;
@@ -57,25 +55,24 @@ public final class MediaFormatHandlerImpl implements MediaFormatHandler {
   @OSGiService
   private MediaFormatProviderManager mediaFormatProviderManager;
 
-  // do not access directly - used for caching. use getMediaFormatsForCurrentResource() and getMediaFormatMap() instead
-  private SortedSet<MediaFormat> mediaFormats;
-  private Map<String, MediaFormat> mediaFormatMap;
+  // do not access directly - used for caching. use getMediaFormatIndex() instead
+  private MediaFormatIndex mediaFormatIndex;
 
-  private SortedSet<MediaFormat> getMediaFormatsForCurrentResource() {
-    if (this.mediaFormats == null) {
-      this.mediaFormats = mediaFormatProviderManager.getMediaFormats(currentResource);
+  private MediaFormatIndex getMediaFormatIndex() {
+    if (this.mediaFormatIndex == null) {
+      if (mediaFormatProviderManager instanceof MediaFormatProviderManagerImpl) {
+        // shared index cached in media format provider manager
+        this.mediaFormatIndex = ((MediaFormatProviderManagerImpl)mediaFormatProviderManager).getMediaFormatIndex(currentResource);
+      }
+      else {
+        this.mediaFormatIndex = new MediaFormatIndex(mediaFormatProviderManager.getMediaFormats(currentResource));
+      }
     }
-    return this.mediaFormats;
+    return this.mediaFormatIndex;
   }
 
-  private Map<String, MediaFormat> getMediaFormatMap() {
-    if (this.mediaFormatMap == null) {
-      this.mediaFormatMap = new HashMap<>();
-      for (MediaFormat mediaFormat : getMediaFormatsForCurrentResource()) {
-        this.mediaFormatMap.put(mediaFormat.getName(), mediaFormat);
-      }
-    }
-    return this.mediaFormatMap;
+  private SortedSet<MediaFormat> getMediaFormatsForCurrentResource() {
+    return getMediaFormatIndex().getMediaFormats();
   }
 
   /**
@@ -85,7 +82,7 @@ public final class MediaFormatHandlerImpl implements MediaFormatHandler {
    */
   @Override
   public MediaFormat getMediaFormat(@NotNull String mediaFormatName) {
-    return getMediaFormatMap().get(mediaFormatName);
+    return getMediaFormatIndex().getMediaFormat(mediaFormatName);
   }
 
   /**
@@ -129,7 +126,10 @@ public final class MediaFormatHandlerImpl implements MediaFormatHandler {
       matchingFormats.add(mediaFormatRequested);
     }
     else {
-      for (MediaFormat mediaFormat : getMediaFormats()) {
+      MediaFormatIndex index = getMediaFormatIndex();
+      long widthRequested = MediaFormatIndex.getEffectiveMinWidthPreferringMinWidthHeight(mediaFormatRequested);
+      long heightRequested = MediaFormatIndex.getEffectiveMinHeightPreferringMinWidthHeight(mediaFormatRequested);
+      for (MediaFormat mediaFormat : index.getSameBiggerCandidates(widthRequested, heightRequested)) {
 
         // if filter by rendition group is enabled, check only media formats of same rendition group
         if (!filterRenditionGroup
@@ -144,7 +144,7 @@ public final class MediaFormatHandlerImpl implements MediaFormatHandler {
                 || !mediaFormat.hasRatio() || !mediaFormatRequested.hasRatio()) {
 
               // check for supported file extension
-              if (isRenditionMatchExtension(mediaFormat)) { //NOPMD
+              if (index.hasImageExtension(mediaFormat)) { //NOPMD
                 matchingFormats.add(mediaFormat);
               }
             }
@@ -179,7 +179,10 @@ public final class MediaFormatHandlerImpl implements MediaFormatHandler {
       matchingFormats.add(mediaFormatRequested);
     }
     else {
-      for (MediaFormat mediaFormat : getMediaFormats()) {
+      MediaFormatIndex index = getMediaFormatIndex();
+      long widthRequested = MediaFormatIndex.getEffectiveMinWidthPreferringMinWidthHeight(mediaFormatRequested);
+      long heightRequested = MediaFormatIndex.getEffectiveMinHeightPreferringMinWidthHeight(mediaFormatRequested);
+      for (MediaFormat mediaFormat : index.getSameSmallerCandidates(widthRequested, heightRequested)) {
 
         // if filter by rendition group is enabled, check only media formats of same rendition group
         if (!filterRenditionGroup
@@ -194,7 +197,7 @@ public final class MediaFormatHandlerImpl implements MediaFormatHandler {
                 || !mediaFormat.hasRatio() || !mediaFormatRequested.hasRatio()) {
 
               // check for supported file extension
-              if (isRenditionMatchExtension(mediaFormat)) { //NOPMD
+              if (index.hasImageExtension(mediaFormat)) { //NOPMD
                 matchingFormats.add(mediaFormat);
               }
             }
@@ -216,8 +219,8 @@ public final class MediaFormatHandlerImpl implements MediaFormatHandler {
    * @return true if media format is same size or bigger
    */
   private boolean isRenditionMatchSizeSameBigger(MediaFormat mediaFormat, MediaFormat mediaFormatRequested) {
-    long widthRequested = getEffectiveMinWidthPreferringMinWidthHeight(mediaFormatRequested);
-    long heightRequested = getEffectiveMinHeightPreferringMinWidthHeight(mediaFormatRequested);
+    long widthRequested = MediaFormatIndex.getEffectiveMinWidthPreferringMinWidthHeight(mediaFormatRequested);
+    long heightRequested = MediaFormatIndex.getEffectiveMinHeightPreferringMinWidthHeight(mediaFormatRequested);
 
     long widthMax = mediaFormat.getEffectiveMaxWidth();
     long heightMax = mediaFormat.getEffectiveMaxHeight();
@@ -233,47 +236,15 @@ public final class MediaFormatHandlerImpl implements MediaFormatHandler {
    * @return true if media format is same size or smaller
    */
   private boolean isRenditionMatchSizeSameSmaller(MediaFormat mediaFormat, MediaFormat mediaFormatRequested) {
-    long widthRequested = getEffectiveMinWidthPreferringMinWidthHeight(mediaFormatRequested);
-    long heightRequested = getEffectiveMinHeightPreferringMinWidthHeight(mediaFormatRequested);
+    long widthRequested = MediaFormatIndex.getEffectiveMinWidthPreferringMinWidthHeight(mediaFormatRequested);
+    long heightRequested = MediaFormatIndex.getEffectiveMinHeightPreferringMinWidthHeight(mediaFormatRequested);
 
-    long widthMin = getEffectiveMinWidthPreferringMinWidthHeight(mediaFormat);
-    long heightMin = getEffectiveMinHeightPreferringMinWidthHeight(mediaFormat);
+    long widthMin = MediaFormatIndex.getEffectiveMinWidthPreferringMinWidthHeight(mediaFormat);
+    long heightMin = MediaFormatIndex.getEffectiveMinHeightPreferringMinWidthHeight(mediaFormat);
 
     return widthMin <= widthRequested && heightMin <= heightRequested;
   }
 
-  private long getEffectiveMinWidthPreferringMinWidthHeight(MediaFormat mf) {
-    if (mf.getMinWidthHeight() > 0) {
-      return mf.getMinWidthHeight();
-    }
-    else {
-      return mf.getEffectiveMinWidth();
-    }
-  }
-
-  private long getEffectiveMinHeightPreferringMinWidthHeight(MediaFormat mf) {
-    if (mf.getMinWidthHeight() > 0) {
-      return mf.getMinWidthHeight();
-    }
-    else {
-      return mf.getEffectiveMinHeight();
-    }
-  }
-
-  /**
-   * Checks if one of the extensions of the given media format are supported for renditions.
-   * @param mediaFormat Media format
-   * @return true if supported extension found
-   */
-  private boolean isRenditionMatchExtension(MediaFormat mediaFormat) {
-    for (String extension : mediaFormat.getExtensions()) {
-      if (MediaFileType.isImage(extension)) {
-        return true;
-      }
-    }
-    return false;
-  }
-
   /**
    * Detect matching media format.
    * @param extension File extension
@@ -303,7 +274,17 @@ public final class MediaFormatHandlerImpl implements MediaFormatHandler {
     // sort media formats by ranking
     SortedSet<MediaFormat> matchingFormats = new TreeSet<>(new MediaFormatRankingComparator());
 
-    for (MediaFormat mediaFormat : getMediaFormats()) {
+    // check only media formats with matching extension, or matching ratio if this results in less candidates
+    MediaFormatIndex index = getMediaFormatIndex();
+    List<MediaFormat> candidates = index.getExtensionCandidates(extension);
+    if (width > 0 && height > 0) {
+      List<MediaFormat> ratioCandidates = index.getRatioCandidates((double)width / height);
+      if (ratioCandidates.size() < candidates.size()) {
+        candidates = ratioCandidates;
+      }
+    }
+
+    for (MediaFormat mediaFormat : candidates) {
 
       // skip media formats with negative ranking
       if (mediaFormat.getRanking() < 0) {
@@ -311,18 +292,7 @@ public final class MediaFormatHandlerImpl implements MediaFormatHandler {
       }
 
       // check extension
-      boolean extensionMatch = false;
-      if (mediaFormat.getExtensions() != null) {
-        for (String ext : mediaFormat.getExtensions()) {
-          if (Strings.CI.equals(ext, extension)) {
-            extensionMatch = true;
-            break;
-          }
-        }
-      }
-      else {
-        extensionMatch = true;
-      }
+      boolean extensionMatch = index.hasExtension(mediaFormat, extension);
 
       // check file size
       boolean fileSizeMatch = false;
@@ -0,0 +1,339 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.format.impl;
+
+import static io.wcm.handler.media.format.MediaFormatHandler.RATIO_TOLERANCE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.function.ToLongFunction;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.wcm.handler.media.MediaFileType;
+import io.wcm.handler.media.format.MediaFormat;
+
+/**
+ * Immutable index of a set of media formats, built once per combined key of the context-aware media format providers.
+ * <p>
+ * Besides the name lookup, the index provides candidate lists for the media format queries of
+ * {@link MediaFormatHandlerImpl}: by file extension, by ratio (bucketed by ratio tolerance) and by min/max
+ * width/height (sorted arrays). The candidate lists are a superset of the matching media formats, the caller still
+ * has to check all conditions for each candidate.
+ * </p>
+ */
+final class MediaFormatIndex {
+
+  private final SortedSet<MediaFormat> mediaFormats;
+  private final List<MediaFormat> allFormats;
+  private final Map<String, MediaFormat> byName;
+  private final Map<MediaFormat, Entry> entries;
+  private final Map<String, List<MediaFormat>> byExtension;
+  private final List<MediaFormat> withoutExtensions;
+  private final Map<Long, List<MediaFormat>> byRatioBucket;
+  private final List<MediaFormat> withoutRatio;
+  private final SortedDimension maxWidth;
+  private final SortedDimension maxHeight;
+  private final SortedDimension minWidth;
+  private final SortedDimension minHeight;
+
+  /**
+   * @param mediaFormats Media formats
+   */
+  MediaFormatIndex(@NotNull SortedSet<MediaFormat> mediaFormats) {
+    this.mediaFormats = mediaFormats;
+    this.allFormats = List.copyOf(mediaFormats);
+    this.byName = new HashMap<>();
+    this.entries = new IdentityHashMap<>();
+    Map<String, Set<MediaFormat>> extensionSets = new HashMap<>();
+    List<MediaFormat> withoutExtensionsList = new ArrayList<>();
+    this.byRatioBucket = new HashMap<>();
+    List<MediaFormat> withoutRatioList = new ArrayList<>();
+
+    for (MediaFormat mediaFormat : mediaFormats) {
+      byName.put(mediaFormat.getName(), mediaFormat);
+      String[] extensions = mediaFormat.getExtensions();
+      entries.put(mediaFormat, new Entry(extensions));
+      if (extensions != null) {
+        for (String extension : extensions) {
+          if (extension != null) {
+            extensionSets.computeIfAbsent(extension.toLowerCase(Locale.ROOT), key -> new LinkedHashSet<>()).add(mediaFormat);
+          }
+        }
+      }
+      else {
+        withoutExtensionsList.add(mediaFormat);
+      }
+      if (mediaFormat.hasRatio()) {
+        byRatioBucket.computeIfAbsent(toRatioBucket(mediaFormat.getRatio()), key -> new ArrayList<>()).add(mediaFormat);
+      }
+      else {
+        withoutRatioList.add(mediaFormat);
+      }
+    }
+
+    this.byExtension = new HashMap<>();
+    extensionSets.forEach((extension, set) -> byExtension.put(extension, List.copyOf(set)));
+    this.withoutExtensions = Collections.unmodifiableList(withoutExtensionsList);
+    this.withoutRatio = Collections.unmodifiableList(withoutRatioList);
+    this.maxWidth = new SortedDimension(mediaFormats, MediaFormat::getEffectiveMaxWidth);
+    this.maxHeight = new SortedDimension(mediaFormats, MediaFormat::getEffectiveMaxHeight);
+    this.minWidth = new SortedDimension(mediaFormats, MediaFormatIndex::getEffectiveMinWidthPreferringMinWidthHeight);
+    this.minHeight = new SortedDimension(mediaFormats, MediaFormatIndex::getEffectiveMinHeightPreferringMinWidthHeight);
+  }
+
+  /**
+   * @return All media formats
+   */
+  @NotNull
+  SortedSet<MediaFormat> getMediaFormats() {
+    return mediaFormats;
+  }
+
+  /**
+   * @param name Media format name
+   * @return Media format or null
+   */
+  @Nullable
+  MediaFormat getMediaFormat(@NotNull String name) {
+    return byName.get(name);
+  }
+
+  /**
+   * @param mediaFormat Media format
+   * @param extension File extension
+   * @return true if the media format does not restrict extensions, or has the given extension (case-insensitive)
+   */
+  boolean hasExtension(@NotNull MediaFormat mediaFormat, @Nullable String extension) {
+    String[] extensions = getEntry(mediaFormat).extensions;
+    if (extensions == null) {
+      return true;
+    }
+    for (String ext : extensions) {
+      if (ext != null ? ext.equalsIgnoreCase(extension) : extension == null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param mediaFormat Media format
+   * @return true if one of the extensions of the media format is supported for image renditions
+   */
+  boolean hasImageExtension(@NotNull MediaFormat mediaFormat) {
+    return getEntry(mediaFormat).imageExtension;
+  }
+
+  private @NotNull Entry getEntry(@NotNull MediaFormat mediaFormat) {
+    Entry entry = entries.get(mediaFormat);
+    if (entry == null) {
+      // media format not part of this index
+      entry = new Entry(mediaFormat.getExtensions());
+    }
+    return entry;
+  }
+
+  /**
+   * @param extension File extension
+   * @return Media formats supporting the given extension (case-insensitive) or not restricting the extension
+   */
+  @NotNull
+  List<MediaFormat> getExtensionCandidates(@Nullable String extension) {
+    if (extension == null) {
+      return allFormats;
+    }
+    return concat(byExtension.get(extension.toLowerCase(Locale.ROOT)), withoutExtensions);
+  }
+
+  /**
+   * @param ratio Ratio
+   * @return Media formats with a ratio matching the given ratio (with tolerance), or without ratio
+   */
+  @NotNull
+  List<MediaFormat> getRatioCandidates(double ratio) {
+    // a matching ratio differs less than the tolerance, so it is in the same or a neighboring bucket
+    long bucket = toRatioBucket(ratio);
+    List<MediaFormat> result = new ArrayList<>(withoutRatio);
+    for (long candidateBucket = bucket - 1; candidateBucket <= bucket + 1; candidateBucket++) {
+      List<MediaFormat> bucketFormats = byRatioBucket.get(candidateBucket);
+      if (bucketFormats != null) {
+        result.addAll(bucketFormats);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param widthRequested Min. width
+   * @param heightRequested Min. height
+   * @return Media formats which effective max. width and height is unlimited or not smaller than requested
+   */
+  @NotNull
+  List<MediaFormat> getSameBiggerCandidates(long widthRequested, long heightRequested) {
+    List<MediaFormat> byWidth = maxWidth.getUnlimitedOrAtLeast(widthRequested);
+    List<MediaFormat> byHeight = maxHeight.getUnlimitedOrAtLeast(heightRequested);
+    return byWidth.size() <= byHeight.size() ? byWidth : byHeight;
+  }
+
+  /**
+   * @param widthRequested Max. width
+   * @param heightRequested Max. height
+   * @return Media formats which effective min. width and height is not bigger than requested
+   */
+  @NotNull
+  List<MediaFormat> getSameSmallerCandidates(long widthRequested, long heightRequested) {
+    List<MediaFormat> byWidth = minWidth.getAtMost(widthRequested);
+    List<MediaFormat> byHeight = minHeight.getAtMost(heightRequested);
+    return byWidth.size() <= byHeight.size() ? byWidth : byHeight;
+  }
+
+  static long getEffectiveMinWidthPreferringMinWidthHeight(@NotNull MediaFormat mf) {
+    if (mf.getMinWidthHeight() > 0) {
+      return mf.getMinWidthHeight();
+    }
+    else {
+      return mf.getEffectiveMinWidth();
+    }
+  }
+
+  static long getEffectiveMinHeightPreferringMinWidthHeight(@NotNull MediaFormat mf) {
+    if (mf.getMinWidthHeight() > 0) {
+      return mf.getMinWidthHeight();
+    }
+    else {
+      return mf.getEffectiveMinHeight();
+    }
+  }
+
+  private static long toRatioBucket(double ratio) {
+    return (long)Math.floor(ratio / RATIO_TOLERANCE);
+  }
+
+  private static @NotNull List<MediaFormat> concat(@Nullable List<MediaFormat> first, @NotNull List<MediaFormat> second) {
+    if (first == null || first.isEmpty()) {
+      return second;
+    }
+    if (second.isEmpty()) {
+      return first;
+    }
+    List<MediaFormat> result = new ArrayList<>(first.size() + second.size());
+    result.addAll(first);
+    result.addAll(second);
+    return result;
+  }
+
+  /**
+   * Precomputed values of a media format.
+   */
+  private static final class Entry {
+
+    private final String[] extensions;
+    private final boolean imageExtension;
+
+    Entry(@Nullable String[] extensions) {
+      this.extensions = extensions;
+      this.imageExtension = extensions != null && Arrays.stream(extensions).anyMatch(MediaFileType::isImage);
+    }
+
+  }
+
+  /**
+   * Media formats sorted ascending by a dimension value (0 = unlimited).
+   */
+  private static final class SortedDimension {
+
+    private final List<MediaFormat> sortedFormats;
+    private final long[] values;
+    private final int unlimitedCount;
+
+    SortedDimension(@NotNull SortedSet<MediaFormat> mediaFormats, @NotNull ToLongFunction<MediaFormat> valueFunction) {
+      MediaFormat[] formats = mediaFormats.toArray(new MediaFormat[0]);
+      long[] formatValues = new long[formats.length];
+      Map<MediaFormat, Long> valueMap = new IdentityHashMap<>();
+      for (MediaFormat mediaFormat : formats) {
+        valueMap.put(mediaFormat, valueFunction.applyAsLong(mediaFormat));
+      }
+      Arrays.sort(formats, Comparator.comparingLong(valueMap::get));
+      int zeroCount = 0;
+      for (int i = 0; i < formats.length; i++) {
+        formatValues[i] = valueMap.get(formats[i]);
+        if (formatValues[i] == 0) {
+          zeroCount++;
+        }
+      }
+      this.sortedFormats = List.of(formats);
+      this.values = formatValues;
+      this.unlimitedCount = zeroCount;
+    }
+
+    /**
+     * @param value Value
+     * @return All media formats with value 0 (unlimited) or a value greater or equal the given value
+     */
+    List<MediaFormat> getUnlimitedOrAtLeast(long value) {
+      int index = Math.max(lowerBound(value), unlimitedCount);
+      if (index == unlimitedCount) {
+        return sortedFormats;
+      }
+      return concat(sortedFormats.subList(0, unlimitedCount), sortedFormats.subList(index, sortedFormats.size()));
+    }
+
+    /**
+     * @param value Value
+     * @return All media formats with a value less or equal the given value
+     */
+    List<MediaFormat> getAtMost(long value) {
+      return sortedFormats.subList(0, lowerBound(value + 1));
+    }
+
+    /**
+     * @param value Value
+     * @return Index of first entry with a value greater or equal the given value
+     */
+    private int lowerBound(long value) {
+      int low = 0;
+      int high = values.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (values[mid] < value) {
+          low = mid + 1;
+        }
+        else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+  }
+
+}
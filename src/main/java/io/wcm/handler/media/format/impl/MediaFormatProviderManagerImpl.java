@@ -66,7 +66,7 @@ public final class MediaFormatProviderManagerImpl implements MediaFormatProvider
   private BundleContext bundleContext;
 
   // cache resolving of media formats per combined cache key of context-aware services
-  private final Cache<String, SortedSet<MediaFormat>> cache = Caffeine.newBuilder()
+  private final Cache<String, MediaFormatIndex> cache = Caffeine.newBuilder()
     .expireAfterWrite(1, TimeUnit.HOURS)
     .build();
 
@@ -77,11 +77,21 @@ public final class MediaFormatProviderManagerImpl implements MediaFormatProvider
 
   @Override
   public SortedSet<MediaFormat> getMediaFormats(Resource contextResource) {
+    return getMediaFormatIndex(contextResource).getMediaFormats();
+  }
+
+  /**
+   * Get indexed media formats for the given context resource. The index is shared by all media format handlers
+   * resolving media formats for the same combination of context-aware media format providers.
+   * @param contextResource Context resource
+   * @return Media format index
+   */
+  MediaFormatIndex getMediaFormatIndex(Resource contextResource) {
     ResolveAllResult<MediaFormatProvider> result = serviceResolver.resolveAll(MediaFormatProvider.class, contextResource);
     String key = result.getCombinedKey();
-    return cache.get(key, theKey -> result.getServices()
+    return cache.get(key, theKey -> new MediaFormatIndex(result.getServices()
       .flatMap(provider -> provider.getMediaFormats().stream())
-      .collect(Collectors.toCollection(TreeSet::new)));
+      .collect(Collectors.toCollection(TreeSet::new))));
   }
 
   @Override
@@ -19,13 +19,27 @@
  */
 package io.wcm.handler.media.impl;
 
+import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_ACCEPT_RANGES;
 import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_CONTENT_DISPOSITION;
+import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_CONTENT_RANGE;
 import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_CONTENT_SECURITY_POLICY;
+import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_ETAG;
+import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_IF_RANGE;
+import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_RANGE;
 import static io.wcm.handler.media.impl.MediaFileServletConstants.SELECTOR_DOWNLOAD;
 
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletResponse;
@@ -42,16 +56,27 @@ import org.jetbrains.annotations.Nullable;
 
 import io.wcm.sling.commons.request.RequestPath;
 import io.wcm.wcm.commons.caching.CacheHeader;
+import io.wcm.wcm.commons.caching.ModificationDate;
 import io.wcm.wcm.commons.contenttype.ContentType;
 
 /**
  * Stream binary data stored in a nt:file or nt:resource node.
  * Optional support for Content-Disposition header ("download_attachment").
+ * <p>
+ * The binary data is streamed to the client without buffering it completely in memory.
+ * Binaries with known size support HTTP byte range requests (RFC 7233), including multiple ranges and If-Range.
+ * </p>
  */
 abstract class AbstractMediaFileServlet extends SlingSafeMethodsServlet {
 
   private static final long serialVersionUID = 1L;
 
+  /**
+   * Max. number of bytes read ahead from binaries with unknown size to detect empty binaries,
+   * and to be able to set the content length for small binaries.
+   */
+  static final int READ_AHEAD_SIZE = 64 * 1024;
+
   @Override
   protected void doGet(@NotNull SlingHttpServletRequest request, @NotNull SlingHttpServletResponse response) throws ServletException, IOException {
 
@@ -67,14 +92,15 @@ abstract class AbstractMediaFileServlet extends SlingSafeMethodsServlet {
       return;
     }
 
-    // get binary data and send to client
-    byte[] binaryData = getBinaryData(resource, request);
-    if (binaryData == null || binaryData.length == 0) {
-      response.sendError(HttpServletResponse.SC_NOT_FOUND);
-    }
-    else {
-      String contentType = getContentType(resource, request);
-      sendBinaryData(binaryData, contentType, request, response);
+    // get binary data and stream to client
+    try (BinaryData binaryData = getBinaryData(resource, request)) {
+      if (binaryData == null) {
+        response.sendError(HttpServletResponse.SC_NOT_FOUND);
+      }
+      else {
+        String contentType = getContentType(resource, request);
+        sendBinaryData(binaryData, contentType, request, response);
+      }
     }
 
   }
@@ -105,10 +131,12 @@ abstract class AbstractMediaFileServlet extends SlingSafeMethodsServlet {
 
   /**
    * Get binary data from the referenced nt:file or nt:resourcer resource.
+   * The binary data is not read into memory, it is streamed from the binary input stream when sent to the client.
    * @param resource Resource
-   * @return Binary data or null if not binary data found
+   * @return Binary data or null if not binary data found or binary is empty
    */
-  protected byte @Nullable [] getBinaryData(@NotNull Resource resource,
+  @SuppressWarnings("java:S2095") // input stream is closed by the caller via BinaryData.close
+  protected @Nullable BinaryData getBinaryData(@NotNull Resource resource,
       @SuppressWarnings({
           "unused", "java:S1172"
       }) @NotNull SlingHttpServletRequest request) throws IOException {
@@ -116,12 +144,51 @@ abstract class AbstractMediaFileServlet extends SlingSafeMethodsServlet {
     if (is == null) {
       return null;
     }
+    long binarySize = JcrBinary.getBinarySize(resource);
+    if (binarySize > 0) {
+      Date modificationDate = ModificationDate.get(resource);
+      long lastModified = modificationDate != null ? modificationDate.getTime() : -1L;
+      return new InputStreamBinaryData(is, binarySize, buildETag(resource, binarySize, lastModified), lastModified);
+    }
+    if (binarySize == 0) {
+      is.close();
+      return null;
+    }
+
+    // binary size is unknown - read ahead to detect empty binaries and the size of small binaries
+    byte[] buffer = new byte[READ_AHEAD_SIZE];
+    int count;
     try {
-      return IOUtils.toByteArray(is);
+      count = IOUtils.read(is, buffer);
     }
-    finally {
+    catch (IOException ex) {
       is.close();
+      throw ex;
     }
+    if (count < READ_AHEAD_SIZE) {
+      is.close();
+      if (count == 0) {
+        return null;
+      }
+      return new InputStreamBinaryData(new ByteArrayInputStream(buffer, 0, count), count, null, -1L);
+    }
+    return new InputStreamBinaryData(new SequenceInputStream(new ByteArrayInputStream(buffer), is), -1L, null, -1L);
+  }
+
+  /**
+   * Build strong entity tag from binary path, size and last modified date.
+   * @param resource Resource
+   * @param binarySize Binary size
+   * @param lastModified Last modified date or -1 if unknown
+   * @return ETag or null if no last modified date is available
+   */
+  private static @Nullable String buildETag(@NotNull Resource resource, long binarySize, long lastModified) {
+    if (lastModified < 0) {
+      return null;
+    }
+    return "\"" + Integer.toHexString(resource.getPath().hashCode())
+        + "-" + Long.toHexString(binarySize)
+        + "-" + Long.toHexString(lastModified) + "\"";
   }
 
   /**
@@ -142,22 +209,23 @@ abstract class AbstractMediaFileServlet extends SlingSafeMethodsServlet {
 
   /**
    * Send binary data to output stream. Respect optional content disposition header handling.
-   * @param binaryData Binary data array.
+   * @param binaryData Binary data
    * @param contentType Content type
    * @param request Request
    * @param response Response
    */
-  protected void sendBinaryData(byte @NotNull [] binaryData, @NotNull String contentType,
+  protected void sendBinaryData(@NotNull BinaryData binaryData, @NotNull String contentType,
       @NotNull SlingHttpServletRequest request, @NotNull SlingHttpServletResponse response) throws IOException {
 
-    // set content type and length
+    // set content type
     response.setContentType(contentType);
-    response.setContentLength(binaryData.length);
+    String partContentType = contentType;
 
     // Handling of the "force download" selector
     if (RequestPath.hasSelector(request, SELECTOR_DOWNLOAD)) {
       // Overwrite MIME type with one suited for downloads
       response.setContentType(ContentType.DOWNLOAD);
+      partContentType = ContentType.DOWNLOAD;
 
       // set content disposition header to file name from suffix
       setContentDispositionAttachmentHeader(request, response);
@@ -169,12 +237,109 @@ abstract class AbstractMediaFileServlet extends SlingSafeMethodsServlet {
       setSVGContentSecurityPolicy(response);
     }
 
-    // write binary data
+    // check for byte range request
+    long contentLength = binaryData.getContentLength();
+    List<ByteRange> ranges = null;
+    if (contentLength > 0) {
+      response.setHeader(HEADER_ACCEPT_RANGES, "bytes");
+      String etag = binaryData.getETag();
+      if (etag != null) {
+        response.setHeader(HEADER_ETAG, etag);
+      }
+      if (isIfRangeSatisfied(request, binaryData)) {
+        ranges = ByteRange.parse(request.getHeader(HEADER_RANGE), contentLength);
+      }
+    }
+
+    if (ranges == null) {
+      // stream complete binary data
+      if (contentLength >= 0) {
+        response.setContentLengthLong(contentLength);
+      }
+      OutputStream out = response.getOutputStream();
+      binaryData.writeTo(out);
+      out.flush();
+    }
+    else if (ranges.isEmpty()) {
+      response.setHeader(HEADER_CONTENT_RANGE, "bytes */" + contentLength);
+      response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+    else if (ranges.size() == 1) {
+      ByteRange range = ranges.get(0);
+      response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+      response.setHeader(HEADER_CONTENT_RANGE, range.toContentRange(contentLength));
+      response.setContentLengthLong(range.getLength());
+      OutputStream out = response.getOutputStream();
+      binaryData.writeRangeTo(out, range.getStart(), range.getLength());
+      out.flush();
+    }
+    else {
+      sendMultipartByteRanges(binaryData, partContentType, ranges, response);
+    }
+  }
+
+  /**
+   * Send multiple byte ranges as multipart/byteranges response.
+   */
+  private static void sendMultipartByteRanges(@NotNull BinaryData binaryData, @NotNull String partContentType,
+      @NotNull List<ByteRange> ranges, @NotNull SlingHttpServletResponse response) throws IOException {
+    long contentLength = binaryData.getContentLength();
+    String boundary = UUID.randomUUID().toString().replace("-", "");
+
+    // prepare part headers to calculate the response content length in advance
+    List<byte[]> partHeaders = new ArrayList<>();
+    long responseLength = 0;
+    for (ByteRange range : ranges) {
+      byte[] partHeader = ("\r\n--" + boundary + "\r\n"
+          + "Content-Type: " + partContentType + "\r\n"
+          + "Content-Range: " + range.toContentRange(contentLength) + "\r\n"
+          + "\r\n").getBytes(StandardCharsets.US_ASCII);
+      partHeaders.add(partHeader);
+      responseLength += partHeader.length + range.getLength();
+    }
+    byte[] trailer = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+    responseLength += trailer.length;
+
+    response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+    response.setContentType("multipart/byteranges; boundary=" + boundary);
+    response.setContentLengthLong(responseLength);
     OutputStream out = response.getOutputStream();
-    out.write(binaryData);
+    for (int i = 0; i < ranges.size(); i++) {
+      ByteRange range = ranges.get(i);
+      out.write(partHeaders.get(i));
+      binaryData.writeRangeTo(out, range.getStart(), range.getLength());
+    }
+    out.write(trailer);
     out.flush();
   }
 
+  /**
+   * Checks the If-Range precondition: Ranges are only served if the client's copy is still current.
+   * Entity tags are compared using the strong comparison function.
+   */
+  private static boolean isIfRangeSatisfied(@NotNull SlingHttpServletRequest request, @NotNull BinaryData binaryData) {
+    String ifRange = request.getHeader(HEADER_IF_RANGE);
+    if (StringUtils.isBlank(ifRange)) {
+      return true;
+    }
+    ifRange = ifRange.trim();
+    if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+      return Strings.CS.equals(ifRange, binaryData.getETag());
+    }
+    long lastModified = binaryData.getLastModified();
+    if (lastModified < 0) {
+      return false;
+    }
+    try {
+      long ifRangeDate = request.getDateHeader(HEADER_IF_RANGE);
+      // HTTP dates have a precision of one second
+      return ifRangeDate >= 0 && ifRangeDate / 1000 == lastModified / 1000;
+    }
+    catch (IllegalArgumentException ex) {
+      return false;
+    }
+  }
+
   private void setContentDispositionAttachmentHeader(@NotNull SlingHttpServletRequest request, @NotNull SlingHttpServletResponse response) {
     // Construct disposition header
     StringBuilder dispositionHeader = new StringBuilder("attachment;");
@@ -190,4 +355,113 @@ abstract class AbstractMediaFileServlet extends SlingSafeMethodsServlet {
     response.setHeader(HEADER_CONTENT_SECURITY_POLICY, "sandbox");
   }
 
+  /**
+   * Binary data that is streamed to the client.
+   */
+  protected interface BinaryData extends Closeable {
+
+    /**
+     * @return Content length in bytes, or -1 if it is not known in advance
+     */
+    long getContentLength();
+
+    /**
+     * Writes the binary data to the given output stream.
+     * @param out Output stream
+     * @throws IOException I/O exception
+     */
+    void writeTo(@NotNull OutputStream out) throws IOException;
+
+    /**
+     * Writes a byte range of the binary data to the given output stream.
+     * Only called if the content length is known. If multiple ranges are written, they are written in ascending
+     * order without overlapping.
+     * @param out Output stream
+     * @param offset Offset of first byte
+     * @param length Number of bytes
+     * @throws IOException I/O exception
+     */
+    void writeRangeTo(@NotNull OutputStream out, long offset, long length) throws IOException;
+
+    /**
+     * @return Strong entity tag of the binary data, or null if not available
+     */
+    default @Nullable String getETag() {
+      return null;
+    }
+
+    /**
+     * @return Last modified date of the binary data in milliseconds, or -1 if not available
+     */
+    default long getLastModified() {
+      return -1L;
+    }
+
+    @Override
+    default void close() throws IOException {
+      // nothing to release by default
+    }
+
+  }
+
+  /**
+   * Binary data streamed from an input stream. Byte ranges are served by skipping in the input stream,
+   * so the binary is read only once also for multiple ranges.
+   */
+  private static final class InputStreamBinaryData implements BinaryData {
+
+    private final InputStream is;
+    private long position;
+    private final long contentLength;
+    private final String etag;
+    private final long lastModified;
+
+    InputStreamBinaryData(@NotNull InputStream is, long contentLength, @Nullable String etag, long lastModified) {
+      this.is = is;
+      this.contentLength = contentLength;
+      this.etag = etag;
+      this.lastModified = lastModified;
+    }
+
+    @Override
+    public long getContentLength() {
+      return contentLength;
+    }
+
+    @Override
+    public void writeTo(@NotNull OutputStream out) throws IOException {
+      position += IOUtils.copyLarge(is, out);
+    }
+
+    @Override
+    public void writeRangeTo(@NotNull OutputStream out, long offset, long length) throws IOException {
+      if (offset < position) {
+        throw new IOException("Byte range " + offset + "+" + length + " is before current stream position " + position);
+      }
+      IOUtils.skipFully(is, offset - position);
+      position = offset;
+      long copied = IOUtils.copyLarge(is, out, 0, length);
+      position += copied;
+      if (copied < length) {
+        throw new EOFException("Binary data ended before end of byte range " + offset + "+" + length);
+      }
+    }
+
+    @Override
+    public @Nullable String getETag() {
+      return etag;
+    }
+
+    @Override
+    public long getLastModified() {
+      return lastModified;
+    }
+
+    @Override
+    public void close() throws IOException {
+      is.close();
+    }
+
+  }
+
 }
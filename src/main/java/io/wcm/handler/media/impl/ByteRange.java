@@ -0,0 +1,186 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Byte range of a HTTP Range request (RFC 7233).
+ */
+final class ByteRange {
+
+  /**
+   * Max. number of ranges accepted in a single request. Requests with more ranges are answered with the full content.
+   */
+  static final int MAX_RANGES = 16;
+
+  private static final String BYTES_UNIT = "bytes=";
+
+  private final long start;
+  private final long end;
+
+  /**
+   * @param start First byte position (inclusive)
+   * @param end Last byte position (inclusive)
+   */
+  ByteRange(long start, long end) {
+    this.start = start;
+    this.end = end;
+  }
+
+  /**
+   * @return First byte position (inclusive)
+   */
+  long getStart() {
+    return this.start;
+  }
+
+  /**
+   * @return Last byte position (inclusive)
+   */
+  long getEnd() {
+    return this.end;
+  }
+
+  /**
+   * @return Number of bytes in this range
+   */
+  long getLength() {
+    return this.end - this.start + 1;
+  }
+
+  /**
+   * @param contentLength Complete content length
+   * @return Value for Content-Range header
+   */
+  @NotNull
+  String toContentRange(long contentLength) {
+    return "bytes " + this.start + "-" + this.end + "/" + contentLength;
+  }
+
+  @Override
+  public String toString() {
+    return this.start + "-" + this.end;
+  }
+
+  /**
+   * Parses the value of a HTTP Range header.
+   * @param header Range header value
+   * @param contentLength Complete content length
+   * @return List of satisfiable byte ranges in ascending order with overlapping and adjacent ranges merged
+   *         (empty list if none is satisfiable), or null if the header is missing, malformed or should be ignored
+   */
+  static @Nullable List<ByteRange> parse(@Nullable String header, long contentLength) {
+    if (header == null || !StringUtils.startsWithIgnoreCase(header.trim(), BYTES_UNIT)) {
+      return null;
+    }
+    String[] specs = StringUtils.split(header.trim().substring(BYTES_UNIT.length()), ',');
+    if (specs.length == 0 || specs.length > MAX_RANGES) {
+      return null;
+    }
+    List<ByteRange> result = new ArrayList<>();
+    for (String spec : specs) {
+      String rangeSpec = spec.trim();
+      int separator = rangeSpec.indexOf('-');
+      if (separator < 0) {
+        return null;
+      }
+      long first = parsePosition(rangeSpec.substring(0, separator));
+      long last = parsePosition(rangeSpec.substring(separator + 1));
+      ByteRange range;
+      if (first == Long.MIN_VALUE || last == Long.MIN_VALUE || (first == -1 && last == -1)) {
+        return null;
+      }
+      else if (first == -1) {
+        // suffix range: last n bytes
+        if (last == 0) {
+          continue;
+        }
+        range = new ByteRange(Math.max(0, contentLength - last), contentLength - 1);
+      }
+      else {
+        if (last != -1 && last < first) {
+          return null;
+        }
+        if (first >= contentLength) {
+          continue;
+        }
+        range = new ByteRange(first, last == -1 ? contentLength - 1 : Math.min(last, contentLength - 1));
+      }
+      result.add(range);
+    }
+    return coalesce(result);
+  }
+
+  /**
+   * Sorts the ranges and merges overlapping or adjacent ranges, so no byte is sent more than once and the
+   * binary data can be streamed in a single pass (RFC 7233, section 6.1).
+   * @param ranges Byte ranges
+   * @return Sorted and merged byte ranges
+   */
+  private static @NotNull List<ByteRange> coalesce(@NotNull List<ByteRange> ranges) {
+    if (ranges.size() <= 1) {
+      return ranges;
+    }
+    List<ByteRange> sorted = new ArrayList<>(ranges);
+    sorted.sort(Comparator.comparingLong(ByteRange::getStart));
+    List<ByteRange> result = new ArrayList<>();
+    ByteRange current = sorted.get(0);
+    for (int i = 1; i < sorted.size(); i++) {
+      ByteRange next = sorted.get(i);
+      if (next.start <= current.end + 1) {
+        current = new ByteRange(current.start, Math.max(current.end, next.end));
+      }
+      else {
+        result.add(current);
+        current = next;
+      }
+    }
+    result.add(current);
+    return result;
+  }
+
+  /**
+   * @param value Byte position
+   * @return Position, -1 if empty, or {@link Long#MIN_VALUE} if not a valid number
+   */
+  private static long parsePosition(@NotNull String value) {
+    String trimmed = value.trim();
+    if (trimmed.isEmpty()) {
+      return -1;
+    }
+    if (!StringUtils.isNumeric(trimmed)) {
+      return Long.MIN_VALUE;
+    }
+    try {
+      return Long.parseLong(trimmed);
+    }
+    catch (NumberFormatException ex) {
+      return Long.MIN_VALUE;
+    }
+  }
+
+}
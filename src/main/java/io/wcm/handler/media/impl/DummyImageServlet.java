@@ -19,17 +19,25 @@
  */
 package io.wcm.handler.media.impl;
 
+import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_RETRY_AFTER;
+
 import java.awt.Color;
 import java.io.IOException;
 
 import javax.jcr.RepositoryException;
 import javax.servlet.Servlet;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.SlingHttpServletResponse;
 import org.jetbrains.annotations.NotNull;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
 
 import com.day.cq.wcm.commons.AbstractImageServlet;
 import com.day.image.Font;
@@ -37,6 +45,7 @@ import com.day.image.Layer;
 import com.day.image.font.AbstractFont;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import io.wcm.handler.media.impl.ImageTransformationAdmission.Permit;
 import io.wcm.handler.url.suffix.SuffixParser;
 import io.wcm.wcm.commons.contenttype.FileExtension;
 
@@ -73,6 +82,33 @@ public final class DummyImageServlet extends AbstractImageServlet {
    */
   public static final @NotNull String SUFFIX_MEDIA_FORMAT_NAME = "mf";
 
+  @Reference(policy = ReferencePolicy.STATIC, policyOption = ReferencePolicyOption.GREEDY, cardinality = ReferenceCardinality.OPTIONAL)
+  private ImageTransformationAdmission admission;
+
+  @Override
+  protected void doGet(SlingHttpServletRequest request, SlingHttpServletResponse response) throws ServletException, IOException {
+    if (admission == null) {
+      super.doGet(request, response);
+      return;
+    }
+
+    // limit number of image pixels held in memory concurrently
+    SuffixParser parser = new SuffixParser(request);
+    long pixels = (long)Math.max(1, parser.get(SUFFIX_WIDTH, 0)) * Math.max(1, parser.get(SUFFIX_HEIGHT, 0));
+    Permit permit = admission.acquire(pixels);
+    if (permit == null) {
+      response.setHeader(HEADER_RETRY_AFTER, Integer.toString(admission.getRetryAfterSeconds()));
+      response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      return;
+    }
+    try {
+      super.doGet(request, response);
+    }
+    finally {
+      permit.close();
+    }
+  }
+
   @SuppressWarnings("null")
   @SuppressFBWarnings("NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE")
   @Override
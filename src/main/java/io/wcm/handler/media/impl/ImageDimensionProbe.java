@@ -0,0 +1,440 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.wcm.handler.media.Dimension;
+
+/**
+ * Detects the dimension (width/height) of an image binary by reading only the image header from the stream,
+ * without decoding the bitmap into memory.
+ * <p>
+ * Supported formats: JPEG, PNG, GIF, WebP, TIFF and SVG. For all other formats <code>null</code> is returned,
+ * and the caller should fall back to decoding the image e.g. via {@link com.day.image.Layer}.
+ * </p>
+ */
+public final class ImageDimensionProbe {
+
+  /**
+   * Max. number of bytes read from SVG files to find the root element.
+   */
+  static final int SVG_MAX_HEADER_BYTES = 64 * 1024;
+
+  /**
+   * Max. offset of the first image file directory in TIFF files. If the directory is stored behind the image data
+   * of larger files, <code>null</code> is returned instead of reading through the whole binary.
+   */
+  static final long TIFF_MAX_IFD_OFFSET = 1024L * 1024L;
+
+  private static final int SIGNATURE_BYTES = 12;
+
+  private static final Pattern SVG_ROOT_ELEMENT = Pattern.compile("<svg\\b[^>]*>", Pattern.CASE_INSENSITIVE);
+  private static final Pattern SVG_ATTRIBUTE = Pattern.compile("(?:^|\\s)(width|height|viewBox)\\s*=\\s*[\"']([^\"']*)[\"']");
+  private static final Pattern SVG_LENGTH = Pattern.compile("^\\s*(\\d*\\.?\\d+)\\s*(px)?\\s*$");
+
+  private static final int TIFF_TAG_IMAGE_WIDTH = 256;
+  private static final int TIFF_TAG_IMAGE_LENGTH = 257;
+  private static final int TIFF_TYPE_SHORT = 3;
+  private static final int TIFF_TYPE_LONG = 4;
+
+  private ImageDimensionProbe() {
+    // static methods only
+  }
+
+  /**
+   * Detect image dimension from the header of the given image binary stream.
+   * The stream is not closed by this method.
+   * @param inputStream Image binary stream
+   * @return Dimension or null if the format is not supported or the header is invalid
+   * @throws IOException I/O exception
+   */
+  @SuppressWarnings("java:S3776") // ignore complexity
+  public static @Nullable Dimension probe(@NotNull InputStream inputStream) throws IOException {
+    HeaderReader reader = new HeaderReader(inputStream);
+    try {
+      byte[] signature = reader.peek(SIGNATURE_BYTES);
+      if (isJpeg(signature)) {
+        return probeJpeg(reader);
+      }
+      if (isPng(signature)) {
+        return probePng(reader);
+      }
+      if (isGif(signature)) {
+        return toValidDimension(readUInt16LE(signature, 6), readUInt16LE(signature, 8));
+      }
+      if (isWebp(signature)) {
+        return probeWebp(reader);
+      }
+      if (isTiff(signature)) {
+        return probeTiff(reader, signature);
+      }
+      return probeSvg(reader);
+    }
+    catch (EOFException ex) {
+      // header truncated
+      return null;
+    }
+  }
+
+  private static boolean isJpeg(byte[] signature) {
+    return signature.length >= 3
+        && (signature[0] & 0xff) == 0xff && (signature[1] & 0xff) == 0xd8 && (signature[2] & 0xff) == 0xff;
+  }
+
+  private static boolean isPng(byte[] signature) {
+    return signature.length >= 8
+        && (signature[0] & 0xff) == 0x89 && signature[1] == 'P' && signature[2] == 'N' && signature[3] == 'G'
+        && signature[4] == 0x0d && signature[5] == 0x0a && signature[6] == 0x1a && signature[7] == 0x0a;
+  }
+
+  private static boolean isGif(byte[] signature) {
+    return signature.length >= 10
+        && signature[0] == 'G' && signature[1] == 'I' && signature[2] == 'F' && signature[3] == '8';
+  }
+
+  private static boolean isWebp(byte[] signature) {
+    return signature.length >= 12
+        && signature[0] == 'R' && signature[1] == 'I' && signature[2] == 'F' && signature[3] == 'F'
+        && signature[8] == 'W' && signature[9] == 'E' && signature[10] == 'B' && signature[11] == 'P';
+  }
+
+  private static boolean isTiff(byte[] signature) {
+    return signature.length >= 8
+        && ((signature[0] == 'I' && signature[1] == 'I' && signature[2] == 42 && signature[3] == 0)
+            || (signature[0] == 'M' && signature[1] == 'M' && signature[2] == 0 && signature[3] == 42));
+  }
+
+  /**
+   * JPEG: Walk the marker segments until the first SOFn (start of frame) marker.
+   */
+  @SuppressWarnings("java:S3776") // ignore complexity
+  private static @Nullable Dimension probeJpeg(HeaderReader reader) throws IOException {
+    // skip SOI marker (FFD8)
+    reader.skip(2);
+    while (true) {
+      int marker = reader.read();
+      if (marker != 0xff) {
+        return null;
+      }
+      // skip fill bytes
+      while (marker == 0xff) {
+        marker = reader.read();
+      }
+      // stand-alone markers without segment length
+      if (marker == 0x01 || (marker >= 0xd0 && marker <= 0xd7)) {
+        continue;
+      }
+      if (marker == 0xd9 || marker == 0xda) {
+        // end of image or start of scan reached without frame header
+        return null;
+      }
+      int length = reader.readUInt16BE();
+      if (length < 2) {
+        return null;
+      }
+      if (marker >= 0xc0 && marker <= 0xcf && marker != 0xc4 && marker != 0xc8 && marker != 0xcc) {
+        // skip sample precision
+        reader.skip(1);
+        int height = reader.readUInt16BE();
+        int width = reader.readUInt16BE();
+        return toValidDimension(width, height);
+      }
+      reader.skip(length - 2L);
+    }
+  }
+
+  /**
+   * PNG: The IHDR chunk always follows the signature.
+   */
+  private static @Nullable Dimension probePng(HeaderReader reader) throws IOException {
+    byte[] header = reader.readFully(24);
+    if (header[12] != 'I' || header[13] != 'H' || header[14] != 'D' || header[15] != 'R') {
+      return null;
+    }
+    return toValidDimension(readUInt32BE(header, 16), readUInt32BE(header, 20));
+  }
+
+  /**
+   * WebP: Check the first chunk after the RIFF header (VP8X extended, VP8L lossless or VP8 lossy).
+   */
+  private static @Nullable Dimension probeWebp(HeaderReader reader) throws IOException {
+    byte[] header = reader.readFully(30);
+    String chunkType = new String(header, 12, 4, StandardCharsets.US_ASCII);
+    switch (chunkType) {
+      case "VP8X":
+        // canvas width/height minus one as 24 bit little endian
+        return toValidDimension(readUInt24LE(header, 24) + 1L, readUInt24LE(header, 27) + 1L);
+      case "VP8L":
+        if ((header[20] & 0xff) != 0x2f) {
+          return null;
+        }
+        long bits = readUInt32LE(header, 21);
+        return toValidDimension((bits & 0x3fff) + 1L, ((bits >> 14) & 0x3fff) + 1L);
+      case "VP8 ":
+        // key frame start code
+        if ((header[23] & 0xff) != 0x9d || (header[24] & 0xff) != 0x01 || (header[25] & 0xff) != 0x2a) {
+          return null;
+        }
+        return toValidDimension(readUInt16LE(header, 26) & 0x3fff, readUInt16LE(header, 28) & 0x3fff);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * TIFF: Read ImageWidth/ImageLength tags from the first image file directory.
+   */
+  private static @Nullable Dimension probeTiff(HeaderReader reader, byte[] signature) throws IOException {
+    boolean bigEndian = signature[0] == 'M';
+    long ifdOffset = bigEndian ? readUInt32BE(signature, 4) : readUInt32LE(signature, 4);
+    if (ifdOffset < 8 || ifdOffset > TIFF_MAX_IFD_OFFSET) {
+      return null;
+    }
+    reader.seek(ifdOffset);
+    byte[] countBytes = reader.readFully(2);
+    int entryCount = bigEndian ? readUInt16BE(countBytes, 0) : readUInt16LE(countBytes, 0);
+    long width = 0;
+    long height = 0;
+    for (int i = 0; i < entryCount && (width == 0 || height == 0); i++) {
+      byte[] entry = reader.readFully(12);
+      int tag = bigEndian ? readUInt16BE(entry, 0) : readUInt16LE(entry, 0);
+      if (tag == TIFF_TAG_IMAGE_WIDTH || tag == TIFF_TAG_IMAGE_LENGTH) {
+        int type = bigEndian ? readUInt16BE(entry, 2) : readUInt16LE(entry, 2);
+        long value;
+        if (type == TIFF_TYPE_SHORT) {
+          value = bigEndian ? readUInt16BE(entry, 8) : readUInt16LE(entry, 8);
+        }
+        else if (type == TIFF_TYPE_LONG) {
+          value = bigEndian ? readUInt32BE(entry, 8) : readUInt32LE(entry, 8);
+        }
+        else {
+          return null;
+        }
+        if (tag == TIFF_TAG_IMAGE_WIDTH) {
+          width = value;
+        }
+        else {
+          height = value;
+        }
+      }
+    }
+    return toValidDimension(width, height);
+  }
+
+  /**
+   * SVG: Read width/height attributes of the root element, or the viewBox if they are missing or relative.
+   */
+  private static @Nullable Dimension probeSvg(HeaderReader reader) throws IOException {
+    String content = new String(reader.readUpTo(SVG_MAX_HEADER_BYTES), StandardCharsets.UTF_8);
+    Matcher rootElement = SVG_ROOT_ELEMENT.matcher(content);
+    if (!rootElement.find()) {
+      return null;
+    }
+    Double width = null;
+    Double height = null;
+    double[] viewBox = null;
+    Matcher attribute = SVG_ATTRIBUTE.matcher(rootElement.group());
+    while (attribute.find()) {
+      String name = attribute.group(1);
+      String value = attribute.group(2);
+      if ("width".equals(name)) {
+        width = parseSvgLength(value);
+      }
+      else if ("height".equals(name)) {
+        height = parseSvgLength(value);
+      }
+      else {
+        viewBox = parseSvgViewBox(value);
+      }
+    }
+    if (viewBox != null) {
+      double ratio = viewBox[0] / viewBox[1];
+      if (width == null && height == null) {
+        width = viewBox[0];
+        height = viewBox[1];
+      }
+      else if (width == null) {
+        width = height * ratio;
+      }
+      else if (height == null) {
+        height = width / ratio;
+      }
+    }
+    if (width == null || height == null) {
+      return null;
+    }
+    return toValidDimension(Math.round(width), Math.round(height));
+  }
+
+  private static @Nullable Double parseSvgLength(String value) {
+    Matcher matcher = SVG_LENGTH.matcher(value);
+    if (matcher.matches()) {
+      return Double.valueOf(matcher.group(1));
+    }
+    // relative units or percentage values
+    return null;
+  }
+
+  private static double[] parseSvgViewBox(String value) {
+    String[] parts = StringUtils.split(value, " ,\t\r\n");
+    if (parts == null || parts.length != 4) {
+      return null;
+    }
+    try {
+      double width = Double.parseDouble(parts[2]);
+      double height = Double.parseDouble(parts[3]);
+      if (width > 0 && height > 0) {
+        return new double[] { width, height };
+      }
+    }
+    catch (NumberFormatException ex) {
+      // ignore invalid view box
+    }
+    return null;
+  }
+
+  private static @Nullable Dimension toValidDimension(long width, long height) {
+    if (width > 0L && height > 0L) {
+      return new Dimension(width, height);
+    }
+    return null;
+  }
+
+  private static int readUInt16LE(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8);
+  }
+
+  private static int readUInt16BE(byte[] bytes, int offset) {
+    return ((bytes[offset] & 0xff) << 8) | (bytes[offset + 1] & 0xff);
+  }
+
+  private static long readUInt24LE(byte[] bytes, int offset) {
+    return (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8) | ((bytes[offset + 2] & 0xff) << 16);
+  }
+
+  private static long readUInt32LE(byte[] bytes, int offset) {
+    return (readUInt16LE(bytes, offset) & 0xffffL) | ((readUInt16LE(bytes, offset + 2) & 0xffffL) << 16);
+  }
+
+  private static long readUInt32BE(byte[] bytes, int offset) {
+    return ((readUInt16BE(bytes, offset) & 0xffffL) << 16) | (readUInt16BE(bytes, offset + 2) & 0xffffL);
+  }
+
+  /**
+   * Reads forward-only from the image stream and keeps track of the current position.
+   */
+  private static final class HeaderReader {
+
+    private final InputStream is;
+    private long position;
+
+    HeaderReader(InputStream is) {
+      this.is = new BufferedInputStream(is);
+    }
+
+    int read() throws IOException {
+      int value = is.read();
+      if (value < 0) {
+        throw new EOFException();
+      }
+      position++;
+      return value;
+    }
+
+    int readUInt16BE() throws IOException {
+      return (read() << 8) | read();
+    }
+
+    byte[] readFully(int length) throws IOException {
+      byte[] bytes = new byte[length];
+      IOUtils.readFully(is, bytes);
+      position += length;
+      return bytes;
+    }
+
+    /**
+     * Reads the given number of bytes (or less if the stream is shorter) without moving the current position.
+     * @param length Number of bytes
+     * @return Bytes
+     * @throws IOException I/O exception
+     */
+    byte[] peek(int length) throws IOException {
+      is.mark(length);
+      byte[] bytes = readUpTo(length);
+      is.reset();
+      position = 0;
+      return bytes;
+    }
+
+    byte[] readUpTo(int length) throws IOException {
+      byte[] bytes = new byte[length];
+      int read = IOUtils.read(is, bytes);
+      position += read;
+      if (read < length) {
+        byte[] result = new byte[read];
+        System.arraycopy(bytes, 0, result, 0, read);
+        return result;
+      }
+      return bytes;
+    }
+
+    void skip(long length) throws IOException {
+      long remaining = length;
+      while (remaining > 0) {
+        long skipped = is.skip(remaining);
+        if (skipped <= 0) {
+          // stream does not skip - fall back to reading, which detects the end of the stream
+          if (is.read() < 0) {
+            throw new EOFException();
+          }
+          skipped = 1;
+        }
+        remaining -= skipped;
+      }
+      position += length;
+    }
+
+    /**
+     * Moves to the given absolute position in the stream (only forward moves are supported).
+     * @param targetPosition Target position
+     * @throws IOException if target position is before the current position
+     */
+    void seek(long targetPosition) throws IOException {
+      if (targetPosition < position) {
+        throw new IOException("Unable to seek backwards to position " + targetPosition + " (current: " + position + ")");
+      }
+      skip(targetPosition - position);
+    }
+
+  }
+
+}
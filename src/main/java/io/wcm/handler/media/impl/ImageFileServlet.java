@@ -19,27 +19,53 @@
  */
 package io.wcm.handler.media.impl;
 
+import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_RETRY_AFTER;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Calendar;
 
 import javax.servlet.Servlet;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
 import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.SlingHttpServletResponse;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.servlets.HttpConstants;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.day.cq.commons.jcr.JcrConstants;
 import com.day.cq.dam.api.handler.store.AssetStore;
 import com.day.image.Layer;
 
 import io.wcm.handler.media.CropDimension;
+import io.wcm.handler.media.Dimension;
 import io.wcm.handler.media.format.Ratio;
+import io.wcm.handler.media.impl.ImageTransformationAdmission.Permit;
+import io.wcm.handler.media.impl.ImageTransformationCoalescer.Transformation;
 import io.wcm.handler.media.spi.MediaHandlerConfig;
 import io.wcm.sling.commons.adapter.AdaptTo;
 import io.wcm.wcm.commons.contenttype.ContentType;
@@ -67,29 +93,136 @@ public final class ImageFileServlet extends AbstractMediaFileServlet {
 
   @Reference
   private AssetStore assetStore;
+  @Reference(policy = ReferencePolicy.STATIC, policyOption = ReferencePolicyOption.GREEDY, cardinality = ReferenceCardinality.OPTIONAL)
+  private TransformedImageCache transformedImageCache;
+  @Reference(policy = ReferencePolicy.STATIC, policyOption = ReferencePolicyOption.GREEDY, cardinality = ReferenceCardinality.OPTIONAL)
+  private ImageTransformationAdmission admission;
+
+  private final ImageTransformationCoalescer coalescer = new ImageTransformationCoalescer();
+
+  private static final Logger log = LoggerFactory.getLogger(ImageFileServlet.class);
+
+  @Deactivate
+  private void deactivate() {
+    log.debug("Image transformations: {} executed, {} requests coalesced",
+        coalescer.getLeaderCount(), coalescer.getCoalescedCount());
+  }
 
   @Override
-  @SuppressWarnings("java:S3776") // ignore complexity
-  protected byte @Nullable [] getBinaryData(@NotNull Resource resource, @NotNull SlingHttpServletRequest request) throws IOException {
-    // get media app config
-    MediaHandlerConfig config = AdaptTo.notNull(request, MediaHandlerConfig.class);
+  protected void doGet(@NotNull SlingHttpServletRequest request, @NotNull SlingHttpServletResponse response) throws ServletException, IOException {
+    try {
+      super.doGet(request, response);
+    }
+    catch (TransformationRejectedException ex) {
+      response.setHeader(HEADER_RETRY_AFTER, Integer.toString(ex.getRetryAfterSeconds()));
+      response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+  }
 
+  @Override
+  protected @Nullable BinaryData getBinaryData(@NotNull Resource resource, @NotNull SlingHttpServletRequest request) throws IOException {
     // parse selectors
     ImageFileServletSelector params = new ImageFileServletSelector(request.getRequestPathInfo().getSelectors());
+
+    // ensure valid image size
+    if (params.getWidth() < 0 || params.getHeight() < 0 || (params.getWidth() == 0 && params.getHeight() == 0)) {
+      return null;
+    }
+
+    // serve from transformed image cache if available
+    String contentType = getContentType(resource, request);
+    String transformationKey = buildCacheKey(resource, request, contentType);
+    String cacheKey = null;
+    if (transformationKey != null && transformedImageCache != null && transformedImageCache.isEnabled()) {
+      cacheKey = transformationKey;
+      BinaryData cachedImage = openCachedImage(transformedImageCache.get(cacheKey));
+      if (cachedImage != null) {
+        return cachedImage;
+      }
+    }
+
+    // coalesce concurrent requests for the same transformation
+    if (transformationKey == null) {
+      transformationKey = resource.getPath() + "|" + request.getRequestPathInfo().getSelectorString() + "|" + contentType;
+    }
+    Transformation transformation = coalescer.join(transformationKey);
+    if (!transformation.isLeader()) {
+      // wait for the same transformation executed by another request
+      byte[] sharedResult = transformation.await();
+      if (sharedResult != null) {
+        coalescer.recordCoalesced();
+        return new ByteArrayBinaryData(sharedResult);
+      }
+      if (cacheKey != null) {
+        BinaryData cachedImage = openCachedImage(transformedImageCache.get(cacheKey));
+        if (cachedImage != null) {
+          coalescer.recordCoalesced();
+          return cachedImage;
+        }
+      }
+      // no result available from the other request: transform the image without coalescing
+      return transformWithPermit(resource, request, params, contentType, cacheKey, null);
+    }
+
+    coalescer.recordLeader();
+    try {
+      return transformWithPermit(resource, request, params, contentType, cacheKey, transformation);
+    }
+    finally {
+      // release followers if no encoded image was shared
+      transformation.complete(null);
+    }
+  }
+
+  private @Nullable BinaryData transformWithPermit(@NotNull Resource resource, @NotNull SlingHttpServletRequest request,
+      @NotNull ImageFileServletSelector params, @NotNull String contentType,
+      @Nullable String cacheKey, @Nullable Transformation transformation) throws IOException {
+    // detect source dimension once from the image header without decoding the image
+    boolean subsampling = SubsampledImageDecoder.isSupportedMimeType(JcrBinary.getMimeType(resource));
+    Dimension sourceDimension = null;
+    if (admission != null || subsampling) {
+      sourceDimension = probeDimension(resource);
+    }
+
+    // limit number of decoded pixels held in memory concurrently
+    Permit permit = acquirePermit(sourceDimension, params);
+    BinaryData result = null;
+    try {
+      result = transform(resource, request, params, contentType, cacheKey, transformation, permit,
+          subsampling ? sourceDimension : null);
+      return result;
+    }
+    finally {
+      // layer binary data releases the permit after encoding the image to the response
+      if (permit != null && !(result instanceof LayerBinaryData)) {
+        permit.close();
+      }
+    }
+  }
+
+  @SuppressWarnings({ "java:S3776", "java:S107" }) // ignore complexity and number of parameters
+  private @Nullable BinaryData transform(@NotNull Resource resource, @NotNull SlingHttpServletRequest request,
+      @NotNull ImageFileServletSelector params, @NotNull String contentType,
+      @Nullable String cacheKey, @Nullable Transformation transformation,
+      @Nullable Permit permit, @Nullable Dimension probedDimension) throws IOException {
+    // get media app config
+    MediaHandlerConfig config = AdaptTo.notNull(request, MediaHandlerConfig.class);
+
     int width = params.getWidth();
     int height = params.getHeight();
     CropDimension cropDimension = params.getCropDimension();
     int rotation = params.getRotation();
     int quality = params.getQuality();
 
-    // ensure valid image size
-    if (width < 0 || height < 0 || (width == 0 && height == 0)) {
-      return null;
-    }
-
-    Layer layer = ResourceLayerUtil.toLayer(resource, assetStore);
-    if (layer == null) {
-      return null;
+    // use source dimension from image header if subsampled decoding is supported, otherwise decode the full image
+    Layer layer = null;
+    Dimension sourceDimension = probedDimension;
+    if (sourceDimension == null) {
+      layer = ResourceLayerUtil.toLayer(resource, assetStore);
+      if (layer == null) {
+        return null;
+      }
+      sourceDimension = new Dimension(layer.getWidth(), layer.getHeight());
     }
 
     // if only width or only height is given - derive other value from ratio
@@ -98,7 +231,7 @@ public final class ImageFileServlet extends AbstractMediaFileServlet {
       originalRatio = Ratio.get(cropDimension);
     }
     else {
-      originalRatio = Ratio.get(layer.getWidth(), layer.getHeight());
+      originalRatio = Ratio.get(sourceDimension);
     }
     if (width == 0) {
       width = (int)Math.round(height * originalRatio);
@@ -107,19 +240,33 @@ public final class ImageFileServlet extends AbstractMediaFileServlet {
       height = (int)Math.round(width / originalRatio);
     }
 
-    // if required: crop image
-    if (cropDimension != null) {
-      layer.crop(cropDimension.getRectangle());
-    }
-    else {
-      // if image ratio that is requested does not match with the given ratio apply a center-crop here
+    // if image ratio that is requested does not match with the given ratio apply a center-crop here
+    if (cropDimension == null) {
       double requestedRatio = Ratio.get(width, height);
       if (!Ratio.matches(originalRatio, requestedRatio)) {
-        cropDimension = ImageTransformation.calculateAutoCropDimension(layer.getWidth(), layer.getHeight(), requestedRatio);
-        layer.crop(cropDimension.getRectangle());
+        cropDimension = ImageTransformation.calculateAutoCropDimension(sourceDimension.getWidth(),
+            sourceDimension.getHeight(), requestedRatio);
+      }
+    }
+
+    // for large downscales decode only the cropped region with subsampling
+    boolean cropped = false;
+    if (layer == null) {
+      layer = decodeSubsampled(resource, sourceDimension, cropDimension, width, height, rotation);
+      cropped = layer != null;
+    }
+    if (layer == null) {
+      layer = ResourceLayerUtil.toLayer(resource, assetStore);
+      if (layer == null) {
+        return null;
       }
     }
 
+    // if required: crop image
+    if (cropDimension != null && !cropped) {
+      layer.crop(cropDimension.getRectangle());
+    }
+
     // if required: rotate image
     if (rotation != 0) {
       layer.rotate(rotation);
@@ -131,7 +278,6 @@ public final class ImageFileServlet extends AbstractMediaFileServlet {
     }
 
     // determine layer quality with fallback to default image quality if not set
-    String contentType = getContentType(resource, request);
     double layerQuality;
     if (quality > 0) {
       layerQuality = quality / 100d;
@@ -140,11 +286,157 @@ public final class ImageFileServlet extends AbstractMediaFileServlet {
       layerQuality = config.getDefaultImageQuality(contentType);
     }
 
-    // stream to byte array
-    ByteArrayOutputStream bos = new ByteArrayOutputStream();
-    layer.write(contentType, layerQuality, bos);
-    bos.flush();
-    return bos.toByteArray();
+    // encode image to transformed image cache
+    if (cacheKey != null) {
+      try {
+        Path cachedFile = transformedImageCache.put(cacheKey, resource.getPath(),
+            out -> layer.write(contentType, layerQuality, out));
+        BinaryData cachedImage = openCachedImage(cachedFile);
+        if (cachedImage != null) {
+          return cachedImage;
+        }
+      }
+      catch (IOException ex) {
+        log.warn("Unable to store transformed image of {} in cache: {}", resource.getPath(), ex.getMessage());
+      }
+    }
+
+    // other requests are waiting for the same transformation: encode once and share the result
+    if (transformation != null && transformation.finishJoining()) {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      layer.write(contentType, layerQuality, bos);
+      byte[] result = bos.toByteArray();
+      transformation.complete(result);
+      return new ByteArrayBinaryData(result);
+    }
+
+    // encode image directly to the response output stream when sent to the client
+    return new LayerBinaryData(layer, contentType, layerQuality, permit);
+  }
+
+  private static @Nullable Dimension probeDimension(@NotNull Resource resource) throws IOException {
+    try (InputStream is = resource.adaptTo(InputStream.class)) {
+      if (is == null) {
+        return null;
+      }
+      return ImageDimensionProbe.probe(is);
+    }
+  }
+
+  /**
+   * Decodes the image region with source subsampling if the image is scaled down by more than twice
+   * the {@link SubsampledImageDecoder#OVERSAMPLING} factor.
+   * @param resource Binary resource
+   * @param sourceDimension Dimension of source image
+   * @param cropDimension Crop dimension or null
+   * @param width Target width
+   * @param height Target height
+   * @param rotation Rotation applied after cropping
+   * @return Cropped and subsampled layer or null if subsampling is not applicable
+   * @throws IOException I/O exception
+   */
+  private static @Nullable Layer decodeSubsampled(@NotNull Resource resource, @NotNull Dimension sourceDimension,
+      @Nullable CropDimension cropDimension, long width, long height, int rotation) throws IOException {
+    Rectangle region;
+    if (cropDimension != null) {
+      region = new Rectangle((int)cropDimension.getLeft(), (int)cropDimension.getTop(),
+          (int)cropDimension.getWidth(), (int)cropDimension.getHeight());
+    }
+    else {
+      region = new Rectangle(0, 0, (int)sourceDimension.getWidth(), (int)sourceDimension.getHeight());
+    }
+    // rotation is applied after decoding - swap target width and height to match the source orientation
+    boolean swapAxis = rotation == ImageTransformation.ROTATE_90 || rotation == ImageTransformation.ROTATE_270;
+    int subsampling = SubsampledImageDecoder.getSubsampling(region.width, region.height,
+        swapAxis ? height : width, swapAxis ? width : height);
+    if (subsampling <= 1) {
+      return null;
+    }
+    try (InputStream is = resource.adaptTo(InputStream.class)) {
+      if (is == null) {
+        return null;
+      }
+      BufferedImage image = SubsampledImageDecoder.decode(is, region, subsampling);
+      if (image == null) {
+        return null;
+      }
+      return new Layer(image);
+    }
+  }
+
+  /**
+   * Acquire admission permit weighted by the number of pixels of the decoded source image.
+   * @param sourceDimension Source dimension detected from the image header or null if unknown
+   * @param params Transformation parameters
+   * @return Permit or null if no admission control is active
+   * @throws TransformationRejectedException if the request is rejected
+   */
+  private @Nullable Permit acquirePermit(@Nullable Dimension sourceDimension, @NotNull ImageFileServletSelector params)
+      throws TransformationRejectedException {
+    if (admission == null) {
+      return null;
+    }
+    Permit permit = admission.acquire(estimateDecodedPixels(sourceDimension, params));
+    if (permit == null) {
+      throw new TransformationRejectedException(admission.getRetryAfterSeconds());
+    }
+    return permit;
+  }
+
+  /**
+   * @param sourceDimension Source dimension detected from the image header or null if unknown
+   * @param params Transformation parameters
+   * @return Estimated number of decoded pixels. If the source dimension is unknown (e.g. for PSD or BMP
+   *         images), the image is fully decoded with unknown size, so {@link ImageTransformationAdmission#UNKNOWN_PIXELS}
+   *         is returned.
+   */
+  static long estimateDecodedPixels(@Nullable Dimension sourceDimension, @NotNull ImageFileServletSelector params) {
+    if (sourceDimension == null) {
+      return ImageTransformationAdmission.UNKNOWN_PIXELS;
+    }
+    return Math.max((long)params.getWidth() * params.getHeight(),
+        sourceDimension.getWidth() * sourceDimension.getHeight());
+  }
+
+  /**
+   * @return Coalescer for concurrent identical transformations
+   */
+  @NotNull
+  ImageTransformationCoalescer getCoalescer() {
+    return coalescer;
+  }
+
+  /**
+   * Build cache key from resource path, last modified date of the binary and transformation parameters.
+   * @param resource Binary resource
+   * @param request Request
+   * @param contentType Content type of transformed image
+   * @return Cache key or null if the binary has no last modified date
+   */
+  static @Nullable String buildCacheKey(@NotNull Resource resource, @NotNull SlingHttpServletRequest request,
+      @NotNull String contentType) {
+    Calendar lastModified = JcrBinary.getLastModified(resource);
+    if (lastModified == null) {
+      return null;
+    }
+    return resource.getPath()
+        + "|" + lastModified.getTimeInMillis()
+        + "|" + request.getRequestPathInfo().getSelectorString()
+        + "|" + contentType;
+  }
+
+  private static @Nullable BinaryData openCachedImage(@Nullable Path file) throws IOException {
+    if (file == null) {
+      return null;
+    }
+    try {
+      FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+      return new FileBinaryData(channel, channel.size());
+    }
+    catch (NoSuchFileException ex) {
+      // removed from cache concurrently
+      return null;
+    }
   }
 
   @Override
@@ -199,4 +491,141 @@ public final class ImageFileServlet extends AbstractMediaFileServlet {
     return namePart + "." + extensionPart;
   }
 
+  /**
+   * Encoded image shared with concurrent requests for the same transformation.
+   */
+  private static final class ByteArrayBinaryData implements BinaryData {
+
+    private final byte[] data;
+
+    ByteArrayBinaryData(byte @NotNull [] data) {
+      this.data = data;
+    }
+
+    @Override
+    public long getContentLength() {
+      return data.length;
+    }
+
+    @Override
+    public void writeTo(@NotNull OutputStream out) throws IOException {
+      out.write(data);
+    }
+
+    @Override
+    public void writeRangeTo(@NotNull OutputStream out, long offset, long length) throws IOException {
+      out.write(data, (int)offset, (int)length);
+    }
+
+  }
+
+  /**
+   * Transformed image served from the transformed image cache.
+   */
+  private static final class FileBinaryData implements BinaryData {
+
+    private final FileChannel channel;
+    private final long size;
+
+    FileBinaryData(@NotNull FileChannel channel, long size) {
+      this.channel = channel;
+      this.size = size;
+    }
+
+    @Override
+    public long getContentLength() {
+      return size;
+    }
+
+    @Override
+    public void writeTo(@NotNull OutputStream out) throws IOException {
+      writeRangeTo(out, 0, size);
+    }
+
+    @Override
+    public void writeRangeTo(@NotNull OutputStream out, long offset, long length) throws IOException {
+      WritableByteChannel target = Channels.newChannel(out);
+      long position = offset;
+      long end = offset + length;
+      while (position < end) {
+        long transferred = channel.transferTo(position, end - position, target);
+        if (transferred <= 0) {
+          throw new EOFException("Cached image file ended unexpectedly.");
+        }
+        position += transferred;
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+
+  }
+
+  /**
+   * Transformed image that is encoded while streaming it to the client.
+   */
+  private static final class LayerBinaryData implements BinaryData {
+
+    private final Layer layer;
+    private final String contentType;
+    private final double quality;
+    private final Permit permit;
+
+    LayerBinaryData(@NotNull Layer layer, @NotNull String contentType, double quality, @Nullable Permit permit) {
+      this.layer = layer;
+      this.contentType = contentType;
+      this.quality = quality;
+      this.permit = permit;
+    }
+
+    @Override
+    public long getContentLength() {
+      // not known before encoding the image
+      return -1L;
+    }
+
+    @Override
+    public void writeTo(@NotNull OutputStream out) throws IOException {
+      layer.write(contentType, quality, out);
+    }
+
+    @Override
+    public void writeRangeTo(@NotNull OutputStream out, long offset, long length) throws IOException {
+      // content length is not known before encoding, so ranges are usually not requested
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      layer.write(contentType, quality, bos);
+      out.write(bos.toByteArray(), (int)offset, (int)length);
+    }
+
+    @Override
+    public void close() {
+      if (permit != null) {
+        permit.close();
+      }
+    }
+
+  }
+
+  /**
+   * Signals that an image transformation was rejected by admission control.
+   */
+  private static final class TransformationRejectedException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int retryAfterSeconds;
+
+    TransformationRejectedException(int retryAfterSeconds) {
+      super("Image transformation rejected.");
+      this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    int getRetryAfterSeconds() {
+      return retryAfterSeconds;
+    }
+
+  }
+
 }
@@ -0,0 +1,83 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Limits the number of decoded image pixels held in memory by concurrent image transformations.
+ */
+public interface ImageTransformationAdmission {
+
+  /**
+   * Number of pixels to pass to {@link #acquire(long)} if the image size is unknown before decoding it.
+   * Acquires the max. capacity.
+   */
+  long UNKNOWN_PIXELS = Long.MAX_VALUE;
+
+  /**
+   * Acquire permit for transforming an image with the given number of decoded pixels.
+   * Waits until enough capacity is available, or the queue timeout is reached.
+   * @param pixels Estimated number of decoded pixels or {@link #UNKNOWN_PIXELS}
+   * @return Permit that has to be closed when the transformed image is written,
+   *         or null if the request was rejected because the capacity is exhausted
+   */
+  @Nullable
+  Permit acquire(long pixels);
+
+  /**
+   * @return Seconds a client should wait before retrying a rejected request
+   */
+  int getRetryAfterSeconds();
+
+  /**
+   * @return Number of requests currently waiting for a permit
+   */
+  int getQueueLength();
+
+  /**
+   * @return Number of requests admitted
+   */
+  long getAdmittedCount();
+
+  /**
+   * @return Number of requests rejected
+   */
+  long getRejectedCount();
+
+  /**
+   * @return Total time in milliseconds requests waited for a permit
+   */
+  long getTotalWaitMillis();
+
+  /**
+   * Permit for an admitted image transformation.
+   */
+  interface Permit extends AutoCloseable {
+
+    /**
+     * Releases the permit. Calling it more than once has no effect.
+     */
+    @Override
+    void close();
+
+  }
+
+}
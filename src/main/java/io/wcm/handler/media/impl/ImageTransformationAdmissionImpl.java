@@ -0,0 +1,184 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implements {@link ImageTransformationAdmission} with a fair semaphore. Each permit represents one megapixel.
+ */
+@Component(service = ImageTransformationAdmission.class, immediate = true)
+@Designate(ocd = ImageTransformationAdmissionImpl.Config.class)
+public final class ImageTransformationAdmissionImpl implements ImageTransformationAdmission {
+
+  @ObjectClassDefinition(
+      name = "wcm.io Media Handler Image Transformation Admission",
+      description = "Limits the memory used by concurrent image transformations in the image file and dummy image servlets.")
+  @interface Config {
+
+    @AttributeDefinition(
+        name = "Enabled",
+        description = "Enable admission control for image transformations. "
+            + "If enabled, requests exceeding the capacity are rejected with HTTP 503.")
+    boolean enabled() default false;
+
+    @AttributeDefinition(
+        name = "Max. Megapixels",
+        description = "Max. number of decoded megapixels held in memory by concurrent image transformations. "
+            + "A decoded megapixel requires about 4 MB heap.")
+    int maxMegapixels() default 250;
+
+    @AttributeDefinition(
+        name = "Queue Timeout (ms)",
+        description = "Max. time a request waits for capacity before it is rejected.")
+    long queueTimeoutMs() default 30000;
+
+    @AttributeDefinition(
+        name = "Retry After (sec)",
+        description = "Value of the Retry-After header sent with rejected requests.")
+    int retryAfterSeconds() default 10;
+
+  }
+
+  private static final long PIXELS_PER_PERMIT = 1_000_000L;
+  private static final Permit NOOP_PERMIT = () -> {
+    // nothing to release
+  };
+
+  private boolean enabled;
+  private int maxPermits;
+  private long queueTimeoutMs;
+  private int retryAfterSeconds;
+  private Semaphore semaphore;
+
+  private final AtomicLong admittedCount = new AtomicLong();
+  private final AtomicLong rejectedCount = new AtomicLong();
+  private final AtomicLong totalWaitMillis = new AtomicLong();
+
+  private static final Logger log = LoggerFactory.getLogger(ImageTransformationAdmissionImpl.class);
+
+  @Activate
+  private void activate(Config config) {
+    this.enabled = config.enabled();
+    this.maxPermits = Math.max(1, config.maxMegapixels());
+    this.queueTimeoutMs = Math.max(0, config.queueTimeoutMs());
+    this.retryAfterSeconds = config.retryAfterSeconds();
+    this.semaphore = new Semaphore(maxPermits, true);
+  }
+
+  @Deactivate
+  private void deactivate() {
+    log.debug("Image transformation admission: {} admitted, {} rejected, {} ms total wait time",
+        admittedCount.get(), rejectedCount.get(), totalWaitMillis.get());
+  }
+
+  @Override
+  public @Nullable Permit acquire(long pixels) {
+    if (!enabled) {
+      return NOOP_PERMIT;
+    }
+    int permits = getPermits(pixels);
+    long start = System.nanoTime();
+    boolean acquired;
+    try {
+      acquired = semaphore.tryAcquire(permits, queueTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      acquired = false;
+    }
+    totalWaitMillis.addAndGet(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    if (!acquired) {
+      rejectedCount.incrementAndGet();
+      log.debug("Image transformation with {} pixels rejected, {} requests queued.", pixels, semaphore.getQueueLength());
+      return null;
+    }
+    admittedCount.incrementAndGet();
+    return new SemaphorePermit(semaphore, permits);
+  }
+
+  /**
+   * @param pixels Number of pixels
+   * @return Number of permits, at least 1, at most the max. number of permits
+   */
+  int getPermits(long pixels) {
+    long permits = pixels / PIXELS_PER_PERMIT + (pixels % PIXELS_PER_PERMIT > 0 ? 1 : 0);
+    return (int)Math.min(maxPermits, Math.max(1, permits));
+  }
+
+  @Override
+  public int getRetryAfterSeconds() {
+    return retryAfterSeconds;
+  }
+
+  @Override
+  public int getQueueLength() {
+    return enabled ? semaphore.getQueueLength() : 0;
+  }
+
+  @Override
+  public long getAdmittedCount() {
+    return admittedCount.get();
+  }
+
+  @Override
+  public long getRejectedCount() {
+    return rejectedCount.get();
+  }
+
+  @Override
+  public long getTotalWaitMillis() {
+    return totalWaitMillis.get();
+  }
+
+  private static final class SemaphorePermit implements Permit {
+
+    private final Semaphore semaphore;
+    private final int permits;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    SemaphorePermit(Semaphore semaphore, int permits) {
+      this.semaphore = semaphore;
+      this.permits = permits;
+    }
+
+    @Override
+    public void close() {
+      if (released.compareAndSet(false, true)) {
+        semaphore.release(permits);
+      }
+    }
+
+  }
+
+}
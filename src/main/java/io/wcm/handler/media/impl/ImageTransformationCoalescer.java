@@ -0,0 +1,172 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Coalesces concurrent identical image transformations in {@link ImageFileServlet}.
+ * <p>
+ * The first request for a transformation key (leader) registers an in-flight transformation and executes it without
+ * holding any lock. Requests for the same key arriving meanwhile (followers) join the in-flight transformation and
+ * wait for its result. Only if followers have joined, the leader encodes the image to a byte array and shares it.
+ * Requests for other keys are never blocked.
+ * </p>
+ */
+final class ImageTransformationCoalescer {
+
+  private final Map<String, Transformation> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong leaderCount = new AtomicLong();
+  private final AtomicLong coalescedCount = new AtomicLong();
+
+  /**
+   * Join the in-flight transformation for the given key, or register a new one with the caller as leader.
+   * The leader has to call {@link Transformation#complete(byte[])} when done, also if the transformation failed.
+   * @param key Transformation key
+   * @return Transformation
+   */
+  @NotNull
+  Transformation join(@NotNull String key) {
+    Transformation candidate = new Transformation(key);
+    Transformation transformation = inFlight.compute(key, (k, existing) -> {
+      if (existing == null) {
+        return candidate;
+      }
+      existing.followers.incrementAndGet();
+      return existing;
+    });
+    if (transformation == candidate) {
+      return candidate;
+    }
+    return transformation.asFollower();
+  }
+
+  void recordLeader() {
+    leaderCount.incrementAndGet();
+  }
+
+  void recordCoalesced() {
+    coalescedCount.incrementAndGet();
+  }
+
+  /**
+   * @return Number of transformations executed
+   */
+  long getLeaderCount() {
+    return leaderCount.get();
+  }
+
+  /**
+   * @return Number of requests that reused the result of a concurrent identical transformation
+   */
+  long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+  /**
+   * In-flight transformation, as seen by the leader or a follower.
+   */
+  final class Transformation {
+
+    private final String key;
+    private final boolean leader;
+    private final AtomicInteger followers;
+    private final CompletableFuture<byte[]> result;
+
+    Transformation(@NotNull String key) {
+      this(key, true, new AtomicInteger(), new CompletableFuture<>());
+    }
+
+    private Transformation(@NotNull String key, boolean leader, @NotNull AtomicInteger followers,
+        @NotNull CompletableFuture<byte[]> result) {
+      this.key = key;
+      this.leader = leader;
+      this.followers = followers;
+      this.result = result;
+    }
+
+    private @NotNull Transformation asFollower() {
+      return new Transformation(key, false, followers, result);
+    }
+
+    /**
+     * @return true if the current request executes the transformation
+     */
+    boolean isLeader() {
+      return leader;
+    }
+
+    /**
+     * @return Number of requests waiting for the result of this transformation
+     */
+    int getFollowerCount() {
+      return followers.get();
+    }
+
+    /**
+     * Stops other requests from joining this transformation. Called by the leader before encoding the result.
+     * @return true if other requests joined this transformation and wait for its result
+     */
+    boolean finishJoining() {
+      inFlight.remove(key, this);
+      return followers.get() > 0;
+    }
+
+    /**
+     * Completes the transformation and passes the result to all followers. Further calls are ignored.
+     * @param data Encoded image, or null if followers should get the image from the transformed image cache or
+     *          transform it themselves
+     */
+    void complete(byte @Nullable [] data) {
+      finishJoining();
+      result.complete(data);
+    }
+
+    /**
+     * Waits for the result of the transformation executed by the leader.
+     * @return Encoded image, or null if the leader did not share an encoded image
+     * @throws IOException If the current thread was interrupted while waiting
+     */
+    byte @Nullable [] await() throws IOException {
+      try {
+        return result.get();
+      }
+      catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while waiting for transformation: " + key, ex);
+      }
+      catch (ExecutionException ex) {
+        // not expected: result is never completed exceptionally
+        return null;
+      }
+    }
+
+  }
+
+}
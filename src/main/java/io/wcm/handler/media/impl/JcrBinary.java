@@ -19,10 +19,18 @@
  */
 package io.wcm.handler.media.impl;
 
+import java.util.Calendar;
+
+import javax.jcr.Binary;
+import javax.jcr.Node;
+import javax.jcr.RepositoryException;
+
 import org.apache.commons.lang3.Strings;
 import org.apache.jackrabbit.oak.spi.nodetype.NodeTypeConstants;
 import org.apache.sling.api.resource.Resource;
 import org.osgi.annotation.versioning.ProviderType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.day.cq.commons.jcr.JcrConstants;
 
@@ -32,6 +40,8 @@ import com.day.cq.commons.jcr.JcrConstants;
 @ProviderType
 public final class JcrBinary {
 
+  private static final Logger log = LoggerFactory.getLogger(JcrBinary.class);
+
   private JcrBinary() {
     // static util methods only
   }
@@ -80,6 +90,57 @@ public final class JcrBinary {
     return null;
   }
 
+  /**
+   * Get last modified date from the referenced nt:file or nt:resource node.
+   * @param resource Resource pointing to JCR node with primary type nt:file or nt:resource
+   * @return Last modified date or null if not set or if node is not of type nt:resource or nt:file
+   */
+  public static Calendar getLastModified(Resource resource) {
+    if (isNtResource(resource)) {
+      return resource.getValueMap().get(JcrConstants.JCR_LASTMODIFIED, Calendar.class);
+    }
+    else if (isNtFile(resource)) {
+      return getLastModified(resource.getChild(JcrConstants.JCR_CONTENT));
+    }
+    return null;
+  }
+
+  /**
+   * Get size of the binary data stored in the referenced nt:file or nt:resource node without reading the binary.
+   * @param resource Resource pointing to JCR node with primary type nt:file or nt:resource
+   * @return Binary size in bytes or -1 if not available
+   */
+  public static long getBinarySize(Resource resource) {
+    if (resource == null) {
+      return -1L;
+    }
+    long contentLength = resource.getResourceMetadata().getContentLength();
+    if (contentLength >= 0) {
+      return contentLength;
+    }
+    if (isNtFile(resource)) {
+      return getBinarySize(resource.getChild(JcrConstants.JCR_CONTENT));
+    }
+    Node node = resource.adaptTo(Node.class);
+    if (node != null) {
+      try {
+        if (node.hasProperty(JcrConstants.JCR_DATA)) {
+          Binary binary = node.getProperty(JcrConstants.JCR_DATA).getBinary();
+          try {
+            return binary.getSize();
+          }
+          finally {
+            binary.dispose();
+          }
+        }
+      }
+      catch (RepositoryException ex) {
+        log.debug("Unable to get binary size for {}", resource.getPath(), ex);
+      }
+    }
+    return -1L;
+  }
+
   /**
    * Checks if the given resource is a node with the given node type name
    * @param resource Resource
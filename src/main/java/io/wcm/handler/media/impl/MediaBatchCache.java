@@ -0,0 +1,99 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.adapter.Adaptable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Holds data shared by all media resolved in a batch via {@link io.wcm.handler.media.MediaHandler#getAll}, e.g.
+ * the rendition index of an asset referenced by multiple media requests with different media args.
+ * <p>
+ * The batch cache is stored in a request attribute while the batch is resolved, so it is only available
+ * if the media handler was adapted from a request.
+ * </p>
+ */
+public final class MediaBatchCache {
+
+  static final String REQUEST_ATTRIBUTE = MediaBatchCache.class.getName();
+
+  private final Map<String, Object> values = new ConcurrentHashMap<>();
+
+  private MediaBatchCache() {
+    // created via begin
+  }
+
+  /**
+   * Get value from batch cache, or create it if it does not exist yet.
+   * @param <T> Value type
+   * @param key Cache key, should contain the value type to avoid collisions
+   * @param supplier Creates the value
+   * @return Value
+   */
+  @SuppressWarnings("unchecked")
+  public <T> @NotNull T get(@NotNull String key, @NotNull Supplier<T> supplier) {
+    return (T)values.computeIfAbsent(key, k -> supplier.get());
+  }
+
+  /**
+   * Get batch cache of the currently resolved batch.
+   * @param adaptable Adaptable
+   * @return Batch cache or null if no batch is resolved currently
+   */
+  public static @Nullable MediaBatchCache get(@NotNull Adaptable adaptable) {
+    if (adaptable instanceof SlingHttpServletRequest) {
+      return (MediaBatchCache)((SlingHttpServletRequest)adaptable).getAttribute(REQUEST_ATTRIBUTE);
+    }
+    return null;
+  }
+
+  /**
+   * Starts a batch.
+   * @param adaptable Adaptable
+   * @return Batch cache that has to be passed to {@link #end(Adaptable, MediaBatchCache)}, or null if no batch
+   *         cache was created (adaptable is no request, or a batch was already started)
+   */
+  public static @Nullable MediaBatchCache begin(@NotNull Adaptable adaptable) {
+    if (!(adaptable instanceof SlingHttpServletRequest) || get(adaptable) != null) {
+      return null;
+    }
+    MediaBatchCache batchCache = new MediaBatchCache();
+    ((SlingHttpServletRequest)adaptable).setAttribute(REQUEST_ATTRIBUTE, batchCache);
+    return batchCache;
+  }
+
+  /**
+   * Ends a batch.
+   * @param adaptable Adaptable
+   * @param batchCache Batch cache returned by {@link #begin(Adaptable)}
+   */
+  public static void end(@NotNull Adaptable adaptable, @Nullable MediaBatchCache batchCache) {
+    if (batchCache != null && get(adaptable) == batchCache) {
+      ((SlingHttpServletRequest)adaptable).removeAttribute(REQUEST_ATTRIBUTE);
+    }
+  }
+
+}
@@ -26,8 +26,6 @@ import java.util.Set;
 import org.apache.sling.api.resource.Resource;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import io.wcm.handler.commons.dom.HtmlElement;
 import io.wcm.handler.media.Media;
@@ -37,14 +35,12 @@ import io.wcm.handler.media.MediaArgs.MediaFormatOption;
 import io.wcm.handler.media.MediaArgs.PictureSource;
 import io.wcm.handler.media.MediaArgs.WidthOption;
 import io.wcm.handler.media.MediaBuilder;
-import io.wcm.handler.media.MediaComponentPropertyResolver;
 import io.wcm.handler.media.MediaRequest;
 import io.wcm.handler.media.MediaRequest.MediaPropertyNames;
 import io.wcm.handler.media.format.MediaFormat;
 import io.wcm.handler.media.markup.DragDropSupport;
 import io.wcm.handler.mediasource.dam.AemRenditionType;
 import io.wcm.handler.url.UrlMode;
-import io.wcm.wcm.commons.component.ComponentPropertyResolverFactory;
 
 /**
  * Default implementation or {@link MediaBuilder}.
@@ -60,46 +56,31 @@ final class MediaBuilderImpl implements MediaBuilder {
   private MediaPropertyNames mediaPropertyNames = new MediaPropertyNames();
   private List<PictureSource> pictureSourceSets = new ArrayList<>();
 
-  private static final Logger log = LoggerFactory.getLogger(MediaBuilderImpl.class);
-
-  MediaBuilderImpl(@Nullable Resource resource, @NotNull MediaHandlerImpl mediaHandler,
-      @NotNull ComponentPropertyResolverFactory componentPropertyResolverFactory) {
+  MediaBuilderImpl(@Nullable Resource resource, @NotNull MediaHandlerImpl mediaHandler) {
     this.resource = resource;
     this.mediaRef = null;
     this.mediaHandler = mediaHandler;
 
     if (resource != null) {
-      resolveDefaultSettingsFromPolicyAndComponent(resource, componentPropertyResolverFactory);
+      resolveDefaultSettingsFromPolicyAndComponent(resource);
     }
   }
 
   /**
    * Resolve default settings from content policies and component properties
    * @param contextResource context resource
-   * @param componentPropertyResolverFactory factory to create a component property resolver
    */
-  @SuppressWarnings("PMD.AvoidCatchingGenericException")
-  private void resolveDefaultSettingsFromPolicyAndComponent(@NotNull Resource contextResource,
-      @NotNull ComponentPropertyResolverFactory componentPropertyResolverFactory) {
-    try (MediaComponentPropertyResolver resolver = new MediaComponentPropertyResolver(contextResource, componentPropertyResolverFactory)) {
-      mediaArgs.mediaFormatOptions(resolver.getMediaFormatOptions());
-      mediaArgs.autoCrop(resolver.isAutoCrop());
-      mediaArgs.imageSizes(resolver.getImageSizes());
-      mediaArgs.pictureSources(resolver.getPictureSources());
-    }
-    catch (Exception ex) {
-      log.warn("Error closing component property resolver.", ex);
-    }
+  private void resolveDefaultSettingsFromPolicyAndComponent(@NotNull Resource contextResource) {
+    mediaHandler.getComponentDefaults(contextResource).applyTo(mediaArgs);
   }
 
-  MediaBuilderImpl(String mediaRef, Resource contextResource, MediaHandlerImpl mediaHandler,
-      @NotNull ComponentPropertyResolverFactory componentPropertyResolverFactory) {
+  MediaBuilderImpl(String mediaRef, Resource contextResource, MediaHandlerImpl mediaHandler) {
     this.resource = contextResource;
     this.mediaRef = mediaRef;
     this.mediaHandler = mediaHandler;
 
     if (contextResource != null) {
-      resolveDefaultSettingsFromPolicyAndComponent(contextResource, componentPropertyResolverFactory);
+      resolveDefaultSettingsFromPolicyAndComponent(contextResource);
     }
   }
 
@@ -0,0 +1,114 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import java.util.Arrays;
+
+import org.apache.sling.api.resource.Resource;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.wcm.handler.media.MediaArgs;
+import io.wcm.handler.media.MediaArgs.ImageSizes;
+import io.wcm.handler.media.MediaArgs.MediaFormatOption;
+import io.wcm.handler.media.MediaArgs.PictureSource;
+import io.wcm.handler.media.MediaComponentPropertyResolver;
+import io.wcm.handler.media.format.MediaFormat;
+import io.wcm.wcm.commons.component.ComponentPropertyResolverFactory;
+
+/**
+ * Media handler default settings resolved from content policies and component properties.
+ * Instances are immutable, the settings are copied when applied to media args.
+ */
+public final class MediaComponentDefaults {
+
+  private final @NotNull MediaFormatOption @Nullable [] mediaFormatOptions;
+  private final boolean autoCrop;
+  private final @Nullable ImageSizes imageSizes;
+  private final @NotNull PictureSource @Nullable [] pictureSources;
+
+  private static final Logger log = LoggerFactory.getLogger(MediaComponentDefaults.class);
+
+  MediaComponentDefaults(@NotNull MediaFormatOption @Nullable [] mediaFormatOptions, boolean autoCrop,
+      @Nullable ImageSizes imageSizes, @NotNull PictureSource @Nullable [] pictureSources) {
+    this.mediaFormatOptions = mediaFormatOptions;
+    this.autoCrop = autoCrop;
+    this.imageSizes = imageSizes;
+    this.pictureSources = pictureSources;
+  }
+
+  /**
+   * Resolve default settings from content policies and component properties.
+   * @param contextResource Context resource
+   * @param componentPropertyResolverFactory Factory to create a component property resolver
+   * @return Default settings
+   */
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  static @NotNull MediaComponentDefaults resolve(@NotNull Resource contextResource,
+      @NotNull ComponentPropertyResolverFactory componentPropertyResolverFactory) {
+    MediaFormatOption[] mediaFormatOptions = null;
+    boolean autoCrop = false;
+    ImageSizes imageSizes = null;
+    PictureSource[] pictureSources = null;
+    try (MediaComponentPropertyResolver resolver = new MediaComponentPropertyResolver(contextResource, componentPropertyResolverFactory)) {
+      mediaFormatOptions = resolver.getMediaFormatOptions();
+      autoCrop = resolver.isAutoCrop();
+      imageSizes = resolver.getImageSizes();
+      pictureSources = resolver.getPictureSources();
+    }
+    catch (Exception ex) {
+      log.warn("Error closing component property resolver.", ex);
+    }
+    return new MediaComponentDefaults(mediaFormatOptions, autoCrop, imageSizes, pictureSources);
+  }
+
+  /**
+   * Apply default settings to media args. Arrays and mutable objects are copied, so modifications of
+   * the media args do not affect this instance.
+   * @param mediaArgs Media args
+   */
+  void applyTo(@NotNull MediaArgs mediaArgs) {
+    mediaArgs.mediaFormatOptions(mediaFormatOptions != null ? mediaFormatOptions.clone() : null);
+    mediaArgs.autoCrop(autoCrop);
+    mediaArgs.imageSizes(imageSizes);
+    mediaArgs.pictureSources(pictureSources != null
+        ? Arrays.stream(pictureSources).map(MediaComponentDefaults::copy).toArray(PictureSource[]::new)
+        : null);
+  }
+
+  @SuppressWarnings("null")
+  private static @NotNull PictureSource copy(@NotNull PictureSource pictureSource) {
+    PictureSource copy;
+    MediaFormat mediaFormat = pictureSource.getMediaFormat();
+    if (mediaFormat != null) {
+      copy = new PictureSource(mediaFormat);
+    }
+    else {
+      copy = new PictureSource(pictureSource.getMediaFormatName());
+    }
+    return copy
+        .media(pictureSource.getMedia())
+        .sizes(pictureSource.getSizes())
+        .widthOptions(pictureSource.getWidthOptions());
+  }
+
+}
@@ -0,0 +1,42 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import java.util.function.Function;
+
+import org.apache.sling.api.resource.Resource;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Caches the media handler default settings resolved from content policies and component properties across
+ * requests, keyed by resource type and effective content policy.
+ */
+public interface MediaComponentDefaultsCache {
+
+  /**
+   * Get default settings for the given context resource.
+   * @param contextResource Context resource
+   * @param resolver Function to resolve the default settings if they are not cached yet
+   * @return Default settings
+   */
+  @NotNull
+  MediaComponentDefaults get(@NotNull Resource contextResource, @NotNull Function<Resource, MediaComponentDefaults> resolver);
+
+}
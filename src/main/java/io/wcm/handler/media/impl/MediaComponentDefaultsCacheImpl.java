@@ -0,0 +1,139 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import java.util.List;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.day.cq.wcm.api.policies.ContentPolicy;
+import com.day.cq.wcm.api.policies.ContentPolicyManager;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Implements {@link MediaComponentDefaultsCache}.
+ * <p>
+ * All cache entries are invalidated on changes below <code>/conf</code> (content policies, template policy mappings)
+ * and <code>/apps</code> (component definitions).
+ * </p>
+ */
+@Component(service = { MediaComponentDefaultsCache.class, ResourceChangeListener.class }, immediate = true, property = {
+    ResourceChangeListener.PATHS + "=" + MediaComponentDefaultsCacheImpl.CONF_PATH,
+    ResourceChangeListener.PATHS + "=" + MediaComponentDefaultsCacheImpl.APPS_PATH
+})
+@Designate(ocd = MediaComponentDefaultsCacheImpl.Config.class)
+public class MediaComponentDefaultsCacheImpl implements MediaComponentDefaultsCache, ExternalResourceChangeListener {
+
+  @ObjectClassDefinition(
+      name = "wcm.io Media Handler Component Defaults Cache",
+      description = "Caches the media handler default settings resolved from content policies and component properties.")
+  @interface Config {
+
+    @AttributeDefinition(
+        name = "Enabled",
+        description = "Enable caching of media handler default settings.")
+    boolean enabled() default true;
+
+    @AttributeDefinition(
+        name = "Max. Size",
+        description = "Max. number of resource type/content policy combinations for which the default settings are cached.")
+    long maxSize() default 1000;
+
+  }
+
+  static final String CONF_PATH = "/conf";
+  static final String APPS_PATH = "/apps";
+
+  private boolean enabled;
+  private Cache<String, MediaComponentDefaults> cache;
+
+  private static final Logger log = LoggerFactory.getLogger(MediaComponentDefaultsCacheImpl.class);
+
+  @Activate
+  private void activate(Config config) {
+    this.enabled = config.enabled();
+    this.cache = Caffeine.newBuilder()
+      .maximumSize(config.maxSize())
+      .recordStats()
+      .build();
+  }
+
+  @Deactivate
+  private void deactivate() {
+    log.debug("Media component defaults cache statistics: {}", cache.stats());
+    cache.invalidateAll();
+  }
+
+  @Override
+  public @NotNull MediaComponentDefaults get(@NotNull Resource contextResource,
+      @NotNull Function<Resource, MediaComponentDefaults> resolver) {
+    String cacheKey = enabled ? buildCacheKey(contextResource) : null;
+    if (cacheKey == null) {
+      return resolver.apply(contextResource);
+    }
+    return cache.get(cacheKey, key -> resolver.apply(contextResource));
+  }
+
+  @Override
+  public void onChange(@NotNull List<ResourceChange> changes) {
+    // content policies, policy mappings or component definitions may have changed
+    cache.invalidateAll();
+  }
+
+  /**
+   * Build cache key from resource type and effective content policy.
+   * @param resource Context resource
+   * @return Cache key or null if the resource has no explicit resource type
+   */
+  static @Nullable String buildCacheKey(@NotNull Resource resource) {
+    // resources without resource type are resolved via the closest parent with resource type - do not cache
+    String resourceType = resource.getValueMap().get(ResourceResolver.PROPERTY_RESOURCE_TYPE, String.class);
+    if (StringUtils.isBlank(resourceType)) {
+      return null;
+    }
+    String policyPath = "";
+    ContentPolicyManager policyManager = resource.getResourceResolver().adaptTo(ContentPolicyManager.class);
+    if (policyManager != null) {
+      ContentPolicy policy = policyManager.getPolicy(resource);
+      if (policy != null) {
+        policyPath = policy.getPath();
+      }
+    }
+    return resourceType + "#" + policyPath;
+  }
+
+}
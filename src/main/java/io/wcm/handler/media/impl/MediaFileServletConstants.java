@@ -39,6 +39,36 @@ public final class MediaFileServletConstants {
    */
   public static final String HEADER_CONTENT_SECURITY_POLICY = "Content-Security-Policy";
 
+  /**
+   * Accept-Ranges header
+   */
+  public static final String HEADER_ACCEPT_RANGES = "Accept-Ranges";
+
+  /**
+   * Range header
+   */
+  public static final String HEADER_RANGE = "Range";
+
+  /**
+   * If-Range header
+   */
+  public static final String HEADER_IF_RANGE = "If-Range";
+
+  /**
+   * Content-Range header
+   */
+  public static final String HEADER_CONTENT_RANGE = "Content-Range";
+
+  /**
+   * ETag header
+   */
+  public static final String HEADER_ETAG = "ETag";
+
+  /**
+   * Retry-After header
+   */
+  public static final String HEADER_RETRY_AFTER = "Retry-After";
+
   /**
    * Selector
    */
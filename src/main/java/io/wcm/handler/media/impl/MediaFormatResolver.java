@@ -28,12 +28,18 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.sling.api.adapter.Adaptable;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
 import io.wcm.handler.media.MediaArgs;
 import io.wcm.handler.media.MediaArgs.ImageSizes;
 import io.wcm.handler.media.MediaArgs.MediaFormatOption;
@@ -49,26 +55,86 @@ import io.wcm.handler.media.format.MediaFormatHandler;
 final class MediaFormatResolver {
 
   private final MediaFormatHandler mediaFormatHandler;
+  private final Adaptable adaptable;
 
   private static final Logger log = LoggerFactory.getLogger(MediaFormatResolver.class);
 
   static final String MEDIAFORMAT_NAME_SEPARATOR = "___";
 
+  /*
+   * Media formats generated on-the-fly for responsive images are immutable and only depend on the parent media format,
+   * the width and the parent flag - so they are created once and shared across requests. The table is bounded, so
+   * media formats defined ad-hoc in code are kept reachable only until they are evicted.
+   */
+  static final int WIDTH_MEDIA_FORMATS_MAX_SIZE = 5000;
+  private static final Cache<WidthMediaFormatKey, MediaFormat> WIDTH_MEDIA_FORMATS = Caffeine.newBuilder()
+      .maximumSize(WIDTH_MEDIA_FORMATS_MAX_SIZE)
+      .build();
+
+  private static final String BATCH_CACHE_KEY = MediaFormatResolver.class.getName() + ".mediaFormatOptions";
+
   MediaFormatResolver(MediaFormatHandler mediaFormatHandler) {
+    this(mediaFormatHandler, null);
+  }
+
+  /**
+   * @param mediaFormatHandler Media format handler
+   * @param adaptable Adaptable the media handler was adapted from - used to look up the {@link MediaBatchCache}
+   */
+  MediaFormatResolver(MediaFormatHandler mediaFormatHandler, @Nullable Adaptable adaptable) {
     this.mediaFormatHandler = mediaFormatHandler;
+    this.adaptable = adaptable;
   }
 
   /**
    * Resolve media format names and responsive media formats.
+   * <p>
+   * Within a batch (see {@link MediaBatchCache}) the resolved media format options are reused for all media
+   * requests with the same media format options, picture sources and image sizes.
+   * </p>
    * @param mediaArgs Media args
    * @return true if resolution was successful.
    */
   public boolean resolve(MediaArgs mediaArgs) {
+    Map<MediaFormatOptionsKey, MediaFormatOption[]> resolvedMediaFormatOptions = getBatchResolvedMediaFormatOptions();
+    if (resolvedMediaFormatOptions == null) {
+      return resolveUncached(mediaArgs);
+    }
+
+    MediaFormatOptionsKey key = new MediaFormatOptionsKey(mediaArgs);
+    MediaFormatOption[] cachedMediaFormatOptions = resolvedMediaFormatOptions.get(key);
+    if (cachedMediaFormatOptions != null) {
+      // picture sources are resolved per media args, resolution was successful for the same names before
+      resolvePictureSourcesByNames(mediaArgs);
+      mediaArgs.mediaFormatOptions(cachedMediaFormatOptions.clone());
+      return true;
+    }
+
+    boolean resolutionSuccessful = resolveUncached(mediaArgs);
+    MediaFormatOption[] mediaFormatOptions = mediaArgs.getMediaFormatOptions();
+    if (resolutionSuccessful && mediaFormatOptions != null) {
+      resolvedMediaFormatOptions.put(key, mediaFormatOptions.clone());
+    }
+    return resolutionSuccessful;
+  }
+
+  private boolean resolveUncached(MediaArgs mediaArgs) {
     return resolveMediaFormatOptionsByNames(mediaArgs)
         && resolvePictureSourcesByNames(mediaArgs)
         && addResponsiveImageMediaFormats(mediaArgs);
   }
 
+  private @Nullable Map<MediaFormatOptionsKey, MediaFormatOption[]> getBatchResolvedMediaFormatOptions() {
+    if (adaptable == null) {
+      return null;
+    }
+    MediaBatchCache batchCache = MediaBatchCache.get(adaptable);
+    if (batchCache == null) {
+      return null;
+    }
+    return batchCache.get(BATCH_CACHE_KEY, ConcurrentHashMap::new);
+  }
+
   /**
    * Resolve media format names to media formats in media options so all downstream logic has only to handle the
    * resolved media formats.
@@ -200,16 +266,138 @@ final class MediaFormatResolver {
       return;
     }
     for (WidthOption widthOption : widthOptions) {
-      MediaFormat widthMediaFormat = MediaFormatBuilder.create(
-          mediaFormat.getName() + MEDIAFORMAT_NAME_SEPARATOR + widthOption.getWidth())
+      MediaFormat widthMediaFormat = getWidthMediaFormat(mediaFormat, widthOption.getWidth(), setParent);
+      additionalMediaFormats.put(widthMediaFormat.getName(), new MediaFormatOption(widthMediaFormat, widthOption.isMandatory()));
+    }
+  }
+
+  /**
+   * Get (shared) media format derived from the given media format with the given width.
+   * @param mediaFormat Parent media format
+   * @param width Width
+   * @param setParent Set parent media format as property
+   * @return Media format
+   */
+  static @NotNull MediaFormat getWidthMediaFormat(@NotNull MediaFormat mediaFormat, long width, boolean setParent) {
+    return WIDTH_MEDIA_FORMATS.get(new WidthMediaFormatKey(mediaFormat, width, setParent),
+        key -> buildWidthMediaFormat(mediaFormat, width, setParent));
+  }
+
+  /**
+   * @return Number of media formats in the shared table of generated media formats
+   */
+  static long getWidthMediaFormatsSize() {
+    WIDTH_MEDIA_FORMATS.cleanUp();
+    return WIDTH_MEDIA_FORMATS.estimatedSize();
+  }
+
+  private static @NotNull MediaFormat buildWidthMediaFormat(@NotNull MediaFormat mediaFormat, long width, boolean setParent) {
+    return MediaFormatBuilder.create(mediaFormat.getName() + MEDIAFORMAT_NAME_SEPARATOR + width)
         .label(mediaFormat.getLabel())
         .extensions(mediaFormat.getExtensions())
         .ratio(mediaFormat.getRatio())
-        .width(widthOption.getWidth())
+        .width(width)
         .property(MEDIAFORMAT_PROP_PARENT_MEDIA_FORMAT, setParent ? mediaFormat : null)
         .build();
-      additionalMediaFormats.put(widthMediaFormat.getName(), new MediaFormatOption(widthMediaFormat, widthOption.isMandatory()));
+  }
+
+  /**
+   * Key for generated media formats. The parent media format is compared by identity, because media formats are
+   * compared by name only, but media formats with the same name may differ (e.g. defined ad-hoc in code).
+   */
+  private static final class WidthMediaFormatKey {
+
+    private final MediaFormat mediaFormat;
+    private final long width;
+    private final boolean setParent;
+    private final int hashCode;
+
+    WidthMediaFormatKey(@NotNull MediaFormat mediaFormat, long width, boolean setParent) {
+      this.mediaFormat = mediaFormat;
+      this.width = width;
+      this.setParent = setParent;
+      this.hashCode = Objects.hash(System.identityHashCode(mediaFormat), width, setParent);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof WidthMediaFormatKey)) {
+        return false;
+      }
+      WidthMediaFormatKey other = (WidthMediaFormatKey)obj;
+      return mediaFormat == other.mediaFormat
+          && width == other.width
+          && setParent == other.setParent;
     }
+
+  }
+
+  /**
+   * Key for resolved media format options within a batch. Media formats are compared by identity in addition
+   * to the value comparison of the media args parts, because media formats are compared by name only.
+   */
+  private static final class MediaFormatOptionsKey {
+
+    private final MediaFormatOption[] mediaFormatOptions;
+    private final PictureSource[] pictureSources;
+    private final ImageSizes imageSizes;
+    private final int hashCode;
+
+    MediaFormatOptionsKey(@NotNull MediaArgs mediaArgs) {
+      this.mediaFormatOptions = ArrayUtils.clone(mediaArgs.getMediaFormatOptions());
+      this.pictureSources = ArrayUtils.clone(mediaArgs.getPictureSources());
+      this.imageSizes = mediaArgs.getImageSizes();
+      this.hashCode = Objects.hash(Arrays.hashCode(mediaFormatOptions), Arrays.hashCode(pictureSources), imageSizes);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof MediaFormatOptionsKey)) {
+        return false;
+      }
+      MediaFormatOptionsKey other = (MediaFormatOptionsKey)obj;
+      return Arrays.equals(mediaFormatOptions, other.mediaFormatOptions)
+          && Arrays.equals(pictureSources, other.pictureSources)
+          && Objects.equals(imageSizes, other.imageSizes)
+          && sameMediaFormats(other);
+    }
+
+    private boolean sameMediaFormats(MediaFormatOptionsKey other) {
+      if (mediaFormatOptions != null) {
+        for (int i = 0; i < mediaFormatOptions.length; i++) {
+          if (mediaFormatOptions[i] != null
+              && mediaFormatOptions[i].getMediaFormat() != other.mediaFormatOptions[i].getMediaFormat()) {
+            return false;
+          }
+        }
+      }
+      if (pictureSources != null) {
+        for (int i = 0; i < pictureSources.length; i++) {
+          if (pictureSources[i] != null
+              && pictureSources[i].getMediaFormat() != other.pictureSources[i].getMediaFormat()) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
   }
 
 }
@@ -20,12 +20,16 @@
 package io.wcm.handler.media.impl;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.sling.api.SlingHttpServletRequest;
 import org.apache.sling.api.adapter.Adaptable;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.models.annotations.Model;
+import org.apache.sling.models.annotations.injectorspecific.InjectionStrategy;
 import org.apache.sling.models.annotations.injectorspecific.OSGiService;
 import org.apache.sling.models.annotations.injectorspecific.Self;
 import org.jetbrains.annotations.NotNull;
@@ -47,7 +51,6 @@ import io.wcm.handler.media.spi.MediaHandlerConfig;
 import io.wcm.handler.media.spi.MediaMarkupBuilder;
 import io.wcm.handler.media.spi.MediaProcessor;
 import io.wcm.handler.media.spi.MediaSource;
-import io.wcm.sling.commons.adapter.AdaptTo;
 import io.wcm.wcm.commons.component.ComponentPropertyResolverFactory;
 
 /**
@@ -66,12 +69,17 @@ public final class MediaHandlerImpl implements MediaHandler {
   private MediaFormatHandler mediaFormatHandler;
   @OSGiService
   private ComponentPropertyResolverFactory componentPropertyResolverFactory;
+  @OSGiService(injectionStrategy = InjectionStrategy.OPTIONAL)
+  private MediaComponentDefaultsCache componentDefaultsCache;
+
+  private SpiModelCache spiModelCache;
+  private MediaFormatResolver mediaFormatResolver;
 
   private static final Logger log = LoggerFactory.getLogger(MediaHandlerImpl.class);
 
   @Override
   public @NotNull MediaBuilder get(@Nullable Resource resource) {
-    return new MediaBuilderImpl(resource, this, componentPropertyResolverFactory);
+    return new MediaBuilderImpl(resource, this);
   }
 
   @Override
@@ -86,12 +94,12 @@ public final class MediaHandlerImpl implements MediaHandler {
 
   @Override
   public @NotNull MediaBuilder get(@Nullable String mediaRef) {
-    return new MediaBuilderImpl(mediaRef, null, this, componentPropertyResolverFactory);
+    return new MediaBuilderImpl(mediaRef, null, this);
   }
 
   @Override
   public @NotNull MediaBuilder get(@Nullable String mediaRef, @Nullable Resource contextResource) {
-    return new MediaBuilderImpl(mediaRef, contextResource, this, componentPropertyResolverFactory);
+    return new MediaBuilderImpl(mediaRef, contextResource, this);
   }
 
   @Override
@@ -109,6 +117,63 @@ public final class MediaHandlerImpl implements MediaHandler {
     return new MediaBuilderImpl(mediaRequest, this);
   }
 
+  @Override
+  public void prefetch(@NotNull Collection<MediaRequest> mediaRequests) {
+    List<Class<? extends MediaSource>> mediaSourceClasses = mediaHandlerConfig.getSources();
+    if (mediaSourceClasses == null || mediaRequests.isEmpty()) {
+      return;
+    }
+    List<MediaSource> mediaSources = new ArrayList<>();
+    for (Class<? extends MediaSource> mediaSourceClass : mediaSourceClasses) {
+      mediaSources.add(getMediaSource(mediaSourceClass));
+    }
+
+    // group media requests by first accepting media source
+    Map<MediaSource, List<MediaRequest>> mediaRequestsPerSource = new LinkedHashMap<>();
+    for (MediaRequest mediaRequest : mediaRequests) {
+      for (MediaSource mediaSource : mediaSources) {
+        if (mediaSource.accepts(mediaRequest)) {
+          mediaRequestsPerSource.computeIfAbsent(mediaSource, key -> new ArrayList<>()).add(mediaRequest);
+          break;
+        }
+      }
+    }
+    mediaRequestsPerSource.forEach(MediaSource::prefetch);
+  }
+
+  @Override
+  public @NotNull List<Media> getAll(@NotNull Collection<MediaRequest> mediaRequests) {
+    List<Media> result = new ArrayList<>(mediaRequests.size());
+    if (mediaRequests.isEmpty()) {
+      return result;
+    }
+    prefetch(mediaRequests);
+    MediaBatchCache batchCache = MediaBatchCache.begin(adaptable);
+    try {
+      for (MediaRequest mediaRequest : mediaRequests) {
+        result.add(get(mediaRequest).build());
+      }
+    }
+    finally {
+      MediaBatchCache.end(adaptable, batchCache);
+    }
+    return result;
+  }
+
+  /**
+   * Get default settings from content policies and component properties for the given context resource.
+   * @param contextResource Context resource
+   * @return Default settings
+   */
+  @NotNull
+  MediaComponentDefaults getComponentDefaults(@NotNull Resource contextResource) {
+    if (componentDefaultsCache != null) {
+      return componentDefaultsCache.get(contextResource,
+          resource -> MediaComponentDefaults.resolve(resource, componentPropertyResolverFactory));
+    }
+    return MediaComponentDefaults.resolve(contextResource, componentPropertyResolverFactory);
+  }
+
   /**
    * Resolves the media request
    * @param mediaRequest Media request
@@ -134,7 +199,7 @@ public final class MediaHandlerImpl implements MediaHandler {
     }
     MediaSource firstMediaSource = null;
     for (Class<? extends MediaSource> candidateMediaSourceClass : mediaSources) {
-      MediaSource candidateMediaSource = AdaptTo.notNull(adaptable, candidateMediaSourceClass);
+      MediaSource candidateMediaSource = getMediaSource(candidateMediaSourceClass);
       if (candidateMediaSource.accepts(mediaRequest)) {
         mediaSource = candidateMediaSource;
         break;
@@ -150,8 +215,7 @@ public final class MediaHandlerImpl implements MediaHandler {
     Media media = new Media(mediaSource, mediaRequest);
 
     // resolve media format names to media formats
-    MediaFormatResolver mediaFormatResolver = new MediaFormatResolver(mediaFormatHandler);
-    if (!mediaFormatResolver.resolve(mediaRequest.getMediaArgs())) {
+    if (!getMediaFormatResolver().resolve(mediaRequest.getMediaArgs())) {
       media.setMediaInvalidReason(MediaInvalidReason.INVALID_MEDIA_FORMAT);
       return media;
     }
@@ -176,7 +240,7 @@ public final class MediaHandlerImpl implements MediaHandler {
     if (mediaPreProcessors != null) {
       for (Class<? extends MediaProcessor> processorClass : mediaPreProcessors) {
         log.trace("Apply pre processor ({}): {}", processorClass, mediaRequest);
-        MediaProcessor processor = AdaptTo.notNull(adaptable, processorClass);
+        MediaProcessor processor = getMediaProcessor(processorClass);
         media = processor.process(media);
         if (media == null) {
           throw new RuntimeException("MediaPreProcessor '" + processor + "' returned null, request: " + mediaRequest);
@@ -197,7 +261,7 @@ public final class MediaHandlerImpl implements MediaHandler {
       if (mediaMarkupBuilders != null) {
         media.setElementBuilder(m -> {
           for (Class<? extends MediaMarkupBuilder> mediaMarkupBuilderClass : mediaMarkupBuilders) {
-            MediaMarkupBuilder mediaMarkupBuilder = AdaptTo.notNull(adaptable, mediaMarkupBuilderClass);
+            MediaMarkupBuilder mediaMarkupBuilder = getMediaMarkupBuilder(mediaMarkupBuilderClass);
             if (mediaMarkupBuilder.accepts(m)) {
               log.trace("Apply media markup builder ({}): {}", mediaMarkupBuilderClass, mediaRequest);
               return mediaMarkupBuilder.build(m);
@@ -212,7 +276,7 @@ public final class MediaHandlerImpl implements MediaHandler {
       if (mediaPostProcessors != null) {
         for (Class<? extends MediaProcessor> processorClass : mediaPostProcessors) {
           log.trace("Apply post processor ({}): {}", processorClass, mediaRequest);
-          MediaProcessor processor = AdaptTo.notNull(adaptable, processorClass);
+          MediaProcessor processor = getMediaProcessor(processorClass);
           media = processor.process(media);
           if (media == null) {
             throw new RuntimeException("MediaPostProcessor '" + processor + "' returned null, request: " + mediaRequest);
@@ -246,7 +310,7 @@ public final class MediaHandlerImpl implements MediaHandler {
     List<Class<? extends MediaMarkupBuilder>> mediaMarkupBuilders = mediaHandlerConfig.getMarkupBuilders();
     if (mediaMarkupBuilders != null) {
       for (Class<? extends MediaMarkupBuilder> mediaMarkupBuilderClass : mediaMarkupBuilders) {
-        MediaMarkupBuilder mediaMarkupBuilder = AdaptTo.notNull(adaptable, mediaMarkupBuilderClass);
+        MediaMarkupBuilder mediaMarkupBuilder = getMediaMarkupBuilder(mediaMarkupBuilderClass);
         if (mediaMarkupBuilder.isValidMedia(element)) {
           return true;
         }
@@ -302,10 +366,36 @@ public final class MediaHandlerImpl implements MediaHandler {
     if (mediaSourceClass == null) {
       throw new RuntimeException("No media sources defined.");
     }
-    MediaSource mediaSource = AdaptTo.notNull(adaptable, mediaSourceClass);
+    MediaSource mediaSource = getMediaSource(mediaSourceClass);
     Media media = new Media(mediaSource, new MediaRequest((String)null, null));
     media.setMediaInvalidReason(MediaInvalidReason.MEDIA_REFERENCE_MISSING);
     return media;
   }
 
+  private @NotNull MediaSource getMediaSource(@NotNull Class<? extends MediaSource> mediaSourceClass) {
+    return getSpiModelCache().get(mediaSourceClass, MediaSource::isShareable);
+  }
+
+  private @NotNull MediaProcessor getMediaProcessor(@NotNull Class<? extends MediaProcessor> mediaProcessorClass) {
+    return getSpiModelCache().get(mediaProcessorClass, MediaProcessor::isShareable);
+  }
+
+  private @NotNull MediaMarkupBuilder getMediaMarkupBuilder(@NotNull Class<? extends MediaMarkupBuilder> mediaMarkupBuilderClass) {
+    return getSpiModelCache().get(mediaMarkupBuilderClass, MediaMarkupBuilder::isShareable);
+  }
+
+  private @NotNull MediaFormatResolver getMediaFormatResolver() {
+    if (mediaFormatResolver == null) {
+      mediaFormatResolver = new MediaFormatResolver(mediaFormatHandler, adaptable);
+    }
+    return mediaFormatResolver;
+  }
+
+  private @NotNull SpiModelCache getSpiModelCache() {
+    if (spiModelCache == null) {
+      spiModelCache = new SpiModelCache(adaptable);
+    }
+    return spiModelCache;
+  }
+
 }
@@ -0,0 +1,119 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.adapter.Adaptable;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.wcm.sling.commons.adapter.AdaptTo;
+
+/**
+ * Caches the Sling Model instances of the media handler SPI implementations (media sources, markup builders and
+ * processors) adapted from an adaptable, if they declare themselves as shareable.
+ * <p>
+ * Shareable instances are reused within the media handler instance, and additionally stored in a request attribute
+ * to be reused by all media handler instances adapted from the same request object.
+ * Instances that are not shareable are adapted again for each use.
+ * </p>
+ */
+final class SpiModelCache {
+
+  static final String REQUEST_ATTRIBUTE = SpiModelCache.class.getName();
+
+  private final Adaptable adaptable;
+  private final Map<Class<?>, Object> instances = new HashMap<>();
+  private final Set<Class<?>> notShareableClasses = new HashSet<>();
+
+  /**
+   * @param adaptable Adaptable
+   */
+  SpiModelCache(@NotNull Adaptable adaptable) {
+    this.adaptable = adaptable;
+  }
+
+  /**
+   * Get model instance adapted from the adaptable.
+   * @param <T> Model type
+   * @param modelClass Model class
+   * @param shareable Checks if an instance can be reused for other media requests
+   * @return Model instance
+   */
+  @NotNull
+  <T> T get(@NotNull Class<? extends T> modelClass, @NotNull Predicate<? super T> shareable) {
+    if (notShareableClasses.contains(modelClass)) {
+      return AdaptTo.notNull(adaptable, modelClass);
+    }
+    Object instance = instances.get(modelClass);
+    if (instance != null) {
+      return modelClass.cast(instance);
+    }
+    Map<Class<?>, Object> requestInstances = getRequestInstances();
+    if (requestInstances != null) {
+      instance = requestInstances.get(modelClass);
+      if (instance != null) {
+        instances.put(modelClass, instance);
+        return modelClass.cast(instance);
+      }
+    }
+
+    T newInstance = AdaptTo.notNull(adaptable, modelClass);
+    if (shareable.test(newInstance)) {
+      instances.put(modelClass, newInstance);
+      if (requestInstances != null) {
+        requestInstances.put(modelClass, newInstance);
+      }
+    }
+    else {
+      notShareableClasses.add(modelClass);
+    }
+    return newInstance;
+  }
+
+  /**
+   * Gets the shared instances for the adaptable from the request. The request attribute is visible to all
+   * request wrappers of the same request, so the instances are kept per request object.
+   * @return Shared instances or null if the adaptable is not a request
+   */
+  @SuppressWarnings("unchecked")
+  private @Nullable Map<Class<?>, Object> getRequestInstances() {
+    if (!(adaptable instanceof SlingHttpServletRequest)) {
+      return null;
+    }
+    SlingHttpServletRequest request = (SlingHttpServletRequest)adaptable;
+    Map<Adaptable, Map<Class<?>, Object>> requestCache = (Map<Adaptable, Map<Class<?>, Object>>)request.getAttribute(REQUEST_ATTRIBUTE);
+    if (requestCache == null) {
+      requestCache = Collections.synchronizedMap(new IdentityHashMap<>());
+      request.setAttribute(REQUEST_ATTRIBUTE, requestCache);
+    }
+    return requestCache.computeIfAbsent(adaptable, key -> new ConcurrentHashMap<>());
+  }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.spi.ImageReaderSpi;
+import javax.imageio.stream.ImageInputStream;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.wcm.wcm.commons.contenttype.ContentType;
+
+/**
+ * Decodes only the required region of an image with source subsampling via ImageIO, to avoid decoding the full
+ * bitmap of large images that are scaled down a lot.
+ * <p>
+ * The subsampling factor is chosen to keep at least twice the target resolution, so the final resize of the
+ * decoded image still produces a smooth result.
+ * </p>
+ */
+final class SubsampledImageDecoder {
+
+  /**
+   * Decoded image keeps at least this multiple of the target size.
+   */
+  static final int OVERSAMPLING = 2;
+
+  private static final Set<String> SUPPORTED_MIME_TYPES = Set.of(ContentType.JPEG, ContentType.PNG, ContentType.TIFF);
+  private static final Set<String> SUPPORTED_FORMATS = Set.of("jpeg", "jpg", "png", "tiff", "tif");
+
+  private static final Logger log = LoggerFactory.getLogger(SubsampledImageDecoder.class);
+
+  private SubsampledImageDecoder() {
+    // static methods only
+  }
+
+  /**
+   * @param mimeType Mime type of source image
+   * @return true if images of this type can be decoded with subsampling
+   */
+  static boolean isSupportedMimeType(@Nullable String mimeType) {
+    return mimeType != null && SUPPORTED_MIME_TYPES.contains(mimeType);
+  }
+
+  /**
+   * Calculates the subsampling factor for decoding the given source region.
+   * @param regionWidth Width of source region
+   * @param regionHeight Height of source region
+   * @param targetWidth Width of the target image (in source orientation)
+   * @param targetHeight Height of the target image (in source orientation)
+   * @return Subsampling factor. 1 means no subsampling.
+   */
+  static int getSubsampling(long regionWidth, long regionHeight, long targetWidth, long targetHeight) {
+    if (targetWidth <= 0 || targetHeight <= 0) {
+      return 1;
+    }
+    long factor = Math.min(regionWidth / targetWidth, regionHeight / targetHeight) / OVERSAMPLING;
+    return (int)Math.max(1, Math.min(factor, Integer.MAX_VALUE));
+  }
+
+  /**
+   * Decodes the given region of the image with subsampling.
+   * The stream is not closed by this method.
+   * @param inputStream Image binary stream
+   * @param sourceRegion Region of the source image to decode
+   * @param subsampling Subsampling factor for both axis
+   * @return Decoded image or null if the image format is not supported
+   * @throws IOException I/O exception
+   */
+  static @Nullable BufferedImage decode(@NotNull InputStream inputStream, @NotNull Rectangle sourceRegion,
+      int subsampling) throws IOException {
+    ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream);
+    if (imageInputStream == null) {
+      return null;
+    }
+    try {
+      ImageReader reader = getReader(imageInputStream);
+      if (reader == null) {
+        return null;
+      }
+      try {
+        reader.setInput(imageInputStream, true, true);
+        ImageReadParam param = reader.getDefaultReadParam();
+        param.setSourceRegion(sourceRegion);
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        return reader.read(0, param);
+      }
+      catch (IllegalArgumentException | IOException ex) {
+        // e.g. region outside of image bounds or unsupported color model (CMYK JPEG)
+        log.debug("Unable to decode image with subsampling: {}", ex.getMessage());
+        return null;
+      }
+      finally {
+        reader.dispose();
+      }
+    }
+    finally {
+      imageInputStream.close();
+    }
+  }
+
+  private static @Nullable ImageReader getReader(@NotNull ImageInputStream imageInputStream) {
+    Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInputStream);
+    while (readers.hasNext()) {
+      ImageReader reader = readers.next();
+      if (isSupportedFormat(reader.getOriginatingProvider())) {
+        return reader;
+      }
+      reader.dispose();
+    }
+    return null;
+  }
+
+  private static boolean isSupportedFormat(@Nullable ImageReaderSpi provider) {
+    if (provider == null) {
+      return false;
+    }
+    for (String formatName : provider.getFormatNames()) {
+      if (SUPPORTED_FORMATS.contains(formatName.toLowerCase(Locale.ROOT))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
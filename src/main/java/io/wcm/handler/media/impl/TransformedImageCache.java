@@ -0,0 +1,78 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Caches transformed images rendered by {@link ImageFileServlet} on the local file system.
+ */
+public interface TransformedImageCache {
+
+  /**
+   * @return true if the cache is enabled
+   */
+  boolean isEnabled();
+
+  /**
+   * Get cached transformed image.
+   * @param cacheKey Cache key identifying binary version and transformation parameters
+   * @return Path of cached image file or null if not cached
+   */
+  @Nullable
+  Path get(@NotNull String cacheKey);
+
+  /**
+   * Encode transformed image and store it in the cache.
+   * @param cacheKey Cache key identifying binary version and transformation parameters
+   * @param resourcePath Path of the resource the image was rendered from
+   * @param encoder Writes the encoded image
+   * @return Path of cached image file
+   * @throws IOException I/O exception
+   */
+  @NotNull
+  Path put(@NotNull String cacheKey, @NotNull String resourcePath, @NotNull ImageEncoder encoder) throws IOException;
+
+  /**
+   * Removes all cached images rendered from the given resource or its descendants.
+   * @param path Resource path
+   */
+  void invalidate(@NotNull String path);
+
+  /**
+   * Writes an encoded image to an output stream.
+   */
+  @FunctionalInterface
+  interface ImageEncoder {
+
+    /**
+     * @param out Output stream
+     * @throws IOException I/O exception
+     */
+    void write(@NotNull OutputStream out) throws IOException;
+
+  }
+
+}
@@ -0,0 +1,313 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Strings;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.framework.BundleContext;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Implements {@link TransformedImageCache} with a size-limited directory on the local file system.
+ * Least recently used images are removed when the max. size is exceeded.
+ */
+@Component(service = TransformedImageCache.class, immediate = true)
+@Designate(ocd = TransformedImageCacheImpl.Config.class)
+public final class TransformedImageCacheImpl implements TransformedImageCache {
+
+  @ObjectClassDefinition(
+      name = "wcm.io Media Handler Transformed Image Cache",
+      description = "Caches images resized, cropped or rotated by the image file servlet on the local file system.")
+  @interface Config {
+
+    @AttributeDefinition(
+        name = "Enabled",
+        description = "Enable caching of transformed images.")
+    boolean enabled() default false;
+
+    @AttributeDefinition(
+        name = "Cache directory",
+        description = "Directory in the local file system to store the cached images. "
+            + "If not set, a directory in the bundle's persistent storage area is used.")
+    String cacheDirectory();
+
+    @AttributeDefinition(
+        name = "Max. Size (MB)",
+        description = "Max. size of all cached images. Least recently used images are removed if exceeded.")
+    long maxSizeMb() default 512;
+
+  }
+
+  static final String FILE_EXTENSION = ".img";
+  private static final String TEMP_FILE_EXTENSION = ".tmp";
+  private static final String DEFAULT_CACHE_DIRECTORY = "transformed-image-cache";
+
+  private boolean enabled;
+  private Path directory;
+  private long maxSizeBytes;
+
+  // cached files by hash of cache key, in access order (least recently used first)
+  private final Map<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  // hashes of cached files by resource path
+  private final Map<String, Set<String>> hashesByResourcePath = new HashMap<>();
+  private long totalSize;
+
+  private static final Logger log = LoggerFactory.getLogger(TransformedImageCacheImpl.class);
+
+  @Activate
+  private void activate(BundleContext bundleContext, Config config) {
+    this.enabled = config.enabled();
+    if (!this.enabled) {
+      return;
+    }
+    this.maxSizeBytes = config.maxSizeMb() * 1024 * 1024;
+    if (StringUtils.isNotBlank(config.cacheDirectory())) {
+      this.directory = Paths.get(config.cacheDirectory());
+    }
+    else {
+      File dataFile = bundleContext.getDataFile(DEFAULT_CACHE_DIRECTORY);
+      if (dataFile == null) {
+        log.warn("Transformed image cache disabled: No persistent storage area available.");
+        this.enabled = false;
+        return;
+      }
+      this.directory = dataFile.toPath();
+    }
+    try {
+      Files.createDirectories(this.directory);
+      loadExistingFiles();
+    }
+    catch (IOException ex) {
+      log.warn("Transformed image cache disabled: Unable to initialize cache directory {}", this.directory, ex);
+      this.enabled = false;
+    }
+  }
+
+  @Deactivate
+  private synchronized void deactivate() {
+    if (enabled) {
+      log.debug("Transformed image cache: {} files, {} bytes in {}", entries.size(), totalSize, directory);
+    }
+    entries.clear();
+    hashesByResourcePath.clear();
+    totalSize = 0;
+  }
+
+  /**
+   * Registers cached files from previous runs, oldest first. They are not associated with a resource path and
+   * cannot be invalidated explicitly, but they are never served for changed binaries because the cache key contains
+   * the last modified date - and they are removed in least recently used order.
+   */
+  private synchronized void loadExistingFiles() throws IOException {
+    List<Path> files;
+    try (Stream<Path> stream = Files.list(directory)) {
+      files = stream.collect(Collectors.toList());
+    }
+    Map<Path, BasicFileAttributes> imageFiles = new HashMap<>();
+    for (Path file : files) {
+      String fileName = file.getFileName().toString();
+      if (Strings.CS.endsWith(fileName, TEMP_FILE_EXTENSION)) {
+        Files.deleteIfExists(file);
+      }
+      else if (Strings.CS.endsWith(fileName, FILE_EXTENSION)) {
+        imageFiles.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+      }
+    }
+    imageFiles.entrySet().stream()
+      .sorted(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()))
+      .forEach(entry -> {
+        String hash = StringUtils.removeEnd(entry.getKey().getFileName().toString(), FILE_EXTENSION);
+        addEntry(hash, new CacheEntry(entry.getValue().size(), null));
+      });
+    evict();
+  }
+
+  @Override
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @Override
+  public @Nullable Path get(@NotNull String cacheKey) {
+    if (!enabled) {
+      return null;
+    }
+    String hash = hash(cacheKey);
+    synchronized (this) {
+      if (!entries.containsKey(hash)) {
+        return null;
+      }
+      // mark as recently used
+      entries.get(hash);
+    }
+    return getFile(hash);
+  }
+
+  @Override
+  public @NotNull Path put(@NotNull String cacheKey, @NotNull String resourcePath, @NotNull ImageEncoder encoder)
+      throws IOException {
+    if (!enabled) {
+      throw new IllegalStateException("Transformed image cache is disabled.");
+    }
+    String hash = hash(cacheKey);
+
+    // encode to temp file first, and move it to its final location atomically
+    Path tempFile = Files.createTempFile(directory, hash, TEMP_FILE_EXTENSION);
+    try {
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tempFile))) {
+        encoder.write(out);
+      }
+      Path file = getFile(hash);
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      long size = Files.size(file);
+      synchronized (this) {
+        addEntry(hash, new CacheEntry(size, resourcePath));
+        evict();
+      }
+      return file;
+    }
+    finally {
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  @Override
+  public synchronized void invalidate(@NotNull String path) {
+    if (!enabled) {
+      return;
+    }
+    String childPathPrefix = path + "/";
+    Iterator<Map.Entry<String, Set<String>>> iterator = hashesByResourcePath.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, Set<String>> item = iterator.next();
+      String resourcePath = item.getKey();
+      if (Strings.CS.equals(resourcePath, path) || Strings.CS.startsWith(resourcePath, childPathPrefix)) {
+        for (String hash : item.getValue()) {
+          CacheEntry entry = entries.remove(hash);
+          if (entry != null) {
+            totalSize -= entry.size;
+            deleteFile(hash);
+          }
+        }
+        iterator.remove();
+        log.trace("Invalidated transformed images of {}", resourcePath);
+      }
+    }
+  }
+
+  private void addEntry(@NotNull String hash, @NotNull CacheEntry entry) {
+    CacheEntry previous = entries.put(hash, entry);
+    if (previous != null) {
+      totalSize -= previous.size;
+      removeResourcePathMapping(hash, previous.resourcePath);
+    }
+    totalSize += entry.size;
+    if (entry.resourcePath != null) {
+      hashesByResourcePath.computeIfAbsent(entry.resourcePath, key -> new HashSet<>()).add(hash);
+    }
+  }
+
+  /**
+   * Removes least recently used files until the max. size is no longer exceeded. The most recent file is always kept.
+   */
+  private void evict() {
+    Iterator<Map.Entry<String, CacheEntry>> iterator = entries.entrySet().iterator();
+    while (totalSize > maxSizeBytes && entries.size() > 1 && iterator.hasNext()) {
+      Map.Entry<String, CacheEntry> eldest = iterator.next();
+      iterator.remove();
+      totalSize -= eldest.getValue().size;
+      removeResourcePathMapping(eldest.getKey(), eldest.getValue().resourcePath);
+      deleteFile(eldest.getKey());
+    }
+  }
+
+  private void removeResourcePathMapping(@NotNull String hash, @Nullable String resourcePath) {
+    if (resourcePath == null) {
+      return;
+    }
+    Set<String> hashes = hashesByResourcePath.get(resourcePath);
+    if (hashes != null) {
+      hashes.remove(hash);
+      if (hashes.isEmpty()) {
+        hashesByResourcePath.remove(resourcePath);
+      }
+    }
+  }
+
+  private void deleteFile(@NotNull String hash) {
+    try {
+      Files.deleteIfExists(getFile(hash));
+    }
+    catch (IOException ex) {
+      log.debug("Unable to delete cached image {}", hash, ex);
+    }
+  }
+
+  private @NotNull Path getFile(@NotNull String hash) {
+    return directory.resolve(hash + FILE_EXTENSION);
+  }
+
+  private static @NotNull String hash(@NotNull String cacheKey) {
+    return DigestUtils.sha256Hex(cacheKey);
+  }
+
+  private static final class CacheEntry {
+
+    private final long size;
+    private final String resourcePath;
+
+    CacheEntry(long size, @Nullable String resourcePath) {
+      this.size = size;
+      this.resourcePath = resourcePath;
+    }
+
+  }
+
+}
@@ -71,4 +71,15 @@ public interface MediaMarkupBuilder {
    */
   boolean isValidMedia(@NotNull HtmlElement element);
 
+  /**
+   * Checks whether instances of this markup builder can be reused for all media requests resolved by media handler
+   * instances adapted from the same adaptable (e.g. within a request). If false, a new instance is created
+   * for each media request.
+   * Implementations keeping state that is not derived from the adaptable must return false.
+   * @return true if instances can be shared
+   */
+  default boolean isShareable() {
+    return false;
+  }
+
 }
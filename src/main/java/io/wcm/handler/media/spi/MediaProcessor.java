@@ -43,4 +43,15 @@ public interface MediaProcessor {
   @NotNull
   Media process(@NotNull Media media);
 
+  /**
+   * Checks whether instances of this processor can be reused for all media requests resolved by media handler
+   * instances adapted from the same adaptable (e.g. within a request). If false, a new instance is created
+   * for each media request.
+   * Implementations keeping state that is not derived from the adaptable must return false.
+   * @return true if instances can be shared
+   */
+  default boolean isShareable() {
+    return false;
+  }
+
 }
@@ -24,6 +24,7 @@ import static io.wcm.handler.media.impl.ImageTransformation.isValidRotation;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.stream.Collectors;
@@ -137,6 +138,26 @@ public abstract class MediaSource {
     // can be implemented by subclasses
   }
 
+  /**
+   * Prepares resolving multiple media requests, e.g. by fetching metadata from a remote system for all of them
+   * in parallel. Called via {@link io.wcm.handler.media.MediaHandler#prefetch(Collection)}.
+   * @param mediaRequests Media requests accepted by this media source
+   */
+  public void prefetch(@NotNull Collection<MediaRequest> mediaRequests) {
+    // can be implemented by subclasses
+  }
+
+  /**
+   * Checks whether instances of this media source can be reused for all media requests resolved by media handler
+   * instances adapted from the same adaptable (e.g. within a request). If false, a new instance is created
+   * for each media request.
+   * Subclasses keeping state that is not derived from the adaptable must return false.
+   * @return true if instances can be shared
+   */
+  public boolean isShareable() {
+    return false;
+  }
+
   /**
    * Get media request path to media library
    * @param mediaRequest Media request
@@ -51,6 +51,7 @@ import com.day.image.Layer;
 
 import io.wcm.handler.media.Dimension;
 import io.wcm.handler.media.MediaFileType;
+import io.wcm.handler.media.impl.ImageDimensionProbe;
 import io.wcm.sling.commons.adapter.AdaptTo;
 
 /**
@@ -191,7 +192,8 @@ public final class AssetRendition {
   }
 
   /**
-   * Fallback: Read dimension by loading image binary into memory.
+   * Fallback: Read dimension from image binary. The image header is parsed if the format is supported,
+   * otherwise the image binary is loaded into memory.
    * @param rendition Rendition
    * @param suppressLogWarningNoRenditionsMetadata If set to true, no log warnings is generated when
    *          renditions metadata containing the width/height of the rendition does not exist (yet).
@@ -200,19 +202,46 @@ public final class AssetRendition {
   @SuppressWarnings("PMD.GuardLogStatement")
   private static @Nullable Dimension getDimensionFromImageBinary(@NotNull Rendition rendition,
       boolean suppressLogWarningNoRenditionsMetadata) {
+    Dimension dimension = getDimensionFromImageHeader(rendition);
+    if (dimension == null) {
+      dimension = getDimensionFromLayer(rendition);
+    }
+    if (dimension != null && !suppressLogWarningNoRenditionsMetadata) {
+      log.warn("Unable to detect rendition metadata for {}, "
+          + "fallback to inefficient detection from image binary (detected dimension={}). "
+          + "Please check if the service user for the bundle 'io.wcm.handler.media' is configured properly.",
+          rendition.getPath(), dimension);
+    }
+    return dimension;
+  }
+
+  /**
+   * Read dimension by parsing only the header of the image binary.
+   * @param rendition Rendition
+   * @return Dimension or null if image format is not supported by {@link ImageDimensionProbe}
+   */
+  private static @Nullable Dimension getDimensionFromImageHeader(@NotNull Rendition rendition) {
+    try (InputStream is = rendition.getStream()) {
+      if (is != null) {
+        return ImageDimensionProbe.probe(is);
+      }
+    }
+    catch (IOException ex) {
+      log.debug("Unable to read image header for rendition {}", rendition.getPath(), ex);
+    }
+    return null;
+  }
+
+  /**
+   * Read dimension by loading image binary into memory.
+   * @param rendition Rendition
+   * @return Dimension or null
+   */
+  private static @Nullable Dimension getDimensionFromLayer(@NotNull Rendition rendition) {
     try (InputStream is = rendition.getStream()) {
       if (is != null) {
         Layer layer = new Layer(is);
-        long width = layer.getWidth();
-        long height = layer.getHeight();
-        Dimension dimension = toValidDimension(width, height);
-        if (!suppressLogWarningNoRenditionsMetadata) {
-          log.warn("Unable to detect rendition metadata for {}, "
-              + "fallback to inefficient detection by loading image into in memory (detected dimension={}). "
-              + "Please check if the service user for the bundle 'io.wcm.handler.media' is configured properly.",
-              rendition.getPath(), dimension);
-        }
-        return dimension;
+        return toValidDimension(layer.getWidth(), layer.getHeight());
       }
       else {
         log.warn("Unable to get binary stream for rendition {}", rendition.getPath());
@@ -36,7 +36,7 @@ import io.wcm.handler.media.format.MediaFormat;
 import io.wcm.handler.media.impl.ImageTransformation;
 import io.wcm.handler.mediasource.dam.AssetRendition;
 import io.wcm.handler.mediasource.dam.impl.dynamicmedia.NamedDimension;
-import io.wcm.handler.mediasource.dam.impl.dynamicmedia.SmartCrop;
+import io.wcm.handler.mediasource.dam.impl.dynamicmedia.SmartCropGeometry;
 
 /**
  * Helper class for calculating crop dimensions for auto-cropping.
@@ -97,9 +97,10 @@ class DamAutoCropping {
   private @Nullable CropDimension getDynamicMediaCropDimension(double requestedRatio) {
     if (damContext.isDynamicMediaEnabled() && damContext.isDynamicMediaAsset()
         && damContext.isDynamicMediaValidateSmartCropRenditionSizes()) {
-      NamedDimension smartCropDef = SmartCrop.getDimensionForRatio(damContext.getImageProfile(), requestedRatio);
+      SmartCropGeometry smartCropGeometry = damContext.getSmartCropGeometry();
+      NamedDimension smartCropDef = smartCropGeometry.getDimensionForRatio(requestedRatio);
       if (smartCropDef != null) {
-        return SmartCrop.getCropDimensionForAsset(damContext.getAsset(), damContext.getResourceResolver(), smartCropDef);
+        return smartCropGeometry.getCropDimension(smartCropDef);
       }
     }
     return null;
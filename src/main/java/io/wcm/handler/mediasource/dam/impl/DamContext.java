@@ -21,6 +21,8 @@ package io.wcm.handler.mediasource.dam.impl;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.sling.api.SlingHttpServletRequest;
@@ -36,10 +38,12 @@ import com.day.cq.dam.scene7.api.constants.Scene7Constants;
 import io.wcm.handler.media.Dimension;
 import io.wcm.handler.media.MediaArgs;
 import io.wcm.handler.media.impl.ImageQualityPercentage;
+import io.wcm.handler.media.impl.MediaBatchCache;
 import io.wcm.handler.media.spi.MediaHandlerConfig;
 import io.wcm.handler.mediasource.dam.impl.dynamicmedia.DynamicMediaSupportService;
 import io.wcm.handler.mediasource.dam.impl.dynamicmedia.ImageProfile;
 import io.wcm.handler.mediasource.dam.impl.dynamicmedia.NamedDimension;
+import io.wcm.handler.mediasource.dam.impl.dynamicmedia.SmartCropGeometry;
 import io.wcm.handler.mediasource.dam.impl.weboptimized.WebOptimizedImageDeliveryParams;
 import io.wcm.handler.mediasource.dam.impl.weboptimized.WebOptimizedImageDeliveryService;
 
@@ -59,6 +63,10 @@ public final class DamContext implements Adaptable {
   private String dynamicMediaServerUrl;
   private Dimension dynamicMediaImageSizeLimit;
   private ImageProfile imageProfile;
+  private RenditionCandidateIndex renditionCandidateIndex;
+  private SmartCropGeometry smartCropGeometry;
+
+  private static final String REQUEST_ATTRIBUTE_SMART_CROP_GEOMETRY = DamContext.class.getName() + ".smartCropGeometry";
 
   private static final ImageProfile NO_IMAGE_PROFILE = new ImageProfile() {
 
@@ -95,6 +103,26 @@ public final class DamContext implements Adaptable {
     return asset;
   }
 
+  /**
+   * Get index of all rendition candidates of the DAM asset. It is built on first access and shared
+   * by all rendition handlers and media formats resolved within this context, and by all media resolved
+   * for the same asset within a media batch.
+   * @return Rendition candidate index
+   */
+  @NotNull RenditionCandidateIndex getRenditionCandidateIndex() {
+    if (renditionCandidateIndex == null) {
+      MediaBatchCache batchCache = MediaBatchCache.get(adaptable);
+      if (batchCache != null) {
+        String cacheKey = RenditionCandidateIndex.class.getName() + ":" + asset.getPath() + "#" + asset.getLastModified();
+        renditionCandidateIndex = batchCache.get(cacheKey, () -> new RenditionCandidateIndex(asset));
+      }
+      else {
+        renditionCandidateIndex = new RenditionCandidateIndex(asset);
+      }
+    }
+    return renditionCandidateIndex;
+  }
+
   /**
    * @return Media Args from media request
    */
@@ -220,6 +248,39 @@ public final class DamContext implements Adaptable {
     }
   }
 
+  /**
+   * Get smart cropping areas of the current DAM asset for all smart cropping definitions of its image profile.
+   * It is built on first access and shared by all media resolved for the same asset within the current request.
+   * @return Smart crop geometry
+   */
+  public @NotNull SmartCropGeometry getSmartCropGeometry() {
+    if (smartCropGeometry == null) {
+      if (adaptable instanceof SlingHttpServletRequest) {
+        Map<String, SmartCropGeometry> requestCache = getRequestSmartCropGeometryCache((SlingHttpServletRequest)adaptable);
+        String cacheKey = asset.getPath() + "#" + asset.getLastModified();
+        smartCropGeometry = requestCache.computeIfAbsent(cacheKey, key -> buildSmartCropGeometry());
+      }
+      else {
+        smartCropGeometry = buildSmartCropGeometry();
+      }
+    }
+    return smartCropGeometry;
+  }
+
+  private @NotNull SmartCropGeometry buildSmartCropGeometry() {
+    return new SmartCropGeometry(asset, getResourceResolver(), getImageProfile());
+  }
+
+  @SuppressWarnings("unchecked")
+  private static @NotNull Map<String, SmartCropGeometry> getRequestSmartCropGeometryCache(@NotNull SlingHttpServletRequest request) {
+    Map<String, SmartCropGeometry> requestCache = (Map<String, SmartCropGeometry>)request.getAttribute(REQUEST_ATTRIBUTE_SMART_CROP_GEOMETRY);
+    if (requestCache == null) {
+      requestCache = new ConcurrentHashMap<>();
+      request.setAttribute(REQUEST_ATTRIBUTE_SMART_CROP_GEOMETRY, requestCache);
+    }
+    return requestCache;
+  }
+
   /**
    * @return Whether web-optimized image delivery is enabled on this AEM instance
    */
@@ -70,7 +70,7 @@ final class DamUriTemplate implements UriTemplate {
       url = buildUriTemplateDynamicMedia(type, cropDimension, rotation, smartCropDef, damContext);
       // get actual max. dimension from smart crop rendition
       if (url != null && smartCropDef != null) {
-        validatedDimension = SmartCrop.getCropDimensionForAsset(damContext.getAsset(), damContext.getResourceResolver(), smartCropDef);
+        validatedDimension = damContext.getSmartCropGeometry().getCropDimension(smartCropDef);
       }
     }
     if (url == null && (!damContext.isDynamicMediaEnabled() || !damContext.isDynamicMediaAemFallbackDisabled())) {
@@ -203,7 +203,7 @@ final class DamUriTemplate implements UriTemplate {
       @Nullable Double ratio, @NotNull DamContext damContext) {
     if (SmartCrop.canApply(cropDimension, rotation) && ratio != null) {
       // check for matching image profile and use predefined cropping preset if match found
-      return SmartCrop.getDimensionForRatio(damContext.getImageProfile(), ratio);
+      return damContext.getSmartCropGeometry().getDimensionForRatio(ratio);
     }
     return null;
   }
@@ -39,7 +39,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.day.cq.dam.api.Asset;
-import com.day.cq.dam.api.Rendition;
 
 import io.wcm.handler.media.CropDimension;
 import io.wcm.handler.media.MediaArgs;
@@ -52,7 +51,7 @@ import io.wcm.handler.media.format.impl.MediaFormatVisitor;
 import io.wcm.handler.mediasource.dam.AemRenditionType;
 import io.wcm.handler.mediasource.dam.AssetRendition;
 import io.wcm.handler.mediasource.dam.impl.dynamicmedia.NamedDimension;
-import io.wcm.handler.mediasource.dam.impl.dynamicmedia.SmartCrop;
+import io.wcm.handler.mediasource.dam.impl.dynamicmedia.SmartCropGeometry;
 
 /**
  * Handles resolving DAM renditions and resizing for media handler.
@@ -60,6 +59,7 @@ import io.wcm.handler.mediasource.dam.impl.dynamicmedia.SmartCrop;
 class DefaultRenditionHandler implements RenditionHandler {
 
   private Set<RenditionMetadata> renditions;
+  private boolean renditionsFromIndexOnly;
   private final RenditionMetadata originalRendition;
   private final DamContext damContext;
 
@@ -70,9 +70,7 @@ class DefaultRenditionHandler implements RenditionHandler {
    */
   DefaultRenditionHandler(DamContext damContext) {
     this.damContext = damContext;
-
-    Rendition damOriginalRendition = damContext.getAsset().getOriginal();
-    originalRendition = damOriginalRendition != null ? new RenditionMetadata(damOriginalRendition) : null;
+    this.originalRendition = damContext.getRenditionCandidateIndex().getOriginal();
   }
 
   protected RenditionMetadata getOriginalRendition() {
@@ -84,11 +82,11 @@ class DefaultRenditionHandler implements RenditionHandler {
    */
   Set<RenditionMetadata> getAvailableRenditions(MediaArgs mediaArgs) {
     if (this.renditions == null) {
-      // gather rendition infos of all renditions and sort them by size (smallest or virtual crop rendition first)
-      Set<RenditionMetadata> candidates = new TreeSet<>();
-      for (Rendition rendition : damContext.getAsset().getRenditions()) {
-        addRendition(candidates, rendition, mediaArgs);
-      }
+      // get rendition infos of all renditions sorted by size (smallest or virtual crop rendition first)
+      // from the index shared by all media formats of this asset
+      Set<RenditionMetadata> candidates = getIndexedRenditions(mediaArgs);
+      Set<RenditionMetadata> indexedCandidates = candidates;
+      int indexedCandidatesCount = candidates.size();
 
       // special handling for dynamic media
       if (damContext.isDynamicMediaEnabled() && damContext.isDynamicMediaAsset()) {
@@ -109,6 +107,8 @@ class DefaultRenditionHandler implements RenditionHandler {
       }
 
       candidates = postProcessCandidates(candidates, mediaArgs);
+      // remember if all candidates are taken unchanged from the rendition candidate index
+      this.renditionsFromIndexOnly = (candidates == indexedCandidates && candidates.size() == indexedCandidatesCount);
       this.renditions = Collections.unmodifiableSet(candidates);
     }
     return this.renditions;
@@ -125,25 +125,20 @@ class DefaultRenditionHandler implements RenditionHandler {
   }
 
   /**
-   * adds rendition to the list of candidates, if it should be available for resolving
-   * @param candidates Candidates
-   * @param rendition Rendition
+   * Get renditions from the rendition candidate index that should be available for resolving.
+   * @param mediaArgs Media args
+   * @return Candidates
    */
-  private void addRendition(Set<RenditionMetadata> candidates, Rendition rendition, MediaArgs mediaArgs) {
-    AemRenditionType aemRenditionType = AemRenditionType.forRendition(rendition);
-    if (aemRenditionType != null && !getIncludeAssetAemRenditions(mediaArgs).contains(aemRenditionType)) {
-      // ignore all other AEM-generated renditions unless allowed via mediaargs
-      return;
-    }
+  private Set<RenditionMetadata> getIndexedRenditions(MediaArgs mediaArgs) {
+    // ignore all AEM-generated renditions unless allowed via mediaargs
+    Set<RenditionMetadata> candidates = damContext.getRenditionCandidateIndex().getRenditions(getIncludeAssetAemRenditions(mediaArgs));
 
-    if (!AssetRendition.isOriginal(rendition)
-        && ((damContext.isDynamicMediaEnabled() && damContext.isDynamicMediaAsset()) || damContext.isWebOptimizedImageDeliveryEnabled())) {
+    if ((damContext.isDynamicMediaEnabled() && damContext.isDynamicMediaAsset()) || damContext.isWebOptimizedImageDeliveryEnabled()) {
       // skip all non-original renditions for dynamic media and web-optimized delivery - they are not supported
-      return;
+      candidates.removeIf(candidate -> !AssetRendition.isOriginal(candidate.getRendition()));
     }
 
-    RenditionMetadata renditionMetadata = createRenditionMetadata(rendition);
-    candidates.add(renditionMetadata);
+    return candidates;
   }
 
   /**
@@ -191,12 +186,13 @@ class DefaultRenditionHandler implements RenditionHandler {
       return Collections.emptyList();
     }
     List<CropDimension> result = new ArrayList<>();
+    SmartCropGeometry smartCropGeometry = damContext.getSmartCropGeometry();
     for (MediaFormatOption mediaFormatOption : mediaFormatOptions) {
       MediaFormat mediaFormat = mediaFormatOption.getMediaFormat();
       if (mediaFormat != null && mediaFormat.hasRatio()) {
-        NamedDimension smartCropDef = SmartCrop.getDimensionForRatio(damContext.getImageProfile(), mediaFormat.getRatio());
+        NamedDimension smartCropDef = smartCropGeometry.getDimensionForRatio(mediaFormat.getRatio());
         if (smartCropDef != null) {
-          CropDimension cropDimension = SmartCrop.getCropDimensionForAsset(damContext.getAsset(), damContext.getResourceResolver(), smartCropDef);
+          CropDimension cropDimension = smartCropGeometry.getCropDimension(smartCropDef);
           if (cropDimension != null) {
             result.add(cropDimension);
           }
@@ -206,15 +202,6 @@ class DefaultRenditionHandler implements RenditionHandler {
     return result;
   }
 
-  /**
-   * Create rendition metadata for given rendition. May be overridden by subclasses.
-   * @param rendition Rendition
-   * @return Rendition metadata
-   */
-  protected RenditionMetadata createRenditionMetadata(Rendition rendition) {
-    return new RenditionMetadata(rendition);
-  }
-
   /**
    * Get all renditions that match the requested list of file extension.
    * @param fileExtensions List of file extensions
@@ -230,6 +217,19 @@ class DefaultRenditionHandler implements RenditionHandler {
 
     // otherwise return those with matching extensions
     Set<RenditionMetadata> matchingRenditions = new TreeSet<>();
+    if (renditionsFromIndexOnly) {
+      // look up renditions by file extension in the rendition candidate index
+      RenditionCandidateIndex renditionCandidateIndex = damContext.getRenditionCandidateIndex();
+      for (String fileExtension : fileExtensions) {
+        for (RenditionMetadata rendition : renditionCandidateIndex.getRenditionsWithFileExtension(fileExtension)) {
+          if (allRenditions.contains(rendition)) {
+            matchingRenditions.add(rendition);
+          }
+        }
+      }
+      return matchingRenditions;
+    }
+    // virtual or post-processed renditions are not part of the index
     for (RenditionMetadata rendition : allRenditions) {
       for (String fileExtension : fileExtensions) {
         if (Strings.CI.equals(fileExtension, rendition.getFileExtension())) {
@@ -381,8 +381,7 @@ class DefaultRenditionHandler implements RenditionHandler {
                 mediaFormat.getEffectiveMaxHeight(),
                 mediaFormat.getMinWidthHeight(),
                 mediaFormat.getRatio())) {
-              candidate.setMediaFormat(mediaFormat);
-              return candidate;
+              return candidate.withMediaFormat(mediaFormat);
             }
           }
           return null;
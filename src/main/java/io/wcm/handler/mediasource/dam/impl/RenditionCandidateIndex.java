@@ -0,0 +1,152 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.dam.impl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.day.cq.dam.api.Asset;
+import com.day.cq.dam.api.Rendition;
+
+import io.wcm.handler.mediasource.dam.AemRenditionType;
+import io.wcm.handler.mediasource.dam.AssetRendition;
+
+/**
+ * Immutable index of all rendition candidates of a DAM asset.
+ * <p>
+ * The rendition metadata (file name, extension, dimensions) is read only once per asset and shared by all
+ * rendition handlers and media formats resolved within the same {@link DamContext}. The candidates are
+ * sorted in the natural order of {@link RenditionMetadata} (original first, then by width/height), and
+ * bucketed by AEM rendition type and by file extension.
+ * </p>
+ * <p>
+ * The {@link RenditionMetadata} instances held by this index are shared - they must not be modified.
+ * Use {@link RenditionMetadata#withMediaFormat(io.wcm.handler.media.format.MediaFormat)} to attach a media format.
+ * </p>
+ */
+final class RenditionCandidateIndex {
+
+  private final RenditionMetadata original;
+  private final List<RenditionMetadata> all;
+  private final List<RenditionMetadata> custom;
+  private final Map<AemRenditionType, List<RenditionMetadata>> byAemRenditionType;
+  private final Map<String, List<RenditionMetadata>> byFileExtension;
+
+  /**
+   * @param asset DAM asset
+   */
+  RenditionCandidateIndex(@NotNull Asset asset) {
+    RenditionMetadata originalCandidate = null;
+    Map<AemRenditionType, TreeSet<RenditionMetadata>> typeBuckets = new HashMap<>();
+    TreeSet<RenditionMetadata> customBucket = new TreeSet<>();
+    TreeSet<RenditionMetadata> allCandidates = new TreeSet<>();
+    Map<String, TreeSet<RenditionMetadata>> fileExtensionBuckets = new HashMap<>();
+
+    for (Rendition rendition : asset.getRenditions()) {
+      RenditionMetadata candidate = new RenditionMetadata(rendition);
+      if (AssetRendition.isOriginal(rendition)) {
+        originalCandidate = candidate;
+      }
+      AemRenditionType aemRenditionType = AemRenditionType.forRendition(rendition);
+      if (aemRenditionType != null) {
+        typeBuckets.computeIfAbsent(aemRenditionType, key -> new TreeSet<>()).add(candidate);
+      }
+      else {
+        customBucket.add(candidate);
+      }
+      allCandidates.add(candidate);
+      fileExtensionBuckets.computeIfAbsent(toFileExtensionKey(candidate.getFileExtension()), key -> new TreeSet<>())
+          .add(candidate);
+    }
+
+    // asset API may provide the original rendition not as part of the rendition list
+    if (originalCandidate == null) {
+      Rendition damOriginalRendition = asset.getOriginal();
+      if (damOriginalRendition != null) {
+        originalCandidate = new RenditionMetadata(damOriginalRendition);
+      }
+    }
+
+    this.original = originalCandidate;
+    this.all = List.copyOf(allCandidates);
+    this.custom = List.copyOf(customBucket);
+
+    Map<AemRenditionType, List<RenditionMetadata>> byType = new HashMap<>();
+    typeBuckets.forEach((type, bucket) -> byType.put(type, List.copyOf(bucket)));
+    this.byAemRenditionType = Collections.unmodifiableMap(byType);
+
+    Map<String, List<RenditionMetadata>> byExtension = new HashMap<>();
+    fileExtensionBuckets.forEach((fileExtension, bucket) -> byExtension.put(fileExtension, List.copyOf(bucket)));
+    this.byFileExtension = Collections.unmodifiableMap(byExtension);
+  }
+
+  private static @NotNull String toFileExtensionKey(@Nullable String fileExtension) {
+    return StringUtils.defaultIfEmpty(fileExtension, "").toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * @return Original rendition or null if asset has no original rendition
+   */
+  @Nullable RenditionMetadata getOriginal() {
+    return this.original;
+  }
+
+  /**
+   * @return All renditions of the asset, sorted.
+   */
+  @NotNull List<RenditionMetadata> getAll() {
+    return this.all;
+  }
+
+  /**
+   * Get all renditions that are not generated by AEM, plus all renditions of the given AEM rendition types.
+   * @param includeAemRenditionTypes AEM-generated rendition types to include
+   * @return Renditions, sorted
+   */
+  @NotNull Set<RenditionMetadata> getRenditions(@NotNull Set<AemRenditionType> includeAemRenditionTypes) {
+    Set<RenditionMetadata> result = new TreeSet<>(this.custom);
+    for (AemRenditionType type : includeAemRenditionTypes) {
+      List<RenditionMetadata> bucket = byAemRenditionType.get(type);
+      if (bucket != null) {
+        result.addAll(bucket);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get all renditions with the given file extension, regardless of their AEM rendition type.
+   * @param fileExtension File extension (case-insensitive)
+   * @return Renditions, sorted
+   */
+  @NotNull List<RenditionMetadata> getRenditionsWithFileExtension(@NotNull String fileExtension) {
+    return byFileExtension.getOrDefault(toFileExtensionKey(fileExtension), List.of());
+  }
+
+}
@@ -56,7 +56,7 @@ class RenditionMetadata extends SlingAdaptable implements Comparable<RenditionMe
   private final Rendition rendition;
   private final String fileName;
   private final String fileExtension;
-  private LazyValue<Dimension> dimensionLazyValue;
+  private final LazyValue<Dimension> dimensionLazyValue;
   private final boolean isImage;
   private final boolean isVectorImage;
   private MediaFormat mediaFormat;
@@ -88,6 +88,19 @@ class RenditionMetadata extends SlingAdaptable implements Comparable<RenditionMe
     };
   }
 
+  /**
+   * Creates a copy of the given rendition metadata, sharing the (lazily read) dimension.
+   * @param source Rendition metadata to copy
+   */
+  private RenditionMetadata(RenditionMetadata source) {
+    this.rendition = source.rendition;
+    this.fileName = source.fileName;
+    this.fileExtension = source.fileExtension;
+    this.isImage = source.isImage;
+    this.isVectorImage = source.isVectorImage;
+    this.dimensionLazyValue = source.dimensionLazyValue;
+  }
+
   /**
    * @return True if rendition is an image
    */
@@ -174,6 +187,23 @@ class RenditionMetadata extends SlingAdaptable implements Comparable<RenditionMe
     this.mediaFormat = mediaFormat;
   }
 
+  /**
+   * Attach the media format that matches with the resolved rendition.
+   * Rendition metadata instances from the {@link RenditionCandidateIndex} are shared by all media formats
+   * of an asset, so a copy is returned for them instead of modifying the shared instance.
+   * Virtual renditions are created per resolving and are modified directly.
+   * @param matchingMediaFormat Media format
+   * @return Rendition metadata with media format
+   */
+  RenditionMetadata withMediaFormat(MediaFormat matchingMediaFormat) {
+    RenditionMetadata result = this;
+    if (getClass() == RenditionMetadata.class) {
+      result = new RenditionMetadata(this);
+    }
+    result.setMediaFormat(matchingMediaFormat);
+    return result;
+  }
+
   /**
    * @param contentDispositionAttachment Force content disposition download header.
    * @return Media path (not externalized)
@@ -120,10 +120,11 @@ public final class DynamicMediaPath {
     // check for smart cropping when no cropping was applied by default, or auto-crop is enabled
     if (SmartCrop.canApply(cropDimension, rotation)) {
       // check for matching image profile and use predefined cropping preset if match found
-      NamedDimension smartCropDef = SmartCrop.getDimensionForWidthHeight(damContext.getImageProfile(), width, height);
+      SmartCropGeometry smartCropGeometry = damContext.getSmartCropGeometry();
+      NamedDimension smartCropDef = smartCropGeometry.getDimensionForWidthHeight(width, height);
       if (smartCropDef != null) {
         if (damContext.isDynamicMediaValidateSmartCropRenditionSizes()
-            && !SmartCrop.isMatchingSize(damContext.getAsset(), damContext.getResourceResolver(), smartCropDef, width, height)) {
+            && !smartCropGeometry.isMatchingSize(smartCropDef, width, height)) {
           // smart crop should be applied, but selected area is too small, treat as invalid
           logResult(damContext, "<too small for " + width + "x" + height + ">");
           return null;
@@ -21,17 +21,25 @@ package io.wcm.handler.mediasource.dam.impl.dynamicmedia;
 
 import static com.day.cq.commons.jcr.JcrConstants.JCR_CONTENT;
 
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
 import javax.jcr.RepositoryException;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Strings;
 import org.apache.sling.api.adapter.Adaptable;
 import org.apache.sling.api.resource.LoginException;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
 import org.apache.sling.api.resource.ResourceResolverFactory;
+import org.apache.sling.api.resource.ResourceUtil;
+import org.apache.sling.api.resource.observation.ExternalResourceChangeListener;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChangeListener;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.osgi.service.component.annotations.Activate;
@@ -46,6 +54,9 @@ import org.slf4j.LoggerFactory;
 import com.day.cq.dam.api.Asset;
 import com.day.cq.dam.api.DamConstants;
 import com.day.cq.dam.api.s7dam.utils.PublishUtils;
+import com.day.cq.dam.scene7.api.constants.Scene7Constants;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 
 import io.wcm.handler.media.Dimension;
 import io.wcm.handler.url.SiteConfig;
@@ -56,10 +67,23 @@ import io.wcm.sling.commons.adapter.AdaptTo;
 
 /**
  * Implements {@link DynamicMediaSupportService}.
+ * <p>
+ * Parsed image profiles and the image profile assigned to each asset folder are cached. Both caches are
+ * invalidated on changes of image profiles below <code>/conf</code> and of asset folder content nodes.
+ * The image profile assignments of asset folders are read with the service user, so the cached result
+ * does not depend on the permissions of the current user.
+ * </p>
+ * <p>
+ * The production asset URL returned by {@link PublishUtils} is cached per Dynamic Media company root folder
+ * for a configurable time, and invalidated on changes of cloud configurations below <code>/conf</code>.
+ * </p>
  */
-@Component(service = DynamicMediaSupportService.class, immediate = true)
+@Component(service = { DynamicMediaSupportService.class, ResourceChangeListener.class }, immediate = true, property = {
+    ResourceChangeListener.PATHS + "=" + DynamicMediaSupportServiceImpl.CONF_PATH,
+    ResourceChangeListener.PATHS + "=glob:" + DynamicMediaSupportServiceImpl.DAM_PATH + "/**/" + JCR_CONTENT
+})
 @Designate(ocd = DynamicMediaSupportServiceImpl.Config.class)
-public class DynamicMediaSupportServiceImpl implements DynamicMediaSupportService {
+public class DynamicMediaSupportServiceImpl implements DynamicMediaSupportService, ExternalResourceChangeListener {
 
   @ObjectClassDefinition(
       name = "wcm.io Media Handler Dynamic Media Support",
@@ -132,6 +156,18 @@ public class DynamicMediaSupportServiceImpl implements DynamicMediaSupportServic
             + "Accepts the same values as the 'fmt' parameter from the Dynamic Media Image Service API.")
     String defaultFmtAlpha() default "webp-alpha";
 
+    @AttributeDefinition(
+        name = "Cache Image Profiles",
+        description = "Cache parsed image profiles and the image profile assigned to each asset folder. "
+            + "The cache is invalidated when image profiles or asset folders are changed.")
+    boolean imageProfileCache() default true;
+
+    @AttributeDefinition(
+        name = "Production Asset URL Cache",
+        description = "Time in seconds the Dynamic Media production asset URL is cached per company root folder. "
+            + "The cache is invalidated when cloud configurations are changed. Set to 0 to disable caching.")
+    long productionAssetUrlCacheSeconds() default 300;
+
   }
 
   @Reference
@@ -150,8 +186,23 @@ public class DynamicMediaSupportServiceImpl implements DynamicMediaSupportServic
   private String defaultFmt;
   private String defaultFmtAlpha;
 
+  // image profile path -> parsed image profile (empty if profile does not exist, null if caching is disabled)
+  private Cache<String, Optional<ImageProfile>> imageProfiles;
+  // asset folder path -> image profile path (empty if no profile is assigned to folder or any parent folder,
+  // null if caching is disabled)
+  private Cache<String, Optional<String>> folderImageProfilePaths;
+  // Dynamic Media company root folder -> production asset URL (null if caching is disabled)
+  private Cache<String, String> productionAssetUrls;
+
+  static final String CONF_PATH = "/conf";
+  static final String DAM_PATH = "/content/dam";
+
   private static final String SERVICEUSER_SUBSERVICE = "dynamic-media-support";
   private static final Pattern DAM_PATH_PATTERN = Pattern.compile("^/content/dam(/.*)?$");
+  private static final String CLOUDCONFIGS_PATH_PART = "/settings/cloudconfigs";
+  private static final long PRODUCTION_ASSET_URL_CACHE_MAX_SIZE = 1000;
+  private static final long IMAGE_PROFILE_CACHE_MAX_SIZE = 1000;
+  private static final long FOLDER_IMAGE_PROFILE_PATH_CACHE_MAX_SIZE = 10000;
 
   private static final Logger log = LoggerFactory.getLogger(DynamicMediaSupportServiceImpl.class);
 
@@ -167,6 +218,27 @@ public class DynamicMediaSupportServiceImpl implements DynamicMediaSupportServic
     this.setImageQuality = config.setImageQuality();
     this.defaultFmt = StringUtils.trim(config.defaultFmt());
     this.defaultFmtAlpha = StringUtils.trim(config.defaultFmtAlpha());
+    if (config.imageProfileCache()) {
+      this.imageProfiles = Caffeine.newBuilder()
+        .maximumSize(IMAGE_PROFILE_CACHE_MAX_SIZE)
+        .build();
+      this.folderImageProfilePaths = Caffeine.newBuilder()
+        .maximumSize(FOLDER_IMAGE_PROFILE_PATH_CACHE_MAX_SIZE)
+        .build();
+    }
+    else {
+      this.imageProfiles = null;
+      this.folderImageProfilePaths = null;
+    }
+    if (config.productionAssetUrlCacheSeconds() > 0) {
+      this.productionAssetUrls = Caffeine.newBuilder()
+        .maximumSize(PRODUCTION_ASSET_URL_CACHE_MAX_SIZE)
+        .expireAfterWrite(config.productionAssetUrlCacheSeconds(), TimeUnit.SECONDS)
+        .build();
+    }
+    else {
+      this.productionAssetUrls = null;
+    }
 
     if (this.enabled) {
       log.info("DynamicMediaSupport: enabled={}, capabilityEnabled={}, capabilityDetection={}, "
@@ -232,6 +304,27 @@ public class DynamicMediaSupportServiceImpl implements DynamicMediaSupportServic
 
   @Override
   public @Nullable ImageProfile getImageProfile(@NotNull String profilePath) {
+    Cache<String, Optional<ImageProfile>> cache = this.imageProfiles;
+    if (cache != null) {
+      Optional<ImageProfile> cachedImageProfile = cache.getIfPresent(profilePath);
+      if (cachedImageProfile != null) {
+        return cachedImageProfile.orElse(null);
+      }
+    }
+    try {
+      ImageProfile imageProfile = loadImageProfile(profilePath);
+      if (cache != null) {
+        cache.put(profilePath, Optional.ofNullable(imageProfile));
+      }
+      return imageProfile;
+    }
+    catch (LoginException ex) {
+      log.error("Missing service user mapping for 'io.wcm.handler.media:dynamic-media-support' - see https://wcm.io/handler/media/configuration.html", ex);
+      return null;
+    }
+  }
+
+  private @Nullable ImageProfile loadImageProfile(@NotNull String profilePath) throws LoginException {
     try (ResourceResolver resourceResolver = resourceResolverFactory
       .getServiceResourceResolver(Map.of(ResourceResolverFactory.SUBSERVICE, SERVICEUSER_SUBSERVICE))) {
       Resource profileResource = resourceResolver.getResource(profilePath);
@@ -240,9 +333,6 @@ public class DynamicMediaSupportServiceImpl implements DynamicMediaSupportServic
         return new ImageProfileImpl(profileResource);
       }
     }
-    catch (LoginException ex) {
-      log.error("Missing service user mapping for 'io.wcm.handler.media:dynamic-media-support' - see https://wcm.io/handler/media/configuration.html", ex);
-    }
     log.debug("Image profile not found: {}", profilePath);
     return null;
   }
@@ -252,31 +342,108 @@ public class DynamicMediaSupportServiceImpl implements DynamicMediaSupportServic
     Resource assetResource = AdaptTo.notNull(asset, Resource.class);
     Resource folderResource = assetResource.getParent();
     if (folderResource != null) {
-      return getImageProfileForAssetFolder(folderResource);
+      String imageProfilePath = getImageProfilePathForAssetFolder(folderResource);
+      if (imageProfilePath != null) {
+        return getImageProfile(imageProfilePath);
+      }
     }
     return null;
   }
 
-  private @Nullable ImageProfile getImageProfileForAssetFolder(@NotNull Resource folderResource) {
-    if (!DAM_PATH_PATTERN.matcher(folderResource.getPath()).matches()) {
+  private @Nullable String getImageProfilePathForAssetFolder(@NotNull Resource folderResource) {
+    Cache<String, Optional<String>> cache = this.folderImageProfilePaths;
+    String folderPath = folderResource.getPath();
+    if (cache == null || !DAM_PATH_PATTERN.matcher(folderPath).matches()) {
+      return resolveImageProfilePath(folderResource, null);
+    }
+    Optional<String> cachedImageProfilePath = cache.getIfPresent(folderPath);
+    if (cachedImageProfilePath != null) {
+      return cachedImageProfilePath.orElse(null);
+    }
+
+    // resolve and cache image profile assignment with service user, independent of the current user's permissions
+    try (ResourceResolver resourceResolver = resourceResolverFactory
+      .getServiceResourceResolver(Map.of(ResourceResolverFactory.SUBSERVICE, SERVICEUSER_SUBSERVICE))) {
+      Resource serviceFolderResource = resourceResolver.getResource(folderPath);
+      if (serviceFolderResource != null) {
+        return resolveImageProfilePath(serviceFolderResource, cache);
+      }
+    }
+    catch (LoginException ex) {
+      log.error("Missing service user mapping for 'io.wcm.handler.media:dynamic-media-support' - see https://wcm.io/handler/media/configuration.html", ex);
+    }
+
+    // service user has no read access to the asset folder - resolve with current user without caching
+    log.debug("Unable to read asset folder {} with service user, image profile assignment is not cached.", folderPath);
+    return resolveImageProfilePath(folderResource, null);
+  }
+
+  /**
+   * Resolves the image profile assigned to the asset folder or inherited from a parent folder.
+   * @param folderResource Asset folder resource
+   * @param cache Cache for image profile paths per folder, or null to resolve without caching
+   * @return Image profile path or null
+   */
+  private static @Nullable String resolveImageProfilePath(@NotNull Resource folderResource,
+      @Nullable Cache<String, Optional<String>> cache) {
+    String folderPath = folderResource.getPath();
+    if (!DAM_PATH_PATTERN.matcher(folderPath).matches()) {
       return null;
     }
+    if (cache != null) {
+      Optional<String> cachedImageProfilePath = cache.getIfPresent(folderPath);
+      if (cachedImageProfilePath != null) {
+        return cachedImageProfilePath.orElse(null);
+      }
+    }
+    String imageProfilePath = null;
     Resource folderContentResource = folderResource.getChild(JCR_CONTENT);
     if (folderContentResource != null) {
-      String imageProfilePath = folderContentResource.getValueMap().get(DamConstants.IMAGE_PROFILE, String.class);
-      if (imageProfilePath != null) {
-        return getImageProfile(imageProfilePath);
+      imageProfilePath = folderContentResource.getValueMap().get(DamConstants.IMAGE_PROFILE, String.class);
+    }
+    if (imageProfilePath == null) {
+      Resource parentFolderResource = folderResource.getParent();
+      if (parentFolderResource != null) {
+        imageProfilePath = resolveImageProfilePath(parentFolderResource, cache);
       }
     }
-    Resource parentFolderResource = folderResource.getParent();
-    if (parentFolderResource != null) {
-      return getImageProfileForAssetFolder(parentFolderResource);
+    if (cache != null) {
+      cache.put(folderPath, Optional.ofNullable(imageProfilePath));
     }
-    else {
-      return null;
+    return imageProfilePath;
+  }
+
+  @Override
+  public void onChange(@NotNull List<ResourceChange> changes) {
+    for (ResourceChange change : changes) {
+      String path = change.getPath();
+      if (isSameOrDescendant(path, CONF_PATH)) {
+        // remove all image profiles affected by the change
+        if (imageProfiles != null) {
+          imageProfiles.asMap().keySet().removeIf(profilePath -> isSameOrDescendant(profilePath, path)
+              || isSameOrDescendant(path, profilePath));
+        }
+        // Dynamic Media cloud configuration may have changed
+        if (productionAssetUrls != null && Strings.CS.contains(path, CLOUDCONFIGS_PATH_PART)) {
+          productionAssetUrls.invalidateAll();
+        }
+      }
+      else if (Strings.CS.endsWith(path, "/" + JCR_CONTENT)) {
+        // remove folder and all sub folders that inherit the image profile assignment
+        // if the folder itself is not cached, no sub folder inherits the image profile assignment from it
+        String folderPath = ResourceUtil.getParent(path);
+        if (folderPath != null && folderImageProfilePaths != null
+            && folderImageProfilePaths.asMap().remove(folderPath) != null) {
+          folderImageProfilePaths.asMap().keySet().removeIf(cachedFolderPath -> isSameOrDescendant(cachedFolderPath, folderPath));
+        }
+      }
     }
   }
 
+  private static boolean isSameOrDescendant(@NotNull String path, @NotNull String parentPath) {
+    return Strings.CS.equals(path, parentPath) || Strings.CS.startsWith(path, parentPath + "/");
+  }
+
   @Override
   public @Nullable String getDynamicMediaServerUrl(@NotNull Asset asset, @Nullable UrlMode urlMode, @NotNull Adaptable adaptable) {
     Resource assetResource = AdaptTo.notNull(asset, Resource.class);
@@ -288,10 +455,25 @@ public class DynamicMediaSupportServiceImpl implements DynamicMediaSupportServic
       UrlHandler urlHandler = AdaptTo.notNull(adaptable, UrlHandler.class);
       return urlHandler.applySiteUrlAutoDetection(siteUrlAUthor);
     }
+    if (productionAssetUrls == null) {
+      return getProductionAssetUrl(assetResource);
+    }
+    String cacheKey = getProductionAssetUrlCacheKey(asset, assetResource);
+    String productionAssetUrl = productionAssetUrls.getIfPresent(cacheKey);
+    if (productionAssetUrl == null) {
+      productionAssetUrl = getProductionAssetUrl(assetResource);
+      if (productionAssetUrl != null) {
+        productionAssetUrls.put(cacheKey, productionAssetUrl);
+      }
+    }
+    return productionAssetUrl;
+  }
+
+  private @Nullable String getProductionAssetUrl(@NotNull Resource assetResource) {
     try {
-      String[] productionAssetUrls = dynamicMediaPublishUtils.externalizeImageDeliveryAsset(assetResource);
-      if (productionAssetUrls != null && productionAssetUrls.length > 0) {
-        return productionAssetUrls[0];
+      String[] productionAssetUrlArray = dynamicMediaPublishUtils.externalizeImageDeliveryAsset(assetResource);
+      if (productionAssetUrlArray != null && productionAssetUrlArray.length > 0) {
+        return productionAssetUrlArray[0];
       }
     }
     catch (RepositoryException ex) {
@@ -301,6 +483,22 @@ public class DynamicMediaSupportServiceImpl implements DynamicMediaSupportServic
     return null;
   }
 
+  /**
+   * The production asset URL depends on the Dynamic Media configuration of the company the asset belongs to.
+   * The company root folder is the first segment of the Dynamic Media object identifier. If the asset has no
+   * Dynamic Media object identifier, the asset folder is used as scope.
+   * @param asset Asset
+   * @param assetResource Asset resource
+   * @return Cache key
+   */
+  private static @NotNull String getProductionAssetUrlCacheKey(@NotNull Asset asset, @NotNull Resource assetResource) {
+    String dynamicMediaObject = asset.getMetadataValueFromJcr(Scene7Constants.PN_S7_FILE);
+    if (Strings.CS.contains(dynamicMediaObject, "/")) {
+      return "company:" + StringUtils.substringBefore(dynamicMediaObject, "/");
+    }
+    return "folder:" + StringUtils.defaultString(ResourceUtil.getParent(assetResource.getPath()));
+  }
+
   /**
    * If URL mode is target for publish instance, use dynamic media production URL.
    * @param urlMode URL mode
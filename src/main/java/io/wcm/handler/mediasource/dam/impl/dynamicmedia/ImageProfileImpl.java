@@ -20,6 +20,7 @@
 package io.wcm.handler.mediasource.dam.impl.dynamicmedia;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.lang3.StringUtils;
@@ -87,7 +88,7 @@ public final class ImageProfileImpl implements ImageProfile {
       }
     }
 
-    return result;
+    return Collections.unmodifiableList(result);
   }
 
 }
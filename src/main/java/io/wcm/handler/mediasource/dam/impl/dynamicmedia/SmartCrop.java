@@ -125,27 +125,50 @@ public final class SmartCrop {
    * @param smartCropDef Smart cropping definition from image profile
    * @return Actual dimension of the smart cropping area or null if not found
    */
-  @SuppressWarnings("java:S1075") // no filesystem paths
   public static @Nullable CropDimension getCropDimensionForAsset(@NotNull Asset asset,
       @NotNull ResourceResolver resourceResolver, @NotNull NamedDimension smartCropDef) {
+    Resource smartCropRendition = getSmartCropRendition(asset, resourceResolver, smartCropDef);
+    if (smartCropRendition == null) {
+      return null;
+    }
+    return getCropDimension(smartCropRendition, AssetRendition.getDimension(asset.getOriginal()), smartCropDef);
+  }
+
+  /**
+   * Gets the resource containing the smart cropping parameters for the given asset and smart cropping definition.
+   * @param asset Asset
+   * @param resourceResolver Resource resolver
+   * @param smartCropDef Smart cropping definition from image profile
+   * @return Resource or null if not found
+   */
+  @SuppressWarnings("java:S1075") // no filesystem paths
+  static @Nullable Resource getSmartCropRendition(@NotNull Asset asset,
+      @NotNull ResourceResolver resourceResolver, @NotNull NamedDimension smartCropDef) {
     // at this path smart cropping parameters may be stored for each ratio (esp. if manual cropping was applied)
+    // on AEMaaCS this path should always exist, in AEMaaCS SDK it seems to be created only when manual cropping
+    // is applied in the Assets UI
     String smartCropRenditionPath = asset.getPath()
         + "/" + JCR_CONTENT
         + "/" + RENDITIONS_FOLDER
         + "/" + smartCropDef.getName()
         + "/" + JCR_CONTENT;
-    Resource smartCropRendition = resourceResolver.getResource(smartCropRenditionPath);
-    if (smartCropRendition == null) {
-      // on AEMaaCS this path should always exist, in AEMaaCS SDK it seems to be created only when manual cropping
-      // is applied in the Assets UI
-      return null;
-    }
+    return resourceResolver.getResource(smartCropRenditionPath);
+  }
+
+  /**
+   * Calculates the actual smart-cropped dimension from the smart cropping parameters.
+   * @param smartCropRendition Resource containing the smart cropping parameters
+   * @param originalDimension Dimension of the original rendition of the asset
+   * @param smartCropDef Smart cropping definition from image profile
+   * @return Actual dimension of the smart cropping area or null if invalid
+   */
+  static @Nullable CropDimension getCropDimension(@NotNull Resource smartCropRendition,
+      @Nullable Dimension originalDimension, @NotNull NamedDimension smartCropDef) {
     ValueMap props = smartCropRendition.getValueMap();
     double leftPercentage = props.get(PN_LEFT, 0d);
     double topPercentage = props.get(PN_TOP, 0d);
     double widthPercentage = props.get(PN_NORMALIZED_WIDTH, 0d);
     double heightPercentage = props.get(PN_NORMALIZED_HEIGHT, 0d);
-    Dimension originalDimension = AssetRendition.getDimension(asset.getOriginal());
     if (originalDimension == null
         || !isValidTopLeft(leftPercentage, topPercentage)
         || !isValidWidthHeight(widthPercentage, heightPercentage)) {
@@ -190,7 +213,20 @@ public final class SmartCrop {
    */
   public static boolean isMatchingSize(@NotNull Asset asset, @NotNull ResourceResolver resourceResolver,
       @NotNull NamedDimension smartCropDef, long width, long height) {
-    CropDimension cropDimension = getCropDimensionForAsset(asset, resourceResolver, smartCropDef);
+    return isMatchingSize(asset, getCropDimensionForAsset(asset, resourceResolver, smartCropDef), smartCropDef, width, height);
+  }
+
+  /**
+   * Verifies that the given smart cropping area fulfills at least the requested width/height.
+   * @param asset DAM asset
+   * @param cropDimension Actual dimension of the smart cropping area
+   * @param smartCropDef Smart cropping dimension
+   * @param width Requested width
+   * @param height Requested height
+   * @return true if size is matching, or no width/height information for the cropped area is available
+   */
+  static boolean isMatchingSize(@NotNull Asset asset, @Nullable CropDimension cropDimension,
+      @NotNull NamedDimension smartCropDef, long width, long height) {
     if (cropDimension == null) {
       // smart cropping rendition is not found in repository or it contains invalid values,
       // we assume the size should be fine and skip further checking
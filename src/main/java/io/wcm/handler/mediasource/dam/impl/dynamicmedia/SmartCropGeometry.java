@@ -0,0 +1,153 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.dam.impl.dynamicmedia;
+
+import static io.wcm.handler.media.format.MediaFormatHandler.RATIO_TOLERANCE;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.ResourceResolver;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.day.cq.dam.api.Asset;
+
+import io.wcm.handler.media.CropDimension;
+import io.wcm.handler.media.Dimension;
+import io.wcm.handler.media.format.Ratio;
+import io.wcm.handler.mediasource.dam.AssetRendition;
+
+/**
+ * Immutable table of the smart cropping areas of a DAM asset for all smart cropping definitions of its image profile.
+ * <p>
+ * The smart cropping parameters of all definitions and the dimension of the original rendition are read only once.
+ * Smart cropping definitions are bucketed by ratio, so looking up the definition for a requested ratio does not
+ * depend on the number of definitions.
+ * </p>
+ */
+public final class SmartCropGeometry {
+
+  private final Asset asset;
+  private final List<NamedDimension> definitions;
+  private final double[] ratios;
+  private final Map<Long, List<Integer>> ratioBuckets;
+  private final Map<String, CropDimension> cropDimensions;
+
+  /**
+   * @param asset DAM asset
+   * @param resourceResolver Resource resolver
+   * @param imageProfile Image profile (null if none is defined)
+   */
+  public SmartCropGeometry(@NotNull Asset asset, @NotNull ResourceResolver resourceResolver,
+      @Nullable ImageProfile imageProfile) {
+    this.asset = asset;
+    this.definitions = imageProfile != null ? imageProfile.getSmartCropDefinitions() : Collections.emptyList();
+    this.ratios = new double[definitions.size()];
+    this.ratioBuckets = new HashMap<>();
+    this.cropDimensions = new HashMap<>();
+
+    Dimension originalDimension = null;
+    if (!definitions.isEmpty()) {
+      originalDimension = AssetRendition.getDimension(asset.getOriginal());
+    }
+    for (int i = 0; i < definitions.size(); i++) {
+      NamedDimension definition = definitions.get(i);
+      ratios[i] = Ratio.get(definition);
+      ratioBuckets.computeIfAbsent(toBucket(ratios[i]), key -> new ArrayList<>()).add(i);
+      Resource smartCropRendition = SmartCrop.getSmartCropRendition(asset, resourceResolver, definition);
+      if (smartCropRendition != null) {
+        CropDimension cropDimension = SmartCrop.getCropDimension(smartCropRendition, originalDimension, definition);
+        if (cropDimension != null) {
+          cropDimensions.putIfAbsent(definition.getName(), cropDimension);
+        }
+      }
+    }
+  }
+
+  /**
+   * Gets the first smart cropping definition of the image profile matching the requested ratio.
+   * @param requestedRatio Requested ratio
+   * @return Named dimension or null. The provided width/height can usually be ignored, because they
+   *         are the width/height from the image profile which only describe the aspect ratio.
+   */
+  public @Nullable NamedDimension getDimensionForRatio(double requestedRatio) {
+    // a matching ratio differs less than the tolerance, so it is in the same or a neighboring bucket
+    long bucket = toBucket(requestedRatio);
+    int matchingIndex = -1;
+    for (long candidateBucket = bucket - 1; candidateBucket <= bucket + 1; candidateBucket++) {
+      List<Integer> indexes = ratioBuckets.get(candidateBucket);
+      if (indexes == null) {
+        continue;
+      }
+      for (int index : indexes) {
+        if ((matchingIndex < 0 || index < matchingIndex) && Ratio.matches(ratios[index], requestedRatio)) {
+          matchingIndex = index;
+        }
+      }
+    }
+    return matchingIndex >= 0 ? definitions.get(matchingIndex) : null;
+  }
+
+  /**
+   * Gets the smart cropping definition of the image profile matching the ratio of the requested width/height.
+   * @param width Width
+   * @param height Height
+   * @return Smart cropping definition with requested width/height - or null if no match
+   */
+  public @Nullable NamedDimension getDimensionForWidthHeight(long width, long height) {
+    NamedDimension matchingDimension = getDimensionForRatio(Ratio.get(width, height));
+    if (matchingDimension != null) {
+      // create new named dimension with actual requested width/height
+      return new NamedDimension(matchingDimension.getName(), width, height);
+    }
+    return null;
+  }
+
+  /**
+   * Gets the actual smart-cropped dimension for the given smart cropping definition.
+   * @param smartCropDef Smart cropping definition
+   * @return Actual dimension of the smart cropping area or null if not found
+   */
+  public @Nullable CropDimension getCropDimension(@NotNull NamedDimension smartCropDef) {
+    return cropDimensions.get(smartCropDef.getName());
+  }
+
+  /**
+   * Verifies that the actual image area picked in smart cropping results in a rendition size that fulfills at least
+   * the requested width/height.
+   * @param smartCropDef Smart cropping definition
+   * @param width Requested width
+   * @param height Requested height
+   * @return true if size is matching, or no width/height information for the cropped area is available
+   */
+  public boolean isMatchingSize(@NotNull NamedDimension smartCropDef, long width, long height) {
+    return SmartCrop.isMatchingSize(asset, getCropDimension(smartCropDef), smartCropDef, width, height);
+  }
+
+  private static long toBucket(double ratio) {
+    return (long)Math.floor(ratio / RATIO_TOLERANCE);
+  }
+
+}
@@ -97,7 +97,9 @@ public final class AssetSynchonizationService {
 
     @Override
     public boolean tryLock() {
-      throw new UnsupportedOperationException();
+      boolean locked = this.delegate.tryLock();
+      log.trace("Try lock {}: {}", assetPath, locked);
+      return locked;
     }
 
     @Override
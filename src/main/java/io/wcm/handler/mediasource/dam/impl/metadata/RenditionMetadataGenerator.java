@@ -35,6 +35,8 @@ import static io.wcm.handler.mediasource.dam.impl.metadata.RenditionMetadataName
 import static io.wcm.handler.mediasource.dam.impl.metadata.RenditionMetadataNameConstants.PN_IMAGE_HEIGHT;
 import static io.wcm.handler.mediasource.dam.impl.metadata.RenditionMetadataNameConstants.PN_IMAGE_WIDTH;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.HashSet;
@@ -64,6 +66,7 @@ import com.day.image.Layer;
 
 import io.wcm.handler.media.Dimension;
 import io.wcm.handler.media.MediaFileType;
+import io.wcm.handler.media.impl.ImageDimensionProbe;
 import io.wcm.handler.media.impl.ResourceLayerUtil;
 import io.wcm.sling.commons.adapter.AdaptTo;
 import io.wcm.wcm.commons.contenttype.ContentType;
@@ -75,6 +78,8 @@ public final class RenditionMetadataGenerator {
 
   private final ResourceResolver resourceResolver;
   private final AssetStore assetStore;
+  private final boolean autoCommit;
+  private int pendingChanges;
 
   private static final Logger log = LoggerFactory.getLogger(RenditionMetadataGenerator.class);
 
@@ -82,8 +87,51 @@ public final class RenditionMetadataGenerator {
    * @param resourceResolver Resource resolver
    */
   public RenditionMetadataGenerator(ResourceResolver resourceResolver, AssetStore assetStore) {
+    this(resourceResolver, assetStore, true);
+  }
+
+  /**
+   * @param resourceResolver Resource resolver
+   * @param autoCommit If true, each metadata change is committed directly.
+   *          If false, changes are collected until {@link #commit()} is called.
+   */
+  public RenditionMetadataGenerator(ResourceResolver resourceResolver, AssetStore assetStore, boolean autoCommit) {
     this.resourceResolver = resourceResolver;
     this.assetStore = assetStore;
+    this.autoCommit = autoCommit;
+  }
+
+  /**
+   * @return Number of metadata changes not committed yet
+   */
+  public int getPendingChanges() {
+    return pendingChanges;
+  }
+
+  /**
+   * Commit all pending metadata changes.
+   * @throws PersistenceException Persistence exception
+   */
+  public void commit() throws PersistenceException {
+    if (pendingChanges > 0) {
+      resourceResolver.commit();
+      pendingChanges = 0;
+    }
+  }
+
+  /**
+   * Discard all pending metadata changes.
+   */
+  public void revert() {
+    resourceResolver.revert();
+    pendingChanges = 0;
+  }
+
+  private void changed() throws PersistenceException {
+    pendingChanges++;
+    if (autoCommit) {
+      commit();
+    }
   }
 
   /**
@@ -234,7 +282,7 @@ public final class RenditionMetadataGenerator {
       props.put(PN_IMAGE_HEIGHT, dimension.getHeight());
       props.put(JCR_LASTMODIFIED, Calendar.getInstance());
       props.put(JCR_LAST_MODIFIED_BY, resourceResolver.getUserID());
-      resourceResolver.commit();
+      changed();
       return true;
     }
     catch (PersistenceException ex) {
@@ -289,7 +337,7 @@ public final class RenditionMetadataGenerator {
     try {
       log.debug("Remove rendition metadata at {}.", metadataResource.getPath());
       resourceResolver.delete(metadataResource);
-      resourceResolver.commit();
+      changed();
       return true;
     }
     catch (PersistenceException ex) {
@@ -303,6 +351,20 @@ public final class RenditionMetadataGenerator {
    * @return Dimension or null if it could not be detected
    */
   private Dimension getRenditionDimension(Resource renditionResource) {
+    // try to read dimension from image header without decoding the image
+    try (InputStream is = renditionResource.adaptTo(InputStream.class)) {
+      if (is != null) {
+        Dimension dimension = ImageDimensionProbe.probe(is);
+        if (dimension != null) {
+          return dimension;
+        }
+      }
+    }
+    catch (IOException ex) {
+      log.debug("Unable to read image header for rendition {}", renditionResource.getPath(), ex);
+    }
+
+    // fallback: load image into layer
     Layer layer = ResourceLayerUtil.toLayer(renditionResource, assetStore);
     if (layer == null) {
       return null;
@@ -41,6 +41,9 @@ import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.component.annotations.ReferenceCardinality;
+import org.osgi.service.component.annotations.ReferencePolicy;
+import org.osgi.service.component.annotations.ReferencePolicyOption;
 import org.osgi.service.event.Event;
 import org.osgi.service.event.EventConstants;
 import org.osgi.service.event.EventHandler;
@@ -55,6 +58,7 @@ import com.day.cq.dam.api.DamEvent.Type;
 import com.day.cq.dam.api.handler.store.AssetStore;
 
 import io.wcm.handler.media.MediaFileType;
+import io.wcm.handler.media.impl.TransformedImageCache;
 import io.wcm.handler.mediasource.dam.impl.metadata.concurrency.NamedThreadFactory;
 import io.wcm.wcm.commons.instancetype.InstanceTypeService;
 import io.wcm.wcm.commons.util.RunMode;
@@ -109,6 +113,8 @@ public final class RenditionMetadataListenerService implements EventHandler {
   private AssetSynchonizationService assetSynchronizationService;
   @Reference
   private AssetStore assetStore;
+  @Reference(policy = ReferencePolicy.STATIC, policyOption = ReferencePolicyOption.GREEDY, cardinality = ReferenceCardinality.OPTIONAL)
+  private TransformedImageCache transformedImageCache;
 
   private ScheduledExecutorService executorService;
 
@@ -146,13 +152,19 @@ public final class RenditionMetadataListenerService implements EventHandler {
 
   @Override
   public void handleEvent(Event event) {
-    if (!enabled || !Strings.CS.equals(event.getTopic(), DamEvent.EVENT_TOPIC)) {
+    if (!Strings.CS.equals(event.getTopic(), DamEvent.EVENT_TOPIC)) {
       return;
     }
     DamEvent damEvent = DamEvent.fromEvent(event);
     // process only rendition-related events
     if (SUPPORTED_EVENT_TYPES.contains(damEvent.getType())) {
-      handleDamEvent(damEvent);
+      // remove images transformed from outdated rendition binaries
+      if (transformedImageCache != null && damEvent.getAdditionalInfo() != null) {
+        transformedImageCache.invalidate(damEvent.getAdditionalInfo());
+      }
+      if (enabled) {
+        handleDamEvent(damEvent);
+      }
     }
   }
 
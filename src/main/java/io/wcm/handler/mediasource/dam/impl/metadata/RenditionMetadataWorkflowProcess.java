@@ -21,14 +21,30 @@ package io.wcm.handler.mediasource.dam.impl.metadata;
 
 import static com.day.cq.dam.api.DamConstants.NT_DAM_ASSET;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 
+import org.apache.sling.api.resource.LoginException;
+import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
+import org.apache.sling.api.resource.ResourceResolverFactory;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Reference;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,19 +57,51 @@ import com.day.cq.dam.api.Asset;
 import com.day.cq.dam.api.handler.store.AssetStore;
 import com.day.cq.dam.commons.util.DamUtil;
 
+import io.wcm.handler.mediasource.dam.impl.metadata.concurrency.NamedThreadFactory;
 import io.wcm.sling.commons.adapter.AdaptTo;
 
 /**
  * Workflow process that generated rendition metadata required for the media handler processing.
  * Can also process workflow packages.
+ * <p>
+ * If the payload contains a large number of assets (e.g. a folder in an asset migration), the assets are processed
+ * in bulk mode: they are distributed across a pool of worker threads with their own service resource resolver,
+ * and the metadata changes are committed in batches.
+ * </p>
  */
 @Component(
     service = WorkflowProcess.class,
     property = {
         "process.label=wcm.io Media Handler: Rendition Metadata"
     })
+@Designate(ocd = RenditionMetadataWorkflowProcess.Config.class)
 public final class RenditionMetadataWorkflowProcess implements WorkflowProcess {
 
+  @ObjectClassDefinition(
+      name = "wcm.io Media Handler Rendition Metadata Workflow Process",
+      description = "Generates rendition metadata for assets referenced by the workflow payload.")
+  @interface Config {
+
+    @AttributeDefinition(name = "Bulk threshold", description = "Min. number of assets in the workflow payload "
+        + "to process them in bulk mode.")
+    int bulkThreshold() default 100;
+
+    @AttributeDefinition(name = "Thread pool size", description = "Number of threads processing assets in parallel "
+        + "in bulk mode. Setting it to 0 processes all assets on the workflow thread.")
+    int threadPoolSize() default 4;
+
+    @AttributeDefinition(name = "Commit batch size", description = "Number of rendition metadata changes "
+        + "committed together in bulk mode.")
+    int commitBatchSize() default 100;
+
+    @AttributeDefinition(name = "Progress log interval", description = "Log progress and throughput "
+        + "after this number of assets in bulk mode.")
+    int progressLogInterval() default 1000;
+
+  }
+
+  private static final String SERVICEUSER_SUBSERVICE = "dam-rendition-metadata";
+
   private static final Logger log = LoggerFactory.getLogger(RenditionMetadataWorkflowProcess.class);
 
   @Reference
@@ -62,6 +110,21 @@ public final class RenditionMetadataWorkflowProcess implements WorkflowProcess {
   private AssetSynchonizationService assetSynchronizationService;
   @Reference
   private AssetStore assetStore;
+  @Reference
+  private ResourceResolverFactory resourceResolverFactory;
+
+  private int bulkThreshold;
+  private int threadPoolSize;
+  private int commitBatchSize;
+  private int progressLogInterval;
+
+  @Activate
+  private void activate(Config config) {
+    this.bulkThreshold = config.bulkThreshold();
+    this.threadPoolSize = config.threadPoolSize();
+    this.commitBatchSize = Math.max(1, config.commitBatchSize());
+    this.progressLogInterval = Math.max(1, config.progressLogInterval());
+  }
 
   @Override
   public void execute(WorkItem item, WorkflowSession workflowSession, MetaDataMap args) {
@@ -83,9 +146,14 @@ public final class RenditionMetadataWorkflowProcess implements WorkflowProcess {
       log.debug("All asset references: {}", assetPaths);
     }
 
-    // process all assets
-    for (String assetPath : assetPaths) {
-      process(assetPath, resourceResolver);
+    if (threadPoolSize > 0 && assetPaths.size() >= bulkThreshold) {
+      processBulk(assetPaths);
+    }
+    else {
+      // process all assets
+      for (String assetPath : assetPaths) {
+        process(assetPath, resourceResolver);
+      }
     }
 
     log.info("Finished processing {} asset references from workflow payload {}.", assetPaths.size(), payloadPath);
@@ -97,6 +165,17 @@ public final class RenditionMetadataWorkflowProcess implements WorkflowProcess {
    * @param resourceResolver Resource resolver from workflow
    */
   private void process(@NotNull String assetOrRenditionPath, @NotNull ResourceResolver resourceResolver) {
+    process(assetOrRenditionPath, resourceResolver, new RenditionMetadataGenerator(resourceResolver, assetStore));
+  }
+
+  /**
+   * Process a single asset path.
+   * @param assetOrRenditionPath Path to asset or a rendition of it
+   * @param resourceResolver Resource resolver
+   * @param generator Rendition metadata generator using the given resource resolver
+   */
+  private void process(@NotNull String assetOrRenditionPath, @NotNull ResourceResolver resourceResolver,
+      @NotNull RenditionMetadataGenerator generator) {
     // make sure asset exists
     Asset asset = getAsset(assetOrRenditionPath, resourceResolver);
     if (asset == null) {
@@ -113,7 +192,6 @@ public final class RenditionMetadataWorkflowProcess implements WorkflowProcess {
       resourceResolver.refresh();
 
       // process asset renditions
-      RenditionMetadataGenerator generator = new RenditionMetadataGenerator(resourceResolver, assetStore);
       generator.processAllRenditions(asset);
     }
     finally {
@@ -121,6 +199,137 @@ public final class RenditionMetadataWorkflowProcess implements WorkflowProcess {
     }
   }
 
+  /**
+   * Process all asset paths in parallel with a pool of worker threads.
+   * @param assetPaths Asset paths
+   */
+  private void processBulk(@NotNull List<String> assetPaths) {
+    int workerCount = Math.min(threadPoolSize, assetPaths.size());
+    log.info("Process {} assets in bulk mode with {} threads.", assetPaths.size(), workerCount);
+
+    BulkProgress progress = new BulkProgress(assetPaths);
+    ExecutorService executorService = Executors.newFixedThreadPool(workerCount,
+        new NamedThreadFactory(getClass().getSimpleName()));
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < workerCount; i++) {
+        futures.add(executorService.submit(() -> processBulkWorker(progress)));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      log.warn("Interrupted bulk processing after {} of {} assets.", progress.getProcessedCount(), assetPaths.size());
+    }
+    catch (ExecutionException ex) {
+      log.error("Bulk processing failed: {}", ex.getMessage(), ex.getCause());
+    }
+    finally {
+      executorService.shutdownNow();
+    }
+
+    log.info("Processed {} assets in bulk mode in {} sec ({} assets/sec).",
+        progress.getProcessedCount(), progress.getElapsedSeconds(), progress.getThroughput());
+  }
+
+  /**
+   * Worker thread in bulk mode: Takes asset paths from the shared progress until all are processed.
+   * The locks of all assets in the current batch are held until the batch is committed or reverted, so
+   * the metadata changes are still serialized per asset with the rendition metadata listener service.
+   * @param progress Bulk progress
+   */
+  private void processBulkWorker(@NotNull BulkProgress progress) {
+    try (ResourceResolver serviceResourceResolver = resourceResolverFactory
+        .getServiceResourceResolver(Map.of(ResourceResolverFactory.SUBSERVICE, SERVICEUSER_SUBSERVICE))) {
+      RenditionMetadataGenerator generator = new RenditionMetadataGenerator(serviceResourceResolver, assetStore, false);
+      LockedBatch batch = new LockedBatch();
+      try {
+        String assetPath;
+        while (!Thread.currentThread().isInterrupted() && (assetPath = progress.next()) != null) {
+          processBulkAsset(assetPath, serviceResourceResolver, generator, batch);
+          progress.processed(progressLogInterval);
+        }
+        commitBatch(batch, serviceResourceResolver, generator);
+      }
+      finally {
+        batch.unlockAll();
+      }
+    }
+    catch (LoginException ex) {
+      log.error("Missing service user mapping for 'io.wcm.handler.media:dam-rendition-metadata' - see https://wcm.io/handler/media/configuration.html", ex);
+    }
+  }
+
+  /**
+   * Process a single asset path in bulk mode and add it to the current batch.
+   * @param assetOrRenditionPath Path to asset or a rendition of it
+   * @param resourceResolver Resource resolver
+   * @param generator Rendition metadata generator using the given resource resolver
+   * @param batch Current batch
+   */
+  private void processBulkAsset(@NotNull String assetOrRenditionPath, @NotNull ResourceResolver resourceResolver,
+      @NotNull RenditionMetadataGenerator generator, @NotNull LockedBatch batch) {
+    // make sure asset exists
+    Asset asset = getAsset(assetOrRenditionPath, resourceResolver);
+    if (asset == null) {
+      log.debug("Unable to read asset at {} with user {}", assetOrRenditionPath, resourceResolver.getUserID());
+      return;
+    }
+
+    // never wait for a lock while holding the locks of the current batch to avoid deadlocks with other threads,
+    // commit the batch first instead
+    Lock lock = assetSynchronizationService.getLock(asset.getPath());
+    if (!lock.tryLock()) {
+      commitBatch(batch, resourceResolver, generator);
+      lock.lock();
+    }
+    batch.add(assetOrRenditionPath, lock);
+
+    // refresh resource resolver to reflect changes on metadata probably made by listener service
+    resourceResolver.refresh();
+
+    // process asset renditions
+    generator.processAllRenditions(asset);
+
+    if (generator.getPendingChanges() >= commitBatchSize) {
+      commitBatch(batch, resourceResolver, generator);
+    }
+  }
+
+  /**
+   * Commit metadata changes of a batch of assets and release the locks of the batch afterwards.
+   * If the commit fails (e.g. due to a conflicting change), the batch is reverted and each asset is processed
+   * and committed again separately.
+   * @param batch Batch of assets with uncommitted changes
+   * @param resourceResolver Resource resolver
+   * @param generator Rendition metadata generator
+   */
+  private void commitBatch(@NotNull LockedBatch batch, @NotNull ResourceResolver resourceResolver,
+      @NotNull RenditionMetadataGenerator generator) {
+    try {
+      generator.commit();
+    }
+    catch (PersistenceException ex) {
+      log.debug("Commit of rendition metadata batch failed, retry per asset: {}", ex.getMessage(), ex);
+      generator.revert();
+      for (String assetPath : batch.getAssetPaths()) {
+        process(assetPath, resourceResolver, generator);
+        try {
+          generator.commit();
+        }
+        catch (PersistenceException ex2) {
+          log.error("Unable to commit rendition metadata for {}: {}", assetPath, ex2.getMessage(), ex2);
+          generator.revert();
+        }
+      }
+    }
+    finally {
+      batch.unlockAll();
+    }
+  }
+
   /**
    * Get asset instance for given asset path.
    * @param assetOrRenditionPath Path to asset or a rendition of it
@@ -136,4 +345,77 @@ public final class RenditionMetadataWorkflowProcess implements WorkflowProcess {
     }
   }
 
+  /**
+   * Asset paths of the current batch in bulk mode with the locks held for them.
+   */
+  private static final class LockedBatch {
+
+    private final List<String> assetPaths = new ArrayList<>();
+    private final List<Lock> locks = new ArrayList<>();
+
+    void add(@NotNull String assetPath, @NotNull Lock lock) {
+      assetPaths.add(assetPath);
+      locks.add(lock);
+    }
+
+    @NotNull
+    List<String> getAssetPaths() {
+      return assetPaths;
+    }
+
+    void unlockAll() {
+      for (int i = locks.size() - 1; i >= 0; i--) {
+        locks.get(i).unlock();
+      }
+      locks.clear();
+      assetPaths.clear();
+    }
+
+  }
+
+  /**
+   * Distributes asset paths to the worker threads and tracks the progress of the bulk processing.
+   */
+  private static final class BulkProgress {
+
+    private final List<String> assetPaths;
+    private final AtomicInteger nextIndex = new AtomicInteger();
+    private final AtomicInteger processedCount = new AtomicInteger();
+    private final long startTime = System.nanoTime();
+
+    BulkProgress(List<String> assetPaths) {
+      this.assetPaths = assetPaths;
+    }
+
+    @Nullable
+    String next() {
+      int index = nextIndex.getAndIncrement();
+      if (index < assetPaths.size()) {
+        return assetPaths.get(index);
+      }
+      return null;
+    }
+
+    void processed(int logInterval) {
+      int count = processedCount.incrementAndGet();
+      if (count % logInterval == 0) {
+        log.info("Processed {} of {} assets ({} assets/sec).", count, assetPaths.size(), getThroughput());
+      }
+    }
+
+    int getProcessedCount() {
+      return processedCount.get();
+    }
+
+    long getElapsedSeconds() {
+      return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startTime);
+    }
+
+    long getThroughput() {
+      long elapsedMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+      return processedCount.get() * 1000L / elapsedMillis;
+    }
+
+  }
+
 }
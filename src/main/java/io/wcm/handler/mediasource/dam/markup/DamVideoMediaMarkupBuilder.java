@@ -213,4 +213,9 @@ public class DamVideoMediaMarkupBuilder implements MediaMarkupBuilder {
     return (element instanceof Video);
   }
 
+  @Override
+  public boolean isShareable() {
+    return true;
+  }
+
 }
@@ -20,5 +20,5 @@
 /**
  * Default media markup implementations for DAM.
  */
-@org.osgi.annotation.versioning.Version("2.0.0")
+@org.osgi.annotation.versioning.Version("2.1.0")
 package io.wcm.handler.mediasource.dam.markup;
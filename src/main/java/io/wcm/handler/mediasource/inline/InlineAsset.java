@@ -26,6 +26,7 @@ import org.apache.sling.api.adapter.SlingAdaptable;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ValueMap;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import io.wcm.handler.media.Asset;
 import io.wcm.handler.media.Dimension;
@@ -36,6 +37,7 @@ import io.wcm.handler.media.Rendition;
 import io.wcm.handler.media.UriTemplate;
 import io.wcm.handler.media.UriTemplateType;
 import io.wcm.handler.media.spi.MediaHandlerConfig;
+import io.wcm.handler.mediasource.inline.impl.InlineImageDimensionCache;
 import io.wcm.wcm.commons.util.AemObjectReflectionToStringBuilder;
 
 /**
@@ -48,18 +50,21 @@ class InlineAsset extends SlingAdaptable implements Asset {
   private final Media media;
   private final MediaArgs defaultMediaArgs;
   private final MediaHandlerConfig mediaHandlerConfig;
+  private final InlineImageDimensionCache imageDimensionCache;
   private final String fileName;
 
   /**
    * @param resource Binary resource
    * @param media Media metadata
+   * @param imageDimensionCache Image dimension cache (optional)
    * @param fileName File name
    */
   InlineAsset(Resource resource, Media media, MediaHandlerConfig mediaHandlerConfig,
-      String fileName, Adaptable adaptable) {
+      @Nullable InlineImageDimensionCache imageDimensionCache, String fileName, Adaptable adaptable) {
     this.resource = resource;
     this.media = media;
     this.mediaHandlerConfig = mediaHandlerConfig;
+    this.imageDimensionCache = imageDimensionCache;
     this.defaultMediaArgs = media.getMediaRequest().getMediaArgs();
     this.fileName = fileName;
     this.adaptable = adaptable;
@@ -142,7 +147,7 @@ class InlineAsset extends SlingAdaptable implements Asset {
    */
   private Rendition getInlineRendition(MediaArgs mediaArgs) {
     return new InlineRendition(this.resource, this.media, mediaArgs, this.mediaHandlerConfig,
-        this.fileName, this.adaptable);
+        this.imageDimensionCache, this.fileName, this.adaptable);
   }
 
   @Override
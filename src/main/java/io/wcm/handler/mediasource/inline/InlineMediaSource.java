@@ -47,6 +47,7 @@ import io.wcm.handler.media.MediaRequest;
 import io.wcm.handler.media.impl.JcrBinary;
 import io.wcm.handler.media.spi.MediaHandlerConfig;
 import io.wcm.handler.media.spi.MediaSource;
+import io.wcm.handler.mediasource.inline.impl.InlineImageDimensionCache;
 import io.wcm.sling.commons.util.Escape;
 
 /**
@@ -64,6 +65,8 @@ public final class InlineMediaSource extends MediaSource {
   private MediaHandlerConfig mediaHandlerConfig;
   @OSGiService(injectionStrategy = InjectionStrategy.OPTIONAL)
   private MimeTypeService mimeTypeService;
+  @OSGiService(injectionStrategy = InjectionStrategy.OPTIONAL)
+  private InlineImageDimensionCache imageDimensionCache;
 
   /**
    * Media source ID
@@ -167,7 +170,7 @@ public final class InlineMediaSource extends MediaSource {
    * @return Inline media item instance
    */
   private Asset getInlineAsset(Resource ntResourceResource, Media media, String fileName) {
-    return new InlineAsset(ntResourceResource, media, mediaHandlerConfig, fileName, adaptable);
+    return new InlineAsset(ntResourceResource, media, mediaHandlerConfig, imageDimensionCache, fileName, adaptable);
   }
 
   /**
@@ -276,4 +279,9 @@ public final class InlineMediaSource extends MediaSource {
     return ID;
   }
 
+  @Override
+  public boolean isShareable() {
+    return true;
+  }
+
 }
@@ -39,6 +39,8 @@ import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ValueMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.day.cq.commons.jcr.JcrConstants;
 import com.day.image.Layer;
@@ -55,12 +57,14 @@ import io.wcm.handler.media.UriTemplateType;
 import io.wcm.handler.media.format.MediaFormat;
 import io.wcm.handler.media.format.Ratio;
 import io.wcm.handler.media.format.impl.MediaFormatSupport;
+import io.wcm.handler.media.impl.ImageDimensionProbe;
 import io.wcm.handler.media.impl.ImageFileServlet;
 import io.wcm.handler.media.impl.ImageFileServletSelector;
 import io.wcm.handler.media.impl.ImageTransformation;
 import io.wcm.handler.media.impl.JcrBinary;
 import io.wcm.handler.media.impl.MediaFileServletConstants;
 import io.wcm.handler.media.spi.MediaHandlerConfig;
+import io.wcm.handler.mediasource.inline.impl.InlineImageDimensionCache;
 import io.wcm.handler.mediasource.ngdm.impl.MediaArgsDimension;
 import io.wcm.handler.url.UrlHandler;
 import io.wcm.sling.commons.adapter.AdaptTo;
@@ -75,6 +79,7 @@ final class InlineRendition extends SlingAdaptable implements Rendition {
   private final Resource resource;
   private final MediaArgs mediaArgs;
   private final MediaHandlerConfig mediaHandlerConfig;
+  private final InlineImageDimensionCache imageDimensionCache;
   private final String fileName;
   private final String fileExtension;
   private final String originalFileExtension;
@@ -91,19 +96,23 @@ final class InlineRendition extends SlingAdaptable implements Rendition {
    */
   private static final Dimension SCALING_NOT_POSSIBLE_DIMENSION = new Dimension(-1, -1);
 
+  private static final Logger log = LoggerFactory.getLogger(InlineRendition.class);
+
   /**
    * @param resource Binary resource
    * @param media Media metadata
    * @param mediaHandlerConfig Media handler config
    * @param mediaArgs Media args
+   * @param imageDimensionCache Image dimension cache (optional)
    * @param fileName File name
    */
   @SuppressWarnings("java:S3776") // ignore complexity
   InlineRendition(Resource resource, Media media, MediaArgs mediaArgs, MediaHandlerConfig mediaHandlerConfig,
-      String fileName, Adaptable adaptable) {
+      @Nullable InlineImageDimensionCache imageDimensionCache, String fileName, Adaptable adaptable) {
     this.resource = resource;
     this.mediaArgs = mediaArgs;
     this.mediaHandlerConfig = mediaHandlerConfig;
+    this.imageDimensionCache = imageDimensionCache;
     this.adaptable = adaptable;
 
     this.rotation = media.getRotation();
@@ -220,10 +229,26 @@ final class InlineRendition extends SlingAdaptable implements Rendition {
    * @return Dimension
    */
   private Dimension getImageDimension() {
-    Dimension dimension = null;
+    if (imageDimensionCache != null) {
+      return imageDimensionCache.getImageDimension(this.resource, InlineRendition::detectImageDimension);
+    }
+    return detectImageDimension(this.resource);
+  }
+
+  /**
+   * Detects the dimension of the given image binary.
+   * @param resource Binary resource
+   * @return Dimension or null
+   */
+  private static @Nullable Dimension detectImageDimension(@NotNull Resource resource) {
+    // try to read dimension from image header without decoding the image
+    Dimension dimension = getImageDimensionFromHeader(resource);
+    if (dimension != null) {
+      return dimension;
+    }
 
     // if binary is image try to calculate dimensions by loading it into a layer
-    Layer layer = this.resource.adaptTo(Layer.class);
+    Layer layer = resource.adaptTo(Layer.class);
     if (layer != null) {
       dimension = new Dimension(layer.getWidth(), layer.getHeight());
     }
@@ -231,6 +256,23 @@ final class InlineRendition extends SlingAdaptable implements Rendition {
     return dimension;
   }
 
+  /**
+   * Gets the dimension of the uploaded image by parsing only the image header.
+   * @param resource Binary resource
+   * @return Dimension or null if the image format is not supported
+   */
+  private static @Nullable Dimension getImageDimensionFromHeader(@NotNull Resource resource) {
+    try (InputStream is = resource.adaptTo(InputStream.class)) {
+      if (is != null) {
+        return ImageDimensionProbe.probe(is);
+      }
+    }
+    catch (IOException ex) {
+      log.debug("Unable to read image header from {}", resource.getPath(), ex);
+    }
+    return null;
+  }
+
   /**
    * Checks if the current binary is an image and has to be scaled. In this case the destination dimension is returned.
    * @return Scaled destination or null if no scaling is required. If a destination object with both
@@ -0,0 +1,55 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.inline.impl;
+
+import java.util.function.Function;
+
+import org.apache.sling.api.resource.Resource;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import io.wcm.handler.media.Dimension;
+
+/**
+ * Caches the image dimension of inline media binaries across requests, keyed by the identity of the binary
+ * (resource path, last modified date and binary size).
+ */
+public interface InlineImageDimensionCache {
+
+  /**
+   * Get image dimension of the given inline binary resource.
+   * @param resource Resource with primary type nt:resource holding the binary data
+   * @param detector Function to detect the image dimension if it is not cached yet
+   * @return Image dimension or null if it could not be detected
+   */
+  @Nullable
+  Dimension getImageDimension(@NotNull Resource resource, @NotNull Function<Resource, Dimension> detector);
+
+  /**
+   * @return Number of lookups served from the cache
+   */
+  long getHitCount();
+
+  /**
+   * @return Number of lookups that required detecting the image dimension
+   */
+  long getMissCount();
+
+}
@@ -0,0 +1,137 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.inline.impl;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.sling.api.resource.Resource;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.osgi.service.component.annotations.Activate;
+import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.metatype.annotations.AttributeDefinition;
+import org.osgi.service.metatype.annotations.Designate;
+import org.osgi.service.metatype.annotations.ObjectClassDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.day.cq.commons.jcr.JcrConstants;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.wcm.handler.media.Dimension;
+import io.wcm.handler.media.impl.JcrBinary;
+
+/**
+ * Implements {@link InlineImageDimensionCache}.
+ */
+@Component(service = InlineImageDimensionCache.class, immediate = true)
+@Designate(ocd = InlineImageDimensionCacheImpl.Config.class)
+public class InlineImageDimensionCacheImpl implements InlineImageDimensionCache {
+
+  @ObjectClassDefinition(
+      name = "wcm.io Media Handler Inline Image Dimension Cache",
+      description = "Caches the image dimensions of binaries stored inline in the page content.")
+  @interface Config {
+
+    @AttributeDefinition(
+        name = "Enabled",
+        description = "Enable caching of inline image dimensions.")
+    boolean enabled() default true;
+
+    @AttributeDefinition(
+        name = "Max. Size",
+        description = "Max. number of binaries for which the image dimension is cached.")
+    long maxSize() default 10000;
+
+    @AttributeDefinition(
+        name = "Expiry (hours)",
+        description = "Cache entries are removed after this time without access.")
+    long expireAfterAccessHours() default 24;
+
+  }
+
+  /**
+   * Marker for binaries for which no image dimension could be detected.
+   */
+  private static final Dimension NO_DIMENSION = new Dimension(0, 0);
+
+  private boolean enabled;
+  private Cache<String, Dimension> cache;
+
+  private static final Logger log = LoggerFactory.getLogger(InlineImageDimensionCacheImpl.class);
+
+  @Activate
+  private void activate(Config config) {
+    this.enabled = config.enabled();
+    this.cache = Caffeine.newBuilder()
+      .maximumSize(config.maxSize())
+      .expireAfterAccess(config.expireAfterAccessHours(), TimeUnit.HOURS)
+      .recordStats()
+      .build();
+  }
+
+  @Deactivate
+  private void deactivate() {
+    log.debug("Inline image dimension cache statistics: {}", cache.stats());
+    cache.invalidateAll();
+  }
+
+  @Override
+  public @Nullable Dimension getImageDimension(@NotNull Resource resource, @NotNull Function<Resource, Dimension> detector) {
+    String cacheKey = enabled ? buildCacheKey(resource) : null;
+    if (cacheKey == null) {
+      // binary version cannot be identified - do not cache
+      return detector.apply(resource);
+    }
+    Dimension dimension = cache.get(cacheKey, key -> {
+      Dimension detected = detector.apply(resource);
+      return detected != null ? detected : NO_DIMENSION;
+    });
+    return dimension == NO_DIMENSION ? null : dimension;
+  }
+
+  @Override
+  public long getHitCount() {
+    return cache.stats().hitCount();
+  }
+
+  @Override
+  public long getMissCount() {
+    return cache.stats().missCount();
+  }
+
+  /**
+   * Build cache key identifying the binary version.
+   * @param resource Resource with primary type nt:resource
+   * @return Cache key or null if the binary version cannot be identified
+   */
+  static @Nullable String buildCacheKey(@NotNull Resource resource) {
+    Calendar lastModified = resource.getValueMap().get(JcrConstants.JCR_LASTMODIFIED, Calendar.class);
+    if (lastModified == null) {
+      return null;
+    }
+    return resource.getPath() + "#" + lastModified.getTimeInMillis() + "#" + JcrBinary.getBinarySize(resource);
+  }
+
+}
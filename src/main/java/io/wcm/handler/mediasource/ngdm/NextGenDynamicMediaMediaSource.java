@@ -22,6 +22,10 @@ package io.wcm.handler.mediasource.ngdm;
 import static com.day.cq.dam.api.DamConstants.ASSET_STATUS_APPROVED;
 import static com.day.cq.dam.api.DamConstants.ASSET_STATUS_PROPERTY;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Strings;
 import org.apache.sling.api.SlingHttpServletRequest;
@@ -56,6 +60,7 @@ import io.wcm.handler.mediasource.ngdm.impl.NextGenDynamicMediaConfigService;
 import io.wcm.handler.mediasource.ngdm.impl.NextGenDynamicMediaContext;
 import io.wcm.handler.mediasource.ngdm.impl.NextGenDynamicMediaReference;
 import io.wcm.handler.mediasource.ngdm.impl.metadata.NextGenDynamicMediaMetadata;
+import io.wcm.handler.mediasource.ngdm.impl.metadata.NextGenDynamicMediaMetadataResult;
 import io.wcm.handler.mediasource.ngdm.impl.metadata.NextGenDynamicMediaMetadataService;
 import io.wcm.sling.models.annotations.AemObject;
 
@@ -137,8 +142,13 @@ public final class NextGenDynamicMediaMediaSource extends MediaSource {
     // If enabled: Fetch asset metadata to validate existence and get original dimensions
     NextGenDynamicMediaMetadata metadata = null;
     if (metadataService != null && metadataService.isEnabled()) {
-      metadata = metadataService.fetchMetadata(reference);
-      if (metadata == null) {
+      NextGenDynamicMediaMetadataResult metadataResult = metadataService.fetchMetadataResult(reference);
+      metadata = metadataResult.getMetadata();
+      if (metadataResult.isShortCircuited()) {
+        // metadata API is unavailable - resolve without metadata instead of rejecting the asset
+        log.debug("Resolve {} without metadata, metadata API is unavailable.", reference);
+      }
+      else if (metadata == null) {
         media.setMediaInvalidReason(MediaInvalidReason.MEDIA_REFERENCE_INVALID);
         return media;
       }
@@ -190,6 +200,21 @@ public final class NextGenDynamicMediaMediaSource extends MediaSource {
     return null;
   }
 
+  @Override
+  public void prefetch(@NotNull Collection<MediaRequest> mediaRequests) {
+    if (metadataService == null || !metadataService.isEnabled()) {
+      return;
+    }
+    List<NextGenDynamicMediaReference> references = new ArrayList<>();
+    for (MediaRequest mediaRequest : mediaRequests) {
+      NextGenDynamicMediaReference reference = toNextGenDynamicMediaReference(getMediaRef(mediaRequest, mediaHandlerConfig));
+      if (reference != null) {
+        references.add(reference);
+      }
+    }
+    metadataService.prefetchMetadata(references);
+  }
+
   @Override
   public void enableMediaDrop(@NotNull HtmlElement element, @NotNull MediaRequest mediaRequest) {
     if (wcmMode == WCMMode.DISABLED || wcmMode == null) {
@@ -0,0 +1,236 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.ngdm.impl.metadata;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Count-based circuit breaker for calls to a remote API.
+ * <p>
+ * The outcome of the last calls is recorded in a sliding window. If the rate of failed calls or of slow calls
+ * reaches the configured threshold, the circuit opens and calls are rejected without calling the remote API.
+ * After the open duration, a limited number of probe calls is permitted (half-open). Depending on their outcome,
+ * the circuit closes again or stays open for another period.
+ * </p>
+ */
+final class CircuitBreaker {
+
+  /**
+   * Circuit breaker state.
+   */
+  enum State {
+    /**
+     * Calls are permitted.
+     */
+    CLOSED,
+    /**
+     * Calls are rejected.
+     */
+    OPEN,
+    /**
+     * A limited number of probe calls is permitted.
+     */
+    HALF_OPEN
+  }
+
+  private final String name;
+  private final int minCalls;
+  private final int failureRateThreshold;
+  private final long slowCallDurationNanos;
+  private final int slowCallRateThreshold;
+  private final long openDurationNanos;
+  private final int halfOpenCalls;
+  private final LongSupplier nanoClock;
+
+  // sliding window of call outcomes
+  private final boolean[] failedCalls;
+  private final boolean[] slowCalls;
+  private int windowIndex;
+  private int windowCount;
+  private int failedCount;
+  private int slowCount;
+
+  private State state = State.CLOSED;
+  private long openedAt;
+  private int halfOpenPermitted;
+  private int halfOpenCompleted;
+
+  // metrics
+  private final Map<State, Long> transitionCounts = new EnumMap<>(State.class);
+  private long shortCircuitCount;
+
+  private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+  /**
+   * @param name Name used for logging
+   * @param windowSize Number of calls in the sliding window
+   * @param minCalls Min. number of calls in the sliding window before failure and slow call rates are evaluated
+   * @param failureRateThreshold Failure rate in percent that opens the circuit
+   * @param slowCallDurationMillis Calls taking longer are considered slow
+   * @param slowCallRateThreshold Slow call rate in percent that opens the circuit
+   * @param openDurationMillis Time the circuit stays open before probe calls are permitted
+   * @param halfOpenCalls Number of probe calls permitted in half-open state
+   * @param nanoClock Clock returning nano seconds
+   */
+  @SuppressWarnings("java:S107") // number of parameters
+  CircuitBreaker(@NotNull String name, int windowSize, int minCalls, int failureRateThreshold,
+      long slowCallDurationMillis, int slowCallRateThreshold, long openDurationMillis, int halfOpenCalls,
+      @NotNull LongSupplier nanoClock) {
+    this.name = name;
+    int size = Math.max(1, windowSize);
+    this.failedCalls = new boolean[size];
+    this.slowCalls = new boolean[size];
+    this.minCalls = Math.max(1, Math.min(size, minCalls));
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallDurationNanos = TimeUnit.MILLISECONDS.toNanos(slowCallDurationMillis);
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+    this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * Checks if a call is permitted. Each permitted call has to report its outcome via
+   * {@link #onResult(boolean, long)}.
+   * @return true if the call is permitted, false if it is short-circuited
+   */
+  synchronized boolean tryAcquirePermission() {
+    if (state == State.OPEN && nanoClock.getAsLong() - openedAt >= openDurationNanos) {
+      transitionTo(State.HALF_OPEN);
+    }
+    if (state == State.CLOSED) {
+      return true;
+    }
+    if (state == State.HALF_OPEN && halfOpenPermitted < halfOpenCalls) {
+      halfOpenPermitted++;
+      return true;
+    }
+    shortCircuitCount++;
+    return false;
+  }
+
+  /**
+   * Records the outcome of a permitted call.
+   * @param success true if the call succeeded
+   * @param durationNanos Call duration in nano seconds
+   */
+  synchronized void onResult(boolean success, long durationNanos) {
+    boolean slow = durationNanos > slowCallDurationNanos;
+    if (state == State.HALF_OPEN) {
+      record(!success, slow);
+      halfOpenCompleted++;
+      if (halfOpenCompleted >= halfOpenCalls) {
+        transitionTo(isThresholdReached(halfOpenCompleted) ? State.OPEN : State.CLOSED);
+      }
+    }
+    else if (state == State.CLOSED) {
+      record(!success, slow);
+      if (windowCount >= minCalls && isThresholdReached(windowCount)) {
+        transitionTo(State.OPEN);
+      }
+    }
+    // ignore outcome of calls permitted before the circuit opened
+  }
+
+  private void record(boolean failed, boolean slow) {
+    if (windowCount == failedCalls.length) {
+      // remove oldest outcome from window
+      if (failedCalls[windowIndex]) {
+        failedCount--;
+      }
+      if (slowCalls[windowIndex]) {
+        slowCount--;
+      }
+    }
+    else {
+      windowCount++;
+    }
+    failedCalls[windowIndex] = failed;
+    slowCalls[windowIndex] = slow;
+    if (failed) {
+      failedCount++;
+    }
+    if (slow) {
+      slowCount++;
+    }
+    windowIndex = (windowIndex + 1) % failedCalls.length;
+  }
+
+  private boolean isThresholdReached(int calls) {
+    return failedCount * 100 >= failureRateThreshold * calls
+        || slowCount * 100 >= slowCallRateThreshold * calls;
+  }
+
+  private void transitionTo(@NotNull State newState) {
+    if (newState == State.OPEN) {
+      log.warn("Circuit breaker for {} opened: {} of {} calls failed, {} slow. Calls are rejected for {} ms.",
+          name, failedCount, windowCount, slowCount, TimeUnit.NANOSECONDS.toMillis(openDurationNanos));
+      openedAt = nanoClock.getAsLong();
+    }
+    else if (newState == State.CLOSED) {
+      log.info("Circuit breaker for {} closed.", name);
+    }
+    else {
+      log.debug("Circuit breaker for {} half-open, permit {} probe calls.", name, halfOpenCalls);
+    }
+    state = newState;
+    transitionCounts.merge(newState, 1L, Long::sum);
+    resetWindow();
+  }
+
+  private void resetWindow() {
+    windowIndex = 0;
+    windowCount = 0;
+    failedCount = 0;
+    slowCount = 0;
+    halfOpenPermitted = 0;
+    halfOpenCompleted = 0;
+  }
+
+  /**
+   * @return Current state
+   */
+  synchronized @NotNull State getState() {
+    return state;
+  }
+
+  /**
+   * @param targetState Target state
+   * @return Number of transitions to the given state
+   */
+  synchronized long getTransitionCount(@NotNull State targetState) {
+    return transitionCounts.getOrDefault(targetState, 0L);
+  }
+
+  /**
+   * @return Number of calls rejected without calling the remote API
+   */
+  synchronized long getShortCircuitCount() {
+    return shortCircuitCount;
+  }
+
+}
@@ -23,6 +23,9 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.http.HttpStatus;
@@ -39,50 +42,57 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.json.JsonMapper;
-import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.CacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
 
 /**
  * Manages IMS access tokens with expiration handling.
+ * <p>
+ * Tokens are refreshed in the background after the configured percentage of their lifetime has passed, while the
+ * current token is still served. If refreshing fails, it is retried with exponential backoff until the current
+ * token expires.
+ * </p>
  */
 class ImsAccessTokenCache {
 
   private static final long EXPERIATION_BUFFER_SEC = 5;
-
-  // cache IMS access tokens until they expire
-  private final Cache<String, AccessTokenResponse> tokenCache = Caffeine.newBuilder()
-    .expireAfter(new Expiry<String, AccessTokenResponse>() {
-
-      @Override
-      public long expireAfterCreate(String key, AccessTokenResponse value, long currentTime) {
-        // substract a few secs from expiration time to be on the safe side
-        return TimeUnit.SECONDS.toNanos(value.expiresInSec - EXPERIATION_BUFFER_SEC);
-      }
-
-      @Override
-      public long expireAfterUpdate(String key, AccessTokenResponse value, long currentTime, long currentDuration) {
-        // not used
-        return Long.MAX_VALUE;
-      }
-
-      @Override
-      public long expireAfterRead(String key, AccessTokenResponse value, long currentTime, long currentDuration) {
-        // not used
-        return Long.MAX_VALUE;
-      }
-    })
-    .build();
+  private static final long MAX_RETRY_DELAY_SEC = 300;
 
   private static final JsonMapper OBJECT_MAPPER = new JsonMapper();
   private static final Logger log = LoggerFactory.getLogger(ImsAccessTokenCache.class);
 
   private final CloseableHttpClient httpClient;
   private final String imsTokenApiUrl;
+  private final int refreshPercent;
+  private final long retryDelayNanos;
+  private final Ticker ticker;
+
+  // cache IMS access tokens until they expire
+  private final LoadingCache<TokenKey, Token> tokenCache;
 
-  ImsAccessTokenCache(@NotNull CloseableHttpClient httpClient, @NotNull String imsTokenApiUrl) {
+  /**
+   * @param httpClient HTTP client
+   * @param imsTokenApiUrl IMS token API URL
+   * @param refreshPercent Percentage of the token lifetime after which the token is refreshed in the background
+   * @param retryDelaySeconds Initial delay for retrying a failed background refresh, doubled after each failure
+   * @param ticker Ticker
+   * @param executor Executor for background refreshes
+   */
+  ImsAccessTokenCache(@NotNull CloseableHttpClient httpClient, @NotNull String imsTokenApiUrl,
+      int refreshPercent, long retryDelaySeconds, @NotNull Ticker ticker, @NotNull Executor executor) {
     this.httpClient = httpClient;
     this.imsTokenApiUrl = imsTokenApiUrl;
+    this.refreshPercent = Math.max(1, Math.min(100, refreshPercent));
+    this.retryDelayNanos = TimeUnit.SECONDS.toNanos(Math.max(1, retryDelaySeconds));
+    this.ticker = ticker;
+    this.tokenCache = Caffeine.newBuilder()
+      .expireAfter(new TokenExpiry())
+      .ticker(ticker)
+      .executor(executor)
+      .build(new TokenLoader());
   }
 
   /**
@@ -93,12 +103,40 @@ class ImsAccessTokenCache {
    * @return Access token or null if access token could not be obtained
    */
   public @Nullable String getAccessToken(@NotNull String clientId, @NotNull String clientSecret, @NotNull String scope) {
-    String key = clientId + "::" + scope;
-    AccessTokenResponse accessTokenResponse = tokenCache.get(key, k -> createAccessToken(clientId, clientSecret, scope));
-    if (accessTokenResponse != null) {
-      return accessTokenResponse.accessToken;
+    TokenKey key = new TokenKey(clientId, clientSecret, scope);
+    Token token = tokenCache.get(key);
+    if (token == null) {
+      return null;
+    }
+    if (ticker.read() - token.refreshAt >= 0) {
+      // serve current token and refresh it in the background - concurrent refreshes for the same key are merged
+      try {
+        tokenCache.refresh(key);
+      }
+      catch (RejectedExecutionException ex) {
+        // refresh queue is full - refresh is retried on next access
+      }
     }
-    return null;
+    return token.accessToken;
+  }
+
+  private @Nullable Token createToken(@NotNull TokenKey key) {
+    AccessTokenResponse accessTokenResponse = createAccessToken(key.clientId, key.clientSecret, key.scope);
+    if (accessTokenResponse == null || accessTokenResponse.accessToken == null) {
+      return null;
+    }
+    long now = ticker.read();
+    // substract a few secs from expiration time to be on the safe side
+    long lifetime = Math.max(0, TimeUnit.SECONDS.toNanos(accessTokenResponse.expiresInSec - EXPERIATION_BUFFER_SEC));
+    return new Token(accessTokenResponse.accessToken, now + lifetime, now + lifetime / 100 * refreshPercent, 0);
+  }
+
+  private @NotNull Token retryLater(@NotNull Token token) {
+    int failedRefreshes = token.failedRefreshes + 1;
+    long delay = Math.min(retryDelayNanos << Math.min(failedRefreshes - 1, 30), TimeUnit.SECONDS.toNanos(MAX_RETRY_DELAY_SEC));
+    log.debug("Refreshing IMS access token from {} failed {} time(s), retry in {} sec.",
+        imsTokenApiUrl, failedRefreshes, TimeUnit.NANOSECONDS.toSeconds(delay));
+    return new Token(token.accessToken, token.expiresAt, ticker.read() + delay, failedRefreshes);
   }
 
   private @Nullable AccessTokenResponse createAccessToken(@NotNull String clientId, @NotNull String clientSecret, @NotNull String scope) {
@@ -135,4 +173,88 @@ class ImsAccessTokenCache {
     }
   }
 
+  private static final class TokenKey {
+
+    private final String clientId;
+    private final String clientSecret;
+    private final String scope;
+
+    TokenKey(@NotNull String clientId, @NotNull String clientSecret, @NotNull String scope) {
+      this.clientId = clientId;
+      this.clientSecret = clientSecret;
+      this.scope = scope;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(clientId, clientSecret, scope);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof TokenKey)) {
+        return false;
+      }
+      TokenKey other = (TokenKey)obj;
+      return clientId.equals(other.clientId)
+          && clientSecret.equals(other.clientSecret)
+          && scope.equals(other.scope);
+    }
+
+  }
+
+  private static final class Token {
+
+    private final String accessToken;
+    private final long expiresAt;
+    private final long refreshAt;
+    private final int failedRefreshes;
+
+    Token(@NotNull String accessToken, long expiresAt, long refreshAt, int failedRefreshes) {
+      this.accessToken = accessToken;
+      this.expiresAt = expiresAt;
+      this.refreshAt = refreshAt;
+      this.failedRefreshes = failedRefreshes;
+    }
+
+  }
+
+  private final class TokenLoader implements CacheLoader<TokenKey, Token> {
+
+    @Override
+    public @Nullable Token load(@NotNull TokenKey key) {
+      return createToken(key);
+    }
+
+    @Override
+    public @NotNull Token reload(@NotNull TokenKey key, @NotNull Token oldValue) {
+      Token token = createToken(key);
+      if (token == null) {
+        // keep serving the current token until it expires
+        return retryLater(oldValue);
+      }
+      return token;
+    }
+
+  }
+
+  private static final class TokenExpiry implements Expiry<TokenKey, Token> {
+
+    @Override
+    public long expireAfterCreate(TokenKey key, Token value, long currentTime) {
+      return Math.max(0, value.expiresAt - currentTime);
+    }
+
+    @Override
+    public long expireAfterUpdate(TokenKey key, Token value, long currentTime, long currentDuration) {
+      return Math.max(0, value.expiresAt - currentTime);
+    }
+
+    @Override
+    public long expireAfterRead(TokenKey key, Token value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+
+  }
+
 }
@@ -19,28 +19,25 @@
  */
 package io.wcm.handler.mediasource.ngdm.impl.metadata;
 
-import static com.day.cq.dam.api.DamConstants.TIFF_IMAGELENGTH;
-import static com.day.cq.dam.api.DamConstants.TIFF_IMAGEWIDTH;
-
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.TreeMap;
-import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.ToStringBuilder;
 import org.apache.sling.api.resource.ValueMap;
-import org.apache.sling.api.wrappers.ValueMapDecorator;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 
 import io.wcm.handler.media.Dimension;
-import io.wcm.handler.mediasource.ngdm.impl.metadata.MetadataResponse.RepositoryMetadata;
 import io.wcm.wcm.commons.contenttype.ContentType;
 import io.wcm.wcm.commons.util.ToStringStyle;
 
@@ -146,61 +143,45 @@ public final class NextGenDynamicMediaMetadata {
    * @return Metadata object
    * @throws JsonProcessingException If JSON parsing fails
    */
-  @SuppressWarnings("null")
   public static @NotNull NextGenDynamicMediaMetadata fromJson(@NotNull String jsonResponse) throws JsonProcessingException {
-    MetadataResponse response = OBJECT_MAPPER.readValue(jsonResponse, MetadataResponse.class);
-    RepositoryMetadata respositoryMetadata = response.repositoryMetadata;
-    Map<String, Object> assetMetadata = response.assetMetadata;
-    ValueMap properties = null;
-
-    long width = 0;
-    long height = 0;
-    String assetStatus = null;
-    if (assetMetadata != null) {
-      properties = new ValueMapDecorator(assetMetadata);
-      width = properties.get(TIFF_IMAGEWIDTH, 0L);
-      height = properties.get(TIFF_IMAGELENGTH, 0L);
-      // fallback to video-specific dimension properties
-      if (width == 0) {
-        width = properties.get("xmpDM:videoFrameSize_stDim:w", 0L);
-      }
-      if (height == 0) {
-        height = properties.get("xmpDM:videoFrameSize_stDim:h", 0L);
-      }
-      assetStatus = properties.get("dam:assetStatus", String.class);
-    }
-    Dimension dimension = toDimension(width, height);
-
-    String mimeType = null;
-    Long fileSize = null;
-    List<SmartCrop> smartCrops = null;
-    if (respositoryMetadata != null) {
-      mimeType = respositoryMetadata.dcFormat;
-      fileSize = respositoryMetadata.repoSize;
-      if (respositoryMetadata.smartCrops != null && dimension != null) {
-        smartCrops = respositoryMetadata.smartCrops.entrySet().stream()
-          .filter(entry -> isSmartCropDefinitionValid(entry.getKey(), entry.getValue()))
-          .map(entry -> new SmartCrop(entry.getKey(), entry.getValue(), dimension))
-          .collect(Collectors.toList());
-      }
-    }
-
-    return new NextGenDynamicMediaMetadata(mimeType, fileSize, dimension, assetStatus, properties, smartCrops);
+    return fromJson(jsonResponse, null);
   }
 
-  private static @Nullable Dimension toDimension(long width, long height) {
-    if (width > 0 && height > 0) {
-      return new Dimension(width, height);
+  /**
+   * Converts JSON response from NGDM API to metadata object.
+   * @param jsonResponse JSON response
+   * @param propertyNames Names of asset metadata properties to keep. If null, all properties are kept.
+   * @return Metadata object
+   * @throws JsonProcessingException If JSON parsing fails
+   */
+  public static @NotNull NextGenDynamicMediaMetadata fromJson(@NotNull String jsonResponse,
+      @Nullable Set<String> propertyNames) throws JsonProcessingException {
+    try (JsonParser parser = OBJECT_MAPPER.createParser(jsonResponse)) {
+      return new NextGenDynamicMediaMetadataParser(propertyNames).parse(parser);
+    }
+    catch (JsonProcessingException ex) {
+      throw ex;
+    }
+    catch (IOException ex) {
+      // not expected when reading from a string
+      throw new UncheckedIOException(ex);
     }
-    return null;
   }
 
-  private static boolean isSmartCropDefinitionValid(@NotNull String name, @NotNull MetadataResponse.SmartCrop smartCop) {
-    return StringUtils.isNotBlank(name)
-        && smartCop.normalizedWidth > 0
-        && smartCop.normalizedHeight > 0
-        && smartCop.left >= 0
-        && smartCop.top >= 0;
+  /**
+   * Converts JSON response from NGDM API to metadata object, reading it directly from the response stream.
+   * The stream is closed after parsing.
+   * @param jsonResponse JSON response stream
+   * @param propertyNames Names of asset metadata properties to keep. If null, all properties are kept.
+   * @return Metadata object
+   * @throws JsonProcessingException If JSON parsing fails
+   * @throws IOException If reading the stream fails
+   */
+  public static @NotNull NextGenDynamicMediaMetadata fromJson(@NotNull InputStream jsonResponse,
+      @Nullable Set<String> propertyNames) throws IOException {
+    try (JsonParser parser = OBJECT_MAPPER.createParser(jsonResponse)) {
+      return new NextGenDynamicMediaMetadataParser(propertyNames).parse(parser);
+    }
   }
 
 }
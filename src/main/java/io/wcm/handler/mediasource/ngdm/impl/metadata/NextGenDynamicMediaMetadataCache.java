@@ -0,0 +1,283 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.ngdm.impl.metadata;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+/**
+ * Caches NGDM asset metadata across requests, keyed by metadata URL.
+ * <p>
+ * Valid metadata is cached for the configured TTL. After that, it is still served for the stale-while-revalidate
+ * period while it is refreshed in the background. Missing assets and invalid metadata responses are cached
+ * with a separate (short) TTL. Transient errors (e.g. I/O errors, unexpected HTTP status codes) are not cached.
+ * </p>
+ */
+final class NextGenDynamicMediaMetadataCache {
+
+  private final long ttlNanos;
+  private final long staleWhileRevalidateNanos;
+  private final long negativeTtlNanos;
+  private final Ticker ticker;
+  private final LoadingCache<String, Entry> cache;
+
+  /**
+   * @param maxSize Max. number of cache entries
+   * @param ttlSeconds Time valid metadata is served without refreshing it
+   * @param staleWhileRevalidateSeconds Time expired metadata is still served while it is refreshed in the background
+   * @param negativeTtlSeconds Time missing or invalid metadata is cached
+   * @param loader Metadata loader
+   * @param ticker Ticker
+   * @param executor Executor for background refreshes
+   */
+  NextGenDynamicMediaMetadataCache(long maxSize, long ttlSeconds, long staleWhileRevalidateSeconds,
+      long negativeTtlSeconds, @NotNull Loader loader, @NotNull Ticker ticker, @NotNull Executor executor) {
+    this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    this.staleWhileRevalidateNanos = TimeUnit.SECONDS.toNanos(staleWhileRevalidateSeconds);
+    this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(negativeTtlSeconds);
+    this.ticker = ticker;
+    this.cache = Caffeine.newBuilder()
+      .maximumSize(maxSize)
+      .expireAfter(new EntryExpiry())
+      .ticker(ticker)
+      .executor(executor)
+      .recordStats()
+      .build(new EntryLoader(loader));
+  }
+
+  /**
+   * Get metadata from cache, or load it if not cached yet.
+   * @param metadataUrl Metadata URL
+   * @return Valid metadata or null if not available or metadata is invalid
+   * @throws CallNotPermittedException If the metadata is not cached, and the loader rejected the call
+   */
+  @Nullable
+  NextGenDynamicMediaMetadata get(@NotNull String metadataUrl) {
+    Entry entry = cache.get(metadataUrl);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.metadata != null && getAge(entry) > ttlNanos) {
+      // serve stale metadata and refresh it in the background
+      try {
+        cache.refresh(metadataUrl);
+      }
+      catch (RejectedExecutionException ex) {
+        // refresh queue is full - refresh is retried on next access
+      }
+    }
+    return entry.metadata;
+  }
+
+  /**
+   * Adds valid metadata loaded earlier (e.g. before a restart) to the cache, if the URL is not cached yet.
+   * Metadata older than TTL plus stale-while-revalidate period is ignored.
+   * @param metadataUrl Metadata URL
+   * @param metadata Valid metadata
+   * @param ageNanos Time since the metadata was loaded from the remote API
+   */
+  void restore(@NotNull String metadataUrl, @NotNull NextGenDynamicMediaMetadata metadata, long ageNanos) {
+    if (ageNanos >= ttlNanos + staleWhileRevalidateNanos) {
+      return;
+    }
+    cache.asMap().putIfAbsent(metadataUrl, new Entry(metadata, ticker.read() - Math.max(0, ageNanos)));
+  }
+
+  /**
+   * Passes all cached valid metadata to the given consumer.
+   * @param consumer Consumer
+   */
+  void forEachValid(@NotNull EntryConsumer consumer) {
+    long now = ticker.read();
+    cache.asMap().forEach((metadataUrl, entry) -> {
+      if (entry.metadata != null) {
+        consumer.accept(metadataUrl, entry.metadata, now - entry.loadedAt);
+      }
+    });
+  }
+
+  /**
+   * @return Cache statistics (hit ratio, load latency, evictions)
+   */
+  @NotNull
+  CacheStats getStats() {
+    return cache.stats();
+  }
+
+  /**
+   * @return Approximate number of cache entries
+   */
+  long getSize() {
+    return cache.estimatedSize();
+  }
+
+  private long getAge(@NotNull Entry entry) {
+    return ticker.read() - entry.loadedAt;
+  }
+
+  private long getRemainingLifetime(@NotNull Entry entry) {
+    long lifetime;
+    if (entry.metadata != null) {
+      lifetime = ttlNanos + staleWhileRevalidateNanos;
+    }
+    else {
+      lifetime = negativeTtlNanos;
+    }
+    return Math.max(0, lifetime - getAge(entry));
+  }
+
+  /**
+   * Loads metadata from the remote API.
+   */
+  @FunctionalInterface
+  interface Loader {
+
+    /**
+     * @param metadataUrl Metadata URL
+     * @return Result with valid metadata, result without metadata if the asset does not exist or the metadata is
+     *         invalid, or null if loading failed due to a transient error
+     * @throws CallNotPermittedException If the call was rejected without calling the remote API
+     */
+    @Nullable
+    Result load(@NotNull String metadataUrl);
+
+  }
+
+  /**
+   * Receives cached metadata.
+   */
+  @FunctionalInterface
+  interface EntryConsumer {
+
+    /**
+     * @param metadataUrl Metadata URL
+     * @param metadata Valid metadata
+     * @param ageNanos Time since the metadata was loaded from the remote API
+     */
+    void accept(@NotNull String metadataUrl, @NotNull NextGenDynamicMediaMetadata metadata, long ageNanos);
+
+  }
+
+  /**
+   * Result of loading metadata.
+   */
+  static final class Result {
+
+    private static final Result NOT_FOUND = new Result(null);
+
+    private final NextGenDynamicMediaMetadata metadata;
+
+    private Result(@Nullable NextGenDynamicMediaMetadata metadata) {
+      this.metadata = metadata;
+    }
+
+    static @NotNull Result found(@NotNull NextGenDynamicMediaMetadata metadata) {
+      return new Result(metadata);
+    }
+
+    static @NotNull Result notFound() {
+      return NOT_FOUND;
+    }
+
+    @Nullable
+    NextGenDynamicMediaMetadata getMetadata() {
+      return metadata;
+    }
+
+  }
+
+  private static final class Entry {
+
+    private final NextGenDynamicMediaMetadata metadata;
+    private final long loadedAt;
+
+    Entry(@Nullable NextGenDynamicMediaMetadata metadata, long loadedAt) {
+      this.metadata = metadata;
+      this.loadedAt = loadedAt;
+    }
+
+  }
+
+  private final class EntryLoader implements CacheLoader<String, Entry> {
+
+    private final Loader loader;
+
+    EntryLoader(@NotNull Loader loader) {
+      this.loader = loader;
+    }
+
+    @Override
+    public @Nullable Entry load(@NotNull String key) {
+      Result result = loader.load(key);
+      if (result == null) {
+        return null;
+      }
+      return new Entry(result.getMetadata(), ticker.read());
+    }
+
+    @Override
+    public @Nullable Entry reload(@NotNull String key, @NotNull Entry oldValue) {
+      Entry entry;
+      try {
+        entry = load(key);
+      }
+      catch (CallNotPermittedException ex) {
+        entry = null;
+      }
+      if (entry == null) {
+        // keep serving stale metadata until it expires if refreshing failed due to a transient error or was rejected
+        return oldValue;
+      }
+      return entry;
+    }
+
+  }
+
+  private final class EntryExpiry implements Expiry<String, Entry> {
+
+    @Override
+    public long expireAfterCreate(String key, Entry value, long currentTime) {
+      return getRemainingLifetime(value);
+    }
+
+    @Override
+    public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+      return getRemainingLifetime(value);
+    }
+
+    @Override
+    public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+      return currentDuration;
+    }
+
+  }
+
+}
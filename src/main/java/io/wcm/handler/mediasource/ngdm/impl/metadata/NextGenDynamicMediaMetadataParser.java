@@ -0,0 +1,276 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.ngdm.impl.metadata;
+
+import static com.day.cq.dam.api.DamConstants.TIFF_IMAGELENGTH;
+import static com.day.cq.dam.api.DamConstants.TIFF_IMAGEWIDTH;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import io.wcm.handler.media.Dimension;
+
+/**
+ * Parses the JSON response from the NGDM HTTP API with a streaming parser. Only the values used by the media handler
+ * and the requested asset metadata properties are extracted, all other values are skipped without creating objects
+ * for them.
+ */
+final class NextGenDynamicMediaMetadataParser {
+
+  static final String PN_ASSET_STATUS = "dam:assetStatus";
+  static final String PN_VIDEO_FRAME_WIDTH = "xmpDM:videoFrameSize_stDim:w";
+  static final String PN_VIDEO_FRAME_HEIGHT = "xmpDM:videoFrameSize_stDim:h";
+
+  private final Set<String> propertyNames;
+
+  // values collected while parsing
+  private String mimeType;
+  private Long fileSize;
+  private long width;
+  private long height;
+  private long videoFrameWidth;
+  private long videoFrameHeight;
+  private String assetStatus;
+  private Map<String, Object> properties;
+  private List<SmartCropDefinition> smartCropDefinitions;
+
+  /**
+   * @param propertyNames Names of asset metadata properties to keep. If null, all properties are kept.
+   */
+  NextGenDynamicMediaMetadataParser(@Nullable Set<String> propertyNames) {
+    this.propertyNames = propertyNames;
+  }
+
+  /**
+   * Parses the JSON response. The parser must have an object codec attached.
+   * @param parser JSON parser
+   * @return Metadata
+   * @throws IOException If reading or parsing the JSON response fails
+   */
+  @NotNull
+  NextGenDynamicMediaMetadata parse(@NotNull JsonParser parser) throws IOException {
+    expectStartObject(parser, parser.nextToken());
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if ("repositoryMetadata".equals(fieldName) && token == JsonToken.START_OBJECT) {
+        parseRepositoryMetadata(parser);
+      }
+      else if ("assetMetadata".equals(fieldName) && token == JsonToken.START_OBJECT) {
+        parseAssetMetadata(parser);
+      }
+      else {
+        parser.skipChildren();
+      }
+    }
+    return build();
+  }
+
+  private void parseRepositoryMetadata(@NotNull JsonParser parser) throws IOException {
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String fieldName = parser.getCurrentName();
+      JsonToken token = parser.nextToken();
+      if ("dc:format".equals(fieldName)) {
+        mimeType = token == JsonToken.VALUE_NULL ? null : parser.getValueAsString();
+      }
+      else if ("repo:size".equals(fieldName)) {
+        fileSize = token == JsonToken.VALUE_NULL ? null : parser.getValueAsLong();
+      }
+      else if ("smartcrops".equals(fieldName) && token == JsonToken.START_OBJECT) {
+        parseSmartCrops(parser);
+      }
+      else {
+        parser.skipChildren();
+      }
+    }
+  }
+
+  private void parseSmartCrops(@NotNull JsonParser parser) throws IOException {
+    smartCropDefinitions = new ArrayList<>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        parser.skipChildren();
+        continue;
+      }
+      SmartCropDefinition definition = new SmartCropDefinition(name);
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String fieldName = parser.getCurrentName();
+        parser.nextToken();
+        switch (fieldName) {
+          case "left":
+            definition.left = parser.getValueAsDouble();
+            break;
+          case "top":
+            definition.top = parser.getValueAsDouble();
+            break;
+          case "normalizedWidth":
+            definition.normalizedWidth = parser.getValueAsDouble();
+            break;
+          case "normalizedHeight":
+            definition.normalizedHeight = parser.getValueAsDouble();
+            break;
+          default:
+            parser.skipChildren();
+        }
+      }
+      smartCropDefinitions.add(definition);
+    }
+  }
+
+  private void parseAssetMetadata(@NotNull JsonParser parser) throws IOException {
+    properties = new HashMap<>();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String name = parser.getCurrentName();
+      parser.nextToken();
+      boolean keep = propertyNames == null || propertyNames.contains(name);
+      boolean used = isUsedProperty(name);
+      if (!keep && !used) {
+        parser.skipChildren();
+        continue;
+      }
+      Object value = parser.readValueAs(Object.class);
+      if (keep && value != null) {
+        properties.put(name, value);
+      }
+      if (used) {
+        applyUsedProperty(name, value);
+      }
+    }
+  }
+
+  private static boolean isUsedProperty(@NotNull String name) {
+    switch (name) {
+      case TIFF_IMAGEWIDTH:
+      case TIFF_IMAGELENGTH:
+      case PN_VIDEO_FRAME_WIDTH:
+      case PN_VIDEO_FRAME_HEIGHT:
+      case PN_ASSET_STATUS:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  private void applyUsedProperty(@NotNull String name, @Nullable Object value) {
+    switch (name) {
+      case TIFF_IMAGEWIDTH:
+        width = toLong(value);
+        break;
+      case TIFF_IMAGELENGTH:
+        height = toLong(value);
+        break;
+      case PN_VIDEO_FRAME_WIDTH:
+        videoFrameWidth = toLong(value);
+        break;
+      case PN_VIDEO_FRAME_HEIGHT:
+        videoFrameHeight = toLong(value);
+        break;
+      case PN_ASSET_STATUS:
+        assetStatus = value != null ? value.toString() : null;
+        break;
+      default:
+        // ignore
+    }
+  }
+
+  private static long toLong(@Nullable Object value) {
+    if (value instanceof Number) {
+      return ((Number)value).longValue();
+    }
+    if (value instanceof String) {
+      return NumberUtils.toLong((String)value);
+    }
+    return 0;
+  }
+
+  private @NotNull NextGenDynamicMediaMetadata build() {
+    // fallback to video-specific dimension properties
+    long dimensionWidth = width != 0 ? width : videoFrameWidth;
+    long dimensionHeight = height != 0 ? height : videoFrameHeight;
+    Dimension dimension = null;
+    if (dimensionWidth > 0 && dimensionHeight > 0) {
+      dimension = new Dimension(dimensionWidth, dimensionHeight);
+    }
+
+    ValueMap valueMap = null;
+    if (properties != null) {
+      valueMap = new ValueMapDecorator(properties.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(properties));
+    }
+
+    List<SmartCrop> smartCrops = null;
+    if (smartCropDefinitions != null && dimension != null) {
+      smartCrops = new ArrayList<>(smartCropDefinitions.size());
+      for (SmartCropDefinition definition : smartCropDefinitions) {
+        if (definition.isValid()) {
+          smartCrops.add(new SmartCrop(definition.name, definition.left, definition.top,
+              definition.normalizedWidth, definition.normalizedHeight, dimension));
+        }
+      }
+    }
+
+    return new NextGenDynamicMediaMetadata(mimeType, fileSize, dimension, assetStatus, valueMap, smartCrops);
+  }
+
+  private static void expectStartObject(@NotNull JsonParser parser, @Nullable JsonToken token) throws JsonParseException {
+    if (token != JsonToken.START_OBJECT) {
+      throw new JsonParseException(parser, "Expected JSON object, found: " + token);
+    }
+  }
+
+  private static final class SmartCropDefinition {
+
+    private final String name;
+    private double left;
+    private double top;
+    private double normalizedWidth;
+    private double normalizedHeight;
+
+    SmartCropDefinition(String name) {
+      this.name = name;
+    }
+
+    boolean isValid() {
+      return StringUtils.isNotBlank(name)
+          && normalizedWidth > 0
+          && normalizedHeight > 0
+          && left >= 0
+          && top >= 0;
+    }
+
+  }
+
+}
@@ -0,0 +1,73 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.ngdm.impl.metadata;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Result of fetching asset metadata.
+ */
+public final class NextGenDynamicMediaMetadataResult {
+
+  private static final NextGenDynamicMediaMetadataResult NOT_AVAILABLE = new NextGenDynamicMediaMetadataResult(null, false);
+  private static final NextGenDynamicMediaMetadataResult SHORT_CIRCUITED = new NextGenDynamicMediaMetadataResult(null, true);
+
+  private final NextGenDynamicMediaMetadata metadata;
+  private final boolean shortCircuited;
+
+  private NextGenDynamicMediaMetadataResult(@Nullable NextGenDynamicMediaMetadata metadata, boolean shortCircuited) {
+    this.metadata = metadata;
+    this.shortCircuited = shortCircuited;
+  }
+
+  /**
+   * @param metadata Valid asset metadata or null if not available
+   * @return Result
+   */
+  static @NotNull NextGenDynamicMediaMetadataResult of(@Nullable NextGenDynamicMediaMetadata metadata) {
+    if (metadata == null) {
+      return NOT_AVAILABLE;
+    }
+    return new NextGenDynamicMediaMetadataResult(metadata, false);
+  }
+
+  /**
+   * @return Result for a call that was rejected without calling the metadata API
+   */
+  static @NotNull NextGenDynamicMediaMetadataResult shortCircuited() {
+    return SHORT_CIRCUITED;
+  }
+
+  /**
+   * @return Valid asset metadata or null if not available
+   */
+  public @Nullable NextGenDynamicMediaMetadata getMetadata() {
+    return metadata;
+  }
+
+  /**
+   * @return true if the metadata API was not called because it is currently considered unavailable.
+   */
+  public boolean isShortCircuited() {
+    return shortCircuited;
+  }
+
+}
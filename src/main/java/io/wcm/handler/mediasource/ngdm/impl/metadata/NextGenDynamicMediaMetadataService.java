@@ -19,6 +19,8 @@
  */
 package io.wcm.handler.mediasource.ngdm.impl.metadata;
 
+import java.util.Collection;
+
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -40,6 +42,25 @@ public interface NextGenDynamicMediaMetadataService {
    * @return Asset metadata or null if not available
    */
   @Nullable
-  NextGenDynamicMediaMetadata fetchMetadata(@NotNull NextGenDynamicMediaReference reference);
+  default NextGenDynamicMediaMetadata fetchMetadata(@NotNull NextGenDynamicMediaReference reference) {
+    return fetchMetadataResult(reference).getMetadata();
+  }
+
+  /**
+   * Fetch asset metadata, and report if the metadata API was not called because it is currently
+   * considered unavailable.
+   * @param reference Asset reference
+   * @return Result
+   */
+  @NotNull
+  NextGenDynamicMediaMetadataResult fetchMetadataResult(@NotNull NextGenDynamicMediaReference reference);
+
+  /**
+   * Fetch metadata for multiple assets in parallel, and keep it in the metadata cache for subsequent calls
+   * of {@link #fetchMetadata(NextGenDynamicMediaReference)}. Returns when all metadata is fetched or the timeout
+   * is reached. Does nothing if metadata caching is disabled.
+   * @param references Asset references
+   */
+  void prefetchMetadata(@NotNull Collection<NextGenDynamicMediaReference> references);
 
 }
@@ -19,24 +19,50 @@
  */
 package io.wcm.handler.mediasource.ngdm.impl.metadata;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.Header;
+import org.apache.http.HttpEntity;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpStatus;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.apache.http.message.BasicHeader;
-import org.apache.http.util.EntityUtils;
+import org.apache.http.pool.PoolStats;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
+import org.osgi.framework.BundleContext;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
@@ -47,8 +73,14 @@ import org.osgi.service.metatype.annotations.ObjectClassDefinition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.wcm.handler.mediasource.dam.impl.metadata.concurrency.NamedThreadFactory;
 import io.wcm.handler.mediasource.ngdm.impl.NextGenDynamicMediaConfigService;
 import io.wcm.handler.mediasource.ngdm.impl.NextGenDynamicMediaReference;
+import io.wcm.handler.mediasource.ngdm.impl.metadata.NextGenDynamicMediaMetadataCache.Result;
 
 /**
  * Fetches metadata for Next Gen Dynamic Media assets via the HTTP API.
@@ -99,6 +131,37 @@ public class NextGenDynamicMediaMetadataServiceImpl implements NextGenDynamicMed
         description = "Proxy port")
     int proxyPort();
 
+    @AttributeDefinition(
+        name = "Max. Connections",
+        description = "Max. number of pooled HTTP connections in total.")
+    int maxConnectionsTotal() default 50;
+
+    @AttributeDefinition(
+        name = "Max. Connections per Route",
+        description = "Max. number of pooled HTTP connections per host.")
+    int maxConnectionsPerRoute() default 20;
+
+    @AttributeDefinition(
+        name = "Keep-Alive",
+        description = "Time in seconds idle HTTP connections are kept alive if the server does not send a Keep-Alive header.")
+    int keepAliveSeconds() default 30;
+
+    @AttributeDefinition(
+        name = "Idle Connection Eviction",
+        description = "Time in seconds after which idle HTTP connections are evicted from the pool. 0 disables the eviction of "
+            + "idle and expired connections.")
+    int idleConnectionEvictSeconds() default 60;
+
+    @AttributeDefinition(
+        name = "TCP No Delay",
+        description = "Enable TCP_NODELAY (disable Nagle's algorithm) for HTTP connections.")
+    boolean tcpNoDelay() default true;
+
+    @AttributeDefinition(
+        name = "Socket Buffer Size",
+        description = "Socket send and receive buffer size in bytes. 0 uses the system default.")
+    int socketBufferSize() default 0;
+
     @AttributeDefinition(
         name = "IMS Token API URL",
         description = "API to obtain IMS access token for obtaining full metadata.")
@@ -119,26 +182,179 @@ public class NextGenDynamicMediaMetadataServiceImpl implements NextGenDynamicMed
         description = "OAuth Scope to use for obtaining IMS access token.")
     String authenticationScope() default "openid,AdobeID,read_organizations,additional_info.projectedProductContext,read_pc.dma_aem_ams";
 
+    @AttributeDefinition(
+        name = "Metadata Properties",
+        description = "Names of asset metadata properties that are kept and exposed via the asset properties. "
+            + "'*' (default) keeps all properties. If specific names are configured, all other properties are skipped "
+            + "when parsing the metadata response to reduce the memory footprint of cached metadata.")
+    String[] metadataProperties() default {
+        "*"
+    };
+
+    @AttributeDefinition(
+        name = "IMS Token Refresh",
+        description = "Percentage of the IMS access token lifetime after which the token is refreshed in the background. "
+            + "The current token is used until the new token is available.")
+    int imsTokenRefreshPercent() default 80;
+
+    @AttributeDefinition(
+        name = "IMS Token Refresh Retry",
+        description = "Time in seconds after which a failed background refresh of the IMS access token is retried. "
+            + "The delay is doubled after each failed retry (max. 5 minutes).")
+    long imsTokenRefreshRetrySeconds() default 10;
+
+    @AttributeDefinition(
+        name = "Cache Enabled",
+        description = "Cache asset metadata across requests.")
+    boolean cacheEnabled() default true;
+
+    @AttributeDefinition(
+        name = "Cache Max. Size",
+        description = "Max. number of assets for which metadata is cached.")
+    long cacheMaxSize() default 10000;
+
+    @AttributeDefinition(
+        name = "Cache TTL",
+        description = "Time in seconds asset metadata is served from the cache without refreshing it.")
+    long cacheTtlSeconds() default 300;
+
+    @AttributeDefinition(
+        name = "Cache Stale-While-Revalidate",
+        description = "Time in seconds expired asset metadata is still served from the cache while it is refreshed in the background.")
+    long cacheStaleWhileRevalidateSeconds() default 3600;
+
+    @AttributeDefinition(
+        name = "Cache Negative TTL",
+        description = "Time in seconds missing assets and invalid metadata responses are cached.")
+    long cacheNegativeTtlSeconds() default 30;
+
+    @AttributeDefinition(
+        name = "Cache Snapshot Enabled",
+        description = "Store the cached asset metadata in a snapshot file on the local file system, and preload it after a restart. "
+            + "The cache TTLs still apply to the preloaded metadata.")
+    boolean cacheSnapshotEnabled() default false;
+
+    @AttributeDefinition(
+        name = "Cache Snapshot File",
+        description = "Path of the snapshot file in the local file system. "
+            + "If not set, a file in the bundle's persistent storage area is used.")
+    String cacheSnapshotFile();
+
+    @AttributeDefinition(
+        name = "Cache Snapshot Interval",
+        description = "Interval in seconds in which the snapshot file is written. It is always written when the service is deactivated.")
+    long cacheSnapshotIntervalSeconds() default 300;
+
+    @AttributeDefinition(
+        name = "Prefetch Thread Pool Size",
+        description = "Max. number of asset metadata requests executed in parallel when prefetching metadata for multiple assets "
+            + "(e.g. all assets of a page). Should not exceed the max. connections per route. 0 disables prefetching.")
+    int prefetchThreadPoolSize() default 16;
+
+    @AttributeDefinition(
+        name = "Latency Budget",
+        description = "Max. time in milliseconds for each call to the asset metadata API, including connecting and reading "
+            + "the response. Calls exceeding it are aborted. Also limits the time the rendering waits for prefetched metadata. "
+            + "0 disables the budget.")
+    int latencyBudgetMs() default 2000;
+
+    @AttributeDefinition(
+        name = "Circuit Breaker Enabled",
+        description = "Stop calling the asset metadata API while it fails or responds slowly. "
+            + "In the meantime, remote assets are resolved without metadata.")
+    boolean circuitBreakerEnabled() default true;
+
+    @AttributeDefinition(
+        name = "Circuit Breaker Window Size",
+        description = "Number of recent asset metadata calls used to calculate the failure and slow call rate.")
+    int circuitBreakerWindowSize() default 20;
+
+    @AttributeDefinition(
+        name = "Circuit Breaker Min. Calls",
+        description = "Min. number of recorded calls before the circuit breaker evaluates the failure and slow call rate.")
+    int circuitBreakerMinCalls() default 10;
+
+    @AttributeDefinition(
+        name = "Circuit Breaker Failure Rate",
+        description = "Percentage of failed calls that opens the circuit.")
+    int circuitBreakerFailureRateThreshold() default 50;
+
+    @AttributeDefinition(
+        name = "Circuit Breaker Slow Call Duration",
+        description = "Calls taking longer than this time in milliseconds are considered slow.")
+    long circuitBreakerSlowCallDurationMs() default 1000;
+
+    @AttributeDefinition(
+        name = "Circuit Breaker Slow Call Rate",
+        description = "Percentage of slow calls that opens the circuit.")
+    int circuitBreakerSlowCallRateThreshold() default 80;
+
+    @AttributeDefinition(
+        name = "Circuit Breaker Open Duration",
+        description = "Time in seconds the circuit stays open before probe calls are sent to the asset metadata API.")
+    long circuitBreakerOpenDurationSeconds() default 30;
+
+    @AttributeDefinition(
+        name = "Circuit Breaker Probe Calls",
+        description = "Number of probe calls that decide whether the circuit closes again.")
+    int circuitBreakerHalfOpenCalls() default 3;
+
   }
 
   @Reference
   private NextGenDynamicMediaConfigService nextGenDynamicMediaConfig;
 
   private boolean enabled;
+  private PoolingHttpClientConnectionManager connectionManager;
   private CloseableHttpClient httpClient;
+  private RequestConfig metadataRequestConfig;
+  private long latencyBudgetMs;
+  private ScheduledThreadPoolExecutor deadlineExecutor;
+  private CircuitBreaker circuitBreaker;
+  private Set<String> metadataPropertyNames;
+  private NextGenDynamicMediaMetadataCache metadataCache;
+  private ThreadPoolExecutor refreshExecutor;
+  private ExecutorService prefetchExecutor;
+  private long prefetchTimeoutMillis;
+  private Path snapshotFile;
+  private String snapshotFingerprint;
+  private ScheduledExecutorService snapshotExecutor;
+  private final Object snapshotLock = new Object();
 
   private ImsAccessTokenCache imsAccessTokenCache;
   private String authenticationClientId;
   private String authenticationClientSecret;
   private String authenticationScope;
 
+  private static final long PREFETCH_THREAD_KEEP_ALIVE_SECONDS = 60;
+  private static final int PREFETCH_QUEUE_SIZE = 1000;
+  private static final int REFRESH_THREAD_POOL_SIZE = 4;
+  private static final int REFRESH_QUEUE_SIZE = 1000;
+  private static final long REFRESH_THREAD_KEEP_ALIVE_SECONDS = 60;
+  private static final String DEFAULT_SNAPSHOT_FILE = "ngdm-metadata-cache.bin";
+  private static final long SNAPSHOT_SHUTDOWN_TIMEOUT_SECONDS = 10;
   private static final Logger log = LoggerFactory.getLogger(NextGenDynamicMediaMetadataServiceImpl.class);
 
   @Activate
-  private void activate(Config config) {
+  private void activate(BundleContext bundleContext, Config config) {
     this.enabled = config.enabled();
     if (enabled) {
-      httpClient = createHttpClient(config);
+      connectionManager = createConnectionManager(config);
+      httpClient = createHttpClient(config, connectionManager);
+      metadataRequestConfig = createMetadataRequestConfig(config);
+      if (config.latencyBudgetMs() > 0) {
+        latencyBudgetMs = config.latencyBudgetMs();
+        deadlineExecutor = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("NextGenDynamicMediaMetadataDeadline"));
+        deadlineExecutor.setRemoveOnCancelPolicy(true);
+      }
+      metadataPropertyNames = toPropertyNames(config.metadataProperties());
+      if (config.circuitBreakerEnabled()) {
+        circuitBreaker = new CircuitBreaker("NGDM asset metadata API",
+            config.circuitBreakerWindowSize(), config.circuitBreakerMinCalls(), config.circuitBreakerFailureRateThreshold(),
+            config.circuitBreakerSlowCallDurationMs(), config.circuitBreakerSlowCallRateThreshold(),
+            TimeUnit.SECONDS.toMillis(config.circuitBreakerOpenDurationSeconds()), config.circuitBreakerHalfOpenCalls(),
+            System::nanoTime);
+      }
 
       // if configured, enable IMS access token fetching
       String imsTokenApiUrl = config.imsTokenApiUrl();
@@ -154,29 +370,222 @@ public class NextGenDynamicMediaMetadataServiceImpl implements NextGenDynamicMed
       }
       if (StringUtils.isNoneBlank(imsTokenApiUrl, authenticationClientId, authenticationClientSecret, authenticationScope)) {
         log.debug("Enable IMS access token fetching for NGDM asset metadata.");
-        imsAccessTokenCache = new ImsAccessTokenCache(httpClient, config.imsTokenApiUrl());
+        imsAccessTokenCache = new ImsAccessTokenCache(httpClient, config.imsTokenApiUrl(),
+            config.imsTokenRefreshPercent(), config.imsTokenRefreshRetrySeconds(),
+            Ticker.systemTicker(), getRefreshExecutor());
       }
       else {
         log.debug("IMS access token fetching for NGDM asset metadata is disabled.");
       }
+
+      if (config.cacheEnabled()) {
+        metadataCache = new NextGenDynamicMediaMetadataCache(config.cacheMaxSize(), config.cacheTtlSeconds(),
+            config.cacheStaleWhileRevalidateSeconds(), config.cacheNegativeTtlSeconds(),
+            this::loadMetadata, Ticker.systemTicker(), getRefreshExecutor());
+
+        // prefetching requires the cache to store the results
+        if (config.prefetchThreadPoolSize() > 0) {
+          ThreadPoolExecutor executor = new ThreadPoolExecutor(config.prefetchThreadPoolSize(), config.prefetchThreadPoolSize(),
+              PREFETCH_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(PREFETCH_QUEUE_SIZE),
+              new NamedThreadFactory("NextGenDynamicMediaMetadataPrefetch"));
+          executor.allowCoreThreadTimeOut(true);
+          prefetchExecutor = executor;
+          if (latencyBudgetMs > 0) {
+            prefetchTimeoutMillis = latencyBudgetMs;
+          }
+          else {
+            prefetchTimeoutMillis = (long)config.connectionRequestTimeout() + config.connectTimeout() + config.socketTimeout();
+          }
+        }
+
+        if (config.cacheSnapshotEnabled()) {
+          activateSnapshot(bundleContext, config);
+        }
+      }
+    }
+  }
+
+  /**
+   * Executor for background refreshes of asset metadata and IMS access tokens with blocking HTTP calls,
+   * to not block threads of the shared common pool. Created on first use.
+   */
+  private @NotNull ThreadPoolExecutor getRefreshExecutor() {
+    if (refreshExecutor == null) {
+      refreshExecutor = new ThreadPoolExecutor(REFRESH_THREAD_POOL_SIZE, REFRESH_THREAD_POOL_SIZE,
+          REFRESH_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(REFRESH_QUEUE_SIZE),
+          new NamedThreadFactory("NextGenDynamicMediaMetadataRefresh"));
+      refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+    return refreshExecutor;
+  }
+
+  private void activateSnapshot(BundleContext bundleContext, Config config) {
+    if (StringUtils.isNotBlank(config.cacheSnapshotFile())) {
+      snapshotFile = Paths.get(config.cacheSnapshotFile());
+    }
+    else {
+      File dataFile = bundleContext.getDataFile(DEFAULT_SNAPSHOT_FILE);
+      if (dataFile == null) {
+        log.warn("NGDM asset metadata cache snapshot disabled: No persistent storage area available.");
+        return;
+      }
+      snapshotFile = dataFile.toPath();
+    }
+    snapshotFingerprint = buildSnapshotFingerprint();
+    readSnapshot();
+    if (config.cacheSnapshotIntervalSeconds() > 0) {
+      snapshotExecutor = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("NextGenDynamicMediaMetadataSnapshot"));
+      snapshotExecutor.scheduleWithFixedDelay(this::writeSnapshot, config.cacheSnapshotIntervalSeconds(),
+          config.cacheSnapshotIntervalSeconds(), TimeUnit.SECONDS);
+    }
+  }
+
+  /**
+   * Builds a fingerprint of the configuration the cached metadata depends on. A snapshot written with another
+   * configuration is not restored.
+   */
+  private @NotNull String buildSnapshotFingerprint() {
+    String properties;
+    if (metadataPropertyNames == null) {
+      properties = "*";
+    }
+    else {
+      properties = String.join(",", new TreeSet<>(metadataPropertyNames));
+    }
+    return "repository=" + nextGenDynamicMediaConfig.getRemoteAssetsRepositoryId()
+        + "|metadataPath=" + nextGenDynamicMediaConfig.getAssetMetadataPath()
+        + "|authenticated=" + (imsAccessTokenCache != null)
+        + "|properties=" + properties;
+  }
+
+  /**
+   * Preload asset metadata from snapshot file into the cache.
+   */
+  private void readSnapshot() {
+    try {
+      List<NextGenDynamicMediaMetadataSnapshot.Entry> entries = NextGenDynamicMediaMetadataSnapshot.read(snapshotFile,
+          snapshotFingerprint);
+      long now = System.currentTimeMillis();
+      for (NextGenDynamicMediaMetadataSnapshot.Entry entry : entries) {
+        long ageNanos = TimeUnit.MILLISECONDS.toNanos(now - entry.getLoadedAtMillis());
+        metadataCache.restore(entry.getMetadataUrl(), entry.getMetadata(), ageNanos);
+      }
+      log.debug("Preloaded NGDM asset metadata cache with {} of {} entries from {}",
+          metadataCache.getSize(), entries.size(), snapshotFile);
+    }
+    catch (IOException ex) {
+      log.warn("Unable to read NGDM asset metadata cache snapshot from {}", snapshotFile, ex);
+    }
+  }
+
+  /**
+   * Write valid asset metadata from cache to snapshot file.
+   */
+  private void writeSnapshot() {
+    NextGenDynamicMediaMetadataCache cache = this.metadataCache;
+    if (cache == null || snapshotFile == null) {
+      return;
+    }
+    List<NextGenDynamicMediaMetadataSnapshot.Entry> entries = new ArrayList<>();
+    long now = System.currentTimeMillis();
+    cache.forEachValid((metadataUrl, metadata, ageNanos) -> entries.add(
+        new NextGenDynamicMediaMetadataSnapshot.Entry(metadataUrl, now - TimeUnit.NANOSECONDS.toMillis(ageNanos), metadata)));
+    // serialize writes, all writers use the same temporary file
+    synchronized (snapshotLock) {
+      try {
+        NextGenDynamicMediaMetadataSnapshot.write(snapshotFile, snapshotFingerprint, entries);
+        log.trace("Wrote {} entries of NGDM asset metadata cache to {}", entries.size(), snapshotFile);
+      }
+      catch (IOException ex) {
+        log.warn("Unable to write NGDM asset metadata cache snapshot to {}", snapshotFile, ex);
+      }
     }
   }
 
-  private static CloseableHttpClient createHttpClient(Config config) {
+  private static PoolingHttpClientConnectionManager createConnectionManager(Config config) {
+    SocketConfig.Builder socketConfig = SocketConfig.custom()
+      .setTcpNoDelay(config.tcpNoDelay())
+      .setSoTimeout(config.socketTimeout());
+    if (config.socketBufferSize() > 0) {
+      socketConfig.setSndBufSize(config.socketBufferSize());
+      socketConfig.setRcvBufSize(config.socketBufferSize());
+    }
+    PoolingHttpClientConnectionManager result = new PoolingHttpClientConnectionManager();
+    result.setMaxTotal(Math.max(1, config.maxConnectionsTotal()));
+    result.setDefaultMaxPerRoute(Math.max(1, config.maxConnectionsPerRoute()));
+    result.setDefaultSocketConfig(socketConfig.build());
+    return result;
+  }
+
+  private static CloseableHttpClient createHttpClient(Config config, PoolingHttpClientConnectionManager connectionManager) {
     RequestConfig requestConfig = RequestConfig.custom()
       .setConnectTimeout(config.connectTimeout())
       .setConnectionRequestTimeout(config.connectionRequestTimeout())
       .setSocketTimeout(config.socketTimeout())
       .build();
     HttpClientBuilder builder = HttpClientBuilder.create()
+      .setConnectionManager(connectionManager)
+      .setKeepAliveStrategy(createKeepAliveStrategy(TimeUnit.SECONDS.toMillis(config.keepAliveSeconds())))
       .setDefaultRequestConfig(requestConfig)
       .setDefaultHeaders(convertHeaders(config.httpHeaders()));
+    if (config.idleConnectionEvictSeconds() > 0) {
+      builder.evictExpiredConnections();
+      builder.evictIdleConnections(config.idleConnectionEvictSeconds(), TimeUnit.SECONDS);
+    }
     if (StringUtils.isNotBlank(config.proxyHost()) && config.proxyPort() > 0) {
       builder.setProxy(new HttpHost(config.proxyHost(), config.proxyPort()));
     }
     return builder.build();
   }
 
+  /**
+   * @return Property names or null if all properties should be kept
+   */
+  private static @Nullable Set<String> toPropertyNames(@Nullable String[] metadataProperties) {
+    if (metadataProperties == null) {
+      return Collections.emptySet();
+    }
+    Set<String> result = new HashSet<>();
+    for (String propertyName : metadataProperties) {
+      if ("*".equals(propertyName)) {
+        return null;
+      }
+      if (StringUtils.isNotBlank(propertyName)) {
+        result.add(propertyName.trim());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Limit timeouts for asset metadata calls to the latency budget. The budget for the whole call is enforced by
+   * aborting the request, see {@link #scheduleDeadline(HttpGet)}.
+   */
+  private static @Nullable RequestConfig createMetadataRequestConfig(Config config) {
+    int budget = config.latencyBudgetMs();
+    if (budget <= 0) {
+      return null;
+    }
+    return RequestConfig.custom()
+      .setConnectTimeout(Math.min(config.connectTimeout(), budget))
+      .setConnectionRequestTimeout(Math.min(config.connectionRequestTimeout(), budget))
+      .setSocketTimeout(Math.min(config.socketTimeout(), budget))
+      .build();
+  }
+
+  /**
+   * Use keep-alive duration sent by the server, with fallback to the configured default.
+   */
+  private static ConnectionKeepAliveStrategy createKeepAliveStrategy(long defaultKeepAliveMillis) {
+    return (response, context) -> {
+      long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+      if (keepAlive > 0) {
+        return keepAlive;
+      }
+      return defaultKeepAliveMillis;
+    };
+  }
+
   private static Collection<Header> convertHeaders(String[] headers) {
     List<Header> result = new ArrayList<>();
     for (String header : headers) {
@@ -190,8 +599,52 @@ public class NextGenDynamicMediaMetadataServiceImpl implements NextGenDynamicMed
 
   @Deactivate
   private void deactivate() throws IOException {
+    if (snapshotExecutor != null) {
+      // let a running snapshot write complete before writing the final snapshot
+      snapshotExecutor.shutdown();
+      try {
+        if (!snapshotExecutor.awaitTermination(SNAPSHOT_SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+          log.warn("NGDM asset metadata cache snapshot writer did not terminate within {} seconds.", SNAPSHOT_SHUTDOWN_TIMEOUT_SECONDS);
+        }
+      }
+      catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      snapshotExecutor = null;
+    }
+    if (snapshotFile != null) {
+      writeSnapshot();
+      snapshotFile = null;
+    }
+    if (prefetchExecutor != null) {
+      prefetchExecutor.shutdownNow();
+      prefetchExecutor = null;
+    }
+    if (deadlineExecutor != null) {
+      deadlineExecutor.shutdownNow();
+      deadlineExecutor = null;
+    }
+    if (refreshExecutor != null) {
+      refreshExecutor.shutdownNow();
+      refreshExecutor = null;
+    }
+    if (metadataCache != null) {
+      CacheStats stats = metadataCache.getStats();
+      log.debug("NGDM asset metadata cache: {} entries, hit rate {}, {} loads, average load time {} ms, {} evictions",
+          metadataCache.getSize(), stats.hitRate(), stats.loadCount(),
+          TimeUnit.NANOSECONDS.toMillis((long)stats.averageLoadPenalty()), stats.evictionCount());
+      metadataCache = null;
+    }
+    if (circuitBreaker != null) {
+      log.debug("NGDM asset metadata circuit breaker: state {}, opened {} times, {} calls short-circuited",
+          circuitBreaker.getState(), circuitBreaker.getTransitionCount(CircuitBreaker.State.OPEN),
+          circuitBreaker.getShortCircuitCount());
+      circuitBreaker = null;
+    }
     if (httpClient != null) {
+      log.debug("NGDM HTTP connection pool: {}", connectionManager.getTotalStats());
       httpClient.close();
+      connectionManager = null;
       imsAccessTokenCache = null;
     }
   }
@@ -201,22 +654,133 @@ public class NextGenDynamicMediaMetadataServiceImpl implements NextGenDynamicMed
     return enabled;
   }
 
-  /**
-   * Fetch asset metadata.
-   * @param reference Asset reference
-   * @return Valid asset metadata or null if not available or metadata is invalid
-   */
   @Override
-  public @Nullable NextGenDynamicMediaMetadata fetchMetadata(@NotNull NextGenDynamicMediaReference reference) {
+  public @NotNull NextGenDynamicMediaMetadataResult fetchMetadataResult(@NotNull NextGenDynamicMediaReference reference) {
     if (!enabled) {
-      return null;
+      return NextGenDynamicMediaMetadataResult.of(null);
     }
     String metadataUrl = new NextGenDynamicMediaMetadataUrlBuilder(nextGenDynamicMediaConfig).build(reference);
     if (metadataUrl == null) {
+      return NextGenDynamicMediaMetadataResult.of(null);
+    }
+
+    try {
+      if (metadataCache != null) {
+        return NextGenDynamicMediaMetadataResult.of(metadataCache.get(metadataUrl));
+      }
+      Result result = loadMetadata(metadataUrl);
+      return NextGenDynamicMediaMetadataResult.of(result != null ? result.getMetadata() : null);
+    }
+    catch (CallNotPermittedException ex) {
+      return NextGenDynamicMediaMetadataResult.shortCircuited();
+    }
+  }
+
+  @Override
+  public void prefetchMetadata(@NotNull Collection<NextGenDynamicMediaReference> references) {
+    NextGenDynamicMediaMetadataCache cache = this.metadataCache;
+    ExecutorService executor = this.prefetchExecutor;
+    if (!enabled || cache == null || executor == null) {
+      return;
+    }
+    NextGenDynamicMediaMetadataUrlBuilder urlBuilder = new NextGenDynamicMediaMetadataUrlBuilder(nextGenDynamicMediaConfig);
+    Set<String> metadataUrls = new LinkedHashSet<>();
+    for (NextGenDynamicMediaReference reference : references) {
+      String metadataUrl = urlBuilder.build(reference);
+      if (metadataUrl != null) {
+        metadataUrls.add(metadataUrl);
+      }
+    }
+    if (metadataUrls.size() < 2) {
+      // nothing to parallelize - metadata is fetched when the asset is resolved
+      return;
+    }
+
+    // fetch metadata in parallel into the cache, concurrent requests for the same asset are handled by the cache
+    log.trace("Prefetch NGDM asset metadata for {} assets.", metadataUrls.size());
+    List<CompletableFuture<Void>> futures = new ArrayList<>(metadataUrls.size());
+    for (String metadataUrl : metadataUrls) {
+      try {
+        futures.add(CompletableFuture.runAsync(() -> cache.get(metadataUrl), executor));
+      }
+      catch (RejectedExecutionException ex) {
+        // prefetch queue is full - discard, metadata is fetched when the asset is resolved
+        log.debug("Prefetch queue is full, skip prefetching NGDM asset metadata: {}", metadataUrl);
+      }
+    }
+    if (futures.isEmpty()) {
+      return;
+    }
+    try {
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(prefetchTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+    catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    catch (ExecutionException | TimeoutException ex) {
+      log.debug("Prefetching NGDM asset metadata did not complete: {}", ex.getMessage());
+    }
+  }
+
+  /**
+   * @return Utilization of the HTTP connection pool (leased, pending, available connections)
+   *         or null if the service is disabled
+   */
+  @Nullable
+  PoolStats getConnectionPoolStats() {
+    if (connectionManager == null) {
       return null;
     }
+    return connectionManager.getTotalStats();
+  }
+
+  /**
+   * @return Circuit breaker for asset metadata calls or null if disabled
+   */
+  @Nullable
+  CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  /**
+   * @return Asset metadata cache or null if caching is disabled
+   */
+  @Nullable
+  NextGenDynamicMediaMetadataCache getMetadataCache() {
+    return metadataCache;
+  }
 
+  /**
+   * Load asset metadata via HTTP API.
+   * @param metadataUrl Metadata URL
+   * @return Result or null if loading failed due to a transient error
+   * @throws CallNotPermittedException If the call was rejected by the circuit breaker
+   */
+  private @Nullable Result loadMetadata(@NotNull String metadataUrl) {
+    CircuitBreaker breaker = this.circuitBreaker;
+    if (breaker == null) {
+      return executeMetadataRequest(metadataUrl);
+    }
+    if (!breaker.tryAcquirePermission()) {
+      log.trace("Skip NGDM asset metadata request {}, circuit is open.", metadataUrl);
+      throw new CallNotPermittedException("Circuit breaker rejected NGDM asset metadata request: " + metadataUrl);
+    }
+    long start = System.nanoTime();
+    Result result = null;
+    try {
+      result = executeMetadataRequest(metadataUrl);
+    }
+    finally {
+      breaker.onResult(result != null, System.nanoTime() - start);
+    }
+    return result;
+  }
+
+  private @Nullable Result executeMetadataRequest(@NotNull String metadataUrl) {
     HttpGet httpGet = new HttpGet(metadataUrl);
+    if (metadataRequestConfig != null) {
+      httpGet.setConfig(metadataRequestConfig);
+    }
 
     // add IMS access if configured
     if (imsAccessTokenCache != null) {
@@ -226,34 +790,66 @@ public class NextGenDynamicMediaMetadataServiceImpl implements NextGenDynamicMed
       }
     }
 
+    // abort the call including reading the response when the latency budget is exceeded
+    ScheduledFuture<?> deadline = scheduleDeadline(httpGet);
     try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
       return processResponse(response, metadataUrl);
     }
+    catch (JsonProcessingException ex) {
+      log.warn("Invalid NGDM asset metadata from URL {}", metadataUrl, ex);
+      return Result.notFound();
+    }
     catch (IOException ex) {
-      log.warn("Unable to fetch NGDM asset metadata from URL {}", metadataUrl, ex);
+      if (httpGet.isAborted()) {
+        log.warn("NGDM asset metadata request {} aborted after exceeding latency budget of {} ms", metadataUrl, latencyBudgetMs);
+      }
+      else {
+        log.warn("Unable to fetch NGDM asset metadata from URL {}", metadataUrl, ex);
+      }
       return null;
     }
+    finally {
+      if (deadline != null) {
+        deadline.cancel(false);
+      }
+    }
   }
 
-  private @Nullable NextGenDynamicMediaMetadata processResponse(@NotNull CloseableHttpResponse response,
+  private @Nullable ScheduledFuture<?> scheduleDeadline(@NotNull HttpGet httpGet) {
+    ScheduledThreadPoolExecutor executor = this.deadlineExecutor;
+    if (executor == null) {
+      return null;
+    }
+    try {
+      return executor.schedule(httpGet::abort, latencyBudgetMs, TimeUnit.MILLISECONDS);
+    }
+    catch (RejectedExecutionException ex) {
+      // service is deactivated
+      return null;
+    }
+  }
+
+  private @Nullable Result processResponse(@NotNull CloseableHttpResponse response,
       @NotNull String metadataUrl) throws IOException {
     switch (response.getStatusLine().getStatusCode()) {
       case HttpStatus.SC_OK:
-        String jsonResponse = EntityUtils.toString(response.getEntity());
-        NextGenDynamicMediaMetadata metadata = NextGenDynamicMediaMetadata.fromJson(jsonResponse);
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+          return Result.notFound();
+        }
+        NextGenDynamicMediaMetadata metadata = NextGenDynamicMediaMetadata.fromJson(entity.getContent(), metadataPropertyNames);
         log.trace("HTTP response for NGDM asset metadata {} returns: {}", metadataUrl, metadata);
         if (metadata.isValid()) {
-          return metadata;
+          return Result.found(metadata);
         }
-        break;
+        return Result.notFound();
       case HttpStatus.SC_NOT_FOUND:
         log.trace("HTTP response for NGDM asset metadata {} returns HTTP 404", metadataUrl);
-        break;
+        return Result.notFound();
       default:
         log.warn("Unexpected HTTP response for NGDM asset metadata {}: {}", metadataUrl, response.getStatusLine());
-        break;
+        return null;
     }
-    return null;
   }
 
 }
@@ -0,0 +1,257 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.ngdm.impl.metadata;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.sling.api.resource.ValueMap;
+import org.apache.sling.api.wrappers.ValueMapDecorator;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+
+import io.wcm.handler.media.CropDimension;
+import io.wcm.handler.media.Dimension;
+
+/**
+ * Reads and writes a compact binary snapshot of cached NGDM asset metadata to the local file system,
+ * to warm up the metadata cache after a restart.
+ * <p>
+ * Each entry contains the time the metadata was loaded (epoch millis), so the cache TTLs still apply to the
+ * restored entries. The header contains a fingerprint of the configuration the snapshot was written with; snapshots
+ * of other configurations or format versions are ignored. Snapshots are written to a temporary file first and then
+ * moved, so a snapshot file is never partially written.
+ * </p>
+ */
+final class NextGenDynamicMediaMetadataSnapshot {
+
+  private static final int MAGIC = 0x4E47444D; // "NGDM"
+  private static final int VERSION = 2;
+  private static final String TEMP_FILE_EXTENSION = ".tmp";
+
+  private static final JsonMapper OBJECT_MAPPER = new JsonMapper();
+  private static final Logger log = LoggerFactory.getLogger(NextGenDynamicMediaMetadataSnapshot.class);
+  private static final TypeReference<Map<String, Object>> PROPERTIES_TYPE = new TypeReference<Map<String, Object>>() {
+    // type reference
+  };
+
+  private NextGenDynamicMediaMetadataSnapshot() {
+    // static methods only
+  }
+
+  /**
+   * Reads all entries from the snapshot file. The file is memory-mapped for reading.
+   * @param file Snapshot file
+   * @param fingerprint Fingerprint of the current configuration
+   * @return Entries, empty list if the snapshot file does not exist, or was written with another format version
+   *         or configuration
+   * @throws IOException If the snapshot file cannot be read or is corrupt
+   */
+  static @NotNull List<Entry> read(@NotNull Path file, @NotNull String fingerprint) throws IOException {
+    if (!Files.isRegularFile(file)) {
+      return Collections.emptyList();
+    }
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != MAGIC) {
+        throw new IOException("Unsupported snapshot file format: " + file);
+      }
+      if (buffer.getInt() != VERSION) {
+        log.debug("Ignore snapshot file {} written with other format version.", file);
+        return Collections.emptyList();
+      }
+      if (!fingerprint.equals(readString(buffer))) {
+        log.debug("Ignore snapshot file {} written with other configuration.", file);
+        return Collections.emptyList();
+      }
+      int count = buffer.getInt();
+      List<Entry> entries = new ArrayList<>(Math.max(0, count));
+      for (int i = 0; i < count; i++) {
+        entries.add(readEntry(buffer));
+      }
+      return entries;
+    }
+    catch (BufferUnderflowException | IllegalArgumentException ex) {
+      throw new IOException("Corrupt snapshot file: " + file, ex);
+    }
+  }
+
+  /**
+   * Writes all entries to the snapshot file, replacing an existing snapshot. Calls must not overlap for the same file.
+   * @param file Snapshot file
+   * @param fingerprint Fingerprint of the current configuration
+   * @param entries Entries
+   * @throws IOException If writing the snapshot file fails
+   */
+  static void write(@NotNull Path file, @NotNull String fingerprint, @NotNull List<Entry> entries) throws IOException {
+    Path parent = file.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+    Path tempFile = file.resolveSibling(file.getFileName() + TEMP_FILE_EXTENSION);
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      writeString(out, fingerprint);
+      out.writeInt(entries.size());
+      for (Entry entry : entries) {
+        writeEntry(out, entry);
+      }
+    }
+    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static void writeEntry(@NotNull DataOutputStream out, @NotNull Entry entry) throws IOException {
+    NextGenDynamicMediaMetadata metadata = entry.getMetadata();
+    writeString(out, entry.getMetadataUrl());
+    out.writeLong(entry.getLoadedAtMillis());
+    writeString(out, metadata.isValid() ? metadata.getMimeType() : null);
+    Long fileSize = metadata.getFileSize();
+    out.writeLong(fileSize != null ? fileSize : -1);
+    Dimension dimension = metadata.getDimension();
+    out.writeLong(dimension != null ? dimension.getWidth() : 0);
+    out.writeLong(dimension != null ? dimension.getHeight() : 0);
+    writeString(out, metadata.getAssetStatus());
+    ValueMap properties = metadata.getProperties();
+    writeString(out, properties.isEmpty() ? null : OBJECT_MAPPER.writeValueAsString(properties));
+    List<SmartCrop> smartCrops = metadata.getSmartCrops();
+    out.writeInt(smartCrops.size());
+    for (SmartCrop smartCrop : smartCrops) {
+      CropDimension cropDimension = smartCrop.getCropDimension();
+      writeString(out, smartCrop.getName());
+      out.writeLong(cropDimension.getLeft());
+      out.writeLong(cropDimension.getTop());
+      out.writeLong(cropDimension.getWidth());
+      out.writeLong(cropDimension.getHeight());
+    }
+  }
+
+  private static @NotNull Entry readEntry(@NotNull ByteBuffer buffer) throws IOException {
+    String metadataUrl = readString(buffer);
+    if (metadataUrl == null) {
+      throw new IOException("Snapshot entry without metadata URL.");
+    }
+    long loadedAtMillis = buffer.getLong();
+    String mimeType = readString(buffer);
+    long fileSize = buffer.getLong();
+    long width = buffer.getLong();
+    long height = buffer.getLong();
+    String assetStatus = readString(buffer);
+    String propertiesJson = readString(buffer);
+    int smartCropCount = buffer.getInt();
+    List<SmartCrop> smartCrops = new ArrayList<>(Math.max(0, smartCropCount));
+    for (int i = 0; i < smartCropCount; i++) {
+      String name = readString(buffer);
+      smartCrops.add(new SmartCrop(name, new CropDimension(buffer.getLong(), buffer.getLong(),
+          buffer.getLong(), buffer.getLong(), true)));
+    }
+
+    Dimension dimension = null;
+    if (width > 0 && height > 0) {
+      dimension = new Dimension(width, height);
+    }
+    ValueMap properties = null;
+    if (propertiesJson != null) {
+      properties = new ValueMapDecorator(Collections.unmodifiableMap(OBJECT_MAPPER.readValue(propertiesJson, PROPERTIES_TYPE)));
+    }
+    NextGenDynamicMediaMetadata metadata = new NextGenDynamicMediaMetadata(mimeType, fileSize >= 0 ? fileSize : null,
+        dimension, assetStatus, properties, smartCrops);
+    return new Entry(metadataUrl, loadedAtMillis, metadata);
+  }
+
+  private static void writeString(@NotNull DataOutputStream out, @Nullable String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static @Nullable String readString(@NotNull ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0) {
+      return null;
+    }
+    if (length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Snapshot entry.
+   */
+  static final class Entry {
+
+    private final String metadataUrl;
+    private final long loadedAtMillis;
+    private final NextGenDynamicMediaMetadata metadata;
+
+    /**
+     * @param metadataUrl Metadata URL
+     * @param loadedAtMillis Time the metadata was loaded from the remote API (epoch millis)
+     * @param metadata Metadata
+     */
+    Entry(@NotNull String metadataUrl, long loadedAtMillis, @NotNull NextGenDynamicMediaMetadata metadata) {
+      this.metadataUrl = metadataUrl;
+      this.loadedAtMillis = loadedAtMillis;
+      this.metadata = metadata;
+    }
+
+    @NotNull
+    String getMetadataUrl() {
+      return metadataUrl;
+    }
+
+    long getLoadedAtMillis() {
+      return loadedAtMillis;
+    }
+
+    @NotNull
+    NextGenDynamicMediaMetadata getMetadata() {
+      return metadata;
+    }
+
+  }
+
+}
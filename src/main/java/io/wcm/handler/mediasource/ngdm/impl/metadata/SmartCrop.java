@@ -52,9 +52,10 @@ public class SmartCrop {
     this.ratio = Ratio.get(width, height);
   }
 
-  SmartCrop(String name, MetadataResponse.SmartCrop smartCrop, Dimension originalDimension) {
-    this(name, smartCrop.left, smartCrop.top, smartCrop.normalizedWidth, smartCrop.normalizedHeight,
-        originalDimension);
+  SmartCrop(String name, CropDimension cropDimension) {
+    this.name = name;
+    this.cropDimension = cropDimension;
+    this.ratio = Ratio.get(cropDimension.getWidth(), cropDimension.getHeight());
   }
 
   public String getName() {
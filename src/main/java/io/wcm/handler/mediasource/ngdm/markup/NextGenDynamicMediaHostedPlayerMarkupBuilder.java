@@ -73,4 +73,9 @@ public class NextGenDynamicMediaHostedPlayerMarkupBuilder implements MediaMarkup
     return "iframe".equalsIgnoreCase(element.getName());
   }
 
+  @Override
+  public boolean isShareable() {
+    return true;
+  }
+
 }
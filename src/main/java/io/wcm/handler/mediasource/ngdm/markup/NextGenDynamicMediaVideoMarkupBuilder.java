@@ -84,4 +84,9 @@ public class NextGenDynamicMediaVideoMarkupBuilder implements MediaMarkupBuilder
     return element instanceof Video;
   }
 
+  @Override
+  public boolean isShareable() {
+    return true;
+  }
+
 }
@@ -20,5 +20,5 @@
 /**
  * Media source implementation for Dynamic Media with OpenAPI.
  */
-@org.osgi.annotation.versioning.Version("1.2.0")
+@org.osgi.annotation.versioning.Version("1.3.0")
 package io.wcm.handler.mediasource.ngdm;
@@ -0,0 +1,103 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.format.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Test;
+
+import io.wcm.handler.media.format.MediaFormat;
+import io.wcm.handler.media.format.MediaFormatBuilder;
+
+class MediaFormatIndexTest {
+
+  private static final MediaFormat MF_FIXED = MediaFormatBuilder.create("fixed")
+      .fixedDimension(400, 300)
+      .extensions("jpg", "PNG")
+      .build();
+  private static final MediaFormat MF_RATIO = MediaFormatBuilder.create("ratio")
+      .ratio(16, 9)
+      .minWidth(320)
+      .extensions("jpg")
+      .build();
+  private static final MediaFormat MF_MAX = MediaFormatBuilder.create("max")
+      .maxWidth(200)
+      .maxHeight(150)
+      .extensions("gif")
+      .build();
+  private static final MediaFormat MF_DOWNLOAD = MediaFormatBuilder.create("download")
+      .extensions("pdf")
+      .build();
+
+  private final MediaFormatIndex underTest = new MediaFormatIndex(new TreeSet<>(Set.of(MF_FIXED, MF_RATIO, MF_MAX, MF_DOWNLOAD)));
+
+  @Test
+  void testGetMediaFormat() {
+    assertSame(MF_FIXED, underTest.getMediaFormat("fixed"));
+    assertSame(MF_DOWNLOAD, underTest.getMediaFormat("download"));
+    assertNull(underTest.getMediaFormat("unknown"));
+  }
+
+  @Test
+  void testExtensions() {
+    assertFormats(underTest.getExtensionCandidates("JPG"), MF_FIXED, MF_RATIO);
+    assertFormats(underTest.getExtensionCandidates("png"), MF_FIXED);
+    assertFormats(underTest.getExtensionCandidates("tif"));
+
+    assertTrue(underTest.hasExtension(MF_FIXED, "png"));
+    assertFalse(underTest.hasExtension(MF_FIXED, "gif"));
+
+    assertTrue(underTest.hasImageExtension(MF_MAX));
+    assertFalse(underTest.hasImageExtension(MF_DOWNLOAD));
+  }
+
+  @Test
+  void testRatioCandidates() {
+    // all media formats without ratio are candidates as well
+    assertFormats(underTest.getRatioCandidates(16d / 9d), MF_RATIO, MF_MAX, MF_DOWNLOAD);
+    assertFormats(underTest.getRatioCandidates(1.34d), MF_FIXED, MF_MAX, MF_DOWNLOAD);
+    assertFormats(underTest.getRatioCandidates(1d), MF_MAX, MF_DOWNLOAD);
+  }
+
+  @Test
+  void testSameBiggerCandidates() {
+    assertFormats(underTest.getSameBiggerCandidates(300, 200), MF_FIXED, MF_RATIO, MF_DOWNLOAD);
+    assertFormats(underTest.getSameBiggerCandidates(500, 0), MF_RATIO, MF_DOWNLOAD);
+  }
+
+  @Test
+  void testSameSmallerCandidates() {
+    assertFormats(underTest.getSameSmallerCandidates(400, 300), MF_FIXED, MF_RATIO, MF_MAX, MF_DOWNLOAD);
+    assertFormats(underTest.getSameSmallerCandidates(300, 300), MF_MAX, MF_DOWNLOAD);
+  }
+
+  private static void assertFormats(Collection<MediaFormat> actual, MediaFormat... expected) {
+    assertEquals(new TreeSet<>(Set.of(expected)), new TreeSet<>(actual));
+  }
+
+}
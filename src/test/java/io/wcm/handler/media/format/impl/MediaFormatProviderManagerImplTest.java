@@ -20,6 +20,7 @@
 package io.wcm.handler.media.format.impl;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.when;
 
 import java.util.Collections;
@@ -98,6 +99,15 @@ class MediaFormatProviderManagerImplTest {
     assertEquals("desc-from-1", first.getDescription());
   }
 
+  @Test
+  void testMediaFormatIndex() {
+    MediaFormatIndex index = ((MediaFormatProviderManagerImpl)underTest).getMediaFormatIndex(resource);
+    assertSame(index, ((MediaFormatProviderManagerImpl)underTest).getMediaFormatIndex(resource));
+    assertSame(index.getMediaFormats(), underTest.getMediaFormats(resource));
+    assertSame(MF11, index.getMediaFormat("mf11"));
+    assertSame(MF21, index.getMediaFormat("mf21"));
+  }
+
   @Test
   void testNullResource() {
     assertEquals(Collections.emptySet(), underTest.getMediaFormats(null));
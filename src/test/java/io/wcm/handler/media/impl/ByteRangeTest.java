@@ -0,0 +1,98 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ByteRangeTest {
+
+  @Test
+  void testSingleRange() {
+    assertRanges("[0-99]", "bytes=0-99", 1000);
+    assertRanges("[500-999]", "bytes=500-", 1000);
+    assertRanges("[900-999]", "bytes=-100", 1000);
+    assertRanges("[990-999]", "bytes=990-2000", 1000);
+    assertRanges("[0-999]", "bytes=-2000", 1000);
+  }
+
+  @Test
+  void testMultipleRanges() {
+    assertRanges("[0-9, 20-29, 990-999]", "bytes=0-9, 20-29,-10", 1000);
+  }
+
+  @Test
+  void testOverlappingRanges() {
+    assertRanges("[0-999]", "bytes=0-,0-,0-", 1000);
+    assertRanges("[0-199]", "bytes=0-99,50-149,150-199", 1000);
+    assertRanges("[900-999]", "bytes=-100,900-950", 1000);
+  }
+
+  @Test
+  void testUnorderedRanges() {
+    assertRanges("[0-99, 500-599]", "bytes=500-599,0-99", 1000);
+    assertRanges("[0-9, 20-29, 990-999]", "bytes=-10,20-29,0-9", 1000);
+  }
+
+  @Test
+  void testUnsatisfiable() {
+    assertTrue(ByteRange.parse("bytes=1000-", 1000).isEmpty());
+    assertTrue(ByteRange.parse("bytes=-0", 1000).isEmpty());
+  }
+
+  @Test
+  void testInvalid() {
+    assertNull(ByteRange.parse(null, 1000));
+    assertNull(ByteRange.parse("", 1000));
+    assertNull(ByteRange.parse("items=0-10", 1000));
+    assertNull(ByteRange.parse("bytes=", 1000));
+    assertNull(ByteRange.parse("bytes=-", 1000));
+    assertNull(ByteRange.parse("bytes=10-5", 1000));
+    assertNull(ByteRange.parse("bytes=a-b", 1000));
+    assertNull(ByteRange.parse("bytes=5", 1000));
+  }
+
+  @Test
+  void testTooManyRanges() {
+    StringBuilder header = new StringBuilder("bytes=0-0");
+    for (int i = 1; i <= ByteRange.MAX_RANGES; i++) {
+      header.append(',').append(i * 2).append('-').append(i * 2);
+    }
+    assertNull(ByteRange.parse(header.toString(), 1000));
+  }
+
+  @Test
+  void testToContentRange() {
+    ByteRange range = new ByteRange(10, 19);
+    assertEquals(10, range.getLength());
+    assertEquals("bytes 10-19/1000", range.toContentRange(1000));
+  }
+
+  private static void assertRanges(String expected, String header, long contentLength) {
+    List<ByteRange> ranges = ByteRange.parse(header, contentLength);
+    assertEquals(expected, String.valueOf(ranges));
+  }
+
+}
@@ -19,7 +19,9 @@
  */
 package io.wcm.handler.media.impl;
 
+import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_RETRY_AFTER;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -27,12 +29,14 @@ import java.io.InputStream;
 
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import com.day.image.Layer;
 
+import io.wcm.handler.media.impl.ImageTransformationAdmission.Permit;
 import io.wcm.handler.media.testcontext.AppAemContext;
 import io.wcm.handler.url.suffix.SuffixBuilder;
 import io.wcm.testing.mock.aem.junit5.AemContext;
@@ -71,6 +75,32 @@ class DummyImageServletTest {
     assertResponseLayerDimension(100, 50);
   }
 
+  @Test
+  void testGet_AdmissionRejected() throws Exception {
+    ImageTransformationAdmission admission = context.registerInjectActivateService(ImageTransformationAdmissionImpl.class,
+        "enabled", true,
+        "maxMegapixels", 1,
+        "queueTimeoutMs", 0L,
+        "retryAfterSeconds", 7);
+    underTest = context.registerInjectActivateService(new DummyImageServlet());
+    context.requestPathInfo().setSuffix(new SuffixBuilder()
+      .put(DummyImageServlet.SUFFIX_WIDTH, 100)
+      .put(DummyImageServlet.SUFFIX_HEIGHT, 50)
+      .build());
+
+    // capacity is exhausted by another request
+    Permit permit = admission.acquire(1);
+    assertNotNull(permit);
+    underTest.service(context.request(), context.response());
+    assertEquals(HttpServletResponse.SC_SERVICE_UNAVAILABLE, context.response().getStatus());
+    assertEquals("7", context.response().getHeader(HEADER_RETRY_AFTER));
+
+    permit.close();
+    MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+    underTest.service(context.request(), response);
+    assertEquals(HttpServletResponse.SC_OK, response.getStatus());
+  }
+
   @Test
   void testGet_WidthHeightName() throws Exception {
     context.requestPathInfo().setSuffix(new SuffixBuilder()
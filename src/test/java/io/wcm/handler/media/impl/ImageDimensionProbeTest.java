@@ -0,0 +1,153 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import io.wcm.handler.media.Dimension;
+
+class ImageDimensionProbeTest {
+
+  @ParameterizedTest
+  @ValueSource(strings = { "gif", "jpg", "png", "svg", "tif", "webp" })
+  void testFileTypes(String fileExtension) throws IOException {
+    assertEquals(new Dimension(100, 50), probeClasspathResource("/filetype/sample." + fileExtension));
+  }
+
+  @Test
+  void testJpeg() throws IOException {
+    assertEquals(new Dimension(215, 102), probeClasspathResource("/sample_image_215x102.jpg"));
+    assertEquals(new Dimension(400, 250), probeClasspathResource("/sample_image_400x250.jpg"));
+  }
+
+  @Test
+  void testTruncatedHeader() throws IOException {
+    byte[] data;
+    try (InputStream is = getClass().getResourceAsStream("/filetype/sample.png")) {
+      data = IOUtils.toByteArray(is);
+    }
+    assertNull(ImageDimensionProbe.probe(new ByteArrayInputStream(Arrays.copyOf(data, 16))));
+  }
+
+  @Test
+  void testUnsupportedFormat() throws IOException {
+    assertNull(probeClasspathResource("/sample.txt"));
+    assertNull(ImageDimensionProbe.probe(new ByteArrayInputStream(new byte[0])));
+  }
+
+  @Test
+  void testTiff_IfdAfterImageData() throws IOException {
+    byte[] data = tiff(1000);
+    assertEquals(new Dimension(100, 50), ImageDimensionProbe.probe(new ByteArrayInputStream(data)));
+    // stream that does not support skipping
+    assertEquals(new Dimension(100, 50), ImageDimensionProbe.probe(new FilterInputStream(new ByteArrayInputStream(data)) {
+      @Override
+      public long skip(long n) {
+        return 0;
+      }
+    }));
+  }
+
+  @Test
+  void testTiff_IfdOffsetExceedsMax() throws IOException {
+    byte[] data = tiff(0);
+    long ifdOffset = ImageDimensionProbe.TIFF_MAX_IFD_OFFSET + 1;
+    data[4] = (byte)ifdOffset;
+    data[5] = (byte)(ifdOffset >> 8);
+    data[6] = (byte)(ifdOffset >> 16);
+    data[7] = (byte)(ifdOffset >> 24);
+    assertNull(ImageDimensionProbe.probe(new ByteArrayInputStream(data)));
+  }
+
+  @Test
+  void testSvg_ViewBoxOnly() throws IOException {
+    assertEquals(new Dimension(200, 100),
+        probeSvg("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 200 100\"></svg>"));
+  }
+
+  @Test
+  void testSvg_RelativeWidth() throws IOException {
+    assertEquals(new Dimension(200, 100),
+        probeSvg("<svg width=\"100%\" height=\"100%\" viewBox=\"0,0,200,100\"></svg>"));
+  }
+
+  @Test
+  void testSvg_WidthOnly() throws IOException {
+    assertEquals(new Dimension(50, 25),
+        probeSvg("<?xml version=\"1.0\"?>\n<svg stroke-width=\"2\" width=\"50px\" viewBox=\"0 0 200 100\"></svg>"));
+  }
+
+  @Test
+  void testSvg_NoDimension() throws IOException {
+    assertNull(probeSvg("<svg xmlns=\"http://www.w3.org/2000/svg\"></svg>"));
+  }
+
+  private Dimension probeClasspathResource(String path) throws IOException {
+    try (InputStream is = getClass().getResourceAsStream(path)) {
+      return ImageDimensionProbe.probe(is);
+    }
+  }
+
+  /**
+   * Builds a little endian TIFF header with an image file directory containing width 100 and height 50
+   * after the given number of padding bytes.
+   */
+  private static byte[] tiff(int padding) {
+    int ifdOffset = 8 + padding;
+    byte[] data = new byte[ifdOffset + 2 + 2 * 12];
+    data[0] = 'I';
+    data[1] = 'I';
+    data[2] = 42;
+    data[4] = (byte)ifdOffset;
+    data[5] = (byte)(ifdOffset >> 8);
+    data[ifdOffset] = 2;
+    // ImageWidth (256), type SHORT (3), count 1, value 100
+    writeTiffEntry(data, ifdOffset + 2, 256, 100);
+    // ImageLength (257), type SHORT (3), count 1, value 50
+    writeTiffEntry(data, ifdOffset + 2 + 12, 257, 50);
+    return data;
+  }
+
+  private static void writeTiffEntry(byte[] data, int offset, int tag, int value) {
+    data[offset] = (byte)tag;
+    data[offset + 1] = (byte)(tag >> 8);
+    data[offset + 2] = 3;
+    data[offset + 4] = 1;
+    data[offset + 8] = (byte)value;
+  }
+
+  private static Dimension probeSvg(String svg) throws IOException {
+    return ImageDimensionProbe.probe(new ByteArrayInputStream(svg.getBytes(StandardCharsets.UTF_8)));
+  }
+
+}
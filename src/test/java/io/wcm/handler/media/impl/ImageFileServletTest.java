@@ -20,21 +20,45 @@
 package io.wcm.handler.media.impl;
 
 import static io.wcm.handler.media.impl.ImageFileServlet.getImageFileName;
+import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_RETRY_AFTER;
 import static javax.servlet.http.HttpServletResponse.SC_NOT_FOUND;
 import static javax.servlet.http.HttpServletResponse.SC_OK;
+import static javax.servlet.http.HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Calendar;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.testing.mock.sling.servlet.MockSlingHttpServletResponse;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 
+import com.day.cq.commons.jcr.JcrConstants;
+import com.day.cq.dam.api.handler.store.AssetStore;
 import com.day.image.Layer;
 
+import io.wcm.handler.media.Dimension;
+import io.wcm.handler.media.impl.ImageTransformationAdmission.Permit;
 import io.wcm.handler.media.testcontext.AppAemContext;
+import io.wcm.sling.commons.adapter.AdaptTo;
 import io.wcm.testing.mock.aem.junit5.AemContext;
 import io.wcm.testing.mock.aem.junit5.AemContextExtension;
 import io.wcm.wcm.commons.contenttype.ContentType;
@@ -201,6 +225,30 @@ class ImageFileServletTest {
     assertResponseLayerSize(215, 102);
   }
 
+  @Test
+  void testGet_SubsampledDecoding() throws Exception {
+    context.currentResource(context.load().binaryFile("/sample_image_400x250.jpg", "/content/sample_image_large.jpg"));
+    context.requestPathInfo().setSelectorString("image_file.40.25");
+
+    underTest.service(context.request(), context.response());
+
+    assertEquals(SC_OK, context.response().getStatus());
+    assertEquals(ContentType.JPEG, context.response().getContentType());
+    assertResponseLayerSize(40, 25);
+  }
+
+  @Test
+  void testGet_SubsampledDecoding_Cropping_Rotation() throws Exception {
+    context.currentResource(context.load().binaryFile("/sample_image_400x250.jpg", "/content/sample_image_large.jpg"));
+    context.requestPathInfo().setSelectorString("image_file.20.40.100,50,300,150.90");
+
+    underTest.service(context.request(), context.response());
+
+    assertEquals(SC_OK, context.response().getStatus());
+    assertEquals(ContentType.JPEG, context.response().getContentType());
+    assertResponseLayerSize(20, 40);
+  }
+
   @Test
   void testGet_SizeTooLarge() throws Exception {
     context.requestPathInfo().setSelectorString("image_file.2150.1020");
@@ -246,6 +294,141 @@ class ImageFileServletTest {
     assertEquals("myimage.jpg", getImageFileName("myimage.png", "svg"));
   }
 
+  @Test
+  void testGet_TransformedImageCache(@TempDir Path cacheDirectory) throws Exception {
+    TransformedImageCache cache = context.registerInjectActivateService(TransformedImageCacheImpl.class,
+        "enabled", true,
+        "cacheDirectory", cacheDirectory.toString());
+    context.registerService(AssetStore.class, mock(AssetStore.class));
+    underTest = context.registerInjectActivateService(ImageFileServlet.class);
+
+    Resource resource = context.currentResource();
+    Resource contentResource = resource.getChild(JcrConstants.JCR_CONTENT);
+    AdaptTo.notNull(contentResource, ModifiableValueMap.class).put(JcrConstants.JCR_LASTMODIFIED, Calendar.getInstance());
+    context.requestPathInfo().setSelectorString("image_file.72.34");
+
+    underTest.service(context.request(), context.response());
+
+    assertEquals(SC_OK, context.response().getStatus());
+    assertResponseLayerSize(72, 34);
+    Path cachedFile = cache.get(ImageFileServlet.buildCacheKey(resource, context.request(), ContentType.JPEG));
+    assertNotNull(cachedFile);
+    assertEquals(Files.size(cachedFile), context.response().getContentLength());
+
+    // second request is served from cache
+    byte[] cachedContent = "cached".getBytes(StandardCharsets.US_ASCII);
+    Files.write(cachedFile, cachedContent);
+    MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+    underTest.service(context.request(), response);
+    assertEquals(SC_OK, response.getStatus());
+    assertArrayEquals(cachedContent, response.getOutput());
+  }
+
+  @Test
+  void testGet_CoalesceConcurrentTransformation() throws Exception {
+    Resource resource = context.currentResource();
+    AdaptTo.notNull(resource.getChild(JcrConstants.JCR_CONTENT), ModifiableValueMap.class)
+        .put(JcrConstants.JCR_LASTMODIFIED, Calendar.getInstance());
+    context.requestPathInfo().setSelectorString("image_file.72.34");
+    String key = ImageFileServlet.buildCacheKey(resource, context.request(), ContentType.JPEG);
+    ImageTransformationCoalescer coalescer = underTest.getCoalescer();
+    byte[] sharedResult = "shared".getBytes(StandardCharsets.US_ASCII);
+
+    // simulate in-flight transformation of another request
+    ImageTransformationCoalescer.Transformation transformation = coalescer.join(key);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> request = executor.submit(() -> {
+        underTest.service(context.request(), context.response());
+        return null;
+      });
+      while (transformation.getFollowerCount() == 0) {
+        Thread.sleep(5);
+      }
+      assertTrue(transformation.finishJoining());
+      transformation.complete(sharedResult);
+      request.get(10, TimeUnit.SECONDS);
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(SC_OK, context.response().getStatus());
+    assertArrayEquals(sharedResult, context.response().getOutput());
+    assertEquals(0, coalescer.getLeaderCount());
+    assertEquals(1, coalescer.getCoalescedCount());
+
+    // next request executes the transformation itself
+    underTest.service(context.request(), new MockSlingHttpServletResponse());
+    assertEquals(1, coalescer.getLeaderCount());
+  }
+
+  @Test
+  void testGet_CoalesceOnlySameTransformation() throws Exception {
+    Resource resource = context.currentResource();
+    AdaptTo.notNull(resource.getChild(JcrConstants.JCR_CONTENT), ModifiableValueMap.class)
+        .put(JcrConstants.JCR_LASTMODIFIED, Calendar.getInstance());
+    context.requestPathInfo().setSelectorString("image_file.72.34");
+    String key = ImageFileServlet.buildCacheKey(resource, context.request(), ContentType.JPEG);
+    ImageTransformationCoalescer coalescer = underTest.getCoalescer();
+
+    // in-flight transformation of another size does not block this request
+    ImageTransformationCoalescer.Transformation transformation = coalescer.join(key + "|other");
+    try {
+      underTest.service(context.request(), context.response());
+    }
+    finally {
+      transformation.complete(null);
+    }
+
+    assertEquals(SC_OK, context.response().getStatus());
+    assertEquals(1, coalescer.getLeaderCount());
+    assertEquals(0, coalescer.getCoalescedCount());
+    assertEquals(0, transformation.getFollowerCount());
+  }
+
+  @Test
+  void testGet_AdmissionRejected() throws Exception {
+    ImageTransformationAdmission admission = context.registerInjectActivateService(ImageTransformationAdmissionImpl.class,
+        "enabled", true,
+        "maxMegapixels", 1,
+        "queueTimeoutMs", 0L,
+        "retryAfterSeconds", 7);
+    context.registerService(AssetStore.class, mock(AssetStore.class));
+    underTest = context.registerInjectActivateService(ImageFileServlet.class);
+    context.requestPathInfo().setSelectorString("image_file.72.34");
+
+    // capacity is exhausted by another request
+    Permit permit = admission.acquire(1);
+    assertNotNull(permit);
+    underTest.service(context.request(), context.response());
+    assertEquals(SC_SERVICE_UNAVAILABLE, context.response().getStatus());
+    assertEquals("7", context.response().getHeader(HEADER_RETRY_AFTER));
+
+    // permit is released after the image was written
+    permit.close();
+    MockSlingHttpServletResponse response = new MockSlingHttpServletResponse();
+    underTest.service(context.request(), response);
+    assertEquals(SC_OK, response.getStatus());
+    assertNotNull(admission.acquire(1));
+  }
+
+  @Test
+  void testEstimateDecodedPixels() {
+    Dimension sourceDimension = new Dimension(215, 102);
+
+    context.requestPathInfo().setSelectorString("image_file.2000.1000");
+    ImageFileServletSelector params = new ImageFileServletSelector(context.requestPathInfo().getSelectors());
+    assertEquals(2000L * 1000, ImageFileServlet.estimateDecodedPixels(sourceDimension, params));
+
+    context.requestPathInfo().setSelectorString("image_file.20.10");
+    params = new ImageFileServletSelector(context.requestPathInfo().getSelectors());
+    assertEquals(215L * 102, ImageFileServlet.estimateDecodedPixels(sourceDimension, params));
+
+    // unknown source dimension, e.g. PSD image
+    assertEquals(ImageTransformationAdmission.UNKNOWN_PIXELS, ImageFileServlet.estimateDecodedPixels(null, params));
+  }
+
   private void assertResponseLayerSize(long width, long height) throws IOException {
     InputStream is = new ByteArrayInputStream(context.response().getOutput());
     Layer layer = new Layer(is);
@@ -0,0 +1,90 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.wcm.handler.media.impl.ImageTransformationAdmission.Permit;
+import io.wcm.handler.media.testcontext.AppAemContext;
+import io.wcm.testing.mock.aem.junit5.AemContext;
+import io.wcm.testing.mock.aem.junit5.AemContextExtension;
+
+@ExtendWith(AemContextExtension.class)
+class ImageTransformationAdmissionImplTest {
+
+  private final AemContext context = AppAemContext.newAemContext();
+
+  @Test
+  void testGetPermits() {
+    ImageTransformationAdmissionImpl underTest = context.registerInjectActivateService(ImageTransformationAdmissionImpl.class,
+        "maxMegapixels", 10);
+    assertEquals(1, underTest.getPermits(0));
+    assertEquals(1, underTest.getPermits(1_000_000));
+    assertEquals(2, underTest.getPermits(1_000_001));
+    assertEquals(10, underTest.getPermits(48_000_000));
+    assertEquals(10, underTest.getPermits(ImageTransformationAdmission.UNKNOWN_PIXELS));
+  }
+
+  @Test
+  void testAcquireRelease() {
+    ImageTransformationAdmission underTest = context.registerInjectActivateService(ImageTransformationAdmissionImpl.class,
+        "enabled", true,
+        "maxMegapixels", 10,
+        "queueTimeoutMs", 0L,
+        "retryAfterSeconds", 5);
+
+    Permit permit1 = underTest.acquire(6_000_000);
+    assertNotNull(permit1);
+    // not enough capacity left
+    assertNull(underTest.acquire(6_000_000));
+    Permit permit2 = underTest.acquire(4_000_000);
+    assertNotNull(permit2);
+
+    // releasing twice has no effect
+    permit1.close();
+    permit1.close();
+    Permit permit3 = underTest.acquire(6_000_000);
+    assertNotNull(permit3);
+    assertNull(underTest.acquire(1));
+
+    assertEquals(3, underTest.getAdmittedCount());
+    assertEquals(2, underTest.getRejectedCount());
+    assertEquals(0, underTest.getQueueLength());
+    assertEquals(5, underTest.getRetryAfterSeconds());
+  }
+
+  @Test
+  void testDisabled() {
+    // disabled by default
+    ImageTransformationAdmission underTest = context.registerInjectActivateService(ImageTransformationAdmissionImpl.class,
+        "maxMegapixels", 1,
+        "queueTimeoutMs", 0L);
+
+    assertNotNull(underTest.acquire(100_000_000));
+    assertNotNull(underTest.acquire(100_000_000));
+    assertEquals(0, underTest.getRejectedCount());
+  }
+
+}
@@ -0,0 +1,170 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import static io.wcm.handler.media.MediaNameConstants.PN_COMPONENT_MEDIA_AUTOCROP;
+import static io.wcm.handler.media.MediaNameConstants.PN_COMPONENT_MEDIA_FORMATS;
+import static org.apache.sling.api.resource.ResourceResolver.PROPERTY_RESOURCE_TYPE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.wcm.handler.media.MediaArgs;
+import io.wcm.handler.media.MediaArgs.MediaFormatOption;
+import io.wcm.handler.media.MediaArgs.PictureSource;
+import io.wcm.handler.media.testcontext.AppAemContext;
+import io.wcm.testing.mock.aem.junit5.AemContext;
+import io.wcm.testing.mock.aem.junit5.AemContextExtension;
+import io.wcm.wcm.commons.component.ComponentPropertyResolverFactory;
+
+@ExtendWith(AemContextExtension.class)
+class MediaComponentDefaultsCacheImplTest {
+
+  private static final String RESOURCE_TYPE = "/apps/app1/components/comp1";
+
+  private final AemContext context = AppAemContext.newAemContext();
+
+  private Resource resource1;
+  private Resource resource2;
+  private AtomicInteger resolveCount;
+  private Function<Resource, MediaComponentDefaults> resolver;
+
+  @BeforeEach
+  void setUp() {
+    context.create().resource(RESOURCE_TYPE,
+        PN_COMPONENT_MEDIA_FORMATS, new String[] { "home_stage", "home_teaser" },
+        PN_COMPONENT_MEDIA_AUTOCROP, true);
+    resource1 = context.create().resource("/content/r1",
+        PROPERTY_RESOURCE_TYPE, RESOURCE_TYPE);
+    resource2 = context.create().resource("/content/r2",
+        PROPERTY_RESOURCE_TYPE, RESOURCE_TYPE);
+
+    ComponentPropertyResolverFactory componentPropertyResolverFactory = context.getService(ComponentPropertyResolverFactory.class);
+    resolveCount = new AtomicInteger();
+    resolver = resource -> {
+      resolveCount.incrementAndGet();
+      return MediaComponentDefaults.resolve(resource, componentPropertyResolverFactory);
+    };
+  }
+
+  @Test
+  @SuppressWarnings("null")
+  void testCachedPerResourceType() {
+    MediaComponentDefaultsCache underTest = context.registerInjectActivateService(MediaComponentDefaultsCacheImpl.class);
+
+    MediaComponentDefaults defaults = underTest.get(resource1, resolver);
+    assertSame(defaults, underTest.get(resource2, resolver));
+    assertEquals(1, resolveCount.get());
+
+    MediaArgs mediaArgs = new MediaArgs();
+    defaults.applyTo(mediaArgs);
+    MediaFormatOption[] mediaFormatOptions = mediaArgs.getMediaFormatOptions();
+    assertEquals(2, mediaFormatOptions.length);
+    assertEquals("home_stage", mediaFormatOptions[0].getMediaFormatName());
+    assertEquals("home_teaser", mediaFormatOptions[1].getMediaFormatName());
+    assertTrue(mediaArgs.isAutoCrop());
+
+    // modifying the media args must not affect the cached defaults
+    mediaFormatOptions[0] = null;
+    MediaArgs mediaArgs2 = new MediaArgs();
+    defaults.applyTo(mediaArgs2);
+    assertNotSame(mediaFormatOptions, mediaArgs2.getMediaFormatOptions());
+    assertEquals("home_stage", mediaArgs2.getMediaFormatOptions()[0].getMediaFormatName());
+  }
+
+  @Test
+  void testInvalidateOnChange() {
+    MediaComponentDefaultsCacheImpl underTest = context.registerInjectActivateService(MediaComponentDefaultsCacheImpl.class);
+
+    underTest.get(resource1, resolver);
+    underTest.onChange(List.of(new ResourceChange(ChangeType.CHANGED, RESOURCE_TYPE, false)));
+    underTest.get(resource1, resolver);
+    assertEquals(2, resolveCount.get());
+  }
+
+  @Test
+  void testCachedPerPolicy() {
+    context.contentPolicyMapping(RESOURCE_TYPE,
+        PN_COMPONENT_MEDIA_AUTOCROP, false);
+
+    String cacheKey = MediaComponentDefaultsCacheImpl.buildCacheKey(resource1);
+    assertNotEquals(RESOURCE_TYPE + "#", cacheKey);
+
+    MediaComponentDefaultsCache underTest = context.registerInjectActivateService(MediaComponentDefaultsCacheImpl.class);
+    MediaArgs mediaArgs = new MediaArgs();
+    underTest.get(resource1, resolver).applyTo(mediaArgs);
+    assertFalse(mediaArgs.isAutoCrop());
+  }
+
+  @Test
+  @SuppressWarnings("null")
+  void testPictureSourcesCopied() {
+    PictureSource pictureSource = new PictureSource("home_stage").media("media1").widths(100, 200);
+    MediaComponentDefaults defaults = new MediaComponentDefaults(null, false, null, new PictureSource[] { pictureSource });
+
+    MediaArgs mediaArgs = new MediaArgs();
+    defaults.applyTo(mediaArgs);
+    PictureSource copy = mediaArgs.getPictureSources()[0];
+    assertNotSame(pictureSource, copy);
+    assertEquals("home_stage", copy.getMediaFormatName());
+    assertEquals("media1", copy.getMedia());
+    assertEquals(2, copy.getWidthOptions().length);
+
+    copy.media("media2");
+    assertEquals("media1", pictureSource.getMedia());
+  }
+
+  @Test
+  void testWithoutResourceType() {
+    Resource resource = context.create().resource("/content/r3");
+    assertNull(MediaComponentDefaultsCacheImpl.buildCacheKey(resource));
+
+    MediaComponentDefaultsCache underTest = context.registerInjectActivateService(MediaComponentDefaultsCacheImpl.class);
+    underTest.get(resource, resolver);
+    underTest.get(resource, resolver);
+    assertEquals(2, resolveCount.get());
+  }
+
+  @Test
+  void testDisabled() {
+    MediaComponentDefaultsCache underTest = context.registerInjectActivateService(MediaComponentDefaultsCacheImpl.class,
+        "enabled", false);
+
+    underTest.get(resource1, resolver);
+    underTest.get(resource2, resolver);
+    assertEquals(2, resolveCount.get());
+  }
+
+}
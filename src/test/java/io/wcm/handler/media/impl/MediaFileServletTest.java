@@ -19,14 +19,27 @@
  */
 package io.wcm.handler.media.impl;
 
+import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_ACCEPT_RANGES;
 import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_CONTENT_DISPOSITION;
+import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_CONTENT_RANGE;
 import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_CONTENT_SECURITY_POLICY;
+import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_IF_RANGE;
+import static io.wcm.handler.media.impl.MediaFileServletConstants.HEADER_RANGE;
 import static io.wcm.handler.media.impl.MediaFileServletConstants.SELECTOR_DOWNLOAD;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
 
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.sling.api.resource.Resource;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -141,4 +154,137 @@ class MediaFileServletTest {
     assertEquals(HttpServletResponse.SC_NOT_FOUND, context.response().getStatus());
   }
 
+  @Test
+  void testGet_LargeBinary() throws Exception {
+    byte[] data = new byte[AbstractMediaFileServlet.READ_AHEAD_SIZE * 3 + 17];
+    new Random(0).nextBytes(data);
+    context.currentResource(context.load().binaryFile(new ByteArrayInputStream(data), "/content/large.bin"));
+
+    underTest.service(context.request(), context.response());
+
+    assertEquals(HttpServletResponse.SC_OK, context.response().getStatus());
+    assertArrayEquals(data, context.response().getOutput());
+  }
+
+  @Test
+  void testGet_EmptyBinary() throws Exception {
+    context.currentResource(context.load().binaryFile(new ByteArrayInputStream(new byte[0]), "/content/empty.bin"));
+
+    underTest.service(context.request(), context.response());
+
+    assertEquals(HttpServletResponse.SC_NOT_FOUND, context.response().getStatus());
+  }
+
+  @Test
+  void testGet_Range() throws Exception {
+    context.request().addHeader(HEADER_RANGE, "bytes=100-199");
+
+    underTest.service(context.request(), context.response());
+
+    assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, context.response().getStatus());
+    assertEquals(ContentType.JPEG, context.response().getContentType());
+    assertEquals("bytes", context.response().getHeader(HEADER_ACCEPT_RANGES));
+    assertEquals("bytes 100-199/" + EXPECTED_CONTENT_LENGTH, context.response().getHeader(HEADER_CONTENT_RANGE));
+    assertEquals(100, context.response().getContentLength());
+    assertArrayEquals(Arrays.copyOfRange(getSampleImage(), 100, 200), context.response().getOutput());
+  }
+
+  @Test
+  void testGet_Range_Suffix() throws Exception {
+    context.request().addHeader(HEADER_RANGE, "bytes=-10");
+
+    underTest.service(context.request(), context.response());
+
+    assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, context.response().getStatus());
+    assertEquals("bytes " + (EXPECTED_CONTENT_LENGTH - 10) + "-" + (EXPECTED_CONTENT_LENGTH - 1) + "/" + EXPECTED_CONTENT_LENGTH,
+        context.response().getHeader(HEADER_CONTENT_RANGE));
+    byte[] data = getSampleImage();
+    assertArrayEquals(Arrays.copyOfRange(data, data.length - 10, data.length), context.response().getOutput());
+  }
+
+  @Test
+  void testGet_MultipleRanges() throws Exception {
+    context.request().addHeader(HEADER_RANGE, "bytes=1000-1009,0-9");
+
+    underTest.service(context.request(), context.response());
+
+    assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, context.response().getStatus());
+    assertTrue(context.response().getContentType().startsWith("multipart/byteranges; boundary="));
+    byte[] output = context.response().getOutput();
+    assertEquals(output.length, context.response().getContentLength());
+    String body = new String(output, StandardCharsets.ISO_8859_1);
+    assertTrue(body.contains("Content-Range: bytes 1000-1009/" + EXPECTED_CONTENT_LENGTH));
+    assertTrue(body.contains("Content-Range: bytes 0-9/" + EXPECTED_CONTENT_LENGTH));
+    // ranges are sent in ascending order
+    assertTrue(body.indexOf("bytes 0-9") < body.indexOf("bytes 1000-1009"));
+    byte[] data = getSampleImage();
+    assertTrue(body.contains(new String(Arrays.copyOfRange(data, 1000, 1010), StandardCharsets.ISO_8859_1)));
+    assertTrue(body.contains(new String(Arrays.copyOfRange(data, 0, 10), StandardCharsets.ISO_8859_1)));
+  }
+
+  @Test
+  void testGet_OverlappingRanges() throws Exception {
+    context.request().addHeader(HEADER_RANGE, "bytes=0-,0-,0-");
+
+    underTest.service(context.request(), context.response());
+
+    // ranges are merged into a single range, content is sent only once
+    assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, context.response().getStatus());
+    assertEquals(ContentType.JPEG, context.response().getContentType());
+    assertEquals("bytes 0-" + (EXPECTED_CONTENT_LENGTH - 1) + "/" + EXPECTED_CONTENT_LENGTH,
+        context.response().getHeader(HEADER_CONTENT_RANGE));
+    assertArrayEquals(getSampleImage(), context.response().getOutput());
+  }
+
+  @Test
+  void testGet_Range_NotSatisfiable() throws Exception {
+    context.request().addHeader(HEADER_RANGE, "bytes=" + EXPECTED_CONTENT_LENGTH + "-");
+
+    underTest.service(context.request(), context.response());
+
+    assertEquals(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE, context.response().getStatus());
+    assertEquals("bytes */" + EXPECTED_CONTENT_LENGTH, context.response().getHeader(HEADER_CONTENT_RANGE));
+  }
+
+  @Test
+  void testGet_Range_Invalid() throws Exception {
+    context.request().addHeader(HEADER_RANGE, "bytes=abc");
+
+    underTest.service(context.request(), context.response());
+
+    assertEquals(HttpServletResponse.SC_OK, context.response().getStatus());
+    assertEquals(EXPECTED_CONTENT_LENGTH, context.response().getOutput().length);
+  }
+
+  @Test
+  void testGet_Range_IfRangeMismatch() throws Exception {
+    context.request().addHeader(HEADER_RANGE, "bytes=100-199");
+    context.request().addHeader(HEADER_IF_RANGE, "\"outdated-etag\"");
+
+    underTest.service(context.request(), context.response());
+
+    assertEquals(HttpServletResponse.SC_OK, context.response().getStatus());
+    assertEquals(EXPECTED_CONTENT_LENGTH, context.response().getOutput().length);
+    assertEquals(EXPECTED_CONTENT_LENGTH, context.response().getContentLength());
+  }
+
+  @Test
+  void testGet_Range_Download() throws Exception {
+    context.requestPathInfo().setSelectorString(SELECTOR_DOWNLOAD);
+    context.request().addHeader(HEADER_RANGE, "bytes=0-99");
+
+    underTest.service(context.request(), context.response());
+
+    assertEquals(HttpServletResponse.SC_PARTIAL_CONTENT, context.response().getStatus());
+    assertEquals(ContentType.DOWNLOAD, context.response().getContentType());
+    assertEquals(100, context.response().getOutput().length);
+    assertEquals("attachment;", context.response().getHeader(HEADER_CONTENT_DISPOSITION));
+  }
+
+  private byte[] getSampleImage() throws Exception {
+    try (InputStream is = getClass().getResourceAsStream("/sample_image_215x102.jpg")) {
+      return IOUtils.toByteArray(is);
+    }
+  }
+
 }
@@ -19,6 +19,7 @@
  */
 package io.wcm.handler.media.impl;
 
+import static io.wcm.handler.media.MediaNameConstants.MEDIAFORMAT_PROP_PARENT_MEDIA_FORMAT;
 import static io.wcm.handler.media.impl.MediaFormatResolver.MEDIAFORMAT_NAME_SEPARATOR;
 import static io.wcm.handler.media.testcontext.DummyMediaFormats.EDITORIAL_1COL;
 import static io.wcm.handler.media.testcontext.DummyMediaFormats.EDITORIAL_2COL;
@@ -29,9 +30,16 @@ import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.apache.sling.api.SlingHttpServletRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -46,6 +54,7 @@ import io.wcm.handler.media.MediaArgs.MediaFormatOption;
 import io.wcm.handler.media.MediaArgs.PictureSource;
 import io.wcm.handler.media.MediaArgs.WidthOption;
 import io.wcm.handler.media.format.MediaFormat;
+import io.wcm.handler.media.format.MediaFormatBuilder;
 import io.wcm.handler.media.format.MediaFormatHandler;
 
 @ExtendWith(MockitoExtension.class)
@@ -91,6 +100,37 @@ class MediaFormatResolverTest {
     }, mediaArgs.getMediaFormats());
   }
 
+  @Test
+  void testMediaFormatNames_Batch() {
+    SlingHttpServletRequest request = mock(SlingHttpServletRequest.class);
+    MediaBatchCache batchCache = MediaBatchCache.begin(request);
+    when(request.getAttribute(MediaBatchCache.REQUEST_ATTRIBUTE)).thenReturn(batchCache);
+    underTest = new MediaFormatResolver(mediaFormatHandler, request);
+
+    MediaArgs mediaArgs1 = new MediaArgs()
+      .mediaFormatNames(EDITORIAL_1COL.getName(), EDITORIAL_2COL.getName());
+    MediaArgs mediaArgs2 = new MediaArgs()
+      .mediaFormatNames(EDITORIAL_1COL.getName(), EDITORIAL_2COL.getName());
+
+    assertTrue(underTest.resolve(mediaArgs1));
+    assertTrue(underTest.resolve(mediaArgs2));
+
+    assertArrayEquals(mediaArgs1.getMediaFormatOptions(), mediaArgs2.getMediaFormatOptions());
+    assertNotSame(mediaArgs1.getMediaFormatOptions(), mediaArgs2.getMediaFormatOptions());
+    verify(mediaFormatHandler, times(1)).getMediaFormat(EDITORIAL_1COL.getName());
+
+    // media format with same name but different instance is not resolved from batch cache
+    MediaFormat editorial1ColAdhoc = MediaFormatBuilder.create(EDITORIAL_1COL.getName()).width(100).build();
+    MediaArgs mediaArgs3 = new MediaArgs()
+      .mediaFormats(editorial1ColAdhoc);
+    MediaArgs mediaArgs4 = new MediaArgs()
+      .mediaFormats(EDITORIAL_1COL);
+    assertTrue(underTest.resolve(mediaArgs3));
+    assertTrue(underTest.resolve(mediaArgs4));
+    assertSame(editorial1ColAdhoc, mediaArgs3.getMediaFormats()[0]);
+    assertSame(EDITORIAL_1COL, mediaArgs4.getMediaFormats()[0]);
+  }
+
   @Test
   void testMediaFormatNamesSomeInvalid() {
     MediaArgs mediaArgs = new MediaArgs()
@@ -201,6 +241,49 @@ class MediaFormatResolverTest {
     assertResponsiveMediaFormat(IMAGE_UNCONSTRAINED, 20, true, mediaFormatOptions[2]);
   }
 
+  @Test
+  @SuppressWarnings("null")
+  void testImageSizes_SharedMediaFormats() {
+    MediaArgs mediaArgs1 = new MediaArgs()
+      .mediaFormat(RATIO_16_10)
+      .imageSizes(new ImageSizes("sizes", 10, 20));
+    MediaArgs mediaArgs2 = new MediaArgs()
+      .mediaFormat(RATIO_16_10)
+      .imageSizes(new ImageSizes("sizes", 20, 30));
+
+    assertTrue(underTest.resolve(mediaArgs1));
+    assertTrue(underTest.resolve(mediaArgs2));
+
+    MediaFormat mediaFormat1 = mediaArgs1.getMediaFormatOptions()[2].getMediaFormat();
+    MediaFormat mediaFormat2 = mediaArgs2.getMediaFormatOptions()[1].getMediaFormat();
+    assertResponsiveMediaFormat(RATIO_16_10, 20, true, mediaArgs2.getMediaFormatOptions()[1]);
+    assertSame(mediaFormat1, mediaFormat2);
+    assertSame(RATIO_16_10, mediaFormat1.getProperties().get(MEDIAFORMAT_PROP_PARENT_MEDIA_FORMAT));
+  }
+
+  @Test
+  void testGetWidthMediaFormat() {
+    MediaFormat withParent = MediaFormatResolver.getWidthMediaFormat(RATIO_4_3, 100, true);
+    MediaFormat withoutParent = MediaFormatResolver.getWidthMediaFormat(RATIO_4_3, 100, false);
+
+    assertSame(withParent, MediaFormatResolver.getWidthMediaFormat(RATIO_4_3, 100, true));
+    assertSame(withoutParent, MediaFormatResolver.getWidthMediaFormat(RATIO_4_3, 100, false));
+    assertNotSame(withParent, withoutParent);
+    assertNotSame(withParent, MediaFormatResolver.getWidthMediaFormat(RATIO_4_3, 200, true));
+
+    assertSame(RATIO_4_3, withParent.getProperties().get(MEDIAFORMAT_PROP_PARENT_MEDIA_FORMAT));
+    assertNull(withoutParent.getProperties().get(MEDIAFORMAT_PROP_PARENT_MEDIA_FORMAT));
+  }
+
+  @Test
+  void testGetWidthMediaFormat_Bounded() {
+    MediaFormat adHocMediaFormat = MediaFormatBuilder.create("adhoc").ratio(4, 3).build();
+    for (int width = 1; width <= MediaFormatResolver.WIDTH_MEDIA_FORMATS_MAX_SIZE * 2; width++) {
+      MediaFormatResolver.getWidthMediaFormat(adHocMediaFormat, width, true);
+    }
+    assertTrue(MediaFormatResolver.getWidthMediaFormatsSize() <= MediaFormatResolver.WIDTH_MEDIA_FORMATS_MAX_SIZE);
+  }
+
   @Test
   void testImageSizes_NoMediaFormat() {
     MediaArgs mediaArgs = new MediaArgs()
@@ -316,6 +316,33 @@ class MediaHandlerImplTest {
     assertEquals("Invalid via TestPostProcessor", media.getMediaInvalidReasonCustomMessage());
   }
 
+  @Test
+  void testGetAll() {
+    MediaHandler mediaHandler = AdaptTo.notNull(adaptable(), MediaHandler.class);
+
+    List<Media> result = mediaHandler.getAll(List.of(
+        new MediaRequest("/content/dummymedia/item1", new MediaArgs().urlMode(UrlModes.DEFAULT)),
+        new MediaRequest("/content/dummymedia/invalid-pre/item1", new MediaArgs().urlMode(UrlModes.DEFAULT)),
+        new MediaRequest("/content/dummymedia/item2", new MediaArgs().urlMode(UrlModes.DEFAULT))));
+
+    assertEquals(3, result.size());
+    assertTrue(result.get(0).isValid());
+    assertEquals("http://xyz/content/dummymedia.post1/item1/pre1.gif", result.get(0).getUrl());
+    assertFalse(result.get(1).isValid());
+    assertEquals(MediaInvalidReason.CUSTOM, result.get(1).getMediaInvalidReason());
+    assertTrue(result.get(2).isValid());
+    assertEquals("http://xyz/content/dummymedia.post1/item2/pre1.gif", result.get(2).getUrl());
+
+    // batch cache is removed after resolving the batch
+    assertNull(MediaBatchCache.get(adaptable()));
+  }
+
+  @Test
+  void testGetAll_Empty() {
+    MediaHandler mediaHandler = AdaptTo.notNull(adaptable(), MediaHandler.class);
+    assertTrue(mediaHandler.getAll(List.of()).isEmpty());
+  }
+
 
   public static class TestMediaHandlerConfig extends MediaHandlerConfig {
 
@@ -0,0 +1,147 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.sling.api.SlingHttpServletRequest;
+import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.wrappers.SlingHttpServletRequestWrapper;
+import org.apache.sling.models.annotations.Model;
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import io.wcm.handler.media.Media;
+import io.wcm.handler.media.spi.MediaProcessor;
+import io.wcm.handler.media.testcontext.AppAemContext;
+import io.wcm.testing.mock.aem.junit5.AemContext;
+import io.wcm.testing.mock.aem.junit5.AemContextExtension;
+
+@ExtendWith(AemContextExtension.class)
+class SpiModelCacheTest {
+
+  private static final AtomicInteger INSTANCE_COUNT = new AtomicInteger();
+
+  private final AemContext context = AppAemContext.newAemContext();
+
+  @BeforeEach
+  void setUp() {
+    context.addModelsForClasses(TestProcessor.class, SharedTestProcessor.class);
+    INSTANCE_COUNT.set(0);
+  }
+
+  @Test
+  void testNotShareable() {
+    SpiModelCache underTest = new SpiModelCache(context.request());
+
+    // not shareable - new instance for each use
+    MediaProcessor processor = underTest.get(TestProcessor.class, MediaProcessor::isShareable);
+    assertNotSame(processor, underTest.get(TestProcessor.class, MediaProcessor::isShareable));
+    assertEquals(2, INSTANCE_COUNT.get());
+
+    SpiModelCache other = new SpiModelCache(context.request());
+    assertNotSame(processor, other.get(TestProcessor.class, MediaProcessor::isShareable));
+    assertEquals(3, INSTANCE_COUNT.get());
+  }
+
+  @Test
+  void testReusedPerInstance() {
+    SpiModelCache underTest = new SpiModelCache(context.request());
+
+    MediaProcessor processor = underTest.get(SharedTestProcessor.class, MediaProcessor::isShareable);
+    assertSame(processor, underTest.get(SharedTestProcessor.class, MediaProcessor::isShareable));
+    assertEquals(1, INSTANCE_COUNT.get());
+  }
+
+  @Test
+  void testSharedPerRequest() {
+    SpiModelCache underTest = new SpiModelCache(context.request());
+    SpiModelCache other = new SpiModelCache(context.request());
+
+    MediaProcessor processor = underTest.get(SharedTestProcessor.class, MediaProcessor::isShareable);
+    assertSame(processor, other.get(SharedTestProcessor.class, MediaProcessor::isShareable));
+    assertEquals(1, INSTANCE_COUNT.get());
+  }
+
+  @Test
+  void testNotSharedForOtherRequestObject() {
+    SpiModelCache underTest = new SpiModelCache(context.request());
+    SpiModelCache other = new SpiModelCache(new SlingHttpServletRequestWrapper(context.request()));
+
+    MediaProcessor processor = underTest.get(SharedTestProcessor.class, MediaProcessor::isShareable);
+    assertNotSame(processor, other.get(SharedTestProcessor.class, MediaProcessor::isShareable));
+  }
+
+  @Test
+  void testNotSharedForResource() {
+    Resource resource = context.create().resource("/content/r1");
+    SpiModelCache underTest = new SpiModelCache(resource);
+    SpiModelCache other = new SpiModelCache(resource);
+
+    MediaProcessor processor = underTest.get(SharedTestProcessor.class, MediaProcessor::isShareable);
+    assertSame(processor, underTest.get(SharedTestProcessor.class, MediaProcessor::isShareable));
+    assertNotSame(processor, other.get(SharedTestProcessor.class, MediaProcessor::isShareable));
+    assertEquals(2, INSTANCE_COUNT.get());
+  }
+
+  @Model(adaptables = {
+      SlingHttpServletRequest.class, Resource.class
+  })
+  public static class TestProcessor implements MediaProcessor {
+
+    public TestProcessor() {
+      INSTANCE_COUNT.incrementAndGet();
+    }
+
+    @Override
+    public @NotNull Media process(@NotNull Media media) {
+      return media;
+    }
+
+  }
+
+  @Model(adaptables = {
+      SlingHttpServletRequest.class, Resource.class
+  })
+  public static class SharedTestProcessor implements MediaProcessor {
+
+    public SharedTestProcessor() {
+      INSTANCE_COUNT.incrementAndGet();
+    }
+
+    @Override
+    public @NotNull Media process(@NotNull Media media) {
+      return media;
+    }
+
+    @Override
+    public boolean isShareable() {
+      return true;
+    }
+
+  }
+
+}
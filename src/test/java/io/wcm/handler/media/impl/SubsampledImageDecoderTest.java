@@ -0,0 +1,94 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import io.wcm.wcm.commons.contenttype.ContentType;
+
+class SubsampledImageDecoderTest {
+
+  @Test
+  void testIsSupportedMimeType() {
+    assertTrue(SubsampledImageDecoder.isSupportedMimeType(ContentType.JPEG));
+    assertTrue(SubsampledImageDecoder.isSupportedMimeType(ContentType.PNG));
+    assertFalse(SubsampledImageDecoder.isSupportedMimeType(ContentType.SVG));
+    assertFalse(SubsampledImageDecoder.isSupportedMimeType(null));
+  }
+
+  @Test
+  void testGetSubsampling() {
+    assertEquals(1, SubsampledImageDecoder.getSubsampling(400, 250, 400, 250));
+    assertEquals(1, SubsampledImageDecoder.getSubsampling(400, 250, 200, 125));
+    assertEquals(2, SubsampledImageDecoder.getSubsampling(400, 250, 100, 62));
+    assertEquals(5, SubsampledImageDecoder.getSubsampling(400, 250, 40, 25));
+    // limited by the axis with the smaller downscale
+    assertEquals(1, SubsampledImageDecoder.getSubsampling(400, 250, 40, 250));
+    assertEquals(1, SubsampledImageDecoder.getSubsampling(400, 250, 0, 25));
+  }
+
+  @Test
+  void testDecode() throws IOException {
+    try (InputStream is = getClass().getResourceAsStream("/sample_image_400x250.jpg")) {
+      BufferedImage image = SubsampledImageDecoder.decode(is, new Rectangle(0, 0, 400, 250), 4);
+      assertNotNull(image);
+      assertEquals(100, image.getWidth());
+      assertEquals(63, image.getHeight());
+    }
+  }
+
+  @Test
+  void testDecode_Region() throws IOException {
+    try (InputStream is = getClass().getResourceAsStream("/sample_image_400x250.jpg")) {
+      BufferedImage image = SubsampledImageDecoder.decode(is, new Rectangle(100, 50, 200, 100), 2);
+      assertNotNull(image);
+      assertEquals(100, image.getWidth());
+      assertEquals(50, image.getHeight());
+    }
+  }
+
+  @Test
+  void testDecode_RegionOutsideImage() throws IOException {
+    try (InputStream is = getClass().getResourceAsStream("/sample_image_400x250.jpg")) {
+      assertNull(SubsampledImageDecoder.decode(is, new Rectangle(500, 500, 100, 100), 2));
+    }
+  }
+
+  @Test
+  void testDecode_InvalidImage() throws IOException {
+    try (InputStream is = new ByteArrayInputStream("no image".getBytes(StandardCharsets.UTF_8))) {
+      assertNull(SubsampledImageDecoder.decode(is, new Rectangle(0, 0, 10, 10), 2));
+    }
+  }
+
+}
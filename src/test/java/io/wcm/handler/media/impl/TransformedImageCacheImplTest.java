@@ -0,0 +1,142 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.media.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.wcm.handler.media.testcontext.AppAemContext;
+import io.wcm.testing.mock.aem.junit5.AemContext;
+import io.wcm.testing.mock.aem.junit5.AemContextExtension;
+
+@ExtendWith(AemContextExtension.class)
+class TransformedImageCacheImplTest {
+
+  private static final String RENDITION_PATH = "/content/dam/sample.jpg/jcr:content/renditions/original";
+
+  private final AemContext context = AppAemContext.newAemContext();
+
+  @TempDir
+  private Path cacheDirectory;
+
+  @Test
+  void testPutGet() throws IOException {
+    TransformedImageCache underTest = createCache(512);
+
+    assertNull(underTest.get("key1"));
+    Path file = underTest.put("key1", RENDITION_PATH, out -> out.write(new byte[] { 1, 2, 3 }));
+    assertArrayEquals(new byte[] { 1, 2, 3 }, Files.readAllBytes(file));
+    assertEquals(file, underTest.get("key1"));
+    assertNull(underTest.get("key2"));
+  }
+
+  @Test
+  void testEncoderFailure() throws IOException {
+    TransformedImageCache underTest = createCache(512);
+
+    assertThrows(IOException.class, () -> underTest.put("key1", RENDITION_PATH, out -> {
+      out.write(1);
+      throw new IOException("Encoding failed.");
+    }));
+    assertNull(underTest.get("key1"));
+    try (Stream<Path> files = Files.list(cacheDirectory)) {
+      assertEquals(0, files.count());
+    }
+  }
+
+  @Test
+  void testInvalidate() throws IOException {
+    TransformedImageCache underTest = createCache(512);
+
+    Path file1 = underTest.put("key1", RENDITION_PATH, out -> out.write(1));
+    Path file2 = underTest.put("key2", "/content/dam/other.jpg/jcr:content/renditions/original", out -> out.write(2));
+
+    underTest.invalidate("/content/dam/sample.jpg");
+    assertNull(underTest.get("key1"));
+    assertFalse(Files.exists(file1));
+    assertNotNull(underTest.get("key2"));
+    assertTrue(Files.exists(file2));
+
+    underTest.invalidate("/content/dam/other.jpg/jcr:content/renditions/original");
+    assertNull(underTest.get("key2"));
+  }
+
+  @Test
+  void testEvictLeastRecentlyUsed() throws IOException {
+    // max. size of 1MB with entries of 400KB - only two entries fit
+    TransformedImageCache underTest = createCache(1);
+    byte[] data = new byte[400 * 1024];
+
+    underTest.put("key1", RENDITION_PATH, out -> out.write(data));
+    underTest.put("key2", RENDITION_PATH, out -> out.write(data));
+    // access key1 to make key2 the least recently used
+    assertNotNull(underTest.get("key1"));
+    underTest.put("key3", RENDITION_PATH, out -> out.write(data));
+
+    assertNotNull(underTest.get("key1"));
+    assertNull(underTest.get("key2"));
+    assertNotNull(underTest.get("key3"));
+  }
+
+  @Test
+  void testExistingFilesAfterRestart() throws IOException {
+    TransformedImageCache underTest = createCache(512);
+    underTest.put("key1", RENDITION_PATH, out -> out.write(1));
+    Files.writeString(cacheDirectory.resolve("leftover.tmp"), "x");
+
+    underTest = createCache(512);
+    assertNotNull(underTest.get("key1"));
+    assertFalse(Files.exists(cacheDirectory.resolve("leftover.tmp")));
+  }
+
+  @Test
+  void testDisabled() {
+    TransformedImageCache underTest = context.registerInjectActivateService(TransformedImageCacheImpl.class,
+        "cacheDirectory", cacheDirectory.toString());
+
+    assertFalse(underTest.isEnabled());
+    assertNull(underTest.get("key1"));
+    assertThrows(IllegalStateException.class, () -> underTest.put("key1", RENDITION_PATH, out -> out.write(1)));
+  }
+
+  private TransformedImageCache createCache(long maxSizeMb) {
+    TransformedImageCache cache = context.registerInjectActivateService(TransformedImageCacheImpl.class,
+        "enabled", true,
+        "cacheDirectory", cacheDirectory.toString(),
+        "maxSizeMb", maxSizeMb);
+    assertTrue(cache.isEnabled());
+    return cache;
+  }
+
+}
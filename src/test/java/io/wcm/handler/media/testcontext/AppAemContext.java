@@ -31,11 +31,13 @@ import org.jetbrains.annotations.Nullable;
 
 import io.wcm.handler.media.format.impl.MediaFormatProviderManagerImpl;
 import io.wcm.handler.media.impl.DefaultMediaHandlerConfig;
+import io.wcm.handler.media.impl.MediaComponentDefaultsCacheImpl;
 import io.wcm.handler.media.impl.MediaHandlerAdapterFactory;
 import io.wcm.handler.media.spi.MediaFormatProvider;
 import io.wcm.handler.media.spi.MediaHandlerConfig;
 import io.wcm.handler.mediasource.dam.impl.dynamicmedia.DynamicMediaSupportServiceImpl;
 import io.wcm.handler.mediasource.dam.impl.weboptimized.WebOptimizedImageDeliveryServiceImpl;
+import io.wcm.handler.mediasource.inline.impl.InlineImageDimensionCacheImpl;
 import io.wcm.handler.url.SiteConfig;
 import io.wcm.handler.url.impl.DefaultUrlHandlerConfig;
 import io.wcm.handler.url.impl.SiteRootDetectorImpl;
@@ -127,6 +129,12 @@ public final class AppAemContext {
       context.registerInjectActivateService(DynamicMediaSupportServiceImpl.class);
       context.registerInjectActivateService(WebOptimizedImageDeliveryServiceImpl.class);
 
+      // inline media
+      context.registerInjectActivateService(InlineImageDimensionCacheImpl.class);
+
+      // media handler defaults from content policies and component properties
+      context.registerInjectActivateService(MediaComponentDefaultsCacheImpl.class);
+
       // sling models registration
       context.addModelsForPackage(
           "io.wcm.handler.media",
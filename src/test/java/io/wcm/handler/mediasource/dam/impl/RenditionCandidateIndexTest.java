@@ -0,0 +1,142 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.dam.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.day.cq.dam.api.Asset;
+
+import io.wcm.handler.media.MediaArgs;
+import io.wcm.handler.media.format.MediaFormat;
+import io.wcm.handler.media.impl.MediaBatchCache;
+import io.wcm.handler.media.spi.MediaHandlerConfig;
+import io.wcm.handler.media.testcontext.DummyMediaFormats;
+import io.wcm.handler.mediasource.dam.AbstractDamTest;
+import io.wcm.handler.mediasource.dam.AemRenditionType;
+import io.wcm.handler.mediasource.dam.impl.dynamicmedia.DynamicMediaSupportService;
+import io.wcm.handler.mediasource.dam.impl.weboptimized.WebOptimizedImageDeliveryService;
+import io.wcm.sling.commons.adapter.AdaptTo;
+
+@SuppressWarnings("null")
+class RenditionCandidateIndexTest extends AbstractDamTest {
+
+  private DamContext damContext;
+
+  @BeforeEach
+  void setUp() {
+    damContext = createDamContext(new MediaArgs());
+  }
+
+  private DamContext createDamContext(MediaArgs mediaArgs) {
+    Asset asset = context.resourceResolver().getResource(MEDIAITEM_PATH_STANDARD).adaptTo(Asset.class);
+
+    MediaHandlerConfig mediaHandlerConfig = AdaptTo.notNull(context.request(), MediaHandlerConfig.class);
+    DynamicMediaSupportService dynamicMediaSupportService = context.getService(DynamicMediaSupportService.class);
+    WebOptimizedImageDeliveryService webOptimizedImageDeliveryService = context.getService(WebOptimizedImageDeliveryService.class);
+    return new DamContext(asset, mediaArgs, mediaHandlerConfig,
+        dynamicMediaSupportService, webOptimizedImageDeliveryService, context.request());
+  }
+
+  @Test
+  void testSortedCandidates() {
+    RenditionCandidateIndex underTest = damContext.getRenditionCandidateIndex();
+    List<RenditionMetadata> all = underTest.getAll();
+    assertEquals(7, all.size());
+    assertSame(underTest.getOriginal(), all.get(0));
+    assertEquals("original", underTest.getOriginal().getRendition().getName());
+  }
+
+  @Test
+  void testGetRenditionsByAemRenditionType() {
+    RenditionCandidateIndex underTest = damContext.getRenditionCandidateIndex();
+    assertEquals(List.of("original"),
+        toNames(underTest.getRenditions(Set.of())));
+    assertEquals(List.of("original", "cq5dam.thumbnail.215.102.jpg"),
+        toNames(underTest.getRenditions(Set.of(AemRenditionType.THUMBNAIL_RENDITION))));
+    assertEquals(7,
+        underTest.getRenditions(Set.of(AemRenditionType.THUMBNAIL_RENDITION, AemRenditionType.WEB_RENDITION)).size());
+  }
+
+  @Test
+  void testGetRenditionsWithFileExtension() {
+    RenditionCandidateIndex underTest = damContext.getRenditionCandidateIndex();
+    assertEquals(underTest.getAll(), underTest.getRenditionsWithFileExtension("jpg"));
+    assertEquals(underTest.getAll(), underTest.getRenditionsWithFileExtension("JPG"));
+    assertEquals(List.of(), underTest.getRenditionsWithFileExtension("png"));
+  }
+
+  @Test
+  void testSharedByAllRenditionHandlers() {
+    RenditionCandidateIndex index = damContext.getRenditionCandidateIndex();
+    assertSame(index, damContext.getRenditionCandidateIndex());
+
+    DefaultRenditionHandler handler1 = new DefaultRenditionHandler(damContext);
+    DefaultRenditionHandler handler2 = new TransformedRenditionHandler(null, null, damContext);
+    assertSame(index.getOriginal(), handler1.getOriginalRendition());
+    assertSame(index.getOriginal(), handler2.getOriginalRendition());
+  }
+
+  @Test
+  void testSharedWithinMediaBatch() {
+    MediaBatchCache batchCache = MediaBatchCache.begin(context.request());
+    RenditionCandidateIndex index;
+    try {
+      index = createDamContext(new MediaArgs().mediaFormat(DummyMediaFormats.RATIO_4_3)).getRenditionCandidateIndex();
+      assertSame(index, createDamContext(new MediaArgs().fixedWidth(100)).getRenditionCandidateIndex());
+    }
+    finally {
+      MediaBatchCache.end(context.request(), batchCache);
+    }
+    assertNotSame(index, createDamContext(new MediaArgs()).getRenditionCandidateIndex());
+  }
+
+  @Test
+  void testSharedCandidatesAreNotModified() {
+    RenditionCandidateIndex index = damContext.getRenditionCandidateIndex();
+    MediaFormat mediaFormat = DummyMediaFormats.RATIO_4_3;
+
+    RenditionMetadata original = index.getOriginal();
+    RenditionMetadata withMediaFormat = original.withMediaFormat(mediaFormat);
+
+    assertNotSame(original, withMediaFormat);
+    assertNull(original.getMediaFormat());
+    assertSame(mediaFormat, withMediaFormat.getMediaFormat());
+    assertEquals(original, withMediaFormat);
+    assertEquals(original.getWidth(), withMediaFormat.getWidth());
+  }
+
+  private static List<String> toNames(Iterable<RenditionMetadata> renditions) {
+    return StreamSupport.stream(renditions.spliterator(), false)
+      .map(rendition -> rendition.getRendition().getName())
+      .collect(Collectors.toList());
+  }
+
+}
@@ -20,14 +20,32 @@
 package io.wcm.handler.mediasource.dam.impl.dynamicmedia;
 
 import static com.day.cq.commons.jcr.JcrConstants.JCR_CONTENT;
+import static io.wcm.handler.mediasource.dam.impl.dynamicmedia.ImageProfileImpl.CROP_TYPE_SMART;
+import static io.wcm.handler.mediasource.dam.impl.dynamicmedia.ImageProfileImpl.PN_BANNER;
+import static io.wcm.handler.mediasource.dam.impl.dynamicmedia.ImageProfileImpl.PN_CROP_TYPE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import java.util.List;
 import java.util.stream.Stream;
 
+import javax.jcr.RepositoryException;
+
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.PersistenceException;
 import org.apache.sling.api.resource.Resource;
+import org.apache.sling.api.resource.observation.ResourceChange;
+import org.apache.sling.api.resource.observation.ResourceChange.ChangeType;
 import org.apache.sling.testing.mock.caconfig.MockContextAwareConfig;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -35,9 +53,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.osgi.framework.Constants;
 
 import com.day.cq.dam.api.Asset;
 import com.day.cq.dam.api.DamConstants;
+import com.day.cq.dam.api.s7dam.utils.PublishUtils;
 import com.day.cq.dam.scene7.api.constants.Scene7Constants;
 
 import io.wcm.handler.media.Dimension;
@@ -217,6 +237,119 @@ class DynamicMediaSupportServiceImplTest {
     assertNotNull(imageProfile);
   }
 
+  @Test
+  void testGetImageProfileForAsset_Cached() throws PersistenceException {
+    DynamicMediaSupportServiceImpl underTest = context.registerInjectActivateService(new DynamicMediaSupportServiceImpl());
+    Resource profile1 = context.create().resource("/conf/global/settings/dam/adminui-extension/imageprofile/profile1",
+        PN_CROP_TYPE, CROP_TYPE_SMART,
+        PN_BANNER, "Crop-1,100,60");
+    Resource folder1 = context.create().resource("/content/dam/folder1");
+    context.create().resource(folder1, JCR_CONTENT, DamConstants.IMAGE_PROFILE, profile1.getPath());
+    Asset testAsset = context.create().asset(folder1.getPath() + "/test.jpg", 50, 30, ContentType.JPEG);
+
+    ImageProfile imageProfile = underTest.getImageProfileForAsset(testAsset);
+    assertNotNull(imageProfile);
+    assertSame(imageProfile, underTest.getImageProfileForAsset(testAsset));
+    assertSame(imageProfile, underTest.getImageProfile(profile1.getPath()));
+
+    // update image profile
+    profile1.adaptTo(ModifiableValueMap.class).put(PN_BANNER, "Crop-2,50,30");
+    context.resourceResolver().commit();
+    underTest.onChange(List.of(new ResourceChange(ChangeType.CHANGED, profile1.getPath(), false)));
+
+    imageProfile = underTest.getImageProfileForAsset(testAsset);
+    assertNotNull(imageProfile);
+    assertEquals("Crop-2", imageProfile.getSmartCropDefinitions().get(0).getName());
+  }
+
+  @Test
+  void testGetImageProfileForAsset_Cached_FolderChanged() throws PersistenceException {
+    DynamicMediaSupportServiceImpl underTest = context.registerInjectActivateService(new DynamicMediaSupportServiceImpl());
+    Resource profile1 = context.create().resource("/conf/global/settings/dam/adminui-extension/imageprofile/profile1",
+        PN_CROP_TYPE, CROP_TYPE_SMART,
+        PN_BANNER, "Crop-1,100,60");
+    Resource profile2 = context.create().resource("/conf/global/settings/dam/adminui-extension/imageprofile/profile2",
+        PN_CROP_TYPE, CROP_TYPE_SMART,
+        PN_BANNER, "Crop-2,50,30");
+
+    Resource folder1 = context.create().resource("/content/dam/folder1");
+    context.create().resource(folder1, JCR_CONTENT, DamConstants.IMAGE_PROFILE, profile1.getPath());
+    Resource folder2 = context.create().resource(folder1, "folder2");
+    Resource folder2Content = context.create().resource(folder2, JCR_CONTENT);
+    Resource folder3 = context.create().resource(folder2, "folder3");
+    Asset testAsset = context.create().asset(folder3.getPath() + "/test.jpg", 50, 30, ContentType.JPEG);
+
+    ImageProfile imageProfile = underTest.getImageProfileForAsset(testAsset);
+    assertNotNull(imageProfile);
+    assertEquals("Crop-1", imageProfile.getSmartCropDefinitions().get(0).getName());
+
+    // assign other image profile to parent folder
+    folder2Content.adaptTo(ModifiableValueMap.class).put(DamConstants.IMAGE_PROFILE, profile2.getPath());
+    context.resourceResolver().commit();
+    underTest.onChange(List.of(new ResourceChange(ChangeType.CHANGED, folder2Content.getPath(), true)));
+
+    imageProfile = underTest.getImageProfileForAsset(testAsset);
+    assertNotNull(imageProfile);
+    assertEquals("Crop-2", imageProfile.getSmartCropDefinitions().get(0).getName());
+  }
+
+  @Test
+  void testGetImageProfile_NotFound_Cached() {
+    DynamicMediaSupportServiceImpl underTest = context.registerInjectActivateService(new DynamicMediaSupportServiceImpl());
+    String profilePath = "/conf/global/settings/dam/adminui-extension/imageprofile/profile1";
+    assertNull(underTest.getImageProfile(profilePath));
+
+    context.create().resource(profilePath);
+    underTest.onChange(List.of(new ResourceChange(ChangeType.ADDED, profilePath, false)));
+    assertNotNull(underTest.getImageProfile(profilePath));
+  }
+
+  @Test
+  void testGetImageProfile_CacheDisabled() {
+    DynamicMediaSupportServiceImpl underTest = context.registerInjectActivateService(new DynamicMediaSupportServiceImpl(),
+        "imageProfileCache", false);
+    Resource profile1 = context.create().resource("/conf/global/settings/dam/adminui-extension/imageprofile/profile1");
+
+    ImageProfile imageProfile = underTest.getImageProfile(profile1.getPath());
+    assertNotNull(imageProfile);
+    assertNotSame(imageProfile, underTest.getImageProfile(profile1.getPath()));
+  }
+
+  @Test
+  void testGetDynamicMediaServerUrl_Cached() throws RepositoryException {
+    PublishUtils publishUtils = registerPublishUtils();
+    DynamicMediaSupportServiceImpl underTest = context.registerInjectActivateService(new DynamicMediaSupportServiceImpl());
+    Asset asset2 = context.create().asset("/content/dam/folder1/dummy2.jpg", 10, 10, ContentType.JPEG,
+        Scene7Constants.PN_S7_FILE, "DummyFolder/dummy2");
+
+    assertEquals("https://dm-server", underTest.getDynamicMediaServerUrl(asset, null, context.currentResource()));
+    assertEquals("https://dm-server", underTest.getDynamicMediaServerUrl(asset2, null, context.currentResource()));
+    verify(publishUtils, times(1)).externalizeImageDeliveryAsset(any(Resource.class));
+
+    // change of dynamic media cloud configuration
+    underTest.onChange(List.of(new ResourceChange(ChangeType.CHANGED, "/conf/global/settings/cloudconfigs/dmscene7", false)));
+    assertEquals("https://dm-server", underTest.getDynamicMediaServerUrl(asset, null, context.currentResource()));
+    verify(publishUtils, times(2)).externalizeImageDeliveryAsset(any(Resource.class));
+  }
+
+  @Test
+  void testGetDynamicMediaServerUrl_CacheDisabled() throws RepositoryException {
+    PublishUtils publishUtils = registerPublishUtils();
+    DynamicMediaSupportServiceImpl underTest = context.registerInjectActivateService(new DynamicMediaSupportServiceImpl(),
+        "productionAssetUrlCacheSeconds", 0L);
+
+    assertEquals("https://dm-server", underTest.getDynamicMediaServerUrl(asset, null, context.currentResource()));
+    assertEquals("https://dm-server", underTest.getDynamicMediaServerUrl(asset, null, context.currentResource()));
+    verify(publishUtils, times(2)).externalizeImageDeliveryAsset(any(Resource.class));
+  }
+
+  private PublishUtils registerPublishUtils() throws RepositoryException {
+    PublishUtils publishUtils = mock(PublishUtils.class);
+    when(publishUtils.externalizeImageDeliveryAsset(any(Resource.class))).thenReturn(new String[] { "https://dm-server" });
+    context.registerService(PublishUtils.class, publishUtils, Constants.SERVICE_RANKING, 1000);
+    return publishUtils;
+  }
+
   @ParameterizedTest
   @MethodSource("forcePublicshUrlModes")
   void testAuthorPreviewMode_SiteConfig_ForcePublish(UrlMode urlMode) {
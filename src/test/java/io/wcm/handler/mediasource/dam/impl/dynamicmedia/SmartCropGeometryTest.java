@@ -0,0 +1,168 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.dam.impl.dynamicmedia;
+
+import static com.day.cq.commons.jcr.JcrConstants.JCR_CONTENT;
+import static com.day.cq.dam.api.DamConstants.RENDITIONS_FOLDER;
+import static io.wcm.handler.mediasource.dam.impl.dynamicmedia.ImageProfileImpl.CROP_TYPE_SMART;
+import static io.wcm.handler.mediasource.dam.impl.dynamicmedia.ImageProfileImpl.PN_BANNER;
+import static io.wcm.handler.mediasource.dam.impl.dynamicmedia.ImageProfileImpl.PN_CROP_TYPE;
+import static io.wcm.handler.mediasource.dam.impl.dynamicmedia.SmartCrop.PN_LEFT;
+import static io.wcm.handler.mediasource.dam.impl.dynamicmedia.SmartCrop.PN_NORMALIZED_HEIGHT;
+import static io.wcm.handler.mediasource.dam.impl.dynamicmedia.SmartCrop.PN_NORMALIZED_WIDTH;
+import static io.wcm.handler.mediasource.dam.impl.dynamicmedia.SmartCrop.PN_TOP;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.sling.api.resource.Resource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.day.cq.dam.api.Asset;
+import com.day.cq.dam.api.DamConstants;
+
+import io.wcm.handler.media.CropDimension;
+import io.wcm.handler.media.MediaArgs;
+import io.wcm.handler.media.format.Ratio;
+import io.wcm.handler.media.spi.MediaHandlerConfig;
+import io.wcm.handler.media.testcontext.AppAemContext;
+import io.wcm.handler.mediasource.dam.impl.DamContext;
+import io.wcm.handler.mediasource.dam.impl.weboptimized.WebOptimizedImageDeliveryService;
+import io.wcm.sling.commons.adapter.AdaptTo;
+import io.wcm.testing.mock.aem.junit5.AemContext;
+import io.wcm.testing.mock.aem.junit5.AemContextExtension;
+import io.wcm.wcm.commons.contenttype.ContentType;
+
+@ExtendWith(AemContextExtension.class)
+class SmartCropGeometryTest {
+
+  private final AemContext context = AppAemContext.newAemContext();
+
+  private Resource profileResource;
+  private ImageProfile profile;
+  private Asset asset;
+
+  @BeforeEach
+  void setUp() {
+    profileResource = context.create().resource("/conf/global/settings/dam/adminui-extension/imageprofile/profile1",
+        PN_CROP_TYPE, CROP_TYPE_SMART,
+        PN_BANNER, "16-10,160,100|4-3,40,30|16-10-alt,32,20");
+    profile = new ImageProfileImpl(profileResource);
+
+    Resource assetFolder = context.create().resource("/content/dam/folder1");
+    context.create().resource(assetFolder, JCR_CONTENT, DamConstants.IMAGE_PROFILE, profileResource.getPath());
+    asset = context.create().asset(assetFolder.getPath() + "/image1.jpg", 160, 100, ContentType.JPEG);
+  }
+
+  @Test
+  void testGetDimensionForRatio() {
+    SmartCropGeometry underTest = new SmartCropGeometry(asset, context.resourceResolver(), profile);
+
+    assertNull(underTest.getDimensionForRatio(1d));
+    assertNull(underTest.getDimensionForWidthHeight(500, 500));
+
+    // first matching definition wins
+    assertNamedDimension(underTest.getDimensionForRatio(Ratio.get(16, 10)), "16-10", 160, 100);
+    assertNamedDimension(underTest.getDimensionForWidthHeight(320, 200), "16-10", 320, 200);
+
+    // matches within ratio tolerance
+    assertNamedDimension(underTest.getDimensionForRatio(1.36), "4-3", 40, 30);
+    assertNamedDimension(underTest.getDimensionForRatio(1.30), "4-3", 40, 30);
+    assertNull(underTest.getDimensionForRatio(1.40));
+  }
+
+  @Test
+  void testNoProfile() {
+    SmartCropGeometry underTest = new SmartCropGeometry(asset, context.resourceResolver(), null);
+
+    assertNull(underTest.getDimensionForRatio(Ratio.get(16, 10)));
+    assertNull(underTest.getCropDimension(new NamedDimension("16-10", 16, 10)));
+  }
+
+  @Test
+  void testGetCropDimension() {
+    prepareSmartCropRendition("16-10", 0.1, 0.2, 0.5, 0.5); // results in 80x50 cropping area
+    SmartCropGeometry underTest = new SmartCropGeometry(asset, context.resourceResolver(), profile);
+
+    CropDimension cropDimension = underTest.getCropDimension(underTest.getDimensionForRatio(Ratio.get(16, 10)));
+    assertNotNull(cropDimension);
+    assertEquals(16, cropDimension.getLeft());
+    assertEquals(20, cropDimension.getTop());
+    assertEquals(80, cropDimension.getWidth());
+    assertEquals(50, cropDimension.getHeight());
+
+    // no smart crop rendition
+    assertNull(underTest.getCropDimension(underTest.getDimensionForRatio(Ratio.get(4, 3))));
+  }
+
+  @Test
+  void testIsMatchingSize() {
+    prepareSmartCropRendition("16-10", 0.1, 0.2, 0.5, 0.5); // results in 80x50 cropping area
+    SmartCropGeometry underTest = new SmartCropGeometry(asset, context.resourceResolver(), profile);
+
+    NamedDimension smartCropDef = underTest.getDimensionForWidthHeight(80, 50);
+    assertNotNull(smartCropDef);
+    assertTrue(underTest.isMatchingSize(smartCropDef, 80, 50));
+    assertFalse(underTest.isMatchingSize(smartCropDef, 96, 60));
+
+    // assume everything is ok if no smart crop rendition exists
+    assertTrue(underTest.isMatchingSize(new NamedDimension("4-3", 400, 300), 400, 300));
+  }
+
+  @Test
+  void testSharedWithinRequest() {
+    MediaHandlerConfig mediaHandlerConfig = AdaptTo.notNull(context.request(), MediaHandlerConfig.class);
+    DynamicMediaSupportService dynamicMediaSupportService = context.getService(DynamicMediaSupportService.class);
+    WebOptimizedImageDeliveryService webOptimizedImageDeliveryService = context.getService(WebOptimizedImageDeliveryService.class);
+
+    DamContext damContext1 = new DamContext(asset, new MediaArgs(), mediaHandlerConfig,
+        dynamicMediaSupportService, webOptimizedImageDeliveryService, context.request());
+    DamContext damContext2 = new DamContext(asset, new MediaArgs(), mediaHandlerConfig,
+        dynamicMediaSupportService, webOptimizedImageDeliveryService, context.request());
+
+    SmartCropGeometry smartCropGeometry = damContext1.getSmartCropGeometry();
+    assertNamedDimension(smartCropGeometry.getDimensionForRatio(Ratio.get(16, 10)), "16-10", 160, 100);
+    assertSame(smartCropGeometry, damContext2.getSmartCropGeometry());
+  }
+
+  private static void assertNamedDimension(NamedDimension namedDimension,
+      String expectedName, long expectedWith, long expectedHeight) {
+    assertNotNull(namedDimension);
+    assertEquals(expectedName, namedDimension.getName());
+    assertEquals(expectedWith, namedDimension.getWidth());
+    assertEquals(expectedHeight, namedDimension.getHeight());
+  }
+
+  private void prepareSmartCropRendition(String name, double left, double top, double normalizedWidth, double normalizedHeight) {
+    String smartCropRenditionPath = asset.getPath() + "/" + JCR_CONTENT + "/" + RENDITIONS_FOLDER
+        + "/" + name + "/" + JCR_CONTENT;
+    context.create().resource(smartCropRenditionPath,
+        PN_LEFT, left,
+        PN_TOP, top,
+        PN_NORMALIZED_WIDTH, normalizedWidth,
+        PN_NORMALIZED_HEIGHT, normalizedHeight);
+  }
+
+}
@@ -31,11 +31,19 @@ import static io.wcm.handler.mediasource.dam.impl.metadata.RenditionMetadataName
 import static io.wcm.handler.mediasource.dam.impl.metadata.WorkflowTestUtil.PKG_ROOT;
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 import java.util.Calendar;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BooleanSupplier;
 
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ResourceResolver;
@@ -160,6 +168,98 @@ class RenditionMetadataWorkflowProcessTest {
     assertRenditionMetadata(asset2, "rendition1.jpg", 5, 5);
   }
 
+  @Test
+  void testWithWorkflowPackagePayload_BulkMode() {
+    underTest = context.registerInjectActivateService(new RenditionMetadataWorkflowProcess(),
+        "bulkThreshold", 2,
+        "threadPoolSize", 1,
+        "commitBatchSize", 2,
+        "progressLogInterval", 1);
+
+    Asset asset1 = context.create().asset("/content/dam/asset1.jpg", 10, 10, "image/jpeg");
+    context.create().assetRendition(asset1, "rendition1.jpg", 12, 12, "image/jpg");
+    context.create().assetRendition(asset1, "rendition2.png", 10, 5, "image/png");
+
+    Asset asset2 = context.create().asset("/content/dam/asset2.jpg", 10, 10, "image/jpeg");
+    context.create().assetRendition(asset2, "rendition1.jpg", 5, 5, "image/jpg");
+
+    Asset asset3 = context.create().asset("/content/dam/asset3.jpg", 10, 10, "image/jpeg");
+    context.create().assetRendition(asset3, "rendition1.jpg", 8, 4, "image/jpg");
+
+    Resource pkg1 = WorkflowTestUtil.createPackage(context, PKG_ROOT + "/pkg1",
+        asset1.getPath(),
+        asset2.getPath(),
+        asset3.getPath());
+
+    when(workflowData.getPayload()).thenReturn(pkg1.getPath());
+
+    underTest.execute(workItem, workflowSession, metaDataMap);
+
+    context.resourceResolver().refresh();
+    assertRenditionMetadata(asset1, "rendition1.jpg", 12, 12);
+    assertRenditionMetadata(asset1, "rendition2.png", 10, 5);
+    assertRenditionMetadata(asset2, "rendition1.jpg", 5, 5);
+    assertRenditionMetadata(asset3, "rendition1.jpg", 8, 4);
+  }
+
+  @Test
+  void testWithWorkflowPackagePayload_BulkMode_AssetLocked() throws Exception {
+    underTest = context.registerInjectActivateService(new RenditionMetadataWorkflowProcess(),
+        "bulkThreshold", 2,
+        "threadPoolSize", 1,
+        "commitBatchSize", 100,
+        "progressLogInterval", 1);
+    AssetSynchonizationService assetSynchronizationService = context.getService(AssetSynchonizationService.class);
+
+    Asset asset1 = context.create().asset("/content/dam/asset1.jpg", 10, 10, "image/jpeg");
+    context.create().assetRendition(asset1, "rendition1.jpg", 12, 12, "image/jpg");
+
+    Asset asset2 = context.create().asset("/content/dam/asset2.jpg", 10, 10, "image/jpeg");
+    context.create().assetRendition(asset2, "rendition1.jpg", 5, 5, "image/jpg");
+
+    Asset asset3 = context.create().asset("/content/dam/asset3.jpg", 10, 10, "image/jpeg");
+    context.create().assetRendition(asset3, "rendition1.jpg", 8, 4, "image/jpg");
+
+    Resource pkg1 = WorkflowTestUtil.createPackage(context, PKG_ROOT + "/pkg1",
+        asset1.getPath(),
+        asset2.getPath(),
+        asset3.getPath());
+
+    when(workflowData.getPayload()).thenReturn(pkg1.getPath());
+
+    // simulate listener service processing asset 2 in another thread
+    Lock lock2 = assetSynchronizationService.getLock(asset2.getPath());
+    lock2.lock();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> result;
+      try {
+        result = executor.submit(() -> underTest.execute(workItem, workflowSession, metaDataMap));
+
+        // batch with asset 1 is committed and its lock released before waiting for the lock of asset 2
+        Lock lock1 = assetSynchronizationService.getLock(asset1.getPath());
+        assertTrue(waitFor(() -> hasRenditionMetadata(asset1, "rendition1.jpg") && tryLockAndUnlock(lock1)));
+
+        // asset 2 and the following assets are not processed while the lock is held
+        assertFalse(result.isDone());
+        assertFalse(hasRenditionMetadata(asset2, "rendition1.jpg"));
+        assertFalse(hasRenditionMetadata(asset3, "rendition1.jpg"));
+      }
+      finally {
+        lock2.unlock();
+      }
+      result.get(10, TimeUnit.SECONDS);
+    }
+    finally {
+      executor.shutdownNow();
+    }
+
+    context.resourceResolver().refresh();
+    assertRenditionMetadata(asset1, "rendition1.jpg", 12, 12);
+    assertRenditionMetadata(asset2, "rendition1.jpg", 5, 5);
+    assertRenditionMetadata(asset3, "rendition1.jpg", 8, 4);
+  }
+
   @Test
   void testRemovalOfObsoleteRenditionMetadata() {
     Asset asset = context.create().asset("/content/dam/asset1.jpg", 10, 10, "image/jpeg");
@@ -211,6 +311,31 @@ class RenditionMetadataWorkflowProcessTest {
     assertNotNull(props.get(JCR_LAST_MODIFIED_BY, String.class));
   }
 
+  private boolean hasRenditionMetadata(Asset asset, String renditionName) {
+    context.resourceResolver().refresh();
+    String renditionPath = asset.getPath() + "/jcr:content/" + NN_RENDITIONS_METADATA + "/" + renditionName;
+    return context.resourceResolver().getResource(renditionPath) != null;
+  }
+
+  private static boolean tryLockAndUnlock(Lock lock) {
+    if (lock.tryLock()) {
+      lock.unlock();
+      return true;
+    }
+    return false;
+  }
+
+  private static boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 10000;
+    while (System.currentTimeMillis() < deadline) {
+      if (condition.getAsBoolean()) {
+        return true;
+      }
+      Thread.sleep(10);
+    }
+    return false;
+  }
+
   private void assertNoRenditionMetadata(Asset asset, String renditionName) {
     String renditionPath = asset.getPath() + "/jcr:content/" + NN_RENDITIONS_METADATA + "/" + renditionName;
     Resource metadata = context.resourceResolver().getResource(renditionPath);
@@ -0,0 +1,119 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.inline.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Calendar;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.sling.api.resource.ModifiableValueMap;
+import org.apache.sling.api.resource.Resource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import com.day.cq.commons.jcr.JcrConstants;
+
+import io.wcm.handler.media.Dimension;
+import io.wcm.handler.media.testcontext.AppAemContext;
+import io.wcm.sling.commons.adapter.AdaptTo;
+import io.wcm.testing.mock.aem.junit5.AemContext;
+import io.wcm.testing.mock.aem.junit5.AemContextExtension;
+
+@ExtendWith(AemContextExtension.class)
+class InlineImageDimensionCacheImplTest {
+
+  private final AemContext context = AppAemContext.newAemContext();
+
+  private Resource resource;
+  private AtomicInteger detectCount;
+  private Function<Resource, Dimension> detector;
+
+  @BeforeEach
+  void setUp() {
+    Calendar lastModified = Calendar.getInstance();
+    lastModified.setTimeInMillis(1000L);
+    resource = context.create().resource("/content/test/mediaInline",
+        JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_RESOURCE,
+        JcrConstants.JCR_LASTMODIFIED, lastModified);
+    detectCount = new AtomicInteger();
+    detector = item -> {
+      detectCount.incrementAndGet();
+      return new Dimension(100, 50);
+    };
+  }
+
+  @Test
+  void testCachedPerBinaryVersion() {
+    InlineImageDimensionCache underTest = context.registerInjectActivateService(InlineImageDimensionCacheImpl.class);
+
+    assertEquals(new Dimension(100, 50), underTest.getImageDimension(resource, detector));
+    assertEquals(new Dimension(100, 50), underTest.getImageDimension(resource, detector));
+    assertEquals(1, detectCount.get());
+    assertEquals(1, underTest.getHitCount());
+    assertEquals(1, underTest.getMissCount());
+
+    // update binary version
+    Calendar lastModified = Calendar.getInstance();
+    lastModified.setTimeInMillis(2000L);
+    AdaptTo.notNull(resource, ModifiableValueMap.class).put(JcrConstants.JCR_LASTMODIFIED, lastModified);
+
+    assertEquals(new Dimension(100, 50), underTest.getImageDimension(resource, detector));
+    assertEquals(2, detectCount.get());
+  }
+
+  @Test
+  void testNoDimension() {
+    InlineImageDimensionCache underTest = context.registerInjectActivateService(InlineImageDimensionCacheImpl.class);
+    Function<Resource, Dimension> nullDetector = item -> {
+      detectCount.incrementAndGet();
+      return null;
+    };
+
+    assertNull(underTest.getImageDimension(resource, nullDetector));
+    assertNull(underTest.getImageDimension(resource, nullDetector));
+    assertEquals(1, detectCount.get());
+  }
+
+  @Test
+  void testNoLastModified() {
+    InlineImageDimensionCache underTest = context.registerInjectActivateService(InlineImageDimensionCacheImpl.class);
+    Resource resourceWithoutLastModified = context.create().resource("/content/test/mediaInline2",
+        JcrConstants.JCR_PRIMARYTYPE, JcrConstants.NT_RESOURCE);
+
+    underTest.getImageDimension(resourceWithoutLastModified, detector);
+    underTest.getImageDimension(resourceWithoutLastModified, detector);
+    assertEquals(2, detectCount.get());
+  }
+
+  @Test
+  void testDisabled() {
+    InlineImageDimensionCache underTest = context.registerInjectActivateService(InlineImageDimensionCacheImpl.class,
+        "enabled", false);
+
+    underTest.getImageDimension(resource, detector);
+    underTest.getImageDimension(resource, detector);
+    assertEquals(2, detectCount.get());
+  }
+
+}
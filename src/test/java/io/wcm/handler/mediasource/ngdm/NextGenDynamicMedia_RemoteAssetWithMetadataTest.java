@@ -21,7 +21,10 @@ package io.wcm.handler.mediasource.ngdm;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static io.wcm.handler.mediasource.ngdm.impl.NextGenDynamicMediaReferenceSample.SAMPLE_ASSET_ID;
 import static io.wcm.handler.mediasource.ngdm.impl.NextGenDynamicMediaReferenceSample.SAMPLE_FILENAME;
 import static io.wcm.handler.mediasource.ngdm.impl.NextGenDynamicMediaReferenceSample.SAMPLE_REFERENCE;
@@ -35,6 +38,8 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.List;
+
 import org.apache.http.HttpStatus;
 import org.apache.sling.api.resource.Resource;
 import org.apache.sling.api.resource.ValueMap;
@@ -50,6 +55,7 @@ import io.wcm.handler.media.Media;
 import io.wcm.handler.media.MediaArgs;
 import io.wcm.handler.media.MediaHandler;
 import io.wcm.handler.media.MediaNameConstants;
+import io.wcm.handler.media.MediaRequest;
 import io.wcm.handler.media.Rendition;
 import io.wcm.handler.media.testcontext.AppAemContext;
 import io.wcm.handler.media.testcontext.DummyMediaFormats;
@@ -134,6 +140,51 @@ class NextGenDynamicMedia_RemoteAssetWithMetadataTest {
     assertNull(tooLargeRendition);
   }
 
+  @Test
+  void testPrefetch() {
+    String otherAssetId = "urn:aaid:aem:87654321-abcd-abcd-abcd-abcd12345678";
+    Resource otherResource = context.create().resource(context.currentPage(), "test2",
+        MediaNameConstants.PN_MEDIA_REF, "/" + otherAssetId + "/other-image.jpg");
+    stubFor(get("/adobe/assets/" + otherAssetId + "/metadata")
+      .willReturn(aResponse()
+        .withStatus(HttpStatus.SC_OK)
+        .withHeader("Content-Type", ContentType.JSON)
+        .withBody(METADATA_JSON_IMAGE)));
+
+    mediaHandler.prefetch(List.of(
+        new MediaRequest(resource, new MediaArgs()),
+        new MediaRequest(otherResource, new MediaArgs())));
+    verify(1, getRequestedFor(urlEqualTo("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")));
+    verify(1, getRequestedFor(urlEqualTo("/adobe/assets/" + otherAssetId + "/metadata")));
+
+    // resolving uses the prefetched metadata
+    assertTrue(mediaHandler.get(resource).build().isValid());
+    assertTrue(mediaHandler.get(otherResource).build().isValid());
+    verify(1, getRequestedFor(urlEqualTo("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")));
+    verify(1, getRequestedFor(urlEqualTo("/adobe/assets/" + otherAssetId + "/metadata")));
+  }
+
+  @Test
+  void testMetadataApiUnavailable() {
+    String otherAssetId = "urn:aaid:aem:87654321-abcd-abcd-abcd-abcd12345678";
+    Resource otherResource = context.create().resource(context.currentPage(), "test2",
+        MediaNameConstants.PN_MEDIA_REF, "/" + otherAssetId + "/other-image.jpg");
+    stubFor(get("/adobe/assets/" + otherAssetId + "/metadata")
+      .willReturn(aResponse()
+        .withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+
+    // failing metadata calls open the circuit breaker (min. 10 calls)
+    for (int i = 0; i < 10; i++) {
+      assertFalse(mediaHandler.get(otherResource).build().isValid());
+    }
+
+    // while the circuit is open, assets are resolved without metadata
+    Media media = mediaHandler.get(resource).build();
+    assertTrue(media.isValid());
+    assertUrl(media, "quality=85", "jpg");
+    verify(0, getRequestedFor(urlEqualTo("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")));
+  }
+
   @Test
   void testRendition_SetWidth() {
     Media media = mediaHandler.get(resource)
@@ -0,0 +1,148 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.ngdm.impl.metadata;
+
+import static io.wcm.handler.mediasource.ngdm.impl.metadata.CircuitBreaker.State.CLOSED;
+import static io.wcm.handler.mediasource.ngdm.impl.metadata.CircuitBreaker.State.HALF_OPEN;
+import static io.wcm.handler.mediasource.ngdm.impl.metadata.CircuitBreaker.State.OPEN;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(2000);
+
+  private final AtomicLong time = new AtomicLong();
+
+  private CircuitBreaker underTest;
+
+  @BeforeEach
+  void setUp() {
+    // window 10, min. 4 calls, 50% failures, 1000ms slow call duration, 75% slow calls, open 30s, 2 probe calls
+    underTest = new CircuitBreaker("test", 10, 4, 50, 1000, 75, 30000, 2, time::get);
+  }
+
+  @Test
+  void testClosed() {
+    call(true, FAST);
+    call(false, FAST);
+    call(true, FAST);
+    call(true, SLOW);
+    assertEquals(CLOSED, underTest.getState());
+    assertEquals(0, underTest.getShortCircuitCount());
+  }
+
+  @Test
+  void testMinCalls() {
+    call(false, FAST);
+    call(false, FAST);
+    call(false, FAST);
+    assertEquals(CLOSED, underTest.getState());
+    call(false, FAST);
+    assertEquals(OPEN, underTest.getState());
+  }
+
+  @Test
+  void testFailureRate() {
+    call(true, FAST);
+    call(false, FAST);
+    call(true, FAST);
+    call(false, FAST);
+    assertEquals(OPEN, underTest.getState());
+
+    assertFalse(underTest.tryAcquirePermission());
+    assertFalse(underTest.tryAcquirePermission());
+    assertEquals(2, underTest.getShortCircuitCount());
+    assertEquals(1, underTest.getTransitionCount(OPEN));
+  }
+
+  @Test
+  void testSlowCallRate() {
+    call(true, SLOW);
+    call(true, SLOW);
+    call(true, FAST);
+    call(true, SLOW);
+    assertEquals(OPEN, underTest.getState());
+  }
+
+  @Test
+  void testSlidingWindow() {
+    // old failures are removed from the window
+    for (int i = 0; i < 4; i++) {
+      call(true, FAST);
+    }
+    for (int i = 0; i < 10; i++) {
+      call(i % 3 != 0, FAST);
+    }
+    assertEquals(CLOSED, underTest.getState());
+  }
+
+  @Test
+  void testHalfOpen_Close() {
+    openCircuit();
+
+    time.addAndGet(TimeUnit.SECONDS.toNanos(31));
+    assertTrue(underTest.tryAcquirePermission());
+    assertEquals(HALF_OPEN, underTest.getState());
+    assertTrue(underTest.tryAcquirePermission());
+    // only 2 probe calls permitted
+    assertFalse(underTest.tryAcquirePermission());
+
+    underTest.onResult(true, FAST);
+    underTest.onResult(true, FAST);
+    assertEquals(CLOSED, underTest.getState());
+    assertTrue(underTest.tryAcquirePermission());
+    assertEquals(1, underTest.getTransitionCount(HALF_OPEN));
+    assertEquals(1, underTest.getTransitionCount(CLOSED));
+  }
+
+  @Test
+  void testHalfOpen_Reopen() {
+    openCircuit();
+
+    time.addAndGet(TimeUnit.SECONDS.toNanos(31));
+    call(true, FAST);
+    call(false, FAST);
+    assertEquals(OPEN, underTest.getState());
+    assertFalse(underTest.tryAcquirePermission());
+    assertEquals(2, underTest.getTransitionCount(OPEN));
+  }
+
+  private void openCircuit() {
+    for (int i = 0; i < 4; i++) {
+      call(false, FAST);
+    }
+    assertEquals(OPEN, underTest.getState());
+  }
+
+  private void call(boolean success, long duration) {
+    assertTrue(underTest.tryAcquirePermission());
+    underTest.onResult(success, duration);
+  }
+
+}
@@ -0,0 +1,144 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.ngdm.impl.metadata;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpStatus;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+
+import io.wcm.wcm.commons.contenttype.ContentType;
+
+@WireMockTest
+class ImsAccessTokenCacheTest {
+
+  private static final String TOKEN_API_PATH = "/ims/token/v3";
+  private static final String CLIENT_ID = "testClientId";
+  private static final String CLIENT_SECRET = "testClientSecret";
+  private static final String SCOPE = "testScope";
+
+  private final AtomicLong time = new AtomicLong();
+
+  private CloseableHttpClient httpClient;
+  private ImsAccessTokenCache underTest;
+
+  @BeforeEach
+  void setUp(WireMockRuntimeInfo wmRuntimeInfo) {
+    httpClient = HttpClients.createDefault();
+    // refresh after 80% of the lifetime, retry after 10s; refresh synchronously
+    underTest = new ImsAccessTokenCache(httpClient, "http://localhost:" + wmRuntimeInfo.getHttpPort() + TOKEN_API_PATH,
+        80, 10, time::get, Runnable::run);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    httpClient.close();
+  }
+
+  @Test
+  void testCachedToken() {
+    stubToken("token1", 105);
+    assertEquals("token1", getAccessToken());
+    advance(50);
+    assertEquals("token1", getAccessToken());
+    verify(1, postRequestedFor(urlEqualTo(TOKEN_API_PATH)));
+  }
+
+  @Test
+  void testBackgroundRefresh() {
+    stubToken("token1", 105);
+    assertEquals("token1", getAccessToken());
+
+    // after 80% of lifetime: serve current token and refresh it
+    stubToken("token2", 105);
+    advance(81);
+    assertEquals("token1", getAccessToken());
+    verify(2, postRequestedFor(urlEqualTo(TOKEN_API_PATH)));
+    assertEquals("token2", getAccessToken());
+
+    // new token is valid for its full lifetime
+    advance(50);
+    assertEquals("token2", getAccessToken());
+    verify(2, postRequestedFor(urlEqualTo(TOKEN_API_PATH)));
+  }
+
+  @Test
+  void testBackgroundRefresh_Failure() {
+    stubToken("token1", 105);
+    assertEquals("token1", getAccessToken());
+
+    // refresh fails: keep serving the current token and back off
+    stubFor(post(TOKEN_API_PATH)
+      .willReturn(aResponse()
+        .withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+    advance(81);
+    assertEquals("token1", getAccessToken());
+    assertEquals("token1", getAccessToken());
+    verify(2, postRequestedFor(urlEqualTo(TOKEN_API_PATH)));
+
+    // retry after 10s
+    advance(11);
+    assertEquals("token1", getAccessToken());
+    verify(3, postRequestedFor(urlEqualTo(TOKEN_API_PATH)));
+
+    // token is removed when it expires
+    advance(10);
+    assertNull(getAccessToken());
+
+    // token is created again when the IMS API is available again
+    stubToken("token2", 105);
+    assertEquals("token2", getAccessToken());
+  }
+
+  private String getAccessToken() {
+    return underTest.getAccessToken(CLIENT_ID, CLIENT_SECRET, SCOPE);
+  }
+
+  private static void stubToken(String accessToken, long expiresInSec) {
+    stubFor(post(TOKEN_API_PATH)
+      .willReturn(aResponse()
+        .withStatus(HttpStatus.SC_OK)
+        .withHeader("Content-Type", ContentType.JSON)
+        .withBody("{\"access_token\": \"" + accessToken + "\", \"token_type\": \"Bearer\", \"expires_in\": " + expiresInSec + "}")));
+  }
+
+  private void advance(long seconds) {
+    time.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+  }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.ngdm.impl.metadata;
+
+import static io.wcm.handler.mediasource.ngdm.impl.metadata.MetadataSample.METADATA_JSON_IMAGE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.wcm.handler.mediasource.ngdm.impl.metadata.NextGenDynamicMediaMetadataCache.Result;
+
+class NextGenDynamicMediaMetadataCacheTest {
+
+  private static final String URL = "https://host/adobe/assets/urn:aaid:aem:12345678/metadata";
+
+  private final AtomicLong time = new AtomicLong();
+  private final AtomicInteger loadCount = new AtomicInteger();
+  private final AtomicReference<Result> nextResult = new AtomicReference<>();
+
+  private NextGenDynamicMediaMetadataCache underTest;
+  private NextGenDynamicMediaMetadata metadata;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    metadata = NextGenDynamicMediaMetadata.fromJson(METADATA_JSON_IMAGE);
+    // TTL 10s, stale-while-revalidate 60s, negative TTL 5s; refresh synchronously
+    underTest = new NextGenDynamicMediaMetadataCache(100, 10, 60, 5,
+        url -> {
+          loadCount.incrementAndGet();
+          return nextResult.get();
+        },
+        time::get, Runnable::run);
+  }
+
+  @Test
+  void testCacheValidMetadata() {
+    nextResult.set(Result.found(metadata));
+    assertSame(metadata, underTest.get(URL));
+    assertSame(metadata, underTest.get(URL));
+    assertEquals(1, loadCount.get());
+    assertEquals(1, underTest.getStats().hitCount());
+    assertEquals(1, underTest.getStats().missCount());
+  }
+
+  @Test
+  void testStaleWhileRevalidate() throws Exception {
+    nextResult.set(Result.found(metadata));
+    assertSame(metadata, underTest.get(URL));
+
+    // after TTL: serve stale metadata and refresh it
+    NextGenDynamicMediaMetadata updatedMetadata = NextGenDynamicMediaMetadata.fromJson(METADATA_JSON_IMAGE);
+    nextResult.set(Result.found(updatedMetadata));
+    advance(11);
+    assertSame(metadata, underTest.get(URL));
+    assertEquals(2, loadCount.get());
+    assertSame(updatedMetadata, underTest.get(URL));
+    assertEquals(2, loadCount.get());
+  }
+
+  @Test
+  void testStaleWhileRevalidate_TransientError() {
+    nextResult.set(Result.found(metadata));
+    assertSame(metadata, underTest.get(URL));
+
+    // refresh fails: keep serving stale metadata
+    nextResult.set(null);
+    advance(11);
+    assertSame(metadata, underTest.get(URL));
+    assertSame(metadata, underTest.get(URL));
+
+    // after stale-while-revalidate period metadata is removed
+    advance(60);
+    assertNull(underTest.get(URL));
+  }
+
+  @Test
+  void testNegativeCaching() {
+    nextResult.set(Result.notFound());
+    assertNull(underTest.get(URL));
+    assertNull(underTest.get(URL));
+    assertEquals(1, loadCount.get());
+
+    // after negative TTL load again
+    nextResult.set(Result.found(metadata));
+    advance(6);
+    assertNotNull(underTest.get(URL));
+    assertEquals(2, loadCount.get());
+  }
+
+  @Test
+  void testTransientErrorNotCached() {
+    nextResult.set(null);
+    assertNull(underTest.get(URL));
+    assertNull(underTest.get(URL));
+    assertEquals(2, loadCount.get());
+  }
+
+  private void advance(long seconds) {
+    time.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+  }
+
+}
@@ -22,18 +22,29 @@ package io.wcm.handler.mediasource.ngdm.impl.metadata;
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static io.wcm.handler.mediasource.ngdm.impl.NextGenDynamicMediaReferenceSample.SAMPLE_ASSET_ID;
 import static io.wcm.handler.mediasource.ngdm.impl.NextGenDynamicMediaReferenceSample.SAMPLE_REFERENCE;
 import static io.wcm.handler.mediasource.ngdm.impl.metadata.MetadataSample.METADATA_JSON_IMAGE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import org.apache.http.HttpStatus;
+import org.apache.http.pool.PoolStats;
+import org.apache.sling.testing.mock.osgi.MockOsgi;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 
 import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
 import com.github.tomakehurst.wiremock.junit5.WireMockTest;
@@ -148,4 +159,231 @@ class NextGenDynamicMediaMetadataServiceImplTest {
     assertNull(metadata);
   }
 
+  @Test
+  void testCachedResponse() {
+    NextGenDynamicMediaMetadataService underTest = context.registerInjectActivateService(NextGenDynamicMediaMetadataServiceImpl.class,
+        "enabled", true);
+    stubFor(get("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")
+      .willReturn(aResponse()
+        .withStatus(HttpStatus.SC_OK)
+        .withHeader("Content-Type", ContentType.JSON)
+        .withBody(METADATA_JSON_IMAGE)));
+
+    assertNotNull(underTest.fetchMetadata(REFERENCE));
+    assertNotNull(underTest.fetchMetadata(REFERENCE));
+    verify(1, getRequestedFor(urlEqualTo("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")));
+  }
+
+  @Test
+  void testCachedResponse_NotFound() {
+    NextGenDynamicMediaMetadataService underTest = context.registerInjectActivateService(NextGenDynamicMediaMetadataServiceImpl.class,
+        "enabled", true);
+
+    assertNull(underTest.fetchMetadata(REFERENCE));
+    assertNull(underTest.fetchMetadata(REFERENCE));
+    verify(1, getRequestedFor(urlEqualTo("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")));
+  }
+
+  @Test
+  void testCachedResponse_UnexpectedReturnCode() {
+    NextGenDynamicMediaMetadataService underTest = context.registerInjectActivateService(NextGenDynamicMediaMetadataServiceImpl.class,
+        "enabled", true);
+    stubFor(get("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")
+      .willReturn(aResponse()
+        .withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+
+    // transient errors are not cached
+    assertNull(underTest.fetchMetadata(REFERENCE));
+    assertNull(underTest.fetchMetadata(REFERENCE));
+    verify(2, getRequestedFor(urlEqualTo("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")));
+  }
+
+  @Test
+  void testCacheDisabled() {
+    NextGenDynamicMediaMetadataService underTest = context.registerInjectActivateService(NextGenDynamicMediaMetadataServiceImpl.class,
+        "enabled", true,
+        "cacheEnabled", false);
+    stubFor(get("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")
+      .willReturn(aResponse()
+        .withStatus(HttpStatus.SC_OK)
+        .withHeader("Content-Type", ContentType.JSON)
+        .withBody(METADATA_JSON_IMAGE)));
+
+    assertNotNull(underTest.fetchMetadata(REFERENCE));
+    assertNotNull(underTest.fetchMetadata(REFERENCE));
+    verify(2, getRequestedFor(urlEqualTo("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")));
+  }
+
+  @Test
+  void testCacheSnapshot(@TempDir Path directory) {
+    Path snapshotFile = directory.resolve("snapshot.bin");
+    NextGenDynamicMediaMetadataService underTest = context.registerInjectActivateService(NextGenDynamicMediaMetadataServiceImpl.class,
+        "enabled", true,
+        "cacheSnapshotEnabled", true,
+        "cacheSnapshotFile", snapshotFile.toString());
+    stubFor(get("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")
+      .willReturn(aResponse()
+        .withStatus(HttpStatus.SC_OK)
+        .withHeader("Content-Type", ContentType.JSON)
+        .withBody(METADATA_JSON_IMAGE)));
+
+    assertNotNull(underTest.fetchMetadata(REFERENCE));
+    MockOsgi.deactivate(underTest, context.bundleContext());
+    assertTrue(Files.exists(snapshotFile));
+
+    // after restart: metadata is preloaded from snapshot
+    underTest = context.registerInjectActivateService(NextGenDynamicMediaMetadataServiceImpl.class,
+        "enabled", true,
+        "cacheSnapshotEnabled", true,
+        "cacheSnapshotFile", snapshotFile.toString());
+    NextGenDynamicMediaMetadata metadata = underTest.fetchMetadata(REFERENCE);
+    assertNotNull(metadata);
+    assertEquals("image/jpeg", metadata.getMimeType());
+    verify(1, getRequestedFor(urlEqualTo("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")));
+  }
+
+  @Test
+  void testCacheSnapshot_ConfigurationChanged(@TempDir Path directory) {
+    Path snapshotFile = directory.resolve("snapshot.bin");
+    NextGenDynamicMediaMetadataService underTest = context.registerInjectActivateService(NextGenDynamicMediaMetadataServiceImpl.class,
+        "enabled", true,
+        "cacheSnapshotEnabled", true,
+        "cacheSnapshotFile", snapshotFile.toString());
+    stubFor(get("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")
+      .willReturn(aResponse()
+        .withStatus(HttpStatus.SC_OK)
+        .withHeader("Content-Type", ContentType.JSON)
+        .withBody(METADATA_JSON_IMAGE)));
+
+    assertNotNull(underTest.fetchMetadata(REFERENCE));
+    MockOsgi.deactivate(underTest, context.bundleContext());
+
+    // after restart with other metadata properties: snapshot is ignored
+    underTest = context.registerInjectActivateService(NextGenDynamicMediaMetadataServiceImpl.class,
+        "enabled", true,
+        "cacheSnapshotEnabled", true,
+        "cacheSnapshotFile", snapshotFile.toString(),
+        "metadataProperties", new String[] { "dc:title" });
+    assertNotNull(underTest.fetchMetadata(REFERENCE));
+    verify(2, getRequestedFor(urlEqualTo("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")));
+  }
+
+  @Test
+  void testConnectionPool() {
+    NextGenDynamicMediaMetadataServiceImpl underTest = context.registerInjectActivateService(NextGenDynamicMediaMetadataServiceImpl.class,
+        "enabled", true,
+        "maxConnectionsTotal", 5,
+        "maxConnectionsPerRoute", 2);
+    stubFor(get("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")
+      .willReturn(aResponse()
+        .withStatus(HttpStatus.SC_OK)
+        .withHeader("Content-Type", ContentType.JSON)
+        .withBody(METADATA_JSON_IMAGE)));
+
+    assertNotNull(underTest.fetchMetadata(REFERENCE));
+
+    PoolStats stats = underTest.getConnectionPoolStats();
+    assertNotNull(stats);
+    assertEquals(5, stats.getMax());
+    assertEquals(0, stats.getLeased());
+    assertEquals(0, stats.getPending());
+    // connection is kept alive for re-use
+    assertEquals(1, stats.getAvailable());
+  }
+
+  @Test
+  void testLatencyBudget() {
+    NextGenDynamicMediaMetadataServiceImpl underTest = context.registerInjectActivateService(NextGenDynamicMediaMetadataServiceImpl.class,
+        "enabled", true,
+        "cacheEnabled", false,
+        "latencyBudgetMs", 300);
+    // each chunk arrives within the socket timeout, but the whole response exceeds the latency budget
+    stubFor(get("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")
+      .willReturn(aResponse()
+        .withStatus(HttpStatus.SC_OK)
+        .withHeader("Content-Type", ContentType.JSON)
+        .withBody(METADATA_JSON_IMAGE)
+        .withChunkedDribbleDelay(10, 2000)));
+
+    long start = System.currentTimeMillis();
+    assertNull(underTest.fetchMetadata(REFERENCE));
+    assertTrue(System.currentTimeMillis() - start < 1500);
+  }
+
+  @Test
+  void testCircuitBreaker() {
+    NextGenDynamicMediaMetadataServiceImpl underTest = context.registerInjectActivateService(NextGenDynamicMediaMetadataServiceImpl.class,
+        "enabled", true,
+        "circuitBreakerWindowSize", 4,
+        "circuitBreakerMinCalls", 2);
+    stubFor(get("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")
+      .willReturn(aResponse()
+        .withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+
+    assertFalse(underTest.fetchMetadataResult(REFERENCE).isShortCircuited());
+    assertFalse(underTest.fetchMetadataResult(REFERENCE).isShortCircuited());
+
+    // circuit is open: metadata API is not called
+    NextGenDynamicMediaMetadataResult result = underTest.fetchMetadataResult(REFERENCE);
+    assertNull(result.getMetadata());
+    assertTrue(result.isShortCircuited());
+    verify(2, getRequestedFor(urlEqualTo("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")));
+
+    CircuitBreaker circuitBreaker = underTest.getCircuitBreaker();
+    assertNotNull(circuitBreaker);
+    assertEquals(1, circuitBreaker.getTransitionCount(CircuitBreaker.State.OPEN));
+    assertEquals(1, circuitBreaker.getShortCircuitCount());
+  }
+
+  @Test
+  void testCircuitBreaker_HalfOpenProbeCallsExhausted() {
+    NextGenDynamicMediaMetadataServiceImpl underTest = context.registerInjectActivateService(NextGenDynamicMediaMetadataServiceImpl.class,
+        "enabled", true,
+        "circuitBreakerWindowSize", 4,
+        "circuitBreakerMinCalls", 2,
+        "circuitBreakerOpenDurationSeconds", 0L,
+        "circuitBreakerHalfOpenCalls", 1);
+    stubFor(get("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")
+      .willReturn(aResponse()
+        .withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+
+    assertNull(underTest.fetchMetadata(REFERENCE));
+    assertNull(underTest.fetchMetadata(REFERENCE));
+
+    // simulate probe call of a concurrent request that is still in progress
+    CircuitBreaker circuitBreaker = underTest.getCircuitBreaker();
+    assertNotNull(circuitBreaker);
+    assertTrue(circuitBreaker.tryAcquirePermission());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+    // probe calls are exhausted: metadata API is not called, asset is resolved without metadata
+    NextGenDynamicMediaMetadataResult result = underTest.fetchMetadataResult(REFERENCE);
+    assertNull(result.getMetadata());
+    assertTrue(result.isShortCircuited());
+    verify(2, getRequestedFor(urlEqualTo("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")));
+  }
+
+  @Test
+  void testCircuitBreaker_Disabled() {
+    NextGenDynamicMediaMetadataServiceImpl underTest = context.registerInjectActivateService(NextGenDynamicMediaMetadataServiceImpl.class,
+        "enabled", true,
+        "circuitBreakerEnabled", false,
+        "circuitBreakerMinCalls", 1);
+    stubFor(get("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")
+      .willReturn(aResponse()
+        .withStatus(HttpStatus.SC_SERVICE_UNAVAILABLE)));
+
+    assertNull(underTest.fetchMetadata(REFERENCE));
+    assertFalse(underTest.fetchMetadataResult(REFERENCE).isShortCircuited());
+    assertNull(underTest.getCircuitBreaker());
+    verify(2, getRequestedFor(urlEqualTo("/adobe/assets/" + SAMPLE_ASSET_ID + "/metadata")));
+  }
+
+  @Test
+  void testConnectionPool_Disabled() {
+    NextGenDynamicMediaMetadataServiceImpl underTest = context.registerInjectActivateService(NextGenDynamicMediaMetadataServiceImpl.class,
+        "enabled", false);
+    assertNull(underTest.getConnectionPoolStats());
+  }
+
 }
@@ -122,6 +122,8 @@ class NextGenDynamicMediaMetadataServiceImpl_ImsAccessTokenTest {
     assertEquals("image/jpeg", metadata.getMimeType());
     assertEquals("Test Image", metadata.getProperties().get(DC_TITLE, String.class));
     assertEquals("Test Description", metadata.getProperties().get(DC_DESCRIPTION, String.class));
+    // all properties are kept by default
+    assertEquals(1500L, metadata.getProperties().get("tiff:ImageWidth", 0L));
   }
 
   @Test
@@ -0,0 +1,95 @@
+/*
+ * #%L
+ * wcm.io
+ * %%
+ * Copyright (C) 2026 wcm.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package io.wcm.handler.mediasource.ngdm.impl.metadata;
+
+import static io.wcm.handler.mediasource.ngdm.impl.metadata.MetadataSample.METADATA_JSON_IMAGE;
+import static io.wcm.handler.mediasource.ngdm.impl.metadata.MetadataSample.METADATA_JSON_PDF;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.wcm.handler.mediasource.ngdm.impl.metadata.NextGenDynamicMediaMetadataSnapshot.Entry;
+
+class NextGenDynamicMediaMetadataSnapshotTest {
+
+  private static final String FINGERPRINT = "repository=repo1|properties=*";
+
+  @TempDir
+  private Path directory;
+
+  @Test
+  void testWriteRead() throws IOException {
+    NextGenDynamicMediaMetadata image = NextGenDynamicMediaMetadata.fromJson(METADATA_JSON_IMAGE);
+    NextGenDynamicMediaMetadata pdf = NextGenDynamicMediaMetadata.fromJson(METADATA_JSON_PDF);
+    Path file = directory.resolve("snapshot.bin");
+
+    NextGenDynamicMediaMetadataSnapshot.write(file, FINGERPRINT, List.of(
+        new Entry("https://host/url1", 1000L, image),
+        new Entry("https://host/url2", 2000L, pdf)));
+    assertFalse(Files.exists(directory.resolve("snapshot.bin.tmp")));
+
+    List<Entry> entries = NextGenDynamicMediaMetadataSnapshot.read(file, FINGERPRINT);
+    assertEquals(2, entries.size());
+    assertEquals("https://host/url1", entries.get(0).getMetadataUrl());
+    assertEquals(1000L, entries.get(0).getLoadedAtMillis());
+    assertEquals(image.toString(), entries.get(0).getMetadata().toString());
+    assertEquals("https://host/url2", entries.get(1).getMetadataUrl());
+    assertEquals(2000L, entries.get(1).getLoadedAtMillis());
+    assertEquals(pdf.toString(), entries.get(1).getMetadata().toString());
+  }
+
+  @Test
+  void testReadOtherFingerprint() throws IOException {
+    Path file = directory.resolve("snapshot.bin");
+    NextGenDynamicMediaMetadataSnapshot.write(file, FINGERPRINT, List.of(
+        new Entry("https://host/url1", 1000L, NextGenDynamicMediaMetadata.fromJson(METADATA_JSON_IMAGE))));
+
+    assertTrue(NextGenDynamicMediaMetadataSnapshot.read(file, "repository=repo2|properties=*").isEmpty());
+  }
+
+  @Test
+  void testReadNonExistingFile() throws IOException {
+    assertTrue(NextGenDynamicMediaMetadataSnapshot.read(directory.resolve("snapshot.bin"), FINGERPRINT).isEmpty());
+  }
+
+  @Test
+  void testReadCorruptFile() throws IOException {
+    Path file = directory.resolve("snapshot.bin");
+    NextGenDynamicMediaMetadataSnapshot.write(file, FINGERPRINT, List.of(
+        new Entry("https://host/url1", 1000L, NextGenDynamicMediaMetadata.fromJson(METADATA_JSON_IMAGE))));
+    byte[] data = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(data, data.length / 2));
+    assertThrows(IOException.class, () -> NextGenDynamicMediaMetadataSnapshot.read(file, FINGERPRINT));
+
+    Files.writeString(file, "no snapshot");
+    assertThrows(IOException.class, () -> NextGenDynamicMediaMetadataSnapshot.read(file, FINGERPRINT));
+  }
+
+}
@@ -32,6 +32,12 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Set;
+
 import org.junit.jupiter.api.Test;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -87,6 +93,21 @@ class NextGenDynamicMediaMetadataTest {
         metadata.toString());
   }
 
+  @Test
+  void testSampleJson_Image_Full_PropertyNames() throws IOException {
+    NextGenDynamicMediaMetadata metadata = NextGenDynamicMediaMetadata.fromJson(
+        new ByteArrayInputStream(METADATA_JSON_IMAGE_FULL.getBytes(StandardCharsets.UTF_8)), Set.of(DC_TITLE));
+    Dimension dimension = metadata.getDimension();
+    assertNotNull(dimension);
+    assertEquals(1500, dimension.getWidth());
+    assertEquals(900, dimension.getHeight());
+    assertEquals(ASSET_STATUS_APPROVED, metadata.getAssetStatus());
+    assertTrue(metadata.isValid());
+    // only requested properties are kept
+    assertEquals(Map.of(DC_TITLE, "Test Image"), Map.copyOf(metadata.getProperties()));
+    assertThrows(UnsupportedOperationException.class, () -> metadata.getProperties().put(DC_DESCRIPTION, "value"));
+  }
+
   @Test
   void testSampleJson_PDF() throws JsonProcessingException {
     NextGenDynamicMediaMetadata metadata = NextGenDynamicMediaMetadata.fromJson(METADATA_JSON_PDF);